@@ -0,0 +1,92 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+package org.elasticsearch.benchmark.common.cache;
+
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of {@link Cache} lookups by 64 threads, while another thread keeps writing to the cache, for both eviction
+ * policies. Keys are drawn from a skewed distribution, so that some entries are hot and others miss the cache.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Group)
+@SuppressWarnings("unused") // invoked by benchmarking framework
+public class CacheContentionBenchmark {
+
+    private static final int NUMBER_OF_KEYS = 1 << 16;
+
+    @Param({ "LRU", "W_TINY_LFU" })
+    private CacheBuilder.EvictionPolicy evictionPolicy;
+
+    @Param({ "16384" })
+    private int maximumWeight;
+
+    private Cache<Integer, Integer> cache;
+    private int[] keys;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        cache = CacheBuilder.<Integer, Integer>builder().setEvictionPolicy(evictionPolicy).setMaximumWeight(maximumWeight).build();
+        // a zipf-like distribution, the lower keys are requested a lot more often than the higher ones
+        Random random = new Random(42);
+        keys = new int[NUMBER_OF_KEYS];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = (int) Math.floor(Math.pow(NUMBER_OF_KEYS, random.nextDouble())) - 1;
+        }
+        for (int i = 0; i < maximumWeight; i++) {
+            cache.put(keys[i], i);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private int index = new Random().nextInt(NUMBER_OF_KEYS);
+
+        int nextIndex() {
+            return index = (index + 1) & (NUMBER_OF_KEYS - 1);
+        }
+    }
+
+    @Benchmark
+    @Group("contention")
+    @GroupThreads(64)
+    public Integer read(ThreadState state) {
+        return cache.get(keys[state.nextIndex()]);
+    }
+
+    @Benchmark
+    @Group("contention")
+    @GroupThreads(1)
+    public void write(ThreadState state) {
+        final int index = state.nextIndex();
+        cache.put(keys[index], index);
+    }
+}
@@ -46,7 +46,9 @@ import org.elasticsearch.xpack.esql.expression.function.scalar.string.RLike;
 import org.elasticsearch.xpack.esql.expression.function.scalar.string.ToLower;
 import org.elasticsearch.xpack.esql.expression.function.scalar.string.ToUpper;
 import org.elasticsearch.xpack.esql.expression.predicate.operator.arithmetic.Add;
+import org.elasticsearch.xpack.esql.expression.predicate.operator.arithmetic.Mul;
 import org.elasticsearch.xpack.esql.expression.predicate.operator.comparison.Equals;
+import org.elasticsearch.xpack.esql.expression.predicate.operator.comparison.LessThan;
 import org.elasticsearch.xpack.esql.planner.Layout;
 import org.elasticsearch.xpack.esql.plugin.EsqlPlugin;
 import org.elasticsearch.xpack.esql.session.Configuration;
@@ -113,6 +115,8 @@ public class EvalBenchmark {
             "equal_to_const",
             "long_equal_to_long",
             "long_equal_to_int",
+            "long_less_than_long",
+            "mul_double",
             "mv_min",
             "mv_min_ascending",
             "rlike",
@@ -216,6 +220,19 @@ public class EvalBenchmark {
                 FieldAttribute rhs = intField();
                 yield EvalMapper.toEvaluator(FOLD_CONTEXT, new Equals(Source.EMPTY, lhs, rhs), layout(lhs, rhs)).get(driverContext);
             }
+            case "long_less_than_long" -> {
+                FieldAttribute lhs = longField();
+                FieldAttribute rhs = longField();
+                yield EvalMapper.toEvaluator(FOLD_CONTEXT, new LessThan(Source.EMPTY, lhs, rhs), layout(lhs, rhs)).get(driverContext);
+            }
+            case "mul_double" -> {
+                FieldAttribute doubleField = doubleField();
+                yield EvalMapper.toEvaluator(
+                    FOLD_CONTEXT,
+                    new Mul(Source.EMPTY, doubleField, new Literal(Source.EMPTY, 2D, DataType.DOUBLE)),
+                    layout(doubleField)
+                ).get(driverContext);
+            }
             case "mv_min", "mv_min_ascending" -> {
                 FieldAttribute longField = longField();
                 yield EvalMapper.toEvaluator(FOLD_CONTEXT, new MvMin(Source.EMPTY, longField), layout(longField)).get(driverContext);
@@ -387,6 +404,23 @@ public class EvalBenchmark {
                     }
                 }
             }
+            case "long_less_than_long" -> {
+                BooleanVector v = actual.<BooleanBlock>getBlock(2).asVector();
+                for (int i = 0; i < BLOCK_LENGTH; i++) {
+                    boolean expected = i % 2 == 0;
+                    if (v.getBoolean(i) != expected) {
+                        throw new AssertionError("[" + operation + "] expected [" + expected + "] but was [" + v.getBoolean(i) + "]");
+                    }
+                }
+            }
+            case "mul_double" -> {
+                DoubleVector v = actual.<DoubleBlock>getBlock(1).asVector();
+                for (int i = 0; i < BLOCK_LENGTH; i++) {
+                    if (v.getDouble(i) != i * 200_000D) {
+                        throw new AssertionError("[" + operation + "] expected [" + (i * 200_000D) + "] but was [" + v.getDouble(i) + "]");
+                    }
+                }
+            }
             case "mv_min", "mv_min_ascending" -> {
                 LongVector v = actual.<LongBlock>getBlock(1).asVector();
                 for (int i = 0; i < BLOCK_LENGTH; i++) {
@@ -431,7 +465,7 @@ public class EvalBenchmark {
                 }
                 yield new Page(builder.build());
             }
-            case "add_double" -> {
+            case "add_double", "mul_double" -> {
                 var builder = blockFactory.newDoubleBlockBuilder(BLOCK_LENGTH);
                 for (int i = 0; i < BLOCK_LENGTH; i++) {
                     builder.appendDouble(i * 100_000D);
@@ -478,6 +512,15 @@ public class EvalBenchmark {
                 }
                 yield new Page(lhs.build(), rhs.build());
             }
+            case "long_less_than_long" -> {
+                var lhs = blockFactory.newLongBlockBuilder(BLOCK_LENGTH);
+                var rhs = blockFactory.newLongBlockBuilder(BLOCK_LENGTH);
+                for (int i = 0; i < BLOCK_LENGTH; i++) {
+                    lhs.appendLong(i * 100_000);
+                    rhs.appendLong(i * 100_000 + (i % 2 == 0 ? 1 : -1));
+                }
+                yield new Page(lhs.build(), rhs.build());
+            }
             case "mv_min", "mv_min_ascending" -> {
                 var builder = blockFactory.newLongBlockBuilder(BLOCK_LENGTH);
                 if (operation.endsWith("ascending")) {
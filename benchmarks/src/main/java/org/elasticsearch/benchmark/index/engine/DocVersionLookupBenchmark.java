@@ -0,0 +1,131 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+package org.elasticsearch.benchmark.index.engine;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.lucene.uid.VersionsAndSeqNoResolver;
+import org.elasticsearch.core.IOUtils;
+import org.elasticsearch.index.mapper.IdFieldMapper;
+import org.elasticsearch.index.mapper.SeqNoFieldMapper;
+import org.elasticsearch.index.mapper.Uid;
+import org.elasticsearch.index.mapper.VersionFieldMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures resolving the versions of the documents of a shard bulk request one document at a time, as done when the operations are
+ * applied, against resolving all of them ahead in one sorted pass, as done for bulks of at least
+ * {@code index.bulk.version_prefetch_min_docs} documents. Some of the ids of every bulk exist and some don't, like a mix of updates
+ * and new documents.
+ */
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 7, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class DocVersionLookupBenchmark {
+
+    @Param({ "2", "10", "100", "1000" })
+    private int bulkSize;
+
+    @Param({ "1000000" })
+    private int numDocs;
+
+    @Param({ "20" })
+    private int numSegments;
+
+    private Path path;
+    private Directory directory;
+    private DirectoryReader reader;
+    private BytesRef[][] bulks;
+    private int nextBulk;
+
+    @Setup
+    public void setup() throws IOException {
+        path = Files.createTempDirectory("doc-versions");
+        directory = FSDirectory.open(path);
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+            final int docsPerSegment = numDocs / numSegments;
+            for (int i = 0; i < numDocs; i++) {
+                final Document doc = new Document();
+                doc.add(new StringField(IdFieldMapper.NAME, Uid.encodeId(Integer.toString(i)), Field.Store.NO));
+                doc.add(new NumericDocValuesField(VersionFieldMapper.NAME, 1));
+                doc.add(new NumericDocValuesField(SeqNoFieldMapper.NAME, i));
+                doc.add(new NumericDocValuesField(SeqNoFieldMapper.PRIMARY_TERM_NAME, 1));
+                writer.addDocument(doc);
+                if ((i + 1) % docsPerSegment == 0) {
+                    writer.flush();
+                }
+            }
+            writer.commit();
+        }
+        reader = DirectoryReader.open(directory);
+
+        final Random random = new Random(42);
+        bulks = new BytesRef[1024][];
+        for (int b = 0; b < bulks.length; b++) {
+            bulks[b] = new BytesRef[bulkSize];
+            for (int i = 0; i < bulkSize; i++) {
+                // ids above numDocs don't exist yet
+                bulks[b][i] = Uid.encodeId(Integer.toString(random.nextInt(numDocs * 2)));
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        IOUtils.close(reader, directory);
+        IOUtils.rm(path);
+    }
+
+    @Benchmark
+    public void oneAtATime(Blackhole bh) throws IOException {
+        for (BytesRef uid : nextBulk()) {
+            bh.consume(VersionsAndSeqNoResolver.timeSeriesLoadDocIdAndVersion(reader, uid, true));
+        }
+    }
+
+    @Benchmark
+    public void prefetched(Blackhole bh) throws IOException {
+        bh.consume(VersionsAndSeqNoResolver.loadDocIdsAndVersions(reader, nextBulk(), true));
+    }
+
+    private BytesRef[] nextBulk() {
+        nextBulk = (nextBulk + 1) % bulks.length;
+        return bulks[nextBulk];
+    }
+}
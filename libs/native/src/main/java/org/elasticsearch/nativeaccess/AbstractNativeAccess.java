@@ -15,6 +15,9 @@ import org.elasticsearch.nativeaccess.lib.JavaLibrary;
 import org.elasticsearch.nativeaccess.lib.NativeLibraryProvider;
 import org.elasticsearch.nativeaccess.lib.ZstdLibrary;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
 abstract class AbstractNativeAccess implements NativeAccess {
 
     protected static final Logger logger = LogManager.getLogger(NativeAccess.class);
@@ -51,6 +54,12 @@ abstract class AbstractNativeAccess implements NativeAccess {
         return javaLib.newBuffer(len);
     }
 
+    @Override
+    public CloseableByteBuffer mapReadOnly(FileChannel channel, long position, long size) throws IOException {
+        assert position >= 0 && size >= 0;
+        return javaLib.mapReadOnly(channel, position, size);
+    }
+
     @Override
     public boolean isMemoryLocked() {
         return isMemoryLocked;
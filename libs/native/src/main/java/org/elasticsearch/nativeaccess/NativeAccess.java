@@ -9,6 +9,8 @@
 
 package org.elasticsearch.nativeaccess;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
 import java.util.Optional;
 import java.util.OptionalLong;
@@ -95,6 +97,18 @@ public interface NativeAccess {
      */
     CloseableByteBuffer newBuffer(int len);
 
+    /**
+     * Maps a region of the given file into a read-only {@link CloseableByteBuffer}. Unlike the buffers returned by
+     * {@link FileChannel#map}, which are only unmapped once GC has cleaned up all references to them, the mapping is
+     * released as soon as the buffer is closed. The buffer may be used and closed from any thread, but must not be
+     * used anymore once closed.
+     * @param channel the channel of the file to map
+     * @param position the position within the file at which the mapped region starts
+     * @param size the size of the mapped region
+     * @return the buffer, or {@code null} if native access is not available
+     */
+    CloseableByteBuffer mapReadOnly(FileChannel channel, long position, long size) throws IOException;
+
     /**
      * Possible stats for execution filtering.
      */
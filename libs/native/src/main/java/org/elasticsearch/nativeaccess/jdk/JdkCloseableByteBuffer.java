@@ -21,8 +21,19 @@ class JdkCloseableByteBuffer implements CloseableByteBuffer {
     private final ByteBuffer bufferView;
 
     JdkCloseableByteBuffer(int len) {
-        this.arena = Arena.ofConfined();
-        this.segment = arena.allocate(len);
+        this(Arena.ofConfined(), len);
+    }
+
+    private JdkCloseableByteBuffer(Arena arena, int len) {
+        this(arena, arena.allocate(len));
+    }
+
+    /**
+     * Wraps a segment of the given arena, which is closed along with this buffer.
+     */
+    JdkCloseableByteBuffer(Arena arena, MemorySegment segment) {
+        this.arena = arena;
+        this.segment = segment;
         this.bufferView = segment.asByteBuffer();
     }
 
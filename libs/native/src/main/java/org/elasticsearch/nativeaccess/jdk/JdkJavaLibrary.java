@@ -12,9 +12,25 @@ package org.elasticsearch.nativeaccess.jdk;
 import org.elasticsearch.nativeaccess.CloseableByteBuffer;
 import org.elasticsearch.nativeaccess.lib.JavaLibrary;
 
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.nio.channels.FileChannel;
+
 class JdkJavaLibrary implements JavaLibrary {
     @Override
     public CloseableByteBuffer newBuffer(int len) {
         return new JdkCloseableByteBuffer(len);
     }
+
+    @Override
+    public CloseableByteBuffer mapReadOnly(FileChannel channel, long position, long size) throws IOException {
+        // shared, since the mapping may be read and closed by other threads than the one that created it
+        Arena arena = Arena.ofShared();
+        try {
+            return new JdkCloseableByteBuffer(arena, channel.map(FileChannel.MapMode.READ_ONLY, position, size, arena));
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
 }
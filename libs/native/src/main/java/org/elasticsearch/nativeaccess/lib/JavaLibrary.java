@@ -11,6 +11,11 @@ package org.elasticsearch.nativeaccess.lib;
 
 import org.elasticsearch.nativeaccess.CloseableByteBuffer;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
 public non-sealed interface JavaLibrary extends NativeLibrary {
     CloseableByteBuffer newBuffer(int len);
+
+    CloseableByteBuffer mapReadOnly(FileChannel channel, long position, long size) throws IOException;
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.nativeaccess;
+
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class MapReadOnlyTests extends ESTestCase {
+
+    public void testMapReadOnly() throws IOException {
+        byte[] bytes = randomByteArrayOfLength(between(1, 10_000));
+        Path file = createTempFile();
+        Files.write(file, bytes);
+        int position = between(0, bytes.length - 1);
+        int size = between(0, bytes.length - position);
+        ByteBuffer view;
+        try (
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            CloseableByteBuffer mapping = NativeAccess.instance().mapReadOnly(channel, position, size)
+        ) {
+            assumeTrue("native access is not available", mapping != null);
+            view = mapping.buffer();
+            assertThat(view.remaining(), equalTo(size));
+            assertTrue(view.isReadOnly());
+            expectThrows(ReadOnlyBufferException.class, () -> view.put(0, (byte) 1));
+            for (int i = 0; i < size; i++) {
+                assertThat(view.get(i), equalTo(bytes[position + i]));
+            }
+        }
+        if (size > 0) {
+            // the mapping is released on close rather than once the buffer is garbage collected
+            expectThrows(IllegalStateException.class, () -> view.get(0));
+        }
+    }
+}
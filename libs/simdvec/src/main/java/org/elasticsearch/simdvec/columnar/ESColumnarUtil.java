@@ -0,0 +1,144 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.simdvec.columnar;
+
+import org.elasticsearch.simdvec.internal.vectorization.ESColumnarUtilSupport;
+import org.elasticsearch.simdvec.internal.vectorization.ESVectorizationProvider;
+
+/**
+ * Operations over columns of primitive values, like the values of a page of an ES|QL query.
+ * Each operation processes the first {@code length} values of its arguments, using the
+ * Panama vector API when it is available.
+ * <p>
+ *     Arithmetic operations always fill the whole {@code result}, but they return {@code false}
+ *     if any value overflowed, or wasn't finite for doubles. Callers are expected to fall back
+ *     to processing the values one by one in that case so they can report which values failed.
+ * </p>
+ */
+public final class ESColumnarUtil {
+
+    private static final ESColumnarUtilSupport IMPL = ESVectorizationProvider.getInstance().getColumnarUtilSupport();
+
+    private ESColumnarUtil() {}
+
+    /**
+     * Comparisons supported by the {@code compare} methods.
+     */
+    public enum Comparison {
+        EQ,
+        NEQ,
+        GT,
+        GTE,
+        LT,
+        LTE;
+    }
+
+    /**
+     * Adds {@code lhs} and {@code rhs} into {@code result}, returning {@code false} if any of the additions overflowed.
+     */
+    public static boolean addExact(int[] lhs, int[] rhs, int[] result, int length) {
+        checkLength(lhs.length, rhs.length, result.length, length);
+        return IMPL.addExact(lhs, rhs, result, length);
+    }
+
+    /**
+     * Adds {@code lhs} and {@code rhs} into {@code result}, returning {@code false} if any of the additions overflowed.
+     */
+    public static boolean addExact(long[] lhs, long[] rhs, long[] result, int length) {
+        checkLength(lhs.length, rhs.length, result.length, length);
+        return IMPL.addExact(lhs, rhs, result, length);
+    }
+
+    /**
+     * Subtracts {@code rhs} from {@code lhs} into {@code result}, returning {@code false} if any of the subtractions overflowed.
+     */
+    public static boolean subtractExact(int[] lhs, int[] rhs, int[] result, int length) {
+        checkLength(lhs.length, rhs.length, result.length, length);
+        return IMPL.subtractExact(lhs, rhs, result, length);
+    }
+
+    /**
+     * Subtracts {@code rhs} from {@code lhs} into {@code result}, returning {@code false} if any of the subtractions overflowed.
+     */
+    public static boolean subtractExact(long[] lhs, long[] rhs, long[] result, int length) {
+        checkLength(lhs.length, rhs.length, result.length, length);
+        return IMPL.subtractExact(lhs, rhs, result, length);
+    }
+
+    /**
+     * Adds {@code lhs} and {@code rhs} into {@code result}, returning {@code false} if any of the results isn't finite.
+     */
+    public static boolean add(double[] lhs, double[] rhs, double[] result, int length) {
+        checkLength(lhs.length, rhs.length, result.length, length);
+        return IMPL.add(lhs, rhs, result, length);
+    }
+
+    /**
+     * Subtracts {@code rhs} from {@code lhs} into {@code result}, returning {@code false} if any of the results isn't finite.
+     */
+    public static boolean subtract(double[] lhs, double[] rhs, double[] result, int length) {
+        checkLength(lhs.length, rhs.length, result.length, length);
+        return IMPL.subtract(lhs, rhs, result, length);
+    }
+
+    /**
+     * Multiplies {@code lhs} and {@code rhs} into {@code result}, returning {@code false} if any of the results isn't finite.
+     */
+    public static boolean multiply(double[] lhs, double[] rhs, double[] result, int length) {
+        checkLength(lhs.length, rhs.length, result.length, length);
+        return IMPL.multiply(lhs, rhs, result, length);
+    }
+
+    /**
+     * Compares {@code lhs} with {@code rhs}, storing the result of each comparison in {@code result}.
+     */
+    public static void compare(int[] lhs, int[] rhs, boolean[] result, int length, Comparison comparison) {
+        checkLength(lhs.length, rhs.length, result.length, length);
+        IMPL.compare(lhs, rhs, result, length, comparison);
+    }
+
+    /**
+     * Compares {@code lhs} with {@code rhs}, storing the result of each comparison in {@code result}.
+     */
+    public static void compare(long[] lhs, long[] rhs, boolean[] result, int length, Comparison comparison) {
+        checkLength(lhs.length, rhs.length, result.length, length);
+        IMPL.compare(lhs, rhs, result, length, comparison);
+    }
+
+    /**
+     * Compares {@code lhs} with {@code rhs}, storing the result of each comparison in {@code result}.
+     */
+    public static void compare(double[] lhs, double[] rhs, boolean[] result, int length, Comparison comparison) {
+        checkLength(lhs.length, rhs.length, result.length, length);
+        IMPL.compare(lhs, rhs, result, length, comparison);
+    }
+
+    /**
+     * Writes the indices of the {@code true} values of {@code mask} in ascending order into {@code indices}.
+     * {@code indices} must be at least {@code length} long because it may be used as scratch space.
+     * @return the number of {@code true} values
+     */
+    public static int indicesOfTrue(boolean[] mask, int length, int[] indices) {
+        if (mask.length < length || indices.length < length) {
+            throw new IllegalArgumentException(
+                "length [" + length + "] is greater than the mask [" + mask.length + "] or the indices [" + indices.length + "]"
+            );
+        }
+        return IMPL.indicesOfTrue(mask, length, indices);
+    }
+
+    private static void checkLength(int lhs, int rhs, int result, int length) {
+        if (lhs < length || rhs < length || result < length) {
+            throw new IllegalArgumentException(
+                "length [" + length + "] is greater than one of the arguments [" + lhs + ", " + rhs + ", " + result + "]"
+            );
+        }
+    }
+}
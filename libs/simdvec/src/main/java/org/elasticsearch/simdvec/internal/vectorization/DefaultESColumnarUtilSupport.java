@@ -0,0 +1,261 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.simdvec.internal.vectorization;
+
+import org.elasticsearch.simdvec.columnar.ESColumnarUtil.Comparison;
+
+final class DefaultESColumnarUtilSupport implements ESColumnarUtilSupport {
+
+    DefaultESColumnarUtilSupport() {}
+
+    @Override
+    public boolean addExact(int[] lhs, int[] rhs, int[] result, int length) {
+        return addExactImpl(lhs, rhs, result, 0, length);
+    }
+
+    @Override
+    public boolean addExact(long[] lhs, long[] rhs, long[] result, int length) {
+        return addExactImpl(lhs, rhs, result, 0, length);
+    }
+
+    @Override
+    public boolean subtractExact(int[] lhs, int[] rhs, int[] result, int length) {
+        return subtractExactImpl(lhs, rhs, result, 0, length);
+    }
+
+    @Override
+    public boolean subtractExact(long[] lhs, long[] rhs, long[] result, int length) {
+        return subtractExactImpl(lhs, rhs, result, 0, length);
+    }
+
+    @Override
+    public boolean add(double[] lhs, double[] rhs, double[] result, int length) {
+        return addImpl(lhs, rhs, result, 0, length);
+    }
+
+    @Override
+    public boolean subtract(double[] lhs, double[] rhs, double[] result, int length) {
+        return subtractImpl(lhs, rhs, result, 0, length);
+    }
+
+    @Override
+    public boolean multiply(double[] lhs, double[] rhs, double[] result, int length) {
+        return multiplyImpl(lhs, rhs, result, 0, length);
+    }
+
+    @Override
+    public void compare(int[] lhs, int[] rhs, boolean[] result, int length, Comparison comparison) {
+        compareImpl(lhs, rhs, result, 0, length, comparison);
+    }
+
+    @Override
+    public void compare(long[] lhs, long[] rhs, boolean[] result, int length, Comparison comparison) {
+        compareImpl(lhs, rhs, result, 0, length, comparison);
+    }
+
+    @Override
+    public void compare(double[] lhs, double[] rhs, boolean[] result, int length, Comparison comparison) {
+        compareImpl(lhs, rhs, result, 0, length, comparison);
+    }
+
+    @Override
+    public int indicesOfTrue(boolean[] mask, int length, int[] indices) {
+        return indicesOfTrueImpl(mask, 0, length, indices, 0);
+    }
+
+    /*
+     * The implementations below take the range to process so the panama
+     * implementation can use them for the tail that doesn't fill a vector.
+     * They avoid branching inside the loops so the JIT can unroll them.
+     */
+
+    static boolean addExactImpl(int[] lhs, int[] rhs, int[] result, int from, int to) {
+        int overflow = 0;
+        for (int i = from; i < to; i++) {
+            int r = lhs[i] + rhs[i];
+            // overflow iff both arguments have the opposite sign of the result, see Math#addExact
+            overflow |= (lhs[i] ^ r) & (rhs[i] ^ r);
+            result[i] = r;
+        }
+        return overflow >= 0;
+    }
+
+    static boolean addExactImpl(long[] lhs, long[] rhs, long[] result, int from, int to) {
+        long overflow = 0;
+        for (int i = from; i < to; i++) {
+            long r = lhs[i] + rhs[i];
+            overflow |= (lhs[i] ^ r) & (rhs[i] ^ r);
+            result[i] = r;
+        }
+        return overflow >= 0;
+    }
+
+    static boolean subtractExactImpl(int[] lhs, int[] rhs, int[] result, int from, int to) {
+        int overflow = 0;
+        for (int i = from; i < to; i++) {
+            int r = lhs[i] - rhs[i];
+            // overflow iff the arguments have different signs and the sign of the result is different from lhs, see Math#subtractExact
+            overflow |= (lhs[i] ^ rhs[i]) & (lhs[i] ^ r);
+            result[i] = r;
+        }
+        return overflow >= 0;
+    }
+
+    static boolean subtractExactImpl(long[] lhs, long[] rhs, long[] result, int from, int to) {
+        long overflow = 0;
+        for (int i = from; i < to; i++) {
+            long r = lhs[i] - rhs[i];
+            overflow |= (lhs[i] ^ rhs[i]) & (lhs[i] ^ r);
+            result[i] = r;
+        }
+        return overflow >= 0;
+    }
+
+    static boolean addImpl(double[] lhs, double[] rhs, double[] result, int from, int to) {
+        boolean finite = true;
+        for (int i = from; i < to; i++) {
+            result[i] = lhs[i] + rhs[i];
+            finite &= Double.isFinite(result[i]);
+        }
+        return finite;
+    }
+
+    static boolean subtractImpl(double[] lhs, double[] rhs, double[] result, int from, int to) {
+        boolean finite = true;
+        for (int i = from; i < to; i++) {
+            result[i] = lhs[i] - rhs[i];
+            finite &= Double.isFinite(result[i]);
+        }
+        return finite;
+    }
+
+    static boolean multiplyImpl(double[] lhs, double[] rhs, double[] result, int from, int to) {
+        boolean finite = true;
+        for (int i = from; i < to; i++) {
+            result[i] = lhs[i] * rhs[i];
+            finite &= Double.isFinite(result[i]);
+        }
+        return finite;
+    }
+
+    static void compareImpl(int[] lhs, int[] rhs, boolean[] result, int from, int to, Comparison comparison) {
+        switch (comparison) {
+            case EQ -> {
+                for (int i = from; i < to; i++) {
+                    result[i] = lhs[i] == rhs[i];
+                }
+            }
+            case NEQ -> {
+                for (int i = from; i < to; i++) {
+                    result[i] = lhs[i] != rhs[i];
+                }
+            }
+            case GT -> {
+                for (int i = from; i < to; i++) {
+                    result[i] = lhs[i] > rhs[i];
+                }
+            }
+            case GTE -> {
+                for (int i = from; i < to; i++) {
+                    result[i] = lhs[i] >= rhs[i];
+                }
+            }
+            case LT -> {
+                for (int i = from; i < to; i++) {
+                    result[i] = lhs[i] < rhs[i];
+                }
+            }
+            case LTE -> {
+                for (int i = from; i < to; i++) {
+                    result[i] = lhs[i] <= rhs[i];
+                }
+            }
+        }
+    }
+
+    static void compareImpl(long[] lhs, long[] rhs, boolean[] result, int from, int to, Comparison comparison) {
+        switch (comparison) {
+            case EQ -> {
+                for (int i = from; i < to; i++) {
+                    result[i] = lhs[i] == rhs[i];
+                }
+            }
+            case NEQ -> {
+                for (int i = from; i < to; i++) {
+                    result[i] = lhs[i] != rhs[i];
+                }
+            }
+            case GT -> {
+                for (int i = from; i < to; i++) {
+                    result[i] = lhs[i] > rhs[i];
+                }
+            }
+            case GTE -> {
+                for (int i = from; i < to; i++) {
+                    result[i] = lhs[i] >= rhs[i];
+                }
+            }
+            case LT -> {
+                for (int i = from; i < to; i++) {
+                    result[i] = lhs[i] < rhs[i];
+                }
+            }
+            case LTE -> {
+                for (int i = from; i < to; i++) {
+                    result[i] = lhs[i] <= rhs[i];
+                }
+            }
+        }
+    }
+
+    static void compareImpl(double[] lhs, double[] rhs, boolean[] result, int from, int to, Comparison comparison) {
+        switch (comparison) {
+            case EQ -> {
+                for (int i = from; i < to; i++) {
+                    result[i] = lhs[i] == rhs[i];
+                }
+            }
+            case NEQ -> {
+                for (int i = from; i < to; i++) {
+                    result[i] = lhs[i] != rhs[i];
+                }
+            }
+            case GT -> {
+                for (int i = from; i < to; i++) {
+                    result[i] = lhs[i] > rhs[i];
+                }
+            }
+            case GTE -> {
+                for (int i = from; i < to; i++) {
+                    result[i] = lhs[i] >= rhs[i];
+                }
+            }
+            case LT -> {
+                for (int i = from; i < to; i++) {
+                    result[i] = lhs[i] < rhs[i];
+                }
+            }
+            case LTE -> {
+                for (int i = from; i < to; i++) {
+                    result[i] = lhs[i] <= rhs[i];
+                }
+            }
+        }
+    }
+
+    static int indicesOfTrueImpl(boolean[] mask, int from, int to, int[] indices, int count) {
+        for (int i = from; i < to; i++) {
+            // always write the index and only advance when the mask is set, avoiding a hard to predict branch
+            indices[count] = i;
+            count += mask[i] ? 1 : 0;
+        }
+        return count;
+    }
+}
@@ -11,13 +11,20 @@ package org.elasticsearch.simdvec.internal.vectorization;
 
 final class DefaultESVectorizationProvider extends ESVectorizationProvider {
     private final ESVectorUtilSupport vectorUtilSupport;
+    private final ESColumnarUtilSupport columnarUtilSupport;
 
     DefaultESVectorizationProvider() {
         vectorUtilSupport = new DefaultESVectorUtilSupport();
+        columnarUtilSupport = new DefaultESColumnarUtilSupport();
     }
 
     @Override
     public ESVectorUtilSupport getVectorUtilSupport() {
         return vectorUtilSupport;
     }
+
+    @Override
+    public ESColumnarUtilSupport getColumnarUtilSupport() {
+        return columnarUtilSupport;
+    }
 }
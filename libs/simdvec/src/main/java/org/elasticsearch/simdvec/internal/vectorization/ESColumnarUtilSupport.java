@@ -0,0 +1,37 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.simdvec.internal.vectorization;
+
+import org.elasticsearch.simdvec.columnar.ESColumnarUtil.Comparison;
+
+public interface ESColumnarUtilSupport {
+
+    boolean addExact(int[] lhs, int[] rhs, int[] result, int length);
+
+    boolean addExact(long[] lhs, long[] rhs, long[] result, int length);
+
+    boolean subtractExact(int[] lhs, int[] rhs, int[] result, int length);
+
+    boolean subtractExact(long[] lhs, long[] rhs, long[] result, int length);
+
+    boolean add(double[] lhs, double[] rhs, double[] result, int length);
+
+    boolean subtract(double[] lhs, double[] rhs, double[] result, int length);
+
+    boolean multiply(double[] lhs, double[] rhs, double[] result, int length);
+
+    void compare(int[] lhs, int[] rhs, boolean[] result, int length, Comparison comparison);
+
+    void compare(long[] lhs, long[] rhs, boolean[] result, int length, Comparison comparison);
+
+    void compare(double[] lhs, double[] rhs, boolean[] result, int length, Comparison comparison);
+
+    int indicesOfTrue(boolean[] mask, int length, int[] indices);
+}
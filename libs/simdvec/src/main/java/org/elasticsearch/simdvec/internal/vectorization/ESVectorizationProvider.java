@@ -24,6 +24,8 @@ public abstract class ESVectorizationProvider {
 
     public abstract ESVectorUtilSupport getVectorUtilSupport();
 
+    public abstract ESColumnarUtilSupport getColumnarUtilSupport();
+
     // visible for tests
     static ESVectorizationProvider lookup(boolean testMode) {
         return new DefaultESVectorizationProvider();
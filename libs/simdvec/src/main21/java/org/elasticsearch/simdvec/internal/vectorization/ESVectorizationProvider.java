@@ -32,6 +32,8 @@ public abstract class ESVectorizationProvider {
 
     public abstract ESVectorUtilSupport getVectorUtilSupport();
 
+    public abstract ESColumnarUtilSupport getColumnarUtilSupport();
+
     // visible for tests
     static ESVectorizationProvider lookup(boolean testMode) {
         final int runtimeVersion = Runtime.version().feature();
@@ -0,0 +1,206 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.simdvec.internal.vectorization;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import org.elasticsearch.simdvec.columnar.ESColumnarUtil.Comparison;
+
+import static org.elasticsearch.simdvec.internal.vectorization.PanamaESVectorUtilSupport.HAS_FAST_INTEGER_VECTORS;
+
+/**
+ * Columnar operations on top of the Panama vector API. Each operation runs over as many
+ * full vectors as fit in the input and finishes the tail with the scalar implementation
+ * from {@link DefaultESColumnarUtilSupport}.
+ */
+final class PanamaESColumnarUtilSupport implements ESColumnarUtilSupport {
+
+    private static final VectorSpecies<Byte> BYTE_SPECIES = ByteVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INT_SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONG_SPECIES = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> DOUBLE_SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public boolean addExact(int[] lhs, int[] rhs, int[] result, int length) {
+        int i = 0;
+        boolean exact = true;
+        if (HAS_FAST_INTEGER_VECTORS) {
+            IntVector overflow = IntVector.zero(INT_SPECIES);
+            for (int bound = INT_SPECIES.loopBound(length); i < bound; i += INT_SPECIES.length()) {
+                IntVector a = IntVector.fromArray(INT_SPECIES, lhs, i);
+                IntVector b = IntVector.fromArray(INT_SPECIES, rhs, i);
+                IntVector r = a.add(b);
+                r.intoArray(result, i);
+                overflow = overflow.or(a.lanewise(VectorOperators.XOR, r).and(b.lanewise(VectorOperators.XOR, r)));
+            }
+            exact = overflow.compare(VectorOperators.LT, 0).anyTrue() == false;
+        }
+        return DefaultESColumnarUtilSupport.addExactImpl(lhs, rhs, result, i, length) & exact;
+    }
+
+    @Override
+    public boolean addExact(long[] lhs, long[] rhs, long[] result, int length) {
+        int i = 0;
+        boolean exact = true;
+        if (HAS_FAST_INTEGER_VECTORS) {
+            LongVector overflow = LongVector.zero(LONG_SPECIES);
+            for (int bound = LONG_SPECIES.loopBound(length); i < bound; i += LONG_SPECIES.length()) {
+                LongVector a = LongVector.fromArray(LONG_SPECIES, lhs, i);
+                LongVector b = LongVector.fromArray(LONG_SPECIES, rhs, i);
+                LongVector r = a.add(b);
+                r.intoArray(result, i);
+                overflow = overflow.or(a.lanewise(VectorOperators.XOR, r).and(b.lanewise(VectorOperators.XOR, r)));
+            }
+            exact = overflow.compare(VectorOperators.LT, 0).anyTrue() == false;
+        }
+        return DefaultESColumnarUtilSupport.addExactImpl(lhs, rhs, result, i, length) & exact;
+    }
+
+    @Override
+    public boolean subtractExact(int[] lhs, int[] rhs, int[] result, int length) {
+        int i = 0;
+        boolean exact = true;
+        if (HAS_FAST_INTEGER_VECTORS) {
+            IntVector overflow = IntVector.zero(INT_SPECIES);
+            for (int bound = INT_SPECIES.loopBound(length); i < bound; i += INT_SPECIES.length()) {
+                IntVector a = IntVector.fromArray(INT_SPECIES, lhs, i);
+                IntVector b = IntVector.fromArray(INT_SPECIES, rhs, i);
+                IntVector r = a.sub(b);
+                r.intoArray(result, i);
+                overflow = overflow.or(a.lanewise(VectorOperators.XOR, b).and(a.lanewise(VectorOperators.XOR, r)));
+            }
+            exact = overflow.compare(VectorOperators.LT, 0).anyTrue() == false;
+        }
+        return DefaultESColumnarUtilSupport.subtractExactImpl(lhs, rhs, result, i, length) & exact;
+    }
+
+    @Override
+    public boolean subtractExact(long[] lhs, long[] rhs, long[] result, int length) {
+        int i = 0;
+        boolean exact = true;
+        if (HAS_FAST_INTEGER_VECTORS) {
+            LongVector overflow = LongVector.zero(LONG_SPECIES);
+            for (int bound = LONG_SPECIES.loopBound(length); i < bound; i += LONG_SPECIES.length()) {
+                LongVector a = LongVector.fromArray(LONG_SPECIES, lhs, i);
+                LongVector b = LongVector.fromArray(LONG_SPECIES, rhs, i);
+                LongVector r = a.sub(b);
+                r.intoArray(result, i);
+                overflow = overflow.or(a.lanewise(VectorOperators.XOR, b).and(a.lanewise(VectorOperators.XOR, r)));
+            }
+            exact = overflow.compare(VectorOperators.LT, 0).anyTrue() == false;
+        }
+        return DefaultESColumnarUtilSupport.subtractExactImpl(lhs, rhs, result, i, length) & exact;
+    }
+
+    @Override
+    public boolean add(double[] lhs, double[] rhs, double[] result, int length) {
+        int bound = DOUBLE_SPECIES.loopBound(length);
+        boolean finite = lanewise(VectorOperators.ADD, lhs, rhs, result, bound);
+        return DefaultESColumnarUtilSupport.addImpl(lhs, rhs, result, bound, length) & finite;
+    }
+
+    @Override
+    public boolean subtract(double[] lhs, double[] rhs, double[] result, int length) {
+        int bound = DOUBLE_SPECIES.loopBound(length);
+        boolean finite = lanewise(VectorOperators.SUB, lhs, rhs, result, bound);
+        return DefaultESColumnarUtilSupport.subtractImpl(lhs, rhs, result, bound, length) & finite;
+    }
+
+    @Override
+    public boolean multiply(double[] lhs, double[] rhs, double[] result, int length) {
+        int bound = DOUBLE_SPECIES.loopBound(length);
+        boolean finite = lanewise(VectorOperators.MUL, lhs, rhs, result, bound);
+        return DefaultESColumnarUtilSupport.multiplyImpl(lhs, rhs, result, bound, length) & finite;
+    }
+
+    /**
+     * Applies {@code op} to the values up to {@code bound}, which must be a multiple of the
+     * vector length, returning {@code true} if all results are finite.
+     */
+    private static boolean lanewise(VectorOperators.Binary op, double[] lhs, double[] rhs, double[] result, int bound) {
+        VectorMask<Double> nonFinite = DOUBLE_SPECIES.maskAll(false);
+        for (int i = 0; i < bound; i += DOUBLE_SPECIES.length()) {
+            DoubleVector a = DoubleVector.fromArray(DOUBLE_SPECIES, lhs, i);
+            DoubleVector b = DoubleVector.fromArray(DOUBLE_SPECIES, rhs, i);
+            DoubleVector r = a.lanewise(op, b);
+            r.intoArray(result, i);
+            nonFinite = nonFinite.or(r.test(VectorOperators.IS_FINITE).not());
+        }
+        return nonFinite.anyTrue() == false;
+    }
+
+    @Override
+    public void compare(int[] lhs, int[] rhs, boolean[] result, int length, Comparison comparison) {
+        int i = 0;
+        if (HAS_FAST_INTEGER_VECTORS) {
+            VectorOperators.Comparison op = op(comparison);
+            for (int bound = INT_SPECIES.loopBound(length); i < bound; i += INT_SPECIES.length()) {
+                IntVector.fromArray(INT_SPECIES, lhs, i).compare(op, IntVector.fromArray(INT_SPECIES, rhs, i)).intoArray(result, i);
+            }
+        }
+        DefaultESColumnarUtilSupport.compareImpl(lhs, rhs, result, i, length, comparison);
+    }
+
+    @Override
+    public void compare(long[] lhs, long[] rhs, boolean[] result, int length, Comparison comparison) {
+        int i = 0;
+        if (HAS_FAST_INTEGER_VECTORS) {
+            VectorOperators.Comparison op = op(comparison);
+            for (int bound = LONG_SPECIES.loopBound(length); i < bound; i += LONG_SPECIES.length()) {
+                LongVector.fromArray(LONG_SPECIES, lhs, i).compare(op, LongVector.fromArray(LONG_SPECIES, rhs, i)).intoArray(result, i);
+            }
+        }
+        DefaultESColumnarUtilSupport.compareImpl(lhs, rhs, result, i, length, comparison);
+    }
+
+    @Override
+    public void compare(double[] lhs, double[] rhs, boolean[] result, int length, Comparison comparison) {
+        VectorOperators.Comparison op = op(comparison);
+        int i = 0;
+        for (int bound = DOUBLE_SPECIES.loopBound(length); i < bound; i += DOUBLE_SPECIES.length()) {
+            DoubleVector.fromArray(DOUBLE_SPECIES, lhs, i).compare(op, DoubleVector.fromArray(DOUBLE_SPECIES, rhs, i)).intoArray(result, i);
+        }
+        DefaultESColumnarUtilSupport.compareImpl(lhs, rhs, result, i, length, comparison);
+    }
+
+    private static VectorOperators.Comparison op(Comparison comparison) {
+        return switch (comparison) {
+            case EQ -> VectorOperators.EQ;
+            case NEQ -> VectorOperators.NE;
+            case GT -> VectorOperators.GT;
+            case GTE -> VectorOperators.GE;
+            case LT -> VectorOperators.LT;
+            case LTE -> VectorOperators.LE;
+        };
+    }
+
+    @Override
+    public int indicesOfTrue(boolean[] mask, int length, int[] indices) {
+        int i = 0;
+        int count = 0;
+        if (HAS_FAST_INTEGER_VECTORS) {
+            // the preferred species has at most 64 byte lanes so the mask always fits in a long
+            for (int bound = BYTE_SPECIES.loopBound(length); i < bound; i += BYTE_SPECIES.length()) {
+                long bits = VectorMask.fromArray(BYTE_SPECIES, mask, i).toLong();
+                while (bits != 0) {
+                    indices[count++] = i + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                }
+            }
+        }
+        return DefaultESColumnarUtilSupport.indicesOfTrueImpl(mask, i, length, indices, count);
+    }
+}
@@ -12,13 +12,20 @@ package org.elasticsearch.simdvec.internal.vectorization;
 final class PanamaESVectorizationProvider extends ESVectorizationProvider {
 
     private final ESVectorUtilSupport vectorUtilSupport;
+    private final ESColumnarUtilSupport columnarUtilSupport;
 
     PanamaESVectorizationProvider() {
         vectorUtilSupport = new PanamaESVectorUtilSupport();
+        columnarUtilSupport = new PanamaESColumnarUtilSupport();
     }
 
     @Override
     public ESVectorUtilSupport getVectorUtilSupport() {
         return vectorUtilSupport;
     }
+
+    @Override
+    public ESColumnarUtilSupport getColumnarUtilSupport() {
+        return columnarUtilSupport;
+    }
 }
@@ -0,0 +1,236 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.simdvec.columnar;
+
+import org.elasticsearch.simdvec.internal.vectorization.BaseVectorizationTests;
+import org.elasticsearch.simdvec.internal.vectorization.ESColumnarUtilSupport;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class ESColumnarUtilTests extends BaseVectorizationTests {
+
+    private static final List<ESColumnarUtilSupport> IMPLS = List.of(
+        defaultProvider().getColumnarUtilSupport(),
+        maybePanamaProvider().getColumnarUtilSupport()
+    );
+
+    public void testAddExactLongs() {
+        int length = between(0, 1000);
+        long[] lhs = randomLongs(length);
+        long[] rhs = randomLongs(length);
+        boolean exact = true;
+        long[] expected = new long[length];
+        for (int i = 0; i < length; i++) {
+            try {
+                expected[i] = Math.addExact(lhs[i], rhs[i]);
+            } catch (ArithmeticException e) {
+                exact = false;
+                expected[i] = lhs[i] + rhs[i];
+            }
+        }
+        for (ESColumnarUtilSupport impl : IMPLS) {
+            long[] result = new long[length];
+            assertThat(impl.addExact(lhs, rhs, result, length), equalTo(exact));
+            assertThat(result, equalTo(expected));
+        }
+    }
+
+    public void testSubtractExactLongs() {
+        int length = between(0, 1000);
+        long[] lhs = randomLongs(length);
+        long[] rhs = randomLongs(length);
+        boolean exact = true;
+        long[] expected = new long[length];
+        for (int i = 0; i < length; i++) {
+            try {
+                expected[i] = Math.subtractExact(lhs[i], rhs[i]);
+            } catch (ArithmeticException e) {
+                exact = false;
+                expected[i] = lhs[i] - rhs[i];
+            }
+        }
+        for (ESColumnarUtilSupport impl : IMPLS) {
+            long[] result = new long[length];
+            assertThat(impl.subtractExact(lhs, rhs, result, length), equalTo(exact));
+            assertThat(result, equalTo(expected));
+        }
+    }
+
+    public void testAddExactInts() {
+        int length = between(0, 1000);
+        int[] lhs = randomInts(length);
+        int[] rhs = randomInts(length);
+        boolean exact = true;
+        int[] expected = new int[length];
+        for (int i = 0; i < length; i++) {
+            try {
+                expected[i] = Math.addExact(lhs[i], rhs[i]);
+            } catch (ArithmeticException e) {
+                exact = false;
+                expected[i] = lhs[i] + rhs[i];
+            }
+        }
+        for (ESColumnarUtilSupport impl : IMPLS) {
+            int[] result = new int[length];
+            assertThat(impl.addExact(lhs, rhs, result, length), equalTo(exact));
+            assertThat(result, equalTo(expected));
+        }
+    }
+
+    public void testSubtractExactInts() {
+        int length = between(0, 1000);
+        int[] lhs = randomInts(length);
+        int[] rhs = randomInts(length);
+        boolean exact = true;
+        int[] expected = new int[length];
+        for (int i = 0; i < length; i++) {
+            try {
+                expected[i] = Math.subtractExact(lhs[i], rhs[i]);
+            } catch (ArithmeticException e) {
+                exact = false;
+                expected[i] = lhs[i] - rhs[i];
+            }
+        }
+        for (ESColumnarUtilSupport impl : IMPLS) {
+            int[] result = new int[length];
+            assertThat(impl.subtractExact(lhs, rhs, result, length), equalTo(exact));
+            assertThat(result, equalTo(expected));
+        }
+    }
+
+    public void testDoubles() {
+        int length = between(0, 1000);
+        double[] lhs = randomDoubles(length);
+        double[] rhs = randomDoubles(length);
+        double[] added = new double[length];
+        double[] subtracted = new double[length];
+        double[] multiplied = new double[length];
+        boolean addFinite = true;
+        boolean subtractFinite = true;
+        boolean multiplyFinite = true;
+        for (int i = 0; i < length; i++) {
+            added[i] = lhs[i] + rhs[i];
+            addFinite &= Double.isFinite(added[i]);
+            subtracted[i] = lhs[i] - rhs[i];
+            subtractFinite &= Double.isFinite(subtracted[i]);
+            multiplied[i] = lhs[i] * rhs[i];
+            multiplyFinite &= Double.isFinite(multiplied[i]);
+        }
+        for (ESColumnarUtilSupport impl : IMPLS) {
+            double[] result = new double[length];
+            assertThat(impl.add(lhs, rhs, result, length), equalTo(addFinite));
+            assertThat(result, equalTo(added));
+            assertThat(impl.subtract(lhs, rhs, result, length), equalTo(subtractFinite));
+            assertThat(result, equalTo(subtracted));
+            assertThat(impl.multiply(lhs, rhs, result, length), equalTo(multiplyFinite));
+            assertThat(result, equalTo(multiplied));
+        }
+    }
+
+    public void testCompare() {
+        int length = between(0, 1000);
+        // a small range of values so some of them are equal
+        long[] lhs = new long[length];
+        long[] rhs = new long[length];
+        for (int i = 0; i < length; i++) {
+            lhs[i] = between(-5, 5);
+            rhs[i] = between(-5, 5);
+        }
+        int[] intLhs = new int[length];
+        int[] intRhs = new int[length];
+        double[] doubleLhs = new double[length];
+        double[] doubleRhs = new double[length];
+        for (int i = 0; i < length; i++) {
+            intLhs[i] = (int) lhs[i];
+            intRhs[i] = (int) rhs[i];
+            doubleLhs[i] = lhs[i];
+            doubleRhs[i] = rhs[i];
+        }
+        for (ESColumnarUtil.Comparison comparison : ESColumnarUtil.Comparison.values()) {
+            boolean[] expected = new boolean[length];
+            for (int i = 0; i < length; i++) {
+                expected[i] = switch (comparison) {
+                    case EQ -> lhs[i] == rhs[i];
+                    case NEQ -> lhs[i] != rhs[i];
+                    case GT -> lhs[i] > rhs[i];
+                    case GTE -> lhs[i] >= rhs[i];
+                    case LT -> lhs[i] < rhs[i];
+                    case LTE -> lhs[i] <= rhs[i];
+                };
+            }
+            for (ESColumnarUtilSupport impl : IMPLS) {
+                boolean[] result = new boolean[length];
+                impl.compare(lhs, rhs, result, length, comparison);
+                assertThat(comparison.toString(), result, equalTo(expected));
+                result = new boolean[length];
+                impl.compare(intLhs, intRhs, result, length, comparison);
+                assertThat(comparison.toString(), result, equalTo(expected));
+                result = new boolean[length];
+                impl.compare(doubleLhs, doubleRhs, result, length, comparison);
+                assertThat(comparison.toString(), result, equalTo(expected));
+            }
+        }
+    }
+
+    public void testIndicesOfTrue() {
+        int length = between(0, 1000);
+        boolean[] mask = new boolean[length];
+        double density = randomDouble();
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < length; i++) {
+            mask[i] = randomDouble() < density;
+            if (mask[i]) {
+                expected.add(i);
+            }
+        }
+        for (ESColumnarUtilSupport impl : IMPLS) {
+            int[] indices = new int[length];
+            int count = impl.indicesOfTrue(mask, length, indices);
+            List<Integer> actual = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                actual.add(indices[i]);
+            }
+            assertThat(actual, equalTo(expected));
+        }
+    }
+
+    public void testShortArguments() {
+        expectThrows(IllegalArgumentException.class, () -> ESColumnarUtil.addExact(new long[2], new long[3], new long[3], 3));
+        expectThrows(IllegalArgumentException.class, () -> ESColumnarUtil.indicesOfTrue(new boolean[3], 3, new int[2]));
+    }
+
+    private static long[] randomLongs(int length) {
+        long[] values = new long[length];
+        for (int i = 0; i < length; i++) {
+            // mostly small values so overflows are rare but possible
+            values[i] = rarely() ? randomLong() : randomIntBetween(-1_000_000, 1_000_000);
+        }
+        return values;
+    }
+
+    private static int[] randomInts(int length) {
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = rarely() ? randomInt() : randomIntBetween(-1_000_000, 1_000_000);
+        }
+        return values;
+    }
+
+    private static double[] randomDoubles(int length) {
+        double[] values = new double[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = rarely() ? randomFrom(Double.MAX_VALUE, -Double.MAX_VALUE) : randomDoubleBetween(-1_000_000, 1_000_000, true);
+        }
+        return values;
+    }
+}
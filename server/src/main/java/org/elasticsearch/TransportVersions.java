@@ -204,6 +204,14 @@ public class TransportVersions {
     public static final TransportVersion VOYAGE_AI_INTEGRATION_ADDED = def(9_014_0_00);
     public static final TransportVersion BYTE_SIZE_VALUE_ALWAYS_USES_BYTES = def(9_015_0_00);
     public static final TransportVersion ESQL_SERIALIZE_SOURCE_FUNCTIONS_WARNINGS = def(9_016_0_00);
+    public static final TransportVersion TRANSLOG_GROUP_SYNC_STATS = def(9_017_0_00);
+    public static final TransportVersion BULK_SHARD_COMPACT_REPLICA_ITEMS = def(9_018_0_00);
+    public static final TransportVersion INDEXING_BUFFER_WRITE_STATS = def(9_019_0_00);
+    public static final TransportVersion SEARCH_SPECULATIVE_FETCH = def(9_020_0_00);
+    public static final TransportVersion SEARCH_CAN_MATCH_FIELD_VALUE_STATS = def(9_021_0_00);
+    public static final TransportVersion SEARCH_QUEUE_LATENCY_PERCENTILES = def(9_022_0_00);
+    public static final TransportVersion ESQL_LOOKUP_JOIN_HASH_TABLE = def(9_023_0_00);
+    public static final TransportVersion ESQL_DYNAMIC_DATA_PARTITIONING = def(9_024_0_00);
 
     /*
      * STOP! READ THIS FIRST! No, really,
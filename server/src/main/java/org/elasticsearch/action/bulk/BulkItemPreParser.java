@@ -0,0 +1,230 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.action.bulk;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.mapper.DocumentMapper;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.mapper.SourceToParse;
+import org.elasticsearch.plugins.internal.DocumentParsingProvider;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parses the documents of the upcoming index operations of a shard bulk request on a separate executor while the primary applies the
+ * current item, so that a single large shard bulk request is not bound to the single write thread that executes it.
+ * <p>
+ * Items are still applied strictly in order by {@link TransportShardBulkAction}, this class only moves the {@link DocumentMapper#parse}
+ * work off that thread. A pre-parsed document is only used if the mapping did not change since it was parsed and parsing succeeded,
+ * every other case, including all failures and dynamic mapping updates, falls back to parsing the item on the write thread so that
+ * the semantics of the bulk request are unchanged. Update and delete items are never parsed ahead. A pre-parsed document is handed out
+ * at most once: items that are retried after a mapping update are parsed again.
+ * <p>
+ * Parse tasks that have not started by the time their item is applied are cancelled and the item is parsed inline, so the write thread
+ * never waits for a task that sits in the queue of the parse executor and rejections are harmless.
+ * <p>
+ * Parse tasks read the source of their items, so {@link #close} must be called before the request completes, whether it succeeded,
+ * failed or was rejected, since the bytes of the request may be released as soon as it completed.
+ */
+final class BulkItemPreParser {
+
+    private static final Logger logger = LogManager.getLogger(BulkItemPreParser.class);
+
+    private final BulkShardRequest request;
+    private final MapperService mapperService;
+    private final DocumentParsingProvider documentParsingProvider;
+    private final Executor executor;
+    private final int lookahead;
+    private final ParseTask[] tasks;
+    // the index of the next item that may be scheduled, only accessed by the thread executing the bulk request
+    private int nextToSchedule;
+
+    BulkItemPreParser(
+        BulkShardRequest request,
+        MapperService mapperService,
+        DocumentParsingProvider documentParsingProvider,
+        Executor executor,
+        int lookahead
+    ) {
+        assert lookahead > 0 : lookahead;
+        this.request = request;
+        this.mapperService = mapperService;
+        this.documentParsingProvider = documentParsingProvider;
+        this.executor = executor;
+        this.lookahead = lookahead;
+        this.tasks = new ParseTask[request.items().length];
+    }
+
+    /**
+     * Schedules parsing of the items that follow the given item index, up to the configured lookahead.
+     */
+    void scheduleAhead(int currentIndex) {
+        final DocumentMapper documentMapper = mapperService.documentMapper();
+        if (documentMapper == null) {
+            // documents of an index without mappings are parsed with a fresh empty mapper each, there is nothing to share
+            return;
+        }
+        nextToSchedule = Math.max(nextToSchedule, currentIndex + 1);
+        final int limit = Math.min(tasks.length, currentIndex + 1 + lookahead);
+        for (; nextToSchedule < limit; nextToSchedule++) {
+            final BulkItemRequest item = request.items()[nextToSchedule];
+            if (item.getPrimaryResponse() != null || isParseable(item.request()) == false) {
+                continue;
+            }
+            final ParseTask task = new ParseTask(documentMapper, (IndexRequest) item.request());
+            tasks[nextToSchedule] = task;
+            executor.execute(task);
+        }
+    }
+
+    private static boolean isParseable(DocWriteRequest<?> request) {
+        return request.opType() == DocWriteRequest.OpType.INDEX || request.opType() == DocWriteRequest.OpType.CREATE;
+    }
+
+    /**
+     * Returns the pre-parsed document of the given item, or {@code null} if the item must be parsed inline. The returned document was
+     * parsed from the given source with the current document mapper.
+     */
+    @Nullable
+    ParsedDocument take(int itemIndex, IndexRequest indexRequest) throws InterruptedException {
+        final ParseTask task = tasks[itemIndex];
+        if (task == null) {
+            return null;
+        }
+        if (task.cancel()) {
+            tasks[itemIndex] = null;
+            return null;
+        }
+        // the task is only forgotten once it completed, so that close() still waits for it if this is interrupted
+        final boolean parsed = task.awaitParsed();
+        tasks[itemIndex] = null;
+        if (parsed == false || task.indexRequest != indexRequest) {
+            return null;
+        }
+        return task.documentMapper == mapperService.documentMapper() ? task.parsedDocument : null;
+    }
+
+    /**
+     * Cancels all parse tasks that did not start yet and waits for the running ones to complete, so that no task reads the source of
+     * an item anymore once this returns. Called before the bulk request completes. Waiting is short since at most the lookahead of
+     * tasks can be running, each parsing a single document.
+     */
+    void close() {
+        for (int i = 0; i < tasks.length; i++) {
+            final ParseTask task = tasks[i];
+            if (task != null) {
+                tasks[i] = null;
+                if (task.cancel() == false) {
+                    task.awaitDone();
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the source to parse for the given index request.
+     */
+    static SourceToParse sourceToParse(IndexRequest request, DocumentParsingProvider documentParsingProvider) {
+        return new SourceToParse(
+            request.id(),
+            request.source(),
+            request.getContentType(),
+            request.routing(),
+            request.getDynamicTemplates(),
+            request.getIncludeSourceOnError(),
+            documentParsingProvider.newMeteringParserDecorator(request)
+        );
+    }
+
+    private final class ParseTask extends AbstractRunnable {
+        private static final int PENDING = 0;
+        private static final int RUNNING = 1;
+        private static final int CANCELLED = 2;
+
+        private final DocumentMapper documentMapper;
+        private final IndexRequest indexRequest;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private final CountDownLatch done = new CountDownLatch(1);
+        // written before counting down the latch, read after awaiting it
+        private ParsedDocument parsedDocument;
+
+        ParseTask(DocumentMapper documentMapper, IndexRequest indexRequest) {
+            this.documentMapper = documentMapper;
+            this.indexRequest = indexRequest;
+        }
+
+        /**
+         * Cancels this task if it did not start yet, returns {@code true} if the task will not run.
+         */
+        boolean cancel() {
+            return state.compareAndSet(PENDING, CANCELLED) || state.get() == CANCELLED;
+        }
+
+        /**
+         * Waits for the running task to complete, returns {@code true} if it parsed the document successfully.
+         */
+        boolean awaitParsed() throws InterruptedException {
+            assert state.get() == RUNNING : state.get();
+            done.await();
+            return parsedDocument != null;
+        }
+
+        /**
+         * Waits for the running task to complete, whether it succeeded or not, without giving up on interrupts.
+         */
+        void awaitDone() {
+            assert state.get() == RUNNING : state.get();
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    done.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        protected void doRun() {
+            if (state.compareAndSet(PENDING, RUNNING) == false) {
+                return;
+            }
+            try {
+                parsedDocument = documentMapper.parse(sourceToParse(indexRequest, documentParsingProvider));
+            } finally {
+                done.countDown();
+            }
+        }
+
+        @Override
+        public void onFailure(Exception e) {
+            // the item is parsed again on the write thread, which reports the failure
+            logger.trace(() -> "failed to parse document [" + indexRequest.id() + "] ahead of indexing", e);
+        }
+
+        @Override
+        public void onRejection(Exception e) {
+            // the task never ran, the write thread parses the item itself
+            state.compareAndSet(PENDING, CANCELLED);
+        }
+    }
+}
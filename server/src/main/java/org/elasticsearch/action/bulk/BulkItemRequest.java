@@ -12,14 +12,22 @@ package org.elasticsearch.action.bulk;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.DocWriteResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.delete.DeleteResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.Releasable;
 import org.elasticsearch.index.shard.ShardId;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Objects;
 
 public class BulkItemRequest implements Writeable, Accountable {
@@ -108,6 +116,90 @@ public class BulkItemRequest implements Writeable, Accountable {
         out.writeOptional(BulkItemResponse.THIN_WRITER, item.primaryResponse);
     };
 
+    private static final byte REPLICA_ITEM_FULL = 0;
+    private static final byte REPLICA_ITEM_INDEX = 1;
+    private static final byte REPLICA_ITEM_DELETE = 2;
+
+    /**
+     * Writes an item that was executed on the primary for the replicas. Index and delete operations that the replicas need to apply
+     * are written as a compact header with the outcome on the primary followed by the document id, routing and source. All other items
+     * (failures, noops) are rare and written in full with {@link #THIN_WRITER}.
+     */
+    static final Writer<BulkItemRequest> REPLICA_WRITER = (out, item) -> {
+        final BulkItemResponse response = item.primaryResponse;
+        if (response != null && response.isFailed() == false && response.getResponse().getResult() != DocWriteResponse.Result.NOOP) {
+            if (item.request instanceof IndexRequest indexRequest) {
+                out.writeByte(REPLICA_ITEM_INDEX);
+                writeReplicaHeader(out, item.id, response.getResponse());
+                indexRequest.writeForReplica(out);
+                return;
+            }
+            if (item.request instanceof DeleteRequest deleteRequest) {
+                out.writeByte(REPLICA_ITEM_DELETE);
+                writeReplicaHeader(out, item.id, response.getResponse());
+                out.writeString(deleteRequest.index());
+                out.writeString(deleteRequest.id());
+                return;
+            }
+        }
+        out.writeByte(REPLICA_ITEM_FULL);
+        THIN_WRITER.write(out, item);
+    };
+
+    private static void writeReplicaHeader(StreamOutput out, int id, DocWriteResponse response) throws IOException {
+        out.writeVInt(id);
+        out.writeZLong(response.getSeqNo());
+        out.writeVLong(response.getPrimaryTerm());
+        out.writeZLong(response.getVersion());
+        final DocWriteResponse.Result result = response.getResult();
+        out.writeBoolean(result == DocWriteResponse.Result.CREATED || result == DocWriteResponse.Result.DELETED);
+    }
+
+    /**
+     * Reads an item written by {@link #REPLICA_WRITER}. Sources of index operations reference the buffer of the given stream, they are
+     * added to {@code sources} and must be released once the item has been applied.
+     */
+    static BulkItemRequest readForReplica(ShardId shardId, StreamInput in, List<Releasable> sources) throws IOException {
+        final byte type = in.readByte();
+        if (type == REPLICA_ITEM_FULL) {
+            return new BulkItemRequest(shardId, in);
+        }
+        final int id = in.readVInt();
+        final long seqNo = in.readZLong();
+        final long primaryTerm = in.readVLong();
+        final long version = in.readZLong();
+        final boolean createdOrFound = in.readBoolean();
+        final BulkItemRequest item;
+        if (type == REPLICA_ITEM_INDEX) {
+            final IndexRequest indexRequest = IndexRequest.readForReplica(shardId, in);
+            if (indexRequest.source() instanceof ReleasableBytesReference source) {
+                sources.add(source);
+            }
+            item = new BulkItemRequest(id, indexRequest);
+            item.setPrimaryResponse(
+                BulkItemResponse.success(
+                    id,
+                    indexRequest.opType(),
+                    new IndexResponse(shardId, indexRequest.id(), seqNo, primaryTerm, version, createdOrFound)
+                )
+            );
+        } else if (type == REPLICA_ITEM_DELETE) {
+            final String index = in.readString();
+            final DeleteRequest deleteRequest = new DeleteRequest(index, in.readString());
+            item = new BulkItemRequest(id, deleteRequest);
+            item.setPrimaryResponse(
+                BulkItemResponse.success(
+                    id,
+                    DocWriteRequest.OpType.DELETE,
+                    new DeleteResponse(shardId, deleteRequest.id(), seqNo, primaryTerm, version, createdOrFound)
+                )
+            );
+        } else {
+            throw new IllegalStateException("invalid replica item type [" + type + "]");
+        }
+        return item;
+    }
+
     @Override
     public long ramBytesUsed() {
         return SHALLOW_SIZE + request.ramBytesUsed();
@@ -135,6 +135,11 @@ class BulkPrimaryExecutionContext {
         return currentIndex < request.items().length;
     }
 
+    /** returns the position of the current item in {@link BulkShardRequest#items()} */
+    public int getCurrentIndex() {
+        return currentIndex;
+    }
+
     /** returns the name of the index the current request used */
     public String getConcreteIndex() {
         return getCurrentItem().index();
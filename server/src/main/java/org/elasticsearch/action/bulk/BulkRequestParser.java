@@ -264,6 +264,20 @@ public final class BulkRequestParser {
             }
         }
 
+        /**
+         * Returns whether the given chunk, which directly follows the data that was last passed to {@link #parse} or to this method,
+         * terminates a line. If it does not, there is nothing new to parse and the chunk is only recorded as searched, which lets the
+         * caller defer assembling a large line from its chunks until the line is complete, without {@link #parse} searching the
+         * chunk for the end of the line again.
+         */
+        public boolean endsLine(BytesReference chunk) {
+            if (chunk.indexOf(marker, 0) == -1) {
+                incrementalFromOffset += chunk.length();
+                return false;
+            }
+            return true;
+        }
+
         private int tryParse(BytesReference data, boolean lastData) throws IOException {
             int from = 0;
             int consumed = 0;
@@ -21,10 +21,16 @@ import org.elasticsearch.cluster.metadata.InferenceFieldMetadata;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.util.set.Sets;
+import org.elasticsearch.core.AbstractRefCounted;
+import org.elasticsearch.core.RefCounted;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.Releasables;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.transport.RawIndexingDataTransportRequest;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -37,12 +43,32 @@ public final class BulkShardRequest extends ReplicatedWriteRequest<BulkShardRequ
 
     private final BulkItemRequest[] items;
     private final boolean isSimulated;
+    // releases the document sources of a request that was read in the replica format, which reference the network buffer
+    private final RefCounted refCounted;
 
     private transient Map<String, InferenceFieldMetadata> inferenceFieldMap = null;
 
     public BulkShardRequest(StreamInput in) throws IOException {
         super(in);
-        items = in.readArray(i -> i.readOptionalWriteable(inpt -> new BulkItemRequest(shardId, inpt)), BulkItemRequest[]::new);
+        if (in.getTransportVersion().onOrAfter(TransportVersions.BULK_SHARD_COMPACT_REPLICA_ITEMS) && in.readBoolean()) {
+            final List<Releasable> sources = new ArrayList<>();
+            boolean success = false;
+            try {
+                items = in.readArray(
+                    i -> i.readOptionalWriteable(inpt -> BulkItemRequest.readForReplica(shardId, inpt, sources)),
+                    BulkItemRequest[]::new
+                );
+                success = true;
+            } finally {
+                if (success == false) {
+                    Releasables.close(sources);
+                }
+            }
+            refCounted = sources.isEmpty() ? RefCounted.ALWAYS_REFERENCED : AbstractRefCounted.of(() -> Releasables.close(sources));
+        } else {
+            items = in.readArray(i -> i.readOptionalWriteable(inpt -> new BulkItemRequest(shardId, inpt)), BulkItemRequest[]::new);
+            refCounted = RefCounted.ALWAYS_REFERENCED;
+        }
         if (in.getTransportVersion().onOrAfter(TransportVersions.V_8_15_0)) {
             isSimulated = in.readBoolean();
         } else {
@@ -59,6 +85,7 @@ public final class BulkShardRequest extends ReplicatedWriteRequest<BulkShardRequ
         this.items = items;
         setRefreshPolicy(refreshPolicy);
         this.isSimulated = isSimulated;
+        this.refCounted = RefCounted.ALWAYS_REFERENCED;
     }
 
     /**
@@ -126,12 +153,34 @@ public final class BulkShardRequest extends ReplicatedWriteRequest<BulkShardRequ
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
+        writeTo(out, false);
+    }
+
+    /**
+     * Writes the items in a compact format that only carries what the replicas need to apply the outcome of every item on the primary,
+     * see {@link BulkItemRequest#REPLICA_WRITER}.
+     */
+    @Override
+    public void writeToReplica(StreamOutput out) throws IOException {
+        writeTo(out, true);
+    }
+
+    private void writeTo(StreamOutput out, boolean forReplica) throws IOException {
         if (inferenceFieldMap != null) {
             // Inferencing metadata should have been consumed as part of the ShardBulkInferenceActionFilter processing
             throw new IllegalStateException("Inference metadata should have been consumed before writing to the stream");
         }
         super.writeTo(out);
-        out.writeArray((o, item) -> o.writeOptional(BulkItemRequest.THIN_WRITER, item), items);
+        if (out.getTransportVersion().onOrAfter(TransportVersions.BULK_SHARD_COMPACT_REPLICA_ITEMS)) {
+            out.writeBoolean(forReplica);
+            if (forReplica) {
+                out.writeArray((o, item) -> o.writeOptional(BulkItemRequest.REPLICA_WRITER, item), items);
+            } else {
+                out.writeArray((o, item) -> o.writeOptional(BulkItemRequest.THIN_WRITER, item), items);
+            }
+        } else {
+            out.writeArray((o, item) -> o.writeOptional(BulkItemRequest.THIN_WRITER, item), items);
+        }
         if (out.getTransportVersion().onOrAfter(TransportVersions.V_8_15_0)) {
             out.writeBoolean(isSimulated);
         }
@@ -202,4 +251,24 @@ public final class BulkShardRequest extends ReplicatedWriteRequest<BulkShardRequ
     public boolean isSimulated() {
         return isSimulated;
     }
+
+    @Override
+    public void incRef() {
+        refCounted.incRef();
+    }
+
+    @Override
+    public boolean tryIncRef() {
+        return refCounted.tryIncRef();
+    }
+
+    @Override
+    public boolean decRef() {
+        return refCounted.decRef();
+    }
+
+    @Override
+    public boolean hasReferences() {
+        return refCounted.hasReferences();
+    }
 }
@@ -43,6 +43,7 @@ import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Strings;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.core.Tuple;
+import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.IndexingPressure;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.engine.VersionConflictEngineException;
@@ -52,6 +53,7 @@ import org.elasticsearch.index.mapper.InferenceMetadataFieldsMapper;
 import org.elasticsearch.index.mapper.MapperException;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.MappingLookup;
+import org.elasticsearch.index.mapper.ParsedDocument;
 import org.elasticsearch.index.mapper.RoutingFieldMapper;
 import org.elasticsearch.index.mapper.SourceToParse;
 import org.elasticsearch.index.seqno.SequenceNumbers;
@@ -63,13 +65,14 @@ import org.elasticsearch.indices.SystemIndices;
 import org.elasticsearch.injection.guice.Inject;
 import org.elasticsearch.node.NodeClosedException;
 import org.elasticsearch.plugins.internal.DocumentParsingProvider;
-import org.elasticsearch.plugins.internal.XContentMeteringParserDecorator;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.TransportRequestOptions;
 import org.elasticsearch.transport.TransportService;
 import org.elasticsearch.xcontent.XContentType;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executor;
 import java.util.function.Consumer;
@@ -161,6 +164,7 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
         ActionListener<PrimaryResult<BulkShardRequest, BulkShardResponse>> listener
     ) {
         ClusterStateObserver observer = new ClusterStateObserver(clusterService, request.timeout(), logger, threadPool.getThreadContext());
+        Executor parseExecutor = threadPool.executor(ThreadPool.Names.WRITE_PARSE);
         performOnPrimary(request, primary, updateHelper, threadPool::absoluteTimeInMillis, (update, shardId, mappingListener) -> {
             assert update != null;
             assert shardId != null;
@@ -183,7 +187,7 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
         }, clusterState -> {
             var indexMetadata = clusterState.metadata().index(primary.shardId().getIndex());
             return indexMetadata == null || (indexMetadata.mapping() != null && indexMetadata.getMappingVersion() != initialMappingVersion);
-        }), listener, executor(primary), postWriteRefresh, postWriteAction, documentParsingProvider);
+        }), listener, executor(primary), postWriteRefresh, postWriteAction, documentParsingProvider, parseExecutor);
     }
 
     @Override
@@ -234,7 +238,51 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
         @Nullable Consumer<Runnable> postWriteAction,
         DocumentParsingProvider documentParsingProvider
     ) {
-        new ActionRunnable<>(listener) {
+        performOnPrimary(
+            request,
+            primary,
+            updateHelper,
+            nowInMillisSupplier,
+            mappingUpdater,
+            waitForMappingUpdate,
+            listener,
+            executor,
+            postWriteRefresh,
+            postWriteAction,
+            documentParsingProvider,
+            null
+        );
+    }
+
+    /**
+     * Executes the items of the given request on the primary. If a {@code parseExecutor} is given and
+     * {@link IndexSettings#BULK_PARSE_LOOKAHEAD_SETTING} is enabled on the index, documents of upcoming index operations are parsed on
+     * that executor while the current item is being applied.
+     */
+    public static void performOnPrimary(
+        BulkShardRequest request,
+        IndexShard primary,
+        UpdateHelper updateHelper,
+        LongSupplier nowInMillisSupplier,
+        MappingUpdatePerformer mappingUpdater,
+        ObjLongConsumer<ActionListener<Void>> waitForMappingUpdate,
+        ActionListener<PrimaryResult<BulkShardRequest, BulkShardResponse>> listener,
+        Executor executor,
+        @Nullable PostWriteRefresh postWriteRefresh,
+        @Nullable Consumer<Runnable> postWriteAction,
+        DocumentParsingProvider documentParsingProvider,
+        @Nullable Executor parseExecutor
+    ) {
+        final int parseLookahead = parseExecutor == null ? 0 : primary.indexSettings().getBulkParseLookahead();
+        final BulkItemPreParser preParser = parseLookahead > 0 && request.items().length > 1
+            ? new BulkItemPreParser(request, primary.mapperService(), documentParsingProvider, parseExecutor, parseLookahead)
+            : null;
+        // parse tasks must be done with the request whichever way it completes, since its bytes may be released right after
+        final ActionListener<PrimaryResult<BulkShardRequest, BulkShardResponse>> bulkListener = preParser == null
+            ? listener
+            : ActionListener.runBefore(listener, preParser::close);
+        prefetchDocVersions(request, primary);
+        new ActionRunnable<>(bulkListener) {
 
             private final BulkPrimaryExecutionContext context = new BulkPrimaryExecutionContext(request, primary);
 
@@ -245,6 +293,9 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
             @Override
             protected void doRun() throws Exception {
                 while (context.hasMoreOperationsToExecute()) {
+                    if (preParser != null) {
+                        preParser.scheduleAhead(context.getCurrentIndex());
+                    }
                     if (executeBulkItemRequest(
                         context,
                         updateHelper,
@@ -252,7 +303,8 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
                         mappingUpdater,
                         waitForMappingUpdate,
                         onMappingUpdateDone,
-                        documentParsingProvider
+                        documentParsingProvider,
+                        preParser
                     ) == false) {
                         // We are waiting for a mapping update on another thread, that will invoke this action again once its done
                         // so we just break out here.
@@ -269,7 +321,7 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
             public void onRejection(Exception e) {
                 // We must finish the outstanding request. Finishing the outstanding request can include
                 // refreshing and fsyncing. Therefore, we must force execution on the WRITE thread.
-                executor.execute(new ActionRunnable<>(listener) {
+                executor.execute(new ActionRunnable<>(bulkListener) {
 
                     @Override
                     protected void doRun() {
@@ -301,7 +353,7 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
 
             private void finishRequest() {
                 ActionListener.completeWith(
-                    listener,
+                    bulkListener,
                     () -> new WritePrimaryResult<>(
                         context.getBulkShardRequest(),
                         context.buildShardResponse(),
@@ -316,6 +368,36 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
         }.run();
     }
 
+    /**
+     * Resolves the current versions of all documents of the request that will need a version lookup when they are applied, which is
+     * cheaper than resolving them one item at a time. Index requests with auto-generated ids are skipped since they are appended
+     * without looking up their ids. Only done if at least {@link IndexSettings#BULK_VERSION_PREFETCH_MIN_DOCS_SETTING} documents
+     * need a lookup, below that the extra pass isn't worth it.
+     */
+    private static void prefetchDocVersions(BulkShardRequest request, IndexShard primary) {
+        final int minDocs = primary.indexSettings().getBulkVersionPrefetchMinDocs();
+        if (minDocs == 0 || request.items().length < minDocs) {
+            return;
+        }
+        final List<String> ids = new ArrayList<>();
+        for (BulkItemRequest item : request.items()) {
+            final DocWriteRequest<?> docWriteRequest = item.request();
+            if (docWriteRequest.id() != null
+                && (docWriteRequest instanceof IndexRequest indexRequest == false
+                    || indexRequest.getAutoGeneratedTimestamp() == IndexRequest.UNSET_AUTO_GENERATED_TIMESTAMP)) {
+                ids.add(docWriteRequest.id());
+            }
+        }
+        if (ids.size() > 1 && ids.size() >= minDocs) {
+            try {
+                primary.prefetchDocVersions(ids);
+            } catch (Exception e) {
+                // the versions are resolved again when the items are applied, which also reports any failure
+                logger.debug(() -> format("%s failed to prefetch document versions", primary.shardId()), e);
+            }
+        }
+    }
+
     /**
      * Executes bulk item requests and handles request execution exceptions.
      * @return {@code true} if request completed on this thread and the listener was invoked, {@code false} if the request triggered
@@ -329,6 +411,28 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
         ObjLongConsumer<ActionListener<Void>> waitForMappingUpdate,
         ActionListener<Void> itemDoneListener,
         DocumentParsingProvider documentParsingProvider
+    ) throws Exception {
+        return executeBulkItemRequest(
+            context,
+            updateHelper,
+            nowInMillisSupplier,
+            mappingUpdater,
+            waitForMappingUpdate,
+            itemDoneListener,
+            documentParsingProvider,
+            null
+        );
+    }
+
+    private static boolean executeBulkItemRequest(
+        BulkPrimaryExecutionContext context,
+        UpdateHelper updateHelper,
+        LongSupplier nowInMillisSupplier,
+        MappingUpdatePerformer mappingUpdater,
+        ObjLongConsumer<ActionListener<Void>> waitForMappingUpdate,
+        ActionListener<Void> itemDoneListener,
+        DocumentParsingProvider documentParsingProvider,
+        @Nullable BulkItemPreParser preParser
     ) throws Exception {
         final DocWriteRequest.OpType opType = context.getCurrent().opType();
 
@@ -378,20 +482,13 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
         } else {
             final IndexRequest request = context.getRequestToExecute();
 
-            XContentMeteringParserDecorator meteringParserDecorator = documentParsingProvider.newMeteringParserDecorator(request);
-            final SourceToParse sourceToParse = new SourceToParse(
-                request.id(),
-                request.source(),
-                request.getContentType(),
-                request.routing(),
-                request.getDynamicTemplates(),
-                request.getIncludeSourceOnError(),
-                meteringParserDecorator
-            );
+            final SourceToParse sourceToParse = BulkItemPreParser.sourceToParse(request, documentParsingProvider);
+            final ParsedDocument parsedDoc = preParser == null ? null : preParser.take(context.getCurrentIndex(), request);
             result = primary.applyIndexOperationOnPrimary(
                 version,
                 request.versionType(),
                 sourceToParse,
+                parsedDoc,
                 request.ifSeqNo(),
                 request.ifPrimaryTerm(),
                 request.getAutoGeneratedTimestamp(),
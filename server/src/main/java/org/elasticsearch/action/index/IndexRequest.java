@@ -231,6 +231,11 @@ public class IndexRequest extends ReplicatedWriteRequest<IndexRequest> implement
         this.index = index;
     }
 
+    private IndexRequest(ShardId shardId, String index) {
+        super(shardId);
+        this.index = index;
+    }
+
     private static final StringLiteralDeduplicator pipelineNameDeduplicator = new StringLiteralDeduplicator();
 
     // reads pipeline name from the stream and deduplicates it to save heap on large bulk requests
@@ -817,6 +822,47 @@ public class IndexRequest extends ReplicatedWriteRequest<IndexRequest> implement
         }
     }
 
+    /**
+     * Writes the parts of this request that a replica needs to apply the operation that the primary executed. Versioning,
+     * pipelines and the other options that only matter on the coordinating node and on the primary are left out, see
+     * {@link #readForReplica(ShardId, StreamInput)}.
+     */
+    public void writeForReplica(StreamOutput out) throws IOException {
+        out.writeString(index);
+        out.writeOptionalString(id);
+        out.writeOptionalString(routing);
+        out.writeByte(opType.getId());
+        out.writeLong(autoGeneratedTimestamp);
+        out.writeBoolean(isRetry);
+        if (contentType != null) {
+            out.writeBoolean(true);
+            XContentHelper.writeTo(out, contentType);
+        } else {
+            out.writeBoolean(false);
+        }
+        out.writeBytesReference(source);
+    }
+
+    /**
+     * Reads a request written by {@link #writeForReplica(StreamOutput)}. The source is read with
+     * {@link StreamInput#readReleasableBytesReference()} so that it references the pooled network buffer rather than being copied to
+     * the heap, the caller must release it once the operation has been applied.
+     */
+    public static IndexRequest readForReplica(ShardId shardId, StreamInput in) throws IOException {
+        final IndexRequest request = new IndexRequest(shardId, in.readString());
+        request.id = in.readOptionalString();
+        request.routing = in.readOptionalString();
+        request.opType = OpType.fromId(in.readByte());
+        request.autoGeneratedTimestamp = in.readLong();
+        request.isRetry = in.readBoolean();
+        if (in.readBoolean()) {
+            // faster than StreamInput::readEnum, do not replace we read a lot of these instances at times
+            request.contentType = XContentType.ofOrdinal(in.readByte());
+        }
+        request.source = in.readReleasableBytesReference();
+        return request;
+    }
+
     @Override
     public String toString() {
         String sSource = "_na_";
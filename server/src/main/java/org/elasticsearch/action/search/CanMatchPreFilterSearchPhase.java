@@ -148,9 +148,13 @@ final class CanMatchPreFilterSearchPhase {
                 continue;
             }
             boolean canMatch = true;
-            CoordinatorRewriteContext coordinatorRewriteContext = coordinatorRewriteContextProvider.getCoordinatorRewriteContext(
-                request.shardId().getIndex()
-            );
+            final CoordinatorRewriteContext coordinatorRewriteContext;
+            if (searchShardIterator.getClusterAlias() == null && request.getRuntimeMappings().isEmpty()) {
+                coordinatorRewriteContext = coordinatorRewriteContextProvider.getCoordinatorRewriteContext(request.shardId());
+            } else {
+                // runtime fields defined in the request may shadow the indexed fields that shards reported value stats for
+                coordinatorRewriteContext = coordinatorRewriteContextProvider.getCoordinatorRewriteContext(request.shardId().getIndex());
+            }
             if (coordinatorRewriteContext != null) {
                 try {
                     canMatch = SearchService.queryStillMatchesAfterRewrite(request, coordinatorRewriteContext);
@@ -268,6 +272,12 @@ final class CanMatchPreFilterSearchPhase {
                                     CanMatchNodeResponse.ResponseOrFailure response = canMatchNodeResponse.getResponses().get(i);
                                     if (response.getResponse() != null) {
                                         CanMatchShardResponse shardResponse = response.getResponse();
+                                        if (shardResponse.fieldValueStats() != null && sendingTarget.clusterAlias == null) {
+                                            coordinatorRewriteContextProvider.cacheFieldValueStats(
+                                                shardLevelRequests.get(i).shardId(),
+                                                shardResponse.fieldValueStats()
+                                            );
+                                        }
                                         shardResponse.setShardIndex(shardLevelRequests.get(i).getShardRequestIndex());
                                         onOperation(shardResponse.getShardIndex(), shardResponse);
                                     } else {
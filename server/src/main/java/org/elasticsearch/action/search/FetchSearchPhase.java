@@ -110,8 +110,11 @@ class FetchSearchPhase extends SearchPhase {
             // no docs to fetch -- sidestep everything and return
             if (scoreDocs.length == 0) {
                 // we have to release contexts here to free up resources
-                searchPhaseShardResults.asList()
-                    .forEach(searchPhaseShardResult -> releaseIrrelevantSearchContext(searchPhaseShardResult, context));
+                searchPhaseShardResults.asList().forEach(searchPhaseShardResult -> {
+                    if (searchPhaseShardResult.fetchResult() == null) {
+                        releaseIrrelevantSearchContext(searchPhaseShardResult, context);
+                    }
+                });
                 moveToNextPhase(new AtomicArray<>(0), reducedQueryPhase);
             } else {
                 innerRunFetch(scoreDocs, numShards, reducedQueryPhase);
@@ -152,6 +155,12 @@ class FetchSearchPhase extends SearchPhase {
                     progressListener.notifyFetchResult(i);
                 }
                 counter.countDown();
+            } else if (shardPhaseResult.fetchResult() != null) {
+                // the shard speculatively fetched its top hits along with the query result, these are a superset of the entries
+                assert shardPhaseResult.fetchResult().hits().getHits().length >= entry.size()
+                    : "not enough hits fetched speculatively: " + shardPhaseResult.fetchResult().hits().getHits().length + " < " + entry;
+                progressListener.notifyFetchResult(i);
+                counter.onResult(shardPhaseResult.fetchResult());
             } else {
                 executeFetch(
                     shardPhaseResult,
@@ -165,7 +174,8 @@ class FetchSearchPhase extends SearchPhase {
         for (int i = 0; i < docIdsToLoad.length; i++) {
             if (docIdsToLoad[i] == null) {
                 SearchPhaseResult shardPhaseResult = searchPhaseShardResults.get(i);
-                if (shardPhaseResult != null) {
+                // shards that fetched along with the query have already released their context
+                if (shardPhaseResult != null && shardPhaseResult.fetchResult() == null) {
                     releaseIrrelevantSearchContext(shardPhaseResult, context);
                 }
             }
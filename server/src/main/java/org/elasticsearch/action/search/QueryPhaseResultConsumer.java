@@ -16,8 +16,13 @@ import org.elasticsearch.action.search.SearchPhaseController.TopDocsStats;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
 import org.elasticsearch.common.io.stream.DelayableWriteable;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.Releasables;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.SearchService;
 import org.elasticsearch.search.SearchShardTarget;
@@ -48,14 +53,28 @@ import static org.elasticsearch.action.search.SearchPhaseController.setShardInde
  * in the {@link CircuitBreaker#REQUEST} circuit breaker. Before any partial or final reduce, the memory
  * needed to reduce the aggregations is estimated and a {@link CircuitBreakingException} is thrown if it
  * exceeds the maximum memory allowed in this breaker.
+ * <p>
+ * The result of the last partial reduce is kept as objects, unless this consumer has reserved a large share of the circuit breaker's
+ * limit. In that case it is serialized into pages of the node's {@link BigArrays}, which are a lot more compact than the objects and
+ * are accounted in the breaker as they're allocated. This lowers the memory held while waiting for the next batch, but it does not
+ * bound the peak of a partial reduce: every partial reduce still expands the whole accumulated result into objects next to the
+ * objects of its batch, and serializes the new result again afterwards.
  */
 public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhaseResult> {
     private static final Logger logger = LogManager.getLogger(QueryPhaseResultConsumer.class);
 
+    /**
+     * The share of the circuit breaker's limit that this consumer must have reserved for the result of a partial reduce
+     * to be kept serialized.
+     */
+    static final double SERIALIZE_PARTIAL_REDUCE_BREAKER_RATIO = 0.1;
+
     private final Executor executor;
     private final CircuitBreaker circuitBreaker;
     private final SearchProgressListener progressListener;
     private final AggregationReduceContext.Builder aggReduceContextBuilder;
+    private final NamedWriteableRegistry namedWriteableRegistry;
+    private final BigArrays bigArrays;
     private final QueryPhaseRankCoordinatorContext queryPhaseRankCoordinatorContext;
 
     private final int topNSize;
@@ -114,6 +133,8 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         this.hasTopDocs = (source == null || size != 0) && queryPhaseRankCoordinatorContext == null;
         this.hasAggs = source != null && source.aggregations() != null;
         this.aggReduceContextBuilder = hasAggs ? controller.getReduceContext(isCanceled, source.aggregations()) : null;
+        this.namedWriteableRegistry = controller.getNamedWriteableRegistry();
+        this.bigArrays = controller.getBigArrays();
         batchReduceSize = (hasAggs || hasTopDocs) ? Math.min(request.getBatchedReduceSize(), expectedResultSize) : expectedResultSize;
         topDocsStats = new TopDocsStats(request.resolveTrackTotalHitsUpTo());
     }
@@ -122,6 +143,10 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
     protected synchronized void doClose() {
         assert assertFailureAndBreakerConsistent();
         releaseBuffer();
+        if (mergeResult != null) {
+            mergeResult.releaseAggs.close();
+            mergeResult = null;
+        }
         circuitBreaker.addWithoutBreaking(-circuitBreakerBytes);
         circuitBreakerBytes = 0;
 
@@ -180,7 +205,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
                 topDocsList.add(mergeResult.reducedTopDocs);
             }
             if (aggsList != null) {
-                aggsList.add(DelayableWriteable.referencing(mergeResult.reducedAggs));
+                aggsList.add(mergeResult.reducedAggs);
             }
         }
         for (QuerySearchResult result : buffer) {
@@ -214,6 +239,9 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             );
         } finally {
             releaseAggs(buffer);
+            if (mergeResult != null) {
+                mergeResult.releaseAggs.close();
+            }
         }
         if (hasAggs
             // reduced aggregations can be null if all shards failed
@@ -255,7 +283,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         if (hasAggs) {
             aggsList = new ArrayList<>(resultSetSize);
             if (lastMerge != null) {
-                aggsList.add(DelayableWriteable.referencing(lastMerge.reducedAggs));
+                aggsList.add(lastMerge.reducedAggs);
             }
         } else {
             aggsList = null;
@@ -290,6 +318,9 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
                 : InternalAggregations.topLevelReduceDelayable(aggsList, aggReduceContextBuilder.forPartialReduction());
         } finally {
             releaseAggs(toConsume);
+            if (lastMerge != null) {
+                lastMerge.releaseAggs.close();
+            }
         }
         if (lastMerge != null) {
             processedShards.addAll(lastMerge.processedShards);
@@ -297,9 +328,29 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         if (progressListener != SearchProgressListener.NOOP) {
             progressListener.notifyPartialReduce(processedShards, topDocsStats.getTotalHits(), newAggs, numReducePhases);
         }
-        // we leave the results un-serialized because serializing is slow but we compute the serialized
-        // size as an estimate of the memory used by the newly reduced aggregations.
-        return new MergeResult(processedShards, newTopDocs, newAggs, newAggs != null ? DelayableWriteable.getSerializedSize(newAggs) : 0);
+        if (newAggs == null) {
+            return new MergeResult(processedShards, newTopDocs, null, 0);
+        }
+        DelayableWriteable<InternalAggregations> reducedAggs = DelayableWriteable.referencing(newAggs);
+        // once serialized the results stay serialized, the pages they use aren't part of this consumer's reservation
+        if ((lastMerge != null && lastMerge.reducedAggs.isSerialized()) || isReservationNearLimit()) {
+            // the breaker accounts for the serialized size of the results, but objects take several times as much memory,
+            // the pages are accounted in the breaker by the BigArrays so they're not added to the estimated size
+            return new MergeResult(
+                processedShards,
+                newTopDocs,
+                reducedAggs.asSerialized(InternalAggregations::readFrom, namedWriteableRegistry, bigArrays),
+                0
+            );
+        }
+        // otherwise we leave the results un-serialized because serializing is slow, but we compute the
+        // serialized size as an estimate of the memory used by the newly reduced aggregations.
+        return new MergeResult(processedShards, newTopDocs, reducedAggs, reducedAggs.getSerializedSize());
+    }
+
+    private boolean isReservationNearLimit() {
+        final long limit = circuitBreaker.getLimit();
+        return limit > 0 && circuitBreakerBytes >= limit * SERIALIZE_PARTIAL_REDUCE_BREAKER_RATIO;
     }
 
     public int getNumReducePhases() {
@@ -429,6 +480,9 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         final MergeTask task = runningTask.getAndSet(null);
         if (task != null) {
             task.cancel();
+        } else if (mergeResult != null) {
+            // a running merge releases the result it reduces on its own
+            mergeResult.releaseAggs.close();
         }
         MergeTask mergeTask;
         while ((mergeTask = queue.pollFirst()) != null) {
@@ -466,11 +520,15 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
                         newMerge = partialReduce(toConsume, mergeTask.emptyResults, topDocsStats, thisMergeResult, numReducePhases);
                     } catch (Exception t) {
                         QueryPhaseResultConsumer.releaseAggs(toConsume);
+                        if (thisMergeResult != null) {
+                            thisMergeResult.releaseAggs.close();
+                        }
                         onMergeFailure(t);
                         return;
                     }
                     synchronized (QueryPhaseResultConsumer.this) {
                         if (hasFailure()) {
+                            newMerge.releaseAggs.close();
                             return;
                         }
                         mergeResult = newMerge;
@@ -522,12 +580,31 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         }
     }
 
+    /**
+     * The result of a partial reduce. {@code releaseAggs} releases the {@code reducedAggs} and may be called more than once.
+     */
     private record MergeResult(
         List<SearchShard> processedShards,
         TopDocs reducedTopDocs,
-        InternalAggregations reducedAggs,
-        long estimatedSize
-    ) {}
+        @Nullable DelayableWriteable<InternalAggregations> reducedAggs,
+        long estimatedSize,
+        Releasable releaseAggs
+    ) {
+        MergeResult(
+            List<SearchShard> processedShards,
+            TopDocs reducedTopDocs,
+            @Nullable DelayableWriteable<InternalAggregations> reducedAggs,
+            long estimatedSize
+        ) {
+            this(
+                processedShards,
+                reducedTopDocs,
+                reducedAggs,
+                estimatedSize,
+                reducedAggs == null ? () -> {} : Releasables.releaseOnce(reducedAggs)
+            );
+        }
+    }
 
     private static class MergeTask {
         private final List<SearchShard> emptyResults;
@@ -21,8 +21,9 @@ import java.util.function.BiFunction;
 
 /**
  * A wrapper of search action listeners (search results) that unwraps the query
- * result to get the piggybacked queue size and service time EWMA, adding those
- * values to the coordinating nodes' {@link ResponseCollectorService}.
+ * result to get the piggybacked queue size, service time EWMA and queue latency
+ * percentiles, adding those values to the coordinating nodes'
+ * {@link ResponseCollectorService}.
  */
 public final class SearchExecutionStatsCollector extends DelegatingActionListener<SearchPhaseResult, SearchPhaseResult> {
 
@@ -57,7 +58,14 @@ public final class SearchExecutionStatsCollector extends DelegatingActionListene
             final long responseDuration = System.nanoTime() - startNanos;
             // EWMA/queue size may be -1 if the query node doesn't support capturing it
             if (serviceTimeEWMA > 0 && queueSize >= 0) {
-                collector.addNodeStatistics(nodeId, queueSize, responseDuration, serviceTimeEWMA);
+                collector.addNodeStatistics(
+                    nodeId,
+                    queueSize,
+                    responseDuration,
+                    serviceTimeEWMA,
+                    queryResult.nodeQueueLatencyP50(),
+                    queryResult.nodeQueueLatencyP99()
+                );
             }
         }
         delegate.onResponse(response);
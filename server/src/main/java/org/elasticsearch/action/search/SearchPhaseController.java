@@ -21,8 +21,10 @@ import org.apache.lucene.search.TotalHits;
 import org.apache.lucene.search.TotalHits.Relation;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.io.stream.DelayableWriteable;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.Maps;
 import org.elasticsearch.common.util.concurrent.AtomicArray;
 import org.elasticsearch.core.Nullable;
@@ -70,11 +72,24 @@ public final class SearchPhaseController {
         Supplier<Boolean>,
         AggregatorFactories.Builder,
         AggregationReduceContext.Builder> requestToAggReduceContextBuilder;
+    private final NamedWriteableRegistry namedWriteableRegistry;
+    private final BigArrays bigArrays;
 
     public SearchPhaseController(
-        BiFunction<Supplier<Boolean>, AggregatorFactories.Builder, AggregationReduceContext.Builder> requestToAggReduceContextBuilder
+        BiFunction<Supplier<Boolean>, AggregatorFactories.Builder, AggregationReduceContext.Builder> requestToAggReduceContextBuilder,
+        NamedWriteableRegistry namedWriteableRegistry
+    ) {
+        this(requestToAggReduceContextBuilder, namedWriteableRegistry, BigArrays.NON_RECYCLING_INSTANCE);
+    }
+
+    public SearchPhaseController(
+        BiFunction<Supplier<Boolean>, AggregatorFactories.Builder, AggregationReduceContext.Builder> requestToAggReduceContextBuilder,
+        NamedWriteableRegistry namedWriteableRegistry,
+        BigArrays bigArrays
     ) {
         this.requestToAggReduceContextBuilder = requestToAggReduceContextBuilder;
+        this.namedWriteableRegistry = namedWriteableRegistry;
+        this.bigArrays = bigArrays;
     }
 
     /**
@@ -656,6 +671,20 @@ public final class SearchPhaseController {
         return requestToAggReduceContextBuilder.apply(isCanceled, aggs);
     }
 
+    /**
+     * Returns the registry that is used to read back aggregations that were serialized to save memory on the coordinating node.
+     */
+    NamedWriteableRegistry getNamedWriteableRegistry() {
+        return namedWriteableRegistry;
+    }
+
+    /**
+     * The {@link BigArrays} that serialized partial reduce results are written to.
+     */
+    BigArrays getBigArrays() {
+        return bigArrays;
+    }
+
     /**
      * Returns a new {@link QueryPhaseResultConsumer} instance that reduces search responses incrementally.
      */
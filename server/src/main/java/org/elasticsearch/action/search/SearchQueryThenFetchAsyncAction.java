@@ -11,21 +11,30 @@ package org.elasticsearch.action.search;
 
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.search.TopFieldDocs;
+import org.elasticsearch.TransportVersions;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.client.internal.Client;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.node.ResponseCollectorService;
 import org.elasticsearch.search.SearchPhaseResult;
+import org.elasticsearch.search.SearchService;
 import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.dfs.AggregatedDfs;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.ShardSearchRequest;
 import org.elasticsearch.search.query.QuerySearchResult;
+import org.elasticsearch.threadpool.Scheduler;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.Transport;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.Executor;
 import java.util.function.BiFunction;
 
@@ -40,6 +49,12 @@ class SearchQueryThenFetchAsyncAction extends AbstractSearchAsyncAction<SearchPh
     private final int trackTotalHitsUpTo;
     private volatile BottomSortValuesCollector bottomSortCollector;
     private final Client client;
+    // node statistics used to decide which shards fetch their top hits speculatively, null if the request is not eligible
+    @Nullable
+    private final ResponseCollectorService speculativeFetchStats;
+    // used to re-send the query of slow shards to another copy, null if hedged requests are disabled or the request is not eligible
+    @Nullable
+    private final HedgedRequests hedgedRequests;
 
     SearchQueryThenFetchAsyncAction(
         Logger logger,
@@ -57,7 +72,9 @@ class SearchQueryThenFetchAsyncAction extends AbstractSearchAsyncAction<SearchPh
         ClusterState clusterState,
         SearchTask task,
         SearchResponse.Clusters clusters,
-        Client client
+        Client client,
+        @Nullable ResponseCollectorService speculativeFetchStats,
+        @Nullable HedgedRequests hedgedRequests
     ) {
         super(
             "query",
@@ -82,6 +99,8 @@ class SearchQueryThenFetchAsyncAction extends AbstractSearchAsyncAction<SearchPh
         this.trackTotalHitsUpTo = request.resolveTrackTotalHitsUpTo();
         this.progressListener = task.getProgressListener();
         this.client = client;
+        this.speculativeFetchStats = speculativeFetchStats;
+        this.hedgedRequests = hedgedRequests;
 
         // don't build the SearchShard list (can be expensive) if the SearchProgressListener won't use it
         if (progressListener != SearchProgressListener.NOOP) {
@@ -94,8 +113,299 @@ class SearchQueryThenFetchAsyncAction extends AbstractSearchAsyncAction<SearchPh
         final Transport.Connection connection,
         final SearchActionListener<SearchPhaseResult> listener
     ) {
-        ShardSearchRequest request = rewriteShardSearchRequest(super.buildShardSearchRequest(shardIt, listener.requestIndex));
+        TimeValue hedgeDelay = null;
+        if (hedgedRequests != null) {
+            hedgeDelay = hedgeDelay(hedgedRequests.stats().getNodeStatistics(connection.getNode().getId()));
+        }
+        if (hedgeDelay == null) {
+            sendShardQuery(shardIt, connection, listener, listener.requestIndex);
+        } else {
+            new HedgedShardQuery(shardIt, connection, listener).start(hedgeDelay);
+        }
+    }
+
+    private ShardSearchRequest sendShardQuery(
+        SearchShardIterator shardIt,
+        Transport.Connection connection,
+        ActionListener<SearchPhaseResult> listener,
+        int requestIndex
+    ) {
+        ShardSearchRequest request = rewriteShardSearchRequest(super.buildShardSearchRequest(shardIt, requestIndex));
+        if (speculativeFetchStats != null
+            && connection.getTransportVersion().onOrAfter(TransportVersions.SEARCH_SPECULATIVE_FETCH)
+            && isRoundTripBound(speculativeFetchStats.getNodeStatistics(connection.getNode().getId()))) {
+            request.speculativeFetch(true);
+            // the shard must answer with its fetched hits, even if the request rewrites to match none
+            request.canReturnNullResponseIfMatchNoDocs(false);
+        }
         getSearchTransport().sendExecuteQuery(connection, request, getTask(), listener);
+        return request;
+    }
+
+    /**
+     * Returns whether the query of the shards of the given request may be sent to a second copy of the shard when the first copy is
+     * slow. Scroll and point in time searches are excluded since they keep the search context of the copy that answers open, and are
+     * bound to a specific copy respectively.
+     */
+    static boolean canHedge(SearchRequest request) {
+        return request.scroll() == null && request.pointInTimeBuilder() == null;
+    }
+
+    /**
+     * Returns how long to wait for the response of a node before sending the query to another copy of the shard, which is the 95th
+     * percentile of the recent response times of the node, or {@code null} if we don't know enough about the node yet.
+     */
+    @Nullable
+    static TimeValue hedgeDelay(Optional<ResponseCollectorService.ComputedNodeStats> nodeStats) {
+        if (nodeStats.isEmpty() || nodeStats.get().responseTimeP95 <= 0) {
+            return null;
+        }
+        return TimeValue.timeValueNanos(nodeStats.get().responseTimeP95);
+    }
+
+    /**
+     * The node statistics that hedged requests are based on, and the thread pool used to schedule them.
+     */
+    record HedgedRequests(ResponseCollectorService stats, ThreadPool threadPool) {}
+
+    /**
+     * Sends the query of a shard to a copy of the shard and, if that copy didn't respond within the hedge delay, to the next copy of
+     * the shard as well. The first successful response is passed on to the shard listener, the query on the other copy is cancelled if
+     * it's still running and its search context is released if it answers anyway. Failures are only passed on once both copies failed,
+     * the shard listener then moves on to the remaining copies as usual.
+     */
+    private final class HedgedShardQuery {
+        private final SearchShardIterator shardIt;
+        private final Transport.Connection connection;
+        private final SearchActionListener<SearchPhaseResult> listener;
+        private final Attempt first;
+        private Attempt second;
+        private Scheduler.ScheduledCancellable scheduledHedge;
+        private int pendingRequests = 1;
+        private boolean hedged;
+        private boolean done;
+        private Exception failure;
+
+        HedgedShardQuery(SearchShardIterator shardIt, Transport.Connection connection, SearchActionListener<SearchPhaseResult> listener) {
+            this.shardIt = shardIt;
+            this.connection = connection;
+            this.listener = listener;
+            this.first = new Attempt(connection);
+        }
+
+        void start(TimeValue delay) {
+            final ThreadPool threadPool = hedgedRequests.threadPool();
+            final Scheduler.ScheduledCancellable scheduled = threadPool.schedule(
+                this::hedge,
+                delay,
+                threadPool.executor(ThreadPool.Names.SEARCH_COORDINATION)
+            );
+            synchronized (this) {
+                scheduledHedge = scheduled;
+                if (done) {
+                    scheduledHedge.cancel();
+                }
+            }
+            final ShardSearchRequest request = sendShardQuery(shardIt, connection, new ActionListener<>() {
+                @Override
+                public void onResponse(SearchPhaseResult result) {
+                    if (complete(first)) {
+                        listener.onResponse(result);
+                    } else {
+                        releaseSearchContext(result, connection);
+                    }
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    onRequestFailure(first, e);
+                }
+            }, listener.requestIndex);
+            sent(first, request);
+        }
+
+        private void hedge() {
+            final SearchShardTarget target;
+            final Attempt attempt;
+            synchronized (this) {
+                if (done || hedged || getTask().isCancelled()) {
+                    return;
+                }
+                target = shardIt.nextOrNull();
+                if (target == null) {
+                    return;
+                }
+                hedged = true;
+                pendingRequests++;
+                attempt = second = new Attempt(null);
+            }
+            getLogger().trace("{}: sending hedged query since [{}] did not respond in time", target, connection.getNode());
+            final Transport.Connection hedgeConnection;
+            try {
+                hedgeConnection = getConnection(target.getClusterAlias(), target.getNodeId());
+            } catch (Exception e) {
+                onRequestFailure(attempt, e);
+                return;
+            }
+            synchronized (this) {
+                attempt.connection = hedgeConnection;
+            }
+            final SearchActionListener<SearchPhaseResult> hedgeListener = new SearchActionListener<>(target, listener.requestIndex) {
+                @Override
+                protected void innerOnResponse(SearchPhaseResult result) {
+                    if (complete(attempt)) {
+                        listener.innerOnResponse(result);
+                    } else {
+                        releaseSearchContext(result, hedgeConnection);
+                    }
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    onRequestFailure(attempt, e);
+                }
+            };
+            sent(attempt, sendShardQuery(shardIt, hedgeConnection, hedgeListener, listener.requestIndex));
+        }
+
+        /**
+         * Records the request of an attempt once it was sent, and cancels it if another attempt already got a response.
+         */
+        private void sent(Attempt attempt, ShardSearchRequest request) {
+            final boolean cancel;
+            synchronized (this) {
+                attempt.request = request;
+                cancel = done && attempt.shouldCancel();
+            }
+            if (cancel) {
+                cancel(attempt);
+            }
+        }
+
+        /**
+         * Returns whether the caller got the first successful response, in which case the other attempt is cancelled if it's still
+         * running.
+         */
+        private boolean complete(Attempt attempt) {
+            final Attempt toCancel;
+            synchronized (this) {
+                pendingRequests--;
+                attempt.pending = false;
+                if (done) {
+                    return false;
+                }
+                done = true;
+                if (scheduledHedge != null) {
+                    scheduledHedge.cancel();
+                }
+                final Attempt other = attempt == first ? second : first;
+                toCancel = other != null && other.shouldCancel() ? other : null;
+            }
+            if (toCancel != null) {
+                cancel(toCancel);
+            }
+            return true;
+        }
+
+        private void cancel(Attempt attempt) {
+            getLogger().trace("cancelling the query on [{}] since another copy of the shard answered", attempt.connection.getNode());
+            getSearchTransport().cancelChildRequest(attempt.connection, attempt.request, "another copy of the shard answered the query");
+        }
+
+        private void onRequestFailure(Attempt attempt, Exception e) {
+            final Exception toNotify;
+            synchronized (this) {
+                pendingRequests--;
+                attempt.pending = false;
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+                if (done || pendingRequests > 0) {
+                    return;
+                }
+                done = true;
+                if (scheduledHedge != null) {
+                    scheduledHedge.cancel();
+                }
+                toNotify = failure;
+            }
+            listener.onFailure(toNotify);
+        }
+
+        private void releaseSearchContext(SearchPhaseResult result, Transport.Connection resultConnection) {
+            final QuerySearchResult queryResult = result.queryResult();
+            if (queryResult != null && queryResult.hasSearchContext()) {
+                sendReleaseSearchContext(queryResult.getContextId(), resultConnection);
+            }
+        }
+    }
+
+    /**
+     * A query sent to a copy of the shard by a {@link HedgedShardQuery}, guarded by the lock of the hedged query.
+     */
+    private static final class Attempt {
+        private Transport.Connection connection;
+        private ShardSearchRequest request;
+        private boolean pending = true;
+        private boolean cancelled;
+
+        Attempt(Transport.Connection connection) {
+            this.connection = connection;
+        }
+
+        /**
+         * Returns whether the attempt was sent and is still running, marking it cancelled if so.
+         */
+        boolean shouldCancel() {
+            if (request == null || pending == false || cancelled) {
+                return false;
+            }
+            cancelled = true;
+            return true;
+        }
+    }
+
+    /**
+     * Returns true if the given request may ask shards to fetch their top hits along with the query result.
+     * Each shard fetches the first {@code size} hits it found, so this is only correct if the hits that the
+     * coordinating node picks from a shard are always a prefix of them: the request must not skip hits with
+     * {@code from}, must not collapse and must not carry suggestions, knn or rank. The number of documents
+     * that are fetched across all shards is bounded by {@code maxDocs} since most of them are thrown away.
+     */
+    static boolean canSpeculativelyFetch(SearchRequest request, int numShards, int maxDocs) {
+        if (numShards <= 1 || request.scroll() != null || request.hasKnnSearch()) {
+            // single shard searches already fetch with the query
+            return false;
+        }
+        final SearchSourceBuilder source = request.source();
+        final int size;
+        if (source == null) {
+            size = SearchService.DEFAULT_SIZE;
+        } else {
+            if (source.from() > 0
+                || source.collapse() != null
+                || source.suggest() != null
+                || source.rankBuilder() != null) {
+                return false;
+            }
+            size = source.size() == -1 ? SearchService.DEFAULT_SIZE : source.size();
+        }
+        return size > 0 && (long) size * numShards <= maxDocs;
+    }
+
+    /**
+     * Returns true if the recent history of the node shows that the round-trip to it costs at least as much as
+     * executing the search on it, in which case saving the fetch round-trip outweighs fetching a few hits for nothing.
+     * Nodes we know nothing about yet keep the regular query then fetch execution.
+     */
+    static boolean isRoundTripBound(Optional<ResponseCollectorService.ComputedNodeStats> nodeStats) {
+        if (nodeStats.isEmpty()) {
+            return false;
+        }
+        final ResponseCollectorService.ComputedNodeStats stats = nodeStats.get();
+        return stats.serviceTime > 0 && stats.responseTime - stats.serviceTime >= stats.serviceTime;
     }
 
     @Override
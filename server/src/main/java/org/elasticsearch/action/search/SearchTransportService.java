@@ -183,9 +183,9 @@ public class SearchTransportService {
         final ActionListener<SearchPhaseResult> listener
     ) {
         // we optimize this and expect a QueryFetchSearchResult if we only have a single shard in the search request
+        // or if the coordinating node asked the shard to speculatively fetch its top hits along with the query result.
         // this used to be the QUERY_AND_FETCH which doesn't exist anymore.
-        final boolean fetchDocuments = request.numberOfShards() == 1
-            && (request.source() == null || request.source().rankBuilder() == null);
+        final boolean fetchDocuments = request.fetchWithQuery();
         Writeable.Reader<SearchPhaseResult> reader = fetchDocuments ? QueryFetchSearchResult::new : in -> new QuerySearchResult(in, true);
 
         final ActionListener<? super SearchPhaseResult> handler = responseWrapper.apply(connection, listener);
@@ -198,6 +198,14 @@ public class SearchTransportService {
         );
     }
 
+    /**
+     * Cancels the child task that executes the given request, which was sent over the given connection, e.g. the query of a shard
+     * copy whose result isn't needed anymore.
+     */
+    public void cancelChildRequest(Transport.Connection connection, TransportRequest request, String reason) {
+        transportService.getTaskManager().cancelChildRemote(request.getParentTask(), request.getRequestId(), connection, reason);
+    }
+
     public void sendExecuteQuery(
         Transport.Connection connection,
         final QuerySearchRequest request,
@@ -446,7 +454,7 @@ public class SearchTransportService {
             transportService,
             QUERY_ACTION_NAME,
             true,
-            (request) -> ((ShardSearchRequest) request).numberOfShards() == 1 ? QueryFetchSearchResult::new : QuerySearchResult::new
+            (request) -> ((ShardSearchRequest) request).fetchWithQuery() ? QueryFetchSearchResult::new : QuerySearchResult::new
         );
 
         transportService.registerRequestHandler(
@@ -140,6 +140,29 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         Property.NodeScope
     );
 
+    /**
+     * The maximum number of hits that shards may fetch speculatively along with the query phase of a query then fetch search,
+     * summed over all shards of the request. Set to {@code 0} to always run a separate fetch round-trip.
+     */
+    public static final Setting<Integer> SPECULATIVE_FETCH_MAX_DOCS_SETTING = Setting.intSetting(
+        "action.search.speculative_fetch.max_docs",
+        100,
+        0,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
+    /**
+     * Whether the query phase of a query then fetch search re-sends the query of a shard to another copy of the shard once the first
+     * copy takes longer than the 95th percentile of the recent response times of its node, using whichever response comes first.
+     */
+    public static final Setting<Boolean> HEDGED_REQUESTS_ENABLED_SETTING = Setting.boolSetting(
+        "action.search.hedged_requests.enabled",
+        false,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
     public static final Setting<Integer> DEFAULT_PRE_FILTER_SHARD_SIZE = Setting.intSetting(
         "action.search.pre_filter_shard_size.default",
         SearchRequest.DEFAULT_PRE_FILTER_SHARD_SIZE,
@@ -1549,6 +1572,14 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
                     );
                 } else {
                     assert searchRequest.searchType() == QUERY_THEN_FETCH : searchRequest.searchType();
+                    final int speculativeFetchMaxDocs = clusterService.getClusterSettings().get(SPECULATIVE_FETCH_MAX_DOCS_SETTING);
+                    final boolean speculativeFetch = SearchQueryThenFetchAsyncAction.canSpeculativelyFetch(
+                        searchRequest,
+                        shardIterators.size(),
+                        speculativeFetchMaxDocs
+                    );
+                    final boolean hedgedRequests = clusterService.getClusterSettings().get(HEDGED_REQUESTS_ENABLED_SETTING)
+                        && SearchQueryThenFetchAsyncAction.canHedge(searchRequest);
                     searchPhase = new SearchQueryThenFetchAsyncAction(
                         logger,
                         namedWriteableRegistry,
@@ -1565,7 +1596,9 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
                         clusterState,
                         task,
                         clusters,
-                        client
+                        client,
+                        speculativeFetch ? responseCollectorService : null,
+                        hedgedRequests ? new SearchQueryThenFetchAsyncAction.HedgedRequests(responseCollectorService, threadPool) : null
                     );
                 }
                 success = true;
@@ -191,6 +191,14 @@ public abstract class ReplicationRequest<Request extends ReplicationRequest<Requ
         out.writeVLong(routedBasedOnClusterVersion);
     }
 
+    /**
+     * Writes this request for a replica, once it was executed on the primary. Only the replica action reads this format, requests that
+     * are sent to a primary, including retries on a new primary, are always written with {@link #writeTo(StreamOutput)}.
+     */
+    public void writeToReplica(StreamOutput out) throws IOException {
+        writeTo(out);
+    }
+
     /**
      * Thin serialization that does not write {@link #shardId} and will only write {@link #index} if it is different from the index name in
      * {@link #shardId}.
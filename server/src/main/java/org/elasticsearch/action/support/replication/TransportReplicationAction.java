@@ -619,7 +619,12 @@ public abstract class TransportReplicationAction<
         final Task task
     ) {
         Releasable releasable = checkReplicaLimits(replicaRequest.getRequest());
-        ActionListener<ReplicaResponse> listener = ActionListener.runBefore(new ChannelActionListener<>(channel), releasable::close);
+        // the request may reference the network buffer it was read from, keep it alive until the operation completed on the replica
+        replicaRequest.mustIncRef();
+        ActionListener<ReplicaResponse> listener = ActionListener.runAfter(
+            ActionListener.runBefore(new ChannelActionListener<>(channel), releasable::close),
+            replicaRequest::decRef
+        );
 
         try {
             new AsyncReplicaAction(replicaRequest, listener, (ReplicationTask) task).run();
@@ -1410,6 +1415,10 @@ public abstract class TransportReplicationAction<
             assert localRerouteInitiatedByNodeClient == false;
             out.writeString(targetAllocationID);
             out.writeVLong(primaryTerm);
+            writeRequestTo(out);
+        }
+
+        void writeRequestTo(StreamOutput out) throws IOException {
             request.writeTo(out);
         }
 
@@ -1433,6 +1442,26 @@ public abstract class TransportReplicationAction<
             return primaryTerm;
         }
 
+        @Override
+        public void incRef() {
+            request.incRef();
+        }
+
+        @Override
+        public boolean tryIncRef() {
+            return request.tryIncRef();
+        }
+
+        @Override
+        public boolean decRef() {
+            return request.decRef();
+        }
+
+        @Override
+        public boolean hasReferences() {
+            return request.hasReferences();
+        }
+
         @Override
         public boolean isRawIndexingData() {
             if (request instanceof RawIndexingDataTransportRequest) {
@@ -1470,6 +1499,15 @@ public abstract class TransportReplicationAction<
             this.maxSeqNoOfUpdatesOrDeletes = maxSeqNoOfUpdatesOrDeletes;
         }
 
+        @Override
+        void writeRequestTo(StreamOutput out) throws IOException {
+            if (getRequest() instanceof ReplicationRequest<?> replicationRequest) {
+                replicationRequest.writeToReplica(out);
+            } else {
+                super.writeRequestTo(out);
+            }
+        }
+
         @Override
         public void writeTo(StreamOutput out) throws IOException {
             super.writeTo(out);
@@ -53,6 +53,9 @@ import java.util.function.ToLongBiFunction;
  * <p>
  * Evictions only occur after a mutation to the cache (meaning an entry promotion, a cache insertion, or a manual
  * invalidation) or an explicit call to {@link #refresh()}.
+ * <p>
+ * Caches that are read by many threads at once can use {@link CacheBuilder.EvictionPolicy#W_TINY_LFU} instead, which does
+ * not take any lock on reads.
  *
  * @param <K> The type of the keys
  * @param <V> The type of the values
@@ -15,6 +15,25 @@ import java.util.Objects;
 import java.util.function.ToLongBiFunction;
 
 public class CacheBuilder<K, V> {
+
+    /**
+     * The policy that picks the entries to evict from a cache that exceeds its maximum weight.
+     */
+    public enum EvictionPolicy {
+        /**
+         * Evicts the least recently used entries. Every read moves the entry in a list that is shared by all threads, which is cheap
+         * but serializes concurrent reads, see {@link Cache}.
+         */
+        LRU,
+        /**
+         * Admits entries only if they are accessed more frequently than the entries they would replace, and never blocks reads, see
+         * {@link TinyLfuCache}. This keeps frequently used entries in the cache when it is scanned by one-off requests, and scales better
+         * with many threads reading from the cache.
+         */
+        W_TINY_LFU
+    }
+
+    private EvictionPolicy evictionPolicy = EvictionPolicy.LRU;
     private long maximumWeight = -1;
     private long expireAfterAccessNanos = -1;
     private long expireAfterWriteNanos = -1;
@@ -79,7 +98,19 @@ public class CacheBuilder<K, V> {
         return this;
     }
 
+    /**
+     * Sets the eviction policy of the cache, defaults to {@link EvictionPolicy#LRU}.
+     */
+    public CacheBuilder<K, V> setEvictionPolicy(EvictionPolicy evictionPolicy) {
+        Objects.requireNonNull(evictionPolicy);
+        this.evictionPolicy = evictionPolicy;
+        return this;
+    }
+
     public Cache<K, V> build() {
+        if (evictionPolicy == EvictionPolicy.W_TINY_LFU) {
+            return new TinyLfuCache<>(maximumWeight, expireAfterAccessNanos, expireAfterWriteNanos, weigher, removalListener);
+        }
         Cache<K, V> cache = new Cache<>();
         if (maximumWeight != -1) {
             cache.setMaximumWeight(maximumWeight);
@@ -0,0 +1,667 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.common.cache;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * A {@link Cache} with lock-free reads and a W-TinyLFU eviction policy, see {@link CacheBuilder.EvictionPolicy#W_TINY_LFU}.
+ * <p>
+ * Entries are held in a {@link ConcurrentHashMap}, so reads never take a lock. Instead of moving an entry to the head of the LRU list on
+ * every read, which serializes all reads of {@link Cache} on a single lock, reads are recorded in striped, lossy buffers. The buffers are
+ * drained in batches under the eviction lock by writes, or by a read that finds its buffer full. Reads that do not fit into a buffer under
+ * heavy contention are dropped, which is fine since they only feed the recency and frequency estimates.
+ * <p>
+ * New entries are admitted into a small LRU window that takes 1% of the maximum weight. Entries that fall out of the window become
+ * candidates for the main LRU region, and when the cache exceeds its maximum weight a candidate only replaces the least recently used
+ * entry of the main region if it was accessed more frequently. Otherwise the candidate is evicted. Access frequencies are estimated by a
+ * count-min sketch with 4-bit counters that are halved periodically, so that entries that used to be popular age out. This keeps the
+ * frequently used entries in the cache while it is scanned by one-off requests, which would flush an LRU cache.
+ * <p>
+ * Unlike with {@link Cache}, {@link #keys()} and {@link #values()} iterate in no particular order, and entries that expire after write
+ * are only evicted once they are accessed, once they are the least recently used entries, or on {@link #refresh()}.
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+class TinyLfuCache<K, V> extends Cache<K, V> {
+
+    // the share of the maximum weight that is taken by the admission window
+    static final double WINDOW_RATIO = 0.01;
+    static final int READ_BUFFER_SIZE = 16;
+    static final int NUMBER_OF_READ_BUFFERS = Math.min(64, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private final long maximumWeight;
+    private final long expireAfterAccessNanos;
+    private final long expireAfterWriteNanos;
+    private final ToLongBiFunction<K, V> weigher;
+    private final RemovalListener<K, V> removalListener;
+
+    private final ConcurrentHashMap<K, Node<K, V>> map = new ConcurrentHashMap<>();
+    // values that are being loaded through computeIfAbsent, so that they are loaded at most once
+    private final ConcurrentHashMap<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+    private final ReadBuffer<K, V>[] readBuffers;
+
+    // lock protecting the eviction policy and the fields below
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final AccessOrder<K, V> window = new AccessOrder<>();
+    private final AccessOrder<K, V> main = new AccessOrder<>();
+    private final FrequencySketch sketch = new FrequencySketch();
+    private long windowWeight;
+    private volatile long weight;
+    private volatile int count;
+
+    /**
+     * Use {@link CacheBuilder} to construct, negative values and {@code null} mean that the respective option is not set.
+     */
+    TinyLfuCache(
+        long maximumWeight,
+        long expireAfterAccessNanos,
+        long expireAfterWriteNanos,
+        ToLongBiFunction<K, V> weigher,
+        RemovalListener<K, V> removalListener
+    ) {
+        this.maximumWeight = maximumWeight;
+        this.expireAfterAccessNanos = expireAfterAccessNanos;
+        this.expireAfterWriteNanos = expireAfterWriteNanos;
+        this.weigher = weigher == null ? (k, v) -> 1 : weigher;
+        this.removalListener = removalListener == null ? notification -> {} : removalListener;
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        final ReadBuffer<K, V>[] buffers = new ReadBuffer[NUMBER_OF_READ_BUFFERS];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new ReadBuffer<>();
+        }
+        this.readBuffers = buffers;
+    }
+
+    @Override
+    protected long now() {
+        // System.nanoTime takes non-negligible time, so we only use it if we need it
+        return expireAfterAccessNanos > 0 || expireAfterWriteNanos > 0 ? System.nanoTime() : 0;
+    }
+
+    @Override
+    public long getExpireAfterAccessNanos() {
+        return expireAfterAccessNanos;
+    }
+
+    @Override
+    long getExpireAfterWriteNanos() {
+        return expireAfterWriteNanos;
+    }
+
+    // the region of the eviction policy that an entry belongs to
+    private enum Region {
+        NONE,
+        WINDOW,
+        MAIN
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+        final long weight;
+        final long writeTime;
+        volatile long accessTime;
+        // guarded by the eviction lock
+        Node<K, V> before;
+        Node<K, V> after;
+        Region region = Region.NONE;
+        // true once the entry was removed from the eviction policy, which happens after it was removed from the map
+        boolean retired;
+
+        Node(K key, V value, long weight, long writeTime) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = this.accessTime = writeTime;
+        }
+    }
+
+    @Override
+    public V get(K key) {
+        return get(key, now(), false);
+    }
+
+    private V get(K key, long now, boolean eagerEvict) {
+        final Node<K, V> node = map.get(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        if (isExpired(node, now)) {
+            misses.increment();
+            if (eagerEvict) {
+                evictionLock.lock();
+                try {
+                    evictNode(node);
+                } finally {
+                    evictionLock.unlock();
+                }
+            }
+            return null;
+        }
+        hits.increment();
+        if (expireAfterAccessNanos > 0) {
+            node.accessTime = now;
+        }
+        if (readBuffers[readBufferIndex()].offer(node) == false && evictionLock.tryLock()) {
+            // the buffer is full, apply the recorded reads unless another thread is doing so already
+            try {
+                maintenance(now);
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+        return node.value;
+    }
+
+    private int readBufferIndex() {
+        final long threadId = Thread.currentThread().threadId();
+        return (int) ((threadId * 0x9E3779B97F4A7C15L) >>> 32) & (readBuffers.length - 1);
+    }
+
+    @Override
+    public V computeIfAbsent(K key, CacheLoader<K, V> loader) throws ExecutionException {
+        final long now = now();
+        // we have to eagerly evict expired entries, otherwise we would return them below
+        V value = get(key, now, true);
+        if (value != null) {
+            return value;
+        }
+        // we need to make sure that load is invoked at most once for a key without holding any lock while it is invoked, since this
+        // can lead to deadlocks due to dependent key loading; the thread that wins the race to register a future loads the value
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        final CompletableFuture<V> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            try {
+                return existing.get();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        try {
+            // another thread may have loaded the value between our lookup and the registration of the future
+            final Node<K, V> node = map.get(key);
+            if (node != null && isExpired(node, now) == false) {
+                value = node.value;
+            } else {
+                try {
+                    value = loader.load(key);
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                    throw new ExecutionException(e);
+                }
+                if (value == null) {
+                    NullPointerException npe = new NullPointerException("loader returned a null value");
+                    future.completeExceptionally(npe);
+                    throw new ExecutionException(npe);
+                }
+                put(key, value, now);
+            }
+            future.complete(value);
+            return value;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    @Override
+    public void put(K key, V value) {
+        put(key, value, now());
+    }
+
+    private void put(K key, V value, long now) {
+        final Node<K, V> node = new Node<>(key, value, weigher.applyAsLong(key, value), now);
+        final Node<K, V> existing = map.put(key, node);
+        evictionLock.lock();
+        try {
+            if (existing != null) {
+                retire(existing);
+            }
+            sketch.increment(key.hashCode());
+            // the entry may have been invalidated concurrently, before we got the lock
+            if (node.retired == false) {
+                node.region = Region.WINDOW;
+                window.linkLast(node);
+                windowWeight += node.weight;
+                weight += node.weight;
+                count++;
+                sketch.ensureCapacity(count);
+            }
+            maintenance(now);
+        } finally {
+            evictionLock.unlock();
+        }
+        if (existing != null) {
+            removalListener.onRemoval(new RemovalNotification<>(existing.key, existing.value, RemovalNotification.RemovalReason.REPLACED));
+        }
+    }
+
+    @Override
+    public void invalidate(K key) {
+        final Node<K, V> node = map.remove(key);
+        if (node != null) {
+            invalidated(node);
+        }
+    }
+
+    @Override
+    public void invalidate(K key, V value) {
+        final Node<K, V> node = map.get(key);
+        if (node != null && Objects.equals(value, node.value) && map.remove(key, node)) {
+            invalidated(node);
+        }
+    }
+
+    private void invalidated(Node<K, V> node) {
+        evictions.increment();
+        evictionLock.lock();
+        try {
+            retire(node);
+        } finally {
+            evictionLock.unlock();
+        }
+        removalListener.onRemoval(new RemovalNotification<>(node.key, node.value, RemovalNotification.RemovalReason.INVALIDATED));
+    }
+
+    @Override
+    public void invalidateAll() {
+        final List<Node<K, V>> invalidated = new ArrayList<>();
+        evictionLock.lock();
+        try {
+            for (Node<K, V> node : map.values()) {
+                if (map.remove(node.key, node)) {
+                    retire(node);
+                    invalidated.add(node);
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+        for (Node<K, V> node : invalidated) {
+            removalListener.onRemoval(new RemovalNotification<>(node.key, node.value, RemovalNotification.RemovalReason.INVALIDATED));
+        }
+    }
+
+    @Override
+    public void refresh() {
+        final long now = now();
+        evictionLock.lock();
+        try {
+            if (expireAfterAccessNanos > 0 || expireAfterWriteNanos > 0) {
+                // entries that expire after write are not ordered by write time, so we need to look at all of them
+                for (Node<K, V> node : map.values()) {
+                    if (isExpired(node, now)) {
+                        evictNode(node);
+                    }
+                }
+            }
+            maintenance(now);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public int count() {
+        return count;
+    }
+
+    @Override
+    public long weight() {
+        return weight;
+    }
+
+    /**
+     * The keys in the cache, in no particular order. The iteration is weakly consistent and supports removal.
+     */
+    @Override
+    public Iterable<K> keys() {
+        return () -> new NodeIterator<>(node -> node.key);
+    }
+
+    /**
+     * The values in the cache, in no particular order. The iteration is weakly consistent and supports removal.
+     */
+    @Override
+    public Iterable<V> values() {
+        return () -> new NodeIterator<>(node -> node.value);
+    }
+
+    @Override
+    public void forEach(BiConsumer<K, V> consumer) {
+        for (Node<K, V> node : map.values()) {
+            consumer.accept(node.key, node.value);
+        }
+    }
+
+    @Override
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    private class NodeIterator<T> implements Iterator<T> {
+        private final Iterator<Node<K, V>> iterator = map.values().iterator();
+        private final Function<Node<K, V>, T> extractor;
+        private Node<K, V> current;
+
+        NodeIterator(Function<Node<K, V>, T> extractor) {
+            this.extractor = extractor;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public T next() {
+            current = iterator.next();
+            return extractor.apply(current);
+        }
+
+        @Override
+        public void remove() {
+            final Node<K, V> node = current;
+            if (node != null) {
+                current = null;
+                if (map.remove(node.key, node)) {
+                    invalidated(node);
+                }
+            }
+        }
+    }
+
+    private boolean isExpired(Node<K, V> node, long now) {
+        return (expireAfterAccessNanos > 0 && now - node.accessTime > expireAfterAccessNanos)
+            || (expireAfterWriteNanos > 0 && now - node.writeTime > expireAfterWriteNanos);
+    }
+
+    /**
+     * Applies the recorded reads and evicts entries as needed.
+     */
+    private void maintenance(long now) {
+        assert evictionLock.isHeldByCurrentThread();
+        for (ReadBuffer<K, V> buffer : readBuffers) {
+            buffer.drain(this::onRead);
+        }
+        evictExpired(window, now);
+        evictExpired(main, now);
+        evictToMaximumWeight();
+    }
+
+    private void onRead(Node<K, V> node) {
+        sketch.increment(node.key.hashCode());
+        switch (node.region) {
+            case WINDOW -> window.moveToLast(node);
+            case MAIN -> main.moveToLast(node);
+            case NONE -> {
+                // the entry was removed in the meantime
+            }
+        }
+    }
+
+    private void evictExpired(AccessOrder<K, V> region, long now) {
+        while (region.first != null && isExpired(region.first, now)) {
+            evictNode(region.first);
+        }
+    }
+
+    private void evictToMaximumWeight() {
+        if (maximumWeight < 0) {
+            return;
+        }
+        // entries that fall out of the window are appended to the main region, and become candidates for admission
+        final long windowMaximum = (long) (maximumWeight * WINDOW_RATIO);
+        Node<K, V> candidate = null;
+        while (windowWeight > windowMaximum && window.first != null) {
+            final Node<K, V> node = window.first;
+            window.unlink(node);
+            windowWeight -= node.weight;
+            node.region = Region.MAIN;
+            main.linkLast(node);
+            if (candidate == null) {
+                candidate = node;
+            }
+        }
+        Node<K, V> victim = main.first;
+        while (weight > maximumWeight) {
+            if (victim == null) {
+                // only possible if a single entry exceeds the maximum weight while in the window
+                if (window.first == null) {
+                    break;
+                }
+                evictNode(window.first);
+            } else if (candidate == null || victim == candidate) {
+                // all candidates were either admitted or evicted, or only candidates are left
+                final Node<K, V> next = victim.after;
+                if (victim == candidate) {
+                    candidate = next;
+                }
+                evictNode(victim);
+                victim = next;
+            } else if (sketch.frequency(candidate.key.hashCode()) > sketch.frequency(victim.key.hashCode())) {
+                final Node<K, V> next = victim.after;
+                evictNode(victim);
+                victim = next;
+            } else {
+                final Node<K, V> next = candidate.after;
+                evictNode(candidate);
+                candidate = next;
+            }
+        }
+    }
+
+    private void evictNode(Node<K, V> node) {
+        assert evictionLock.isHeldByCurrentThread();
+        retire(node);
+        // if the entry was removed from the map concurrently, the thread that removed it notifies the listener
+        if (map.remove(node.key, node)) {
+            evictions.increment();
+            removalListener.onRemoval(new RemovalNotification<>(node.key, node.value, RemovalNotification.RemovalReason.EVICTED));
+        }
+    }
+
+    /**
+     * Removes the given entry from the eviction policy, it must be removed from the map before or right after.
+     */
+    private void retire(Node<K, V> node) {
+        assert evictionLock.isHeldByCurrentThread();
+        switch (node.region) {
+            case WINDOW -> {
+                window.unlink(node);
+                windowWeight -= node.weight;
+            }
+            case MAIN -> main.unlink(node);
+            case NONE -> {
+                node.retired = true;
+                return;
+            }
+        }
+        weight -= node.weight;
+        count--;
+        node.region = Region.NONE;
+        node.retired = true;
+    }
+
+    /**
+     * A doubly-linked list of entries from the least to the most recently used one.
+     */
+    private static final class AccessOrder<K, V> {
+        Node<K, V> first;
+        Node<K, V> last;
+
+        void linkLast(Node<K, V> node) {
+            node.before = last;
+            node.after = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.after = node;
+            }
+            last = node;
+        }
+
+        void unlink(Node<K, V> node) {
+            final Node<K, V> before = node.before;
+            final Node<K, V> after = node.after;
+            if (before == null) {
+                first = after;
+            } else {
+                before.after = after;
+            }
+            if (after == null) {
+                last = before;
+            } else {
+                after.before = before;
+            }
+            node.before = null;
+            node.after = null;
+        }
+
+        void moveToLast(Node<K, V> node) {
+            if (last != node) {
+                unlink(node);
+                linkLast(node);
+            }
+        }
+    }
+
+    /**
+     * A lossy ring buffer of reads. Any thread can offer reads, while draining happens under the eviction lock.
+     */
+    private static final class ReadBuffer<K, V> {
+        private static final int MASK = READ_BUFFER_SIZE - 1;
+
+        private final AtomicReferenceArray<Node<K, V>> buffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+        private final AtomicLong writeCounter = new AtomicLong();
+        private volatile long readCounter;
+
+        /**
+         * Records a read, or drops it if another thread records a read at the same time. Returns {@code false} if the buffer is full.
+         */
+        boolean offer(Node<K, V> node) {
+            final long tail = writeCounter.get();
+            if (tail - readCounter >= READ_BUFFER_SIZE) {
+                return false;
+            }
+            if (writeCounter.compareAndSet(tail, tail + 1)) {
+                buffer.lazySet((int) (tail & MASK), node);
+            }
+            return true;
+        }
+
+        void drain(Consumer<Node<K, V>> consumer) {
+            long head = readCounter;
+            final long tail = writeCounter.get();
+            for (; head < tail; head++) {
+                final int index = (int) (head & MASK);
+                final Node<K, V> node = buffer.get(index);
+                if (node == null) {
+                    // the slot was claimed but the read is not published yet, pick it up on the next drain
+                    break;
+                }
+                buffer.lazySet(index, null);
+                consumer.accept(node);
+            }
+            readCounter = head;
+        }
+    }
+
+    /**
+     * A count-min sketch with four 4-bit counters per key that estimates how often keys were accessed recently. All counters are halved
+     * once the number of increments reaches ten times the number of counters per row, so that the estimates reflect recent accesses.
+     * Only accessed under the eviction lock.
+     */
+    static final class FrequencySketch {
+        private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+        private static final long RESET_MASK = 0x7777777777777777L;
+        private static final int MAXIMUM_CAPACITY = 1 << 24;
+
+        private long[] table = new long[16];
+        private int sampleSize = 10 * table.length;
+        private int additions;
+
+        /**
+         * Grows the sketch to track the given number of entries accurately, this resets all counters.
+         */
+        void ensureCapacity(int entries) {
+            final int capacity = Math.min(MAXIMUM_CAPACITY, Integer.highestOneBit(Math.max(16, entries) - 1) << 1);
+            if (capacity > table.length) {
+                table = new long[capacity];
+                sampleSize = 10 * capacity;
+                additions = 0;
+            }
+        }
+
+        int frequency(int hashCode) {
+            final int hash = spread(hashCode);
+            int frequency = 15;
+            for (int i = 0; i < SEEDS.length; i++) {
+                frequency = Math.min(frequency, (int) ((table[indexOf(hash, i)] >>> offsetOf(hash, i)) & 0xfL));
+            }
+            return frequency;
+        }
+
+        void increment(int hashCode) {
+            final int hash = spread(hashCode);
+            boolean added = false;
+            for (int i = 0; i < SEEDS.length; i++) {
+                final int index = indexOf(hash, i);
+                final int offset = offsetOf(hash, i);
+                if (((table[index] >>> offset) & 0xfL) != 0xfL) {
+                    table[index] += 1L << offset;
+                    added = true;
+                }
+            }
+            if (added && ++additions == sampleSize) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] = (table[i] >>> 1) & RESET_MASK;
+                }
+                additions /= 2;
+            }
+        }
+
+        private int indexOf(int hash, int i) {
+            long h = (hash + SEEDS[i]) * SEEDS[i];
+            h += h >>> 32;
+            return (int) h & (table.length - 1);
+        }
+
+        // every long holds sixteen counters, four for each hash function
+        private static int offsetOf(int hash, int i) {
+            return ((i << 2) + ((hash >>> (i << 3)) & 3)) << 2;
+        }
+
+        private static int spread(int hashCode) {
+            final int h = hashCode * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
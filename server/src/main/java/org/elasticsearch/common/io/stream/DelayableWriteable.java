@@ -12,6 +12,7 @@ package org.elasticsearch.common.io.stream;
 import org.elasticsearch.TransportVersion;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.core.Releasable;
 
 import java.io.IOException;
@@ -69,6 +70,13 @@ public abstract class DelayableWriteable<T extends Writeable> implements Writeab
      */
     public abstract Serialized<T> asSerialized(Writeable.Reader<T> reader, NamedWriteableRegistry registry);
 
+    /**
+     * Returns a {@linkplain DelayableWriteable} that stores its contents
+     * in serialized form in pages allocated from {@code bigArrays}. The
+     * pages are released when the returned instance is closed.
+     */
+    public abstract Serialized<T> asSerialized(Writeable.Reader<T> reader, NamedWriteableRegistry registry, BigArrays bigArrays);
+
     /**
      * Expands the inner {@link Writeable} to its original representation and returns it
      */
@@ -110,10 +118,27 @@ public abstract class DelayableWriteable<T extends Writeable> implements Writeab
             } catch (IOException e) {
                 throw new RuntimeException("unexpected error writing writeable to buffer", e);
             }
-            // TODO: this path is currently not used in production code, if it ever is this should start using pooled buffers
             return new Serialized<>(reader, TransportVersion.current(), registry, ReleasableBytesReference.wrap(buffer.bytes()));
         }
 
+        @Override
+        public Serialized<T> asSerialized(Reader<T> reader, NamedWriteableRegistry registry, BigArrays bigArrays) {
+            ReleasableBytesStreamOutput buffer = new ReleasableBytesStreamOutput(bigArrays);
+            boolean success = false;
+            try {
+                buffer.setTransportVersion(TransportVersion.current());
+                reference.writeTo(buffer);
+                success = true;
+            } catch (IOException e) {
+                throw new RuntimeException("unexpected error writing writeable to buffer", e);
+            } finally {
+                if (success == false) {
+                    buffer.close();
+                }
+            }
+            return new Serialized<>(reader, TransportVersion.current(), registry, new ReleasableBytesReference(buffer.bytes(), buffer));
+        }
+
         @Override
         public boolean isSerialized() {
             return false;
@@ -195,6 +220,11 @@ public abstract class DelayableWriteable<T extends Writeable> implements Writeab
             return this; // We're already serialized
         }
 
+        @Override
+        public Serialized<T> asSerialized(Reader<T> reader, NamedWriteableRegistry registry, BigArrays bigArrays) {
+            return this; // We're already serialized
+        }
+
         @Override
         public boolean isSerialized() {
             return true;
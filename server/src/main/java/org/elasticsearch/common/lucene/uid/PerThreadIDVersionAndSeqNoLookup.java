@@ -20,10 +20,12 @@ import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IOBooleanSupplier;
 import org.elasticsearch.cluster.metadata.DataStream;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.uid.VersionsAndSeqNoResolver.DocIdAndSeqNo;
 import org.elasticsearch.common.lucene.uid.VersionsAndSeqNoResolver.DocIdAndVersion;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.mapper.IdFieldMapper;
 import org.elasticsearch.index.mapper.SeqNoFieldMapper;
 import org.elasticsearch.index.mapper.VersionFieldMapper;
@@ -118,8 +120,35 @@ final class PerThreadIDVersionAndSeqNoLookup {
     public DocIdAndVersion lookupVersion(BytesRef id, boolean loadSeqNo, LeafReaderContext context) throws IOException {
         assert readerKey == null || context.reader().getCoreCacheHelper().getKey().equals(readerKey)
             : "context's reader is not the same as the reader class was initialized on.";
-        int docID = getDocID(id, context);
+        return loadVersion(getDocID(id, context), loadSeqNo, context);
+    }
+
+    /**
+     * Starts seeking to the given id, which allows the terms dictionary blocks of several segments to be fetched in parallel before
+     * any of them is read. Returns {@code null} if the id is known not to exist in this segment. Otherwise, the returned seek must be
+     * completed, either through {@link #lookupVersion(IOBooleanSupplier, boolean, LeafReaderContext)} or by calling it, before this
+     * lookup is used again.
+     */
+    @Nullable
+    IOBooleanSupplier prepareSeekExact(BytesRef id) throws IOException {
+        // termsEnum can possibly be null here if this leaf contains only no-ops.
+        return termsEnum == null ? null : termsEnum.prepareSeekExact(id);
+    }
+
+    /**
+     * Completes a seek that was started with {@link #prepareSeekExact(BytesRef)} and returns null if the id is not found.
+     */
+    DocIdAndVersion lookupVersion(@Nullable IOBooleanSupplier seek, boolean loadSeqNo, LeafReaderContext context) throws IOException {
+        assert readerKey == null || context.reader().getCoreCacheHelper().getKey().equals(readerKey)
+            : "context's reader is not the same as the reader class was initialized on.";
+        if (seek != null && seek.get()) {
+            return loadVersion(getDocIDOfCurrentTerm(context), loadSeqNo, context);
+        } else {
+            return null;
+        }
+    }
 
+    private DocIdAndVersion loadVersion(int docID, boolean loadSeqNo, LeafReaderContext context) throws IOException {
         if (docID != DocIdSetIterator.NO_MORE_DOCS) {
             final long seqNo;
             final long term;
@@ -144,22 +173,26 @@ final class PerThreadIDVersionAndSeqNoLookup {
     private int getDocID(BytesRef id, LeafReaderContext context) throws IOException {
         // termsEnum can possibly be null here if this leaf contains only no-ops.
         if (termsEnum != null && termsEnum.seekExact(id)) {
-            final Bits liveDocs = context.reader().getLiveDocs();
-            int docID = DocIdSetIterator.NO_MORE_DOCS;
-            // there may be more than one matching docID, in the case of nested docs, so we want the last one:
-            docsEnum = termsEnum.postings(docsEnum, 0);
-            for (int d = docsEnum.nextDoc(); d != DocIdSetIterator.NO_MORE_DOCS; d = docsEnum.nextDoc()) {
-                if (liveDocs != null && liveDocs.get(d) == false) {
-                    continue;
-                }
-                docID = d;
-            }
-            return docID;
+            return getDocIDOfCurrentTerm(context);
         } else {
             return DocIdSetIterator.NO_MORE_DOCS;
         }
     }
 
+    private int getDocIDOfCurrentTerm(LeafReaderContext context) throws IOException {
+        final Bits liveDocs = context.reader().getLiveDocs();
+        int docID = DocIdSetIterator.NO_MORE_DOCS;
+        // there may be more than one matching docID, in the case of nested docs, so we want the last one:
+        docsEnum = termsEnum.postings(docsEnum, 0);
+        for (int d = docsEnum.nextDoc(); d != DocIdSetIterator.NO_MORE_DOCS; d = docsEnum.nextDoc()) {
+            if (liveDocs != null && liveDocs.get(d) == false) {
+                continue;
+            }
+            docID = d;
+        }
+        return docID;
+    }
+
     private static long readNumericDocValues(LeafReader reader, String field, int docId) throws IOException {
         final NumericDocValues dv = reader.getNumericDocValues(field);
         if (dv == null || dv.advanceExact(docId) == false) {
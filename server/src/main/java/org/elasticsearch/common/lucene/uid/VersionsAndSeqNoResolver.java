@@ -14,6 +14,8 @@ import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.CloseableThreadLocal;
+import org.apache.lucene.util.IOBooleanSupplier;
+import org.apache.lucene.util.InPlaceMergeSorter;
 import org.elasticsearch.common.util.ByteUtils;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.core.Assertions;
@@ -145,6 +147,57 @@ public final class VersionsAndSeqNoResolver {
         return null;
     }
 
+    /**
+     * Loads the internal doc IDs and versions of several uids from the reader at once, returning an array that holds, for each of the
+     * given uids, either null if the uid wasn't found or its doc ID and version.
+     * <p>
+     * The uids are looked up in sorted order, so that the terms enum of each segment is walked once from the smallest to the largest
+     * uid rather than being repositioned arbitrarily for every uid, which lets consecutive seeks reuse the already loaded terms
+     * dictionary blocks. For each uid, the seeks into all segments are started before any of them is completed so that their I/O can
+     * be done in parallel.
+     */
+    public static DocIdAndVersion[] loadDocIdsAndVersions(IndexReader reader, BytesRef[] uids, boolean loadSeqNo) throws IOException {
+        final PerThreadIDVersionAndSeqNoLookup[] lookups = getLookupState(reader, false);
+        final List<LeafReaderContext> leaves = reader.leaves();
+        final int[] order = new int[uids.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        new InPlaceMergeSorter() {
+            @Override
+            protected int compare(int i, int j) {
+                return uids[order[i]].compareTo(uids[order[j]]);
+            }
+
+            @Override
+            protected void swap(int i, int j) {
+                final int tmp = order[i];
+                order[i] = order[j];
+                order[j] = tmp;
+            }
+        }.sort(0, order.length);
+
+        final DocIdAndVersion[] results = new DocIdAndVersion[uids.length];
+        final IOBooleanSupplier[] seeks = new IOBooleanSupplier[leaves.size()];
+        for (int ord : order) {
+            for (int i = leaves.size() - 1; i >= 0; i--) {
+                seeks[i] = lookups[leaves.get(i).ord].prepareSeekExact(uids[ord]);
+            }
+            // iterate backwards to optimize for the frequently updated documents
+            // which are likely to be in the last segments
+            for (int i = leaves.size() - 1; i >= 0; i--) {
+                final LeafReaderContext leaf = leaves.get(i);
+                if (results[ord] == null) {
+                    results[ord] = lookups[leaf.ord].lookupVersion(seeks[i], loadSeqNo, leaf);
+                } else if (seeks[i] != null) {
+                    // the seeks must be completed before the terms enums can be used again
+                    seeks[i].get();
+                }
+            }
+        }
+        return results;
+    }
+
     /**
      * A special variant of loading docid and version in case of time series indices.
      * <p>
@@ -9,10 +9,18 @@
 
 package org.elasticsearch.common.network;
 
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Tracks how long message handling takes on a transport thread as a histogram with fixed buckets.
+ * Tracks how long message handling takes on a transport thread as a histogram with fixed buckets. Bucket {@code 0} holds the
+ * times {@code <= 0} and bucket {@code i > 0} holds the times in {@code [2^(i-1), 2^i)}, the last bucket also holding all longer
+ * times.
+ * <p>
+ * Trackers with more buckets can be used for other latencies, e.g. in nanoseconds. They may also halve the counts of all buckets
+ * every {@code decayInterval} observations so that percentiles reflect the recent history of the times rather than all times ever
+ * observed. Observations and decays are not atomic with respect to each other, which may make percentiles slightly inaccurate under
+ * concurrent updates.
  */
 public class HandlingTimeTracker {
 
@@ -24,43 +32,114 @@ public class HandlingTimeTracker {
         return bounds;
     }
 
-    private static int getBucket(long handlingTimeMillis) {
-        if (handlingTimeMillis <= 0) {
-            return 0;
-        } else if (LAST_BUCKET_LOWER_BOUND <= handlingTimeMillis) {
-            return BUCKET_COUNT - 1;
-        } else {
-            return Long.SIZE - Long.numberOfLeadingZeros(handlingTimeMillis);
-        }
-    }
-
     public static final int BUCKET_COUNT = getBucketUpperBounds().length + 1;
 
-    private static final long LAST_BUCKET_LOWER_BOUND = getBucketUpperBounds()[BUCKET_COUNT - 2];
+    /**
+     * The maximum number of buckets, the last of which holds all times {@code >= 2^62}.
+     */
+    public static final int MAX_BUCKET_COUNT = Long.SIZE;
 
     private final LongAdder[] buckets;
+    private final int decayInterval;
+    private final AtomicLong observationsSinceDecay = new AtomicLong();
 
     public HandlingTimeTracker() {
-        buckets = new LongAdder[BUCKET_COUNT];
-        for (int i = 0; i < BUCKET_COUNT; i++) {
+        this(BUCKET_COUNT, 0);
+    }
+
+    /**
+     * @param bucketCount the number of buckets
+     * @param decayInterval the number of observations after which the counts of all buckets are halved, or {@code 0} to never
+     *                      halve them
+     */
+    public HandlingTimeTracker(int bucketCount, int decayInterval) {
+        if (bucketCount < 2 || bucketCount > MAX_BUCKET_COUNT) {
+            throw new IllegalArgumentException("bucket count must be in [2, " + MAX_BUCKET_COUNT + "] but was [" + bucketCount + "]");
+        }
+        if (decayInterval < 0) {
+            throw new IllegalArgumentException("decay interval must not be negative but was [" + decayInterval + "]");
+        }
+        buckets = new LongAdder[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
             buckets[i] = new LongAdder();
         }
+        this.decayInterval = decayInterval;
     }
 
-    public void addHandlingTime(long handlingTimeMillis) {
-        buckets[getBucket(handlingTimeMillis)].increment();
+    static int getBucket(long handlingTime, int bucketCount) {
+        if (handlingTime <= 0) {
+            return 0;
+        }
+        return Math.min(Long.SIZE - Long.numberOfLeadingZeros(handlingTime), bucketCount - 1);
+    }
+
+    /**
+     * Returns the lowest time that falls into the given bucket.
+     */
+    static long getBucketLowerBound(int bucket) {
+        return bucket == 0 ? 0 : 1L << (bucket - 1);
+    }
+
+    public void addHandlingTime(long handlingTime) {
+        buckets[getBucket(handlingTime, buckets.length)].increment();
+        if (decayInterval > 0 && observationsSinceDecay.incrementAndGet() >= decayInterval) {
+            observationsSinceDecay.set(0);
+            for (LongAdder bucket : buckets) {
+                long count = bucket.sum();
+                bucket.add((count >>> 1) - count);
+            }
+        }
     }
 
     /**
      * @return An array of frequencies of handling times in buckets with upper bounds as returned by {@link #getBucketUpperBounds()}, plus
-     *         an extra bucket for handling times longer than the longest upper bound.
+     *         an extra bucket for handling times longer than the longest upper bound. Trackers with more buckets return one frequency
+     *         for each of their buckets.
      */
     public long[] getHistogram() {
-        final long[] histogram = new long[BUCKET_COUNT];
-        for (int i = 0; i < BUCKET_COUNT; i++) {
+        final long[] histogram = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
             histogram[i] = buckets[i].longValue();
         }
         return histogram;
     }
 
+    /**
+     * Returns an estimate of the given percentile of the tracked times, or {@code -1} if no time was tracked.
+     */
+    public long getPercentile(double percentile) {
+        return getPercentile(getHistogram(), percentile);
+    }
+
+    /**
+     * Returns an estimate of the given percentile of the times in the given histogram, interpolating linearly between the bounds
+     * of the bucket that holds it, or {@code -1} if the histogram is empty.
+     */
+    public static long getPercentile(long[] histogram, double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be in [0, 100] but was [" + percentile + "]");
+        }
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+        if (total == 0) {
+            return -1;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            if (seen + histogram[i] >= rank) {
+                final long lower = getBucketLowerBound(i);
+                if (i == 0 || i == histogram.length - 1) {
+                    return lower;
+                }
+                // the bucket holds the times in [lower, 2 * lower)
+                return lower + (long) ((double) lower * (rank - seen - 1) / histogram[i]);
+            }
+            seen += histogram[i];
+        }
+        throw new AssertionError("rank [" + rank + "] is larger than the number of times [" + total + "]");
+    }
+
 }
@@ -10,6 +10,7 @@
 package org.elasticsearch.common.util.concurrent;
 
 import org.elasticsearch.common.ExponentiallyWeightedMovingAverage;
+import org.elasticsearch.common.network.HandlingTimeTracker;
 import org.elasticsearch.common.util.concurrent.EsExecutors.TaskTrackingConfig;
 import org.elasticsearch.core.TimeValue;
 
@@ -27,9 +28,15 @@ import java.util.function.Function;
  */
 public final class TaskExecutionTimeTrackingEsThreadPoolExecutor extends EsThreadPoolExecutor {
 
+    // the number of tasks after which the queue latency histogram forgets half of its history
+    static final int QUEUE_LATENCY_DECAY_INTERVAL = 1000;
+    // queue latencies are tracked in nanoseconds, the last bucket holds the latencies of more than about 39 hours
+    static final int QUEUE_LATENCY_BUCKET_COUNT = 48;
+
     private final Function<Runnable, WrappedRunnable> runnableWrapper;
     private final ExponentiallyWeightedMovingAverage executionEWMA;
     private final LongAdder totalExecutionTime = new LongAdder();
+    private final HandlingTimeTracker queueLatency = new HandlingTimeTracker(QUEUE_LATENCY_BUCKET_COUNT, QUEUE_LATENCY_DECAY_INTERVAL);
     private final boolean trackOngoingTasks;
     // The set of currently running tasks and the timestamp of when they started execution in the Executor.
     private final Map<Runnable, Long> ongoingTasks = new ConcurrentHashMap<>();
@@ -82,6 +89,14 @@ public final class TaskExecutionTimeTrackingEsThreadPoolExecutor extends EsThrea
         return totalExecutionTime.sum();
     }
 
+    /**
+     * Returns an estimate of the given percentile of the time (in nanoseconds) that recently executed tasks spent waiting in the
+     * queue before being executed, or {@code -1} if no task was executed yet.
+     */
+    public long getQueueLatencyPercentile(double percentile) {
+        return queueLatency.getPercentile(percentile);
+    }
+
     /**
      * Returns the current queue size (operations that are queued)
      */
@@ -118,6 +133,10 @@ public final class TaskExecutionTimeTrackingEsThreadPoolExecutor extends EsThrea
                 executionEWMA.addValue(taskExecutionNanos);
                 totalExecutionTime.add(taskExecutionNanos);
             }
+            final long queueTimeNanos = timedRunnable.getQueueTimeNanos();
+            if (queueTimeNanos != -1) {
+                queueLatency.addHandlingTime(queueTimeNanos);
+            }
         } finally {
             // if trackOngoingTasks is false -> ongoingTasks must be empty
             assert trackOngoingTasks || ongoingTasks.isEmpty();
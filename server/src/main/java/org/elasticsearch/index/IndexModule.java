@@ -53,6 +53,7 @@ import org.elasticsearch.index.shard.SearchOperationListener;
 import org.elasticsearch.index.shard.ShardPath;
 import org.elasticsearch.index.similarity.SimilarityService;
 import org.elasticsearch.index.store.FsDirectoryFactory;
+import org.elasticsearch.index.translog.TranslogSyncCoordinator;
 import org.elasticsearch.indices.IndicesQueryCache;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
@@ -175,6 +176,7 @@ public final class IndexModule {
     private final BooleanSupplier allowExpensiveQueries;
     private final Map<String, IndexStorePlugin.RecoveryStateFactory> recoveryStateFactories;
     private final SetOnce<Engine.IndexCommitListener> indexCommitListener = new SetOnce<>();
+    private final SetOnce<TranslogSyncCoordinator> translogSyncCoordinator = new SetOnce<>();
     private final MapperMetrics mapperMetrics;
 
     /**
@@ -393,6 +395,14 @@ public final class IndexModule {
         this.indexCommitListener.set(Objects.requireNonNull(listener));
     }
 
+    /**
+     * Sets the node level {@link TranslogSyncCoordinator} that the shards of this index group their translog syncs with.
+     */
+    public void setTranslogSyncCoordinator(TranslogSyncCoordinator coordinator) {
+        ensureNotFrozen();
+        this.translogSyncCoordinator.set(Objects.requireNonNull(coordinator));
+    }
+
     IndexEventListener freeze() { // pkg private for testing
         if (this.frozen.compareAndSet(false, true)) {
             return new CompositeIndexEventListener(indexSettings, indexEventListeners);
@@ -544,7 +554,8 @@ public final class IndexModule {
                 snapshotCommitSupplier,
                 indexCommitListener.get(),
                 mapperMetrics,
-                queryRewriteInterceptor
+                queryRewriteInterceptor,
+                Objects.requireNonNullElse(translogSyncCoordinator.get(), TranslogSyncCoordinator.DISABLED)
             );
             success = true;
             return indexService;
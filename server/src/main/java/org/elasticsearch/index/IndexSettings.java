@@ -300,6 +300,28 @@ public final class IndexSettings {
         return DEFAULT_REFRESH_INTERVAL;
     }, new RefreshIntervalValidator(), Property.Dynamic, Property.IndexScope, Property.ServerlessPublic);
 
+    /**
+     * Whether scheduled refreshes adapt their interval to the search demand, refresh cost and indexing rate of every shard. The
+     * configured {@link #INDEX_REFRESH_INTERVAL_SETTING} is the lower bound of the adaptive interval.
+     */
+    public static final Setting<Boolean> INDEX_REFRESH_ADAPTIVE_ENABLED_SETTING = Setting.boolSetting(
+        "index.refresh.adaptive.enabled",
+        false,
+        Property.Dynamic,
+        Property.IndexScope
+    );
+
+    /**
+     * The upper bound of the adaptive refresh interval, see {@link #INDEX_REFRESH_ADAPTIVE_ENABLED_SETTING}.
+     */
+    public static final Setting<TimeValue> INDEX_REFRESH_ADAPTIVE_MAX_INTERVAL_SETTING = Setting.timeSetting(
+        "index.refresh.adaptive.max_interval",
+        TimeValue.timeValueSeconds(30),
+        TimeValue.ZERO,
+        Property.Dynamic,
+        Property.IndexScope
+    );
+
     static class RefreshIntervalValidator implements Setting.Validator<TimeValue> {
 
         static final String STATELESS_ALLOW_INDEX_REFRESH_INTERVAL_OVERRIDE = "es.stateless.allow.index.refresh_interval.override";
@@ -414,6 +436,17 @@ public final class IndexSettings {
         Property.IndexScope
     );
 
+    /**
+     * Whether snapshots of completed translog generations, as used by peer recoveries and translog replay, read their operations
+     * from a read-only memory mapping of the generation file rather than through positional reads into heap buffers.
+     */
+    public static final Setting<Boolean> INDEX_TRANSLOG_MMAP_SNAPSHOTS_SETTING = Setting.boolSetting(
+        "index.translog.mmap_snapshots",
+        false,
+        Property.Dynamic,
+        Property.IndexScope
+    );
+
     /**
      * Index setting to enable / disable deletes garbage collection.
      * This setting is realtime updateable
@@ -500,6 +533,33 @@ public final class IndexSettings {
         Property.IndexScope
     );
 
+    /**
+     * The number of upcoming index operations of a shard bulk request whose documents are parsed ahead on the
+     * {@link org.elasticsearch.threadpool.ThreadPool.Names#WRITE_PARSE} pool while the primary applies the current one.
+     * {@code 0} disables parsing ahead.
+     */
+    public static final Setting<Integer> BULK_PARSE_LOOKAHEAD_SETTING = Setting.intSetting(
+        "index.bulk.parse_lookahead",
+        0,
+        0,
+        128,
+        Property.Dynamic,
+        Property.IndexScope
+    );
+
+    /**
+     * The minimum number of documents of a shard bulk request that need a version lookup on the primary for their versions to be
+     * resolved ahead of applying the request, in one sorted pass over each segment. Smaller requests look up their versions one
+     * document at a time. {@code 0} disables resolving versions ahead.
+     */
+    public static final Setting<Integer> BULK_VERSION_PREFETCH_MIN_DOCS_SETTING = Setting.intSetting(
+        "index.bulk.version_prefetch_min_docs",
+        0,
+        0,
+        Property.Dynamic,
+        Property.IndexScope
+    );
+
     /**
      * The maximum number of slices allowed in a scroll request
      */
@@ -874,6 +934,7 @@ public final class IndexSettings {
     private volatile ByteSizeValue flushThresholdSize;
     private volatile TimeValue flushThresholdAge;
     private volatile ByteSizeValue generationThresholdSize;
+    private volatile boolean translogMmapSnapshots;
     private volatile ByteSizeValue flushAfterMergeThresholdSize;
     private final MergeSchedulerConfig mergeSchedulerConfig;
     private final MergePolicyConfig mergePolicyConfig;
@@ -912,6 +973,8 @@ public final class IndexSettings {
     private volatile int maxNgramDiff;
     private volatile int maxShingleDiff;
     private volatile TimeValue searchIdleAfter;
+    private volatile boolean adaptiveRefreshEnabled;
+    private volatile TimeValue adaptiveRefreshMaxInterval;
     private volatile int maxAnalyzedOffset;
     private volatile boolean weightMatchesEnabled;
     private volatile int maxTermsCount;
@@ -936,6 +999,14 @@ public final class IndexSettings {
      * The maximum number of refresh listeners allows on this shard.
      */
     private volatile int maxRefreshListeners;
+    /**
+     * The number of upcoming index operations of a shard bulk request to parse ahead.
+     */
+    private volatile int bulkParseLookahead;
+    /**
+     * The minimum number of documents of a shard bulk request to resolve their versions ahead.
+     */
+    private volatile int bulkVersionPrefetchMinDocs;
     /**
      * The maximum number of slices allowed in a scroll request.
      */
@@ -1067,6 +1138,7 @@ public final class IndexSettings {
         flushThresholdSize = scopedSettings.get(INDEX_TRANSLOG_FLUSH_THRESHOLD_SIZE_SETTING);
         flushThresholdAge = scopedSettings.get(INDEX_TRANSLOG_FLUSH_THRESHOLD_AGE_SETTING);
         generationThresholdSize = scopedSettings.get(INDEX_TRANSLOG_GENERATION_THRESHOLD_SIZE_SETTING);
+        translogMmapSnapshots = scopedSettings.get(INDEX_TRANSLOG_MMAP_SNAPSHOTS_SETTING);
         flushAfterMergeThresholdSize = scopedSettings.get(INDEX_FLUSH_AFTER_MERGE_THRESHOLD_SIZE_SETTING);
         mergeSchedulerConfig = new MergeSchedulerConfig(this);
         gcDeletesInMillis = scopedSettings.get(INDEX_GC_DELETES_SETTING).getMillis();
@@ -1084,6 +1156,8 @@ public final class IndexSettings {
         maxNgramDiff = scopedSettings.get(MAX_NGRAM_DIFF_SETTING);
         maxShingleDiff = scopedSettings.get(MAX_SHINGLE_DIFF_SETTING);
         maxRefreshListeners = scopedSettings.get(MAX_REFRESH_LISTENERS_PER_SHARD);
+        bulkParseLookahead = scopedSettings.get(BULK_PARSE_LOOKAHEAD_SETTING);
+        bulkVersionPrefetchMinDocs = scopedSettings.get(BULK_VERSION_PREFETCH_MIN_DOCS_SETTING);
         maxSlicesPerScroll = scopedSettings.get(MAX_SLICES_PER_SCROLL);
         maxAnalyzedOffset = scopedSettings.get(MAX_ANALYZED_OFFSET_SETTING);
         weightMatchesEnabled = scopedSettings.get(WEIGHT_MATCHES_MODE_ENABLED_SETTING);
@@ -1092,6 +1166,8 @@ public final class IndexSettings {
         this.mergePolicyConfig = new MergePolicyConfig(logger, this);
         this.indexSortConfig = new IndexSortConfig(this);
         searchIdleAfter = scopedSettings.get(INDEX_SEARCH_IDLE_AFTER);
+        adaptiveRefreshEnabled = scopedSettings.get(INDEX_REFRESH_ADAPTIVE_ENABLED_SETTING);
+        adaptiveRefreshMaxInterval = scopedSettings.get(INDEX_REFRESH_ADAPTIVE_MAX_INTERVAL_SETTING);
         defaultPipeline = scopedSettings.get(DEFAULT_PIPELINE);
         mappingNestedFieldsLimit = scopedSettings.get(INDEX_MAPPING_NESTED_FIELDS_LIMIT_SETTING);
         mappingNestedDocsLimit = scopedSettings.get(INDEX_MAPPING_NESTED_DOCS_LIMIT_SETTING);
@@ -1169,6 +1245,10 @@ public final class IndexSettings {
             MergePolicyConfig.INDEX_MERGE_POLICY_MERGE_FACTOR_SETTING,
             mergePolicyConfig::setMergeFactor
         );
+        scopedSettings.addSettingsUpdateConsumer(
+            MergePolicyConfig.INDEX_MERGE_POLICY_HOT_TIME_RANGE_SETTING,
+            mergePolicyConfig::setHotTimeRange
+        );
 
         scopedSettings.addSettingsUpdateConsumer(
             MergeSchedulerConfig.MAX_THREAD_COUNT_SETTING,
@@ -1192,14 +1272,19 @@ public final class IndexSettings {
         scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_FLUSH_THRESHOLD_AGE_SETTING, this::setTranslogFlushThresholdAge);
         scopedSettings.addSettingsUpdateConsumer(INDEX_FLUSH_AFTER_MERGE_THRESHOLD_SIZE_SETTING, this::setFlushAfterMergeThresholdSize);
         scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_GENERATION_THRESHOLD_SIZE_SETTING, this::setGenerationThresholdSize);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_MMAP_SNAPSHOTS_SETTING, this::setTranslogMmapSnapshots);
         scopedSettings.addSettingsUpdateConsumer(INDEX_REFRESH_INTERVAL_SETTING, this::setRefreshInterval);
         scopedSettings.addSettingsUpdateConsumer(MAX_REFRESH_LISTENERS_PER_SHARD, this::setMaxRefreshListeners);
+        scopedSettings.addSettingsUpdateConsumer(BULK_PARSE_LOOKAHEAD_SETTING, this::setBulkParseLookahead);
+        scopedSettings.addSettingsUpdateConsumer(BULK_VERSION_PREFETCH_MIN_DOCS_SETTING, this::setBulkVersionPrefetchMinDocs);
         scopedSettings.addSettingsUpdateConsumer(MAX_ANALYZED_OFFSET_SETTING, this::setHighlightMaxAnalyzedOffset);
         scopedSettings.addSettingsUpdateConsumer(WEIGHT_MATCHES_MODE_ENABLED_SETTING, this::setWeightMatchesEnabled);
         scopedSettings.addSettingsUpdateConsumer(MAX_TERMS_COUNT_SETTING, this::setMaxTermsCount);
         scopedSettings.addSettingsUpdateConsumer(MAX_SLICES_PER_SCROLL, this::setMaxSlicesPerScroll);
         scopedSettings.addSettingsUpdateConsumer(DEFAULT_FIELD_SETTING, this::setDefaultFields);
         scopedSettings.addSettingsUpdateConsumer(INDEX_SEARCH_IDLE_AFTER, this::setSearchIdleAfter);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_REFRESH_ADAPTIVE_ENABLED_SETTING, this::setAdaptiveRefreshEnabled);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_REFRESH_ADAPTIVE_MAX_INTERVAL_SETTING, this::setAdaptiveRefreshMaxInterval);
         scopedSettings.addSettingsUpdateConsumer(MAX_REGEX_LENGTH_SETTING, this::setMaxRegexLength);
         scopedSettings.addSettingsUpdateConsumer(DEFAULT_PIPELINE, this::setDefaultPipeline);
         scopedSettings.addSettingsUpdateConsumer(FINAL_PIPELINE, this::setRequiredPipeline);
@@ -1227,6 +1312,14 @@ public final class IndexSettings {
         this.searchIdleAfter = searchIdleAfter;
     }
 
+    private void setAdaptiveRefreshEnabled(boolean adaptiveRefreshEnabled) {
+        this.adaptiveRefreshEnabled = adaptiveRefreshEnabled;
+    }
+
+    private void setAdaptiveRefreshMaxInterval(TimeValue adaptiveRefreshMaxInterval) {
+        this.adaptiveRefreshMaxInterval = adaptiveRefreshMaxInterval;
+    }
+
     private void setTranslogFlushThresholdSize(ByteSizeValue byteSizeValue) {
         this.flushThresholdSize = byteSizeValue;
     }
@@ -1243,6 +1336,10 @@ public final class IndexSettings {
         this.generationThresholdSize = generationThresholdSize;
     }
 
+    private void setTranslogMmapSnapshots(boolean translogMmapSnapshots) {
+        this.translogMmapSnapshots = translogMmapSnapshots;
+    }
+
     private void setGCDeletes(TimeValue timeValue) {
         this.gcDeletesInMillis = timeValue.getMillis();
     }
@@ -1494,6 +1591,13 @@ public final class IndexSettings {
         return generationThresholdSize;
     }
 
+    /**
+     * Returns whether snapshots of completed translog generations read from a memory mapping of the generation file.
+     */
+    public boolean isTranslogMmapSnapshots() {
+        return translogMmapSnapshots;
+    }
+
     /**
      * Returns the {@link MergeSchedulerConfig}
      */
@@ -1633,6 +1737,14 @@ public final class IndexSettings {
         return mergePolicyConfig.getMergePolicy(isTimeBasedIndex);
     }
 
+    /**
+     * Returns the time range, back from the most recent {@code @timestamp}, of segments that are not merged together with older ones.
+     * A negative value means that segments are merged regardless of their timestamps.
+     */
+    public TimeValue getMergeHotTimeRange() {
+        return mergePolicyConfig.getHotTimeRange();
+    }
+
     public <T> T getValue(Setting<T> setting) {
         return scopedSettings.get(setting);
     }
@@ -1648,6 +1760,28 @@ public final class IndexSettings {
         this.maxRefreshListeners = maxRefreshListeners;
     }
 
+    /**
+     * The number of upcoming index operations of a shard bulk request to parse ahead, {@code 0} if parsing ahead is disabled.
+     */
+    public int getBulkParseLookahead() {
+        return bulkParseLookahead;
+    }
+
+    private void setBulkParseLookahead(int bulkParseLookahead) {
+        this.bulkParseLookahead = bulkParseLookahead;
+    }
+
+    /**
+     * The minimum number of documents of a shard bulk request to resolve their versions ahead, {@code 0} if that is disabled.
+     */
+    public int getBulkVersionPrefetchMinDocs() {
+        return bulkVersionPrefetchMinDocs;
+    }
+
+    private void setBulkVersionPrefetchMinDocs(int bulkVersionPrefetchMinDocs) {
+        this.bulkVersionPrefetchMinDocs = bulkVersionPrefetchMinDocs;
+    }
+
     /**
      * The maximum number of slices allowed in a scroll request.
      */
@@ -1695,6 +1829,20 @@ public final class IndexSettings {
         return searchIdleAfter;
     }
 
+    /**
+     * Returns whether scheduled refreshes adapt their interval to the search demand, refresh cost and indexing rate of every shard.
+     */
+    public boolean isAdaptiveRefreshEnabled() {
+        return adaptiveRefreshEnabled;
+    }
+
+    /**
+     * Returns the upper bound of the adaptive refresh interval.
+     */
+    public TimeValue getAdaptiveRefreshMaxInterval() {
+        return adaptiveRefreshMaxInterval;
+    }
+
     public String getDefaultPipeline() {
         return defaultPipeline;
     }
@@ -11,7 +11,10 @@ package org.elasticsearch.index;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.Query;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.fielddata.FieldDataContext;
 import org.elasticsearch.index.fielddata.IndexFieldData;
@@ -20,8 +23,10 @@ import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.IndexShardState;
+import org.elasticsearch.indices.SharedQueryCachingPolicy;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -41,6 +46,7 @@ public final class IndexWarmer {
         ArrayList<Listener> list = new ArrayList<>();
         final Executor executor = threadPool.executor(ThreadPool.Names.WARMER);
         list.add(new FieldDataWarmer(executor, indexFieldDataService));
+        list.add(new QueryCacheWarmer(executor));
 
         Collections.addAll(list, listeners);
         this.listeners = Collections.unmodifiableList(list);
@@ -149,4 +155,72 @@ public final class IndexWarmer {
         }
     }
 
+    /**
+     * Caches the filters that are currently hot on the shards with the same mapping on the new segments of the reader, so that the
+     * first searches after a refresh don't need to build them. Warming runs in the background and doesn't delay the refresh, searches
+     * that come first just build the cache entries themselves.
+     */
+    private static class QueryCacheWarmer implements IndexWarmer.Listener {
+
+        private final Executor executor;
+
+        QueryCacheWarmer(Executor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public TerminationHandle warmReader(final IndexShard indexShard, final ElasticsearchDirectoryReader reader) {
+            if (indexShard.getQueryCachingPolicy() instanceof SharedQueryCachingPolicy cachingPolicy == false) {
+                return TerminationHandle.NO_WAIT;
+            }
+            final List<LeafReaderContext> newSegments = cachingPolicy.newSegments(reader);
+            if (newSegments.isEmpty()) {
+                return TerminationHandle.NO_WAIT;
+            }
+            final List<Query> hotFilters = cachingPolicy.getHotFilters();
+            // the reader may be closed by a later refresh before warming completes
+            if (hotFilters.isEmpty() || reader.tryIncRef() == false) {
+                return TerminationHandle.NO_WAIT;
+            }
+            executor.execute(new AbstractRunnable() {
+                @Override
+                protected void doRun() throws Exception {
+                    final long start = System.nanoTime();
+                    for (final Query filter : hotFilters) {
+                        try {
+                            cachingPolicy.warm(reader, newSegments, filter);
+                        } catch (Exception e) {
+                            indexShard.warmerService().logger().warn(() -> "failed to warm-up query cache for [" + filter + "]", e);
+                        }
+                    }
+                    if (indexShard.warmerService().logger().isTraceEnabled()) {
+                        indexShard.warmerService()
+                            .logger()
+                            .trace(
+                                "warmed query cache for [{}] filters on [{}] new segments, took [{}]",
+                                hotFilters.size(),
+                                newSegments.size(),
+                                TimeValue.timeValueNanos(System.nanoTime() - start)
+                            );
+                    }
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    indexShard.warmerService().logger().warn("failed to warm-up query cache", e);
+                }
+
+                @Override
+                public void onAfter() {
+                    try {
+                        reader.decRef();
+                    } catch (IOException e) {
+                        indexShard.warmerService().logger().warn("failed to release reader after warming the query cache", e);
+                    }
+                }
+            });
+            return TerminationHandle.NO_WAIT;
+        }
+    }
+
 }
@@ -19,6 +19,7 @@ import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.core.SuppressForbidden;
+import org.elasticsearch.core.TimeValue;
 
 /**
  * A shard in elasticsearch is a Lucene index, and a Lucene index is broken
@@ -112,6 +113,7 @@ public final class MergePolicyConfig {
     private final Logger logger;
     private final boolean mergesEnabled;
     private volatile Type mergePolicyType;
+    private volatile TimeValue hotTimeRange;
     private final ByteSizeValue defaultMaxMergedSegment;
     private final ByteSizeValue defaultMaxTimeBasedMergedSegment;
 
@@ -261,6 +263,17 @@ public final class MergePolicyConfig {
         Property.Dynamic,
         Property.IndexScope
     );
+    /**
+     * Segments of time-based indices whose maximum {@code @timestamp} is within this range of the most recent {@code @timestamp} of the
+     * index are considered hot and are never merged together with older, cold segments. A negative value disables this.
+     */
+    public static final Setting<TimeValue> INDEX_MERGE_POLICY_HOT_TIME_RANGE_SETTING = Setting.timeSetting(
+        "index.merge.policy.hot_time_range",
+        TimeValue.MINUS_ONE,
+        TimeValue.MINUS_ONE,
+        Property.Dynamic,
+        Property.IndexScope
+    );
     public static final Setting<Double> INDEX_MERGE_POLICY_DELETES_PCT_ALLOWED_SETTING = Setting.doubleSetting(
         "index.merge.policy.deletes_pct_allowed",
         DEFAULT_DELETES_PCT_ALLOWED,
@@ -302,6 +315,7 @@ public final class MergePolicyConfig {
         setSegmentsPerTier(segmentsPerTier);
         setMergeFactor(mergeFactor);
         setDeletesPctAllowed(deletesPctAllowed);
+        setHotTimeRange(indexSettings.getValue(INDEX_MERGE_POLICY_HOT_TIME_RANGE_SETTING));
         logger.trace(
             "using merge policy with expunge_deletes_allowed[{}], floor_segment[{}],"
                 + " max_merge_at_once[{}], max_merged_segment[{}], segments_per_tier[{}],"
@@ -365,6 +379,14 @@ public final class MergePolicyConfig {
         // LogByteSizeMergePolicy doesn't have a similar configuration option
     }
 
+    void setHotTimeRange(TimeValue hotTimeRange) {
+        this.hotTimeRange = hotTimeRange;
+    }
+
+    TimeValue getHotTimeRange() {
+        return hotTimeRange;
+    }
+
     private int adjustMaxMergeAtOnceIfNeeded(int maxMergeAtOnce, double segmentsPerTier) {
         // fixing maxMergeAtOnce, see TieredMergePolicy#setMaxMergeAtOnce
         if (segmentsPerTier < maxMergeAtOnce) {
@@ -15,6 +15,7 @@ import org.apache.lucene.search.QueryCachingPolicy;
 import org.apache.lucene.search.Weight;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.index.Index;
+import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.indices.IndicesQueryCache;
 
 /**
@@ -50,4 +51,9 @@ public class IndexQueryCache implements QueryCache {
         return indicesQueryCache.doCache(weight, policy);
     }
 
+    @Override
+    public QueryCachingPolicy newCachingPolicy(MapperService mapperService) {
+        return indicesQueryCache.newCachingPolicy(mapperService);
+    }
+
 }
@@ -9,9 +9,22 @@
 
 package org.elasticsearch.index.cache.query;
 
+import org.apache.lucene.search.QueryCachingPolicy;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.mapper.MapperService;
+
 import java.io.Closeable;
 
 public interface QueryCache extends Closeable, org.apache.lucene.search.QueryCache {
 
     void clear(String reason);
+
+    /**
+     * Returns a new caching policy for a shard of the index, or {@code null} if the shard should track the usage of its filters on
+     * its own.
+     */
+    @Nullable
+    default QueryCachingPolicy newCachingPolicy(MapperService mapperService) {
+        return null;
+    }
 }
@@ -533,6 +533,13 @@ public abstract class Engine implements Closeable {
 
     public abstract NoOpResult noOp(NoOp noOp) throws IOException;
 
+    /**
+     * Hints the engine that operations on the documents with the given uids are about to be performed, so that it can resolve their
+     * current versions in a single batch rather than one document at a time. This is a best-effort optimization that must not change
+     * the outcome of any operation and is a no-op by default.
+     */
+    public void prefetchDocVersions(List<BytesRef> uids) throws IOException {}
+
     /**
      * Base class for index and delete operation results
      * Holds result meta data (e.g. translog location, updated version)
@@ -56,6 +56,7 @@ import org.elasticsearch.common.lucene.search.Queries;
 import org.elasticsearch.common.lucene.uid.Versions;
 import org.elasticsearch.common.lucene.uid.VersionsAndSeqNoResolver;
 import org.elasticsearch.common.lucene.uid.VersionsAndSeqNoResolver.DocIdAndSeqNo;
+import org.elasticsearch.common.lucene.uid.VersionsAndSeqNoResolver.DocIdAndVersion;
 import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.unit.ByteSizeUnit;
@@ -63,6 +64,7 @@ import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.Maps;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.AsyncIOProcessor;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.KeyedLock;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.core.Assertions;
@@ -101,6 +103,7 @@ import org.elasticsearch.index.translog.TranslogConfig;
 import org.elasticsearch.index.translog.TranslogCorruptedException;
 import org.elasticsearch.index.translog.TranslogDeletionPolicy;
 import org.elasticsearch.index.translog.TranslogStats;
+import org.elasticsearch.index.translog.TranslogSyncCoordinator;
 import org.elasticsearch.indices.recovery.RecoverySettings;
 import org.elasticsearch.search.suggest.completion.CompletionStats;
 import org.elasticsearch.threadpool.ThreadPool;
@@ -155,6 +158,11 @@ public class InternalEngine extends Engine {
     // we use the hashed variant since we iterate over it and check removal and additions on existing keys
     private final LiveVersionMap versionMap;
     private final LiveVersionMapArchive liveVersionMapArchive;
+    // Versions of documents that were resolved ahead of their operations by prefetchDocVersions. They are only valid as long as
+    // the internal reader they were resolved from is the current one, and they are consumed by the first lookup of their document.
+    private volatile PrefetchedDocVersions prefetchedDocVersions;
+    // The @timestamp ranges of the segments of the internal reader, which are used by the TimestampRangeMergePolicy
+    private final Map<String, TimestampRangeMergePolicy.TimestampRange> segmentTimestampRanges = ConcurrentCollections.newConcurrentMap();
     // Records the last known generation during which LiveVersionMap was in unsafe mode. This indicates that only after this
     // generation it is safe to rely on the LiveVersionMap for a real-time get.
     // TODO: move the following two to the stateless plugin
@@ -194,6 +202,20 @@ public class InternalEngine extends Engine {
     private final LastRefreshedCheckpointListener lastRefreshedCheckpointListener;
     private final FlushListeners flushListener;
     private final AsyncIOProcessor<Tuple<Long, Translog.Location>> translogSyncProcessor;
+    @Nullable
+    private final TranslogSyncCoordinator.Group translogSyncGroup;
+    private final TranslogSyncCoordinator.SyncTarget translogSyncTarget = new TranslogSyncCoordinator.SyncTarget() {
+        @Override
+        public void ensureSynced(Translog.Location location, long globalCheckpoint, Consumer<Exception> listener) {
+            // merged with the syncs this shard does on its own, e.g. of the global checkpoint, rather than racing with them
+            translogSyncProcessor.put(new Tuple<>(globalCheckpoint, location), listener);
+        }
+
+        @Override
+        public void onGroupSynced(int batchSize, long waitTimeInNanos) {
+            translog.onGroupSynced(batchSize, waitTimeInNanos);
+        }
+    };
 
     private final CompletionStatsCache completionStatsCache;
 
@@ -243,7 +265,14 @@ public class InternalEngine extends Engine {
         this.relativeTimeInNanosSupplier = config().getRelativeTimeInNanosSupplier();
         this.lastFlushTimestamp = relativeTimeInNanosSupplier.getAsLong(); // default to creation timestamp
         this.liveVersionMapArchive = createLiveVersionMapArchive();
-        this.versionMap = new LiveVersionMap(liveVersionMapArchive);
+        // the translog big arrays account the paged version map without circuit breaking, which it must not do since entries are
+        // only added once the operation is already in Lucene and in the translog
+        this.versionMap = new LiveVersionMap(
+            liveVersionMapArchive,
+            EngineConfig.INDEX_PAGED_VERSION_MAP_SETTING.get(engineConfig.getIndexSettings().getSettings())
+                ? engineConfig.getTranslogConfig().getBigArrays()
+                : null
+        );
         final TranslogDeletionPolicy translogDeletionPolicy = new TranslogDeletionPolicy();
         store.incRef();
         IndexWriter writer = null;
@@ -312,6 +341,7 @@ public class InternalEngine extends Engine {
             }
             this.lastRefreshedCheckpointListener = new LastRefreshedCheckpointListener(localCheckpointTracker.getProcessedCheckpoint());
             this.internalReaderManager.addListener(lastRefreshedCheckpointListener);
+            this.internalReaderManager.addListener(new SegmentTimestampRangesListener());
             maxSeqNoOfUpdatesOrDeletes = new AtomicLong(SequenceNumbers.max(localCheckpointTracker.getMaxSeqNo(), translog.getMaxSeqNo()));
             if (localCheckpointTracker.getPersistedCheckpoint() < localCheckpointTracker.getMaxSeqNo()) {
                 try (Searcher searcher = acquireSearcher("restore_version_map_and_checkpoint_tracker", SearcherScope.INTERNAL)) {
@@ -331,9 +361,11 @@ public class InternalEngine extends Engine {
             this.externalReaderManager.addListener(completionStatsCache);
             this.flushListener = new FlushListeners(logger, engineConfig.getThreadPool().getThreadContext());
             this.translogSyncProcessor = createTranslogSyncProcessor(logger, engineConfig.getThreadPool().getThreadContext());
+            this.translogSyncGroup = engineConfig.getTranslogConfig().getSyncGroup();
             success = true;
         } finally {
             if (success == false) {
+                versionMap.clear();
                 IOUtils.closeWhileHandlingException(writer, translog, internalReaderManager, externalReaderManager, scheduler);
                 if (isClosed.get() == false) {
                     // failure we need to dec the store reference
@@ -687,41 +719,52 @@ public class InternalEngine extends Engine {
         return new AsyncIOProcessor<>(logger, 1024, threadContext) {
             @Override
             protected void write(List<Tuple<Tuple<Long, Translog.Location>, Consumer<Exception>>> candidates) throws IOException {
-                try {
-                    Translog.Location location = Translog.Location.EMPTY;
-                    long processGlobalCheckpoint = SequenceNumbers.UNASSIGNED_SEQ_NO;
-                    for (Tuple<Tuple<Long, Translog.Location>, Consumer<Exception>> syncMarkers : candidates) {
-                        Tuple<Long, Translog.Location> marker = syncMarkers.v1();
-                        long globalCheckpointToSync = marker.v1();
-                        if (globalCheckpointToSync != SequenceNumbers.UNASSIGNED_SEQ_NO) {
-                            processGlobalCheckpoint = SequenceNumbers.max(processGlobalCheckpoint, globalCheckpointToSync);
-                        }
-                        location = location.compareTo(marker.v2()) >= 0 ? location : marker.v2();
-                    }
-
-                    final boolean synced = translog.ensureSynced(location, processGlobalCheckpoint);
-                    if (synced) {
-                        revisitIndexDeletionPolicyOnTranslogSynced();
+                Translog.Location location = Translog.Location.EMPTY;
+                long processGlobalCheckpoint = SequenceNumbers.UNASSIGNED_SEQ_NO;
+                for (Tuple<Tuple<Long, Translog.Location>, Consumer<Exception>> syncMarkers : candidates) {
+                    Tuple<Long, Translog.Location> marker = syncMarkers.v1();
+                    long globalCheckpointToSync = marker.v1();
+                    if (globalCheckpointToSync != SequenceNumbers.UNASSIGNED_SEQ_NO) {
+                        processGlobalCheckpoint = SequenceNumbers.max(processGlobalCheckpoint, globalCheckpointToSync);
                     }
-                } catch (AlreadyClosedException ex) {
-                    // that's fine since we already synced everything on engine close - this also is conform with the methods
-                    // documentation
-                } catch (IOException ex) { // if this fails we are in deep shit - fail the request
-                    logger.debug("failed to sync translog", ex);
-                    throw ex;
+                    location = location.compareTo(marker.v2()) >= 0 ? location : marker.v2();
                 }
+                ensureTranslogSynced(location, processGlobalCheckpoint);
             }
         };
     }
 
+    private void ensureTranslogSynced(Translog.Location location, long globalCheckpoint) throws IOException {
+        try {
+            final boolean synced = translog.ensureSynced(location, globalCheckpoint);
+            if (synced) {
+                revisitIndexDeletionPolicyOnTranslogSynced();
+            }
+        } catch (AlreadyClosedException ex) {
+            // that's fine since we already synced everything on engine close - this also is conform with the methods
+            // documentation
+        } catch (IOException ex) { // if this fails we are in deep shit - fail the request
+            logger.debug("failed to sync translog", ex);
+            throw ex;
+        }
+    }
+
     @Override
     public void asyncEnsureTranslogSynced(Translog.Location location, Consumer<Exception> listener) {
-        translogSyncProcessor.put(new Tuple<>(SequenceNumbers.NO_OPS_PERFORMED, location), listener);
+        if (translogSyncGroup != null) {
+            translogSyncGroup.ensureSynced(translogSyncTarget, location, SequenceNumbers.NO_OPS_PERFORMED, listener);
+        } else {
+            translogSyncProcessor.put(new Tuple<>(SequenceNumbers.NO_OPS_PERFORMED, location), listener);
+        }
     }
 
     @Override
     public void asyncEnsureGlobalCheckpointSynced(long globalCheckpoint, Consumer<Exception> listener) {
-        translogSyncProcessor.put(new Tuple<>(globalCheckpoint, Translog.Location.EMPTY), listener);
+        if (translogSyncGroup != null) {
+            translogSyncGroup.ensureSynced(translogSyncTarget, Translog.Location.EMPTY, globalCheckpoint, listener);
+        } else {
+            translogSyncProcessor.put(new Tuple<>(globalCheckpoint, Translog.Location.EMPTY), listener);
+        }
     }
 
     @Override
@@ -1024,6 +1067,23 @@ public class InternalEngine extends Engine {
             final VersionsAndSeqNoResolver.DocIdAndVersion docIdAndVersion = performActionWithDirectoryReader(
                 SearcherScope.INTERNAL,
                 directoryReader -> {
+                    final DocIdAndVersion prefetched = takePrefetchedDocVersion(directoryReader, op.uid());
+                    if (prefetched != null) {
+                        if (prefetched == PrefetchedDocVersions.NOT_FOUND) {
+                            return null;
+                        } else if (loadSeqNo) {
+                            return prefetched;
+                        } else {
+                            return new DocIdAndVersion(
+                                prefetched.docId,
+                                prefetched.version,
+                                SequenceNumbers.UNASSIGNED_SEQ_NO,
+                                SequenceNumbers.UNASSIGNED_PRIMARY_TERM,
+                                null,
+                                prefetched.docBase
+                            );
+                        }
+                    }
                     if (engineConfig.getIndexSettings().getMode() == IndexMode.TIME_SERIES) {
                         assert engineConfig.getLeafSorter() == DataStream.TIMESERIES_LEAF_READERS_SORTER;
                         return VersionsAndSeqNoResolver.timeSeriesLoadDocIdAndVersion(directoryReader, op.uid(), op.id(), loadSeqNo);
@@ -1043,6 +1103,75 @@ public class InternalEngine extends Engine {
         return versionValue;
     }
 
+    @Override
+    public void prefetchDocVersions(List<BytesRef> uids) throws IOException {
+        // time series indices look up versions by skipping segments based on the timestamp that is encoded in the id instead
+        if (uids.size() < 2 || engineConfig.getIndexSettings().getMode() == IndexMode.TIME_SERIES) {
+            return;
+        }
+        performActionWithDirectoryReader(SearcherScope.INTERNAL, directoryReader -> {
+            final IndexReader.CacheKey readerKey = directoryReader.getReaderCacheHelper().getKey();
+            PrefetchedDocVersions prefetched = prefetchedDocVersions;
+            if (prefetched == null
+                || prefetched.readerKey() != readerKey
+                || prefetched.versions().size() >= PrefetchedDocVersions.MAX_SIZE) {
+                prefetched = new PrefetchedDocVersions(readerKey, ConcurrentCollections.newConcurrentMap());
+                prefetchedDocVersions = prefetched;
+            }
+            // only resolve what still fits, the other documents look up their versions when they are applied
+            final int capacity = PrefetchedDocVersions.MAX_SIZE - prefetched.versions().size();
+            if (capacity < 2) {
+                return null;
+            }
+            final BytesRef[] uidArray = (uids.size() <= capacity ? uids : uids.subList(0, capacity)).toArray(BytesRef[]::new);
+            final DocIdAndVersion[] versions = VersionsAndSeqNoResolver.loadDocIdsAndVersions(directoryReader, uidArray, true);
+            for (int i = 0; i < uidArray.length; i++) {
+                if (prefetched.versions().size() >= PrefetchedDocVersions.MAX_SIZE) {
+                    // concurrent bulks of this shard filled it up in the meantime
+                    break;
+                }
+                final DocIdAndVersion version = versions[i];
+                prefetched.versions()
+                    .put(
+                        uidArray[i],
+                        version == null
+                            ? PrefetchedDocVersions.NOT_FOUND
+                            // do not hold on to the segment reader, which may be closed before the version is consumed
+                            : new DocIdAndVersion(version.docId, version.version, version.seqNo, version.primaryTerm, null, version.docBase)
+                    );
+            }
+            return null;
+        });
+    }
+
+    // package private for testing
+    int prefetchedDocVersionsCount() {
+        final PrefetchedDocVersions prefetched = prefetchedDocVersions;
+        return prefetched == null ? 0 : prefetched.versions().size();
+    }
+
+    @Nullable
+    private DocIdAndVersion takePrefetchedDocVersion(DirectoryReader directoryReader, BytesRef uid) {
+        final PrefetchedDocVersions prefetched = prefetchedDocVersions;
+        if (prefetched != null && prefetched.readerKey() == directoryReader.getReaderCacheHelper().getKey()) {
+            return prefetched.versions().remove(uid);
+        }
+        return null;
+    }
+
+    record PrefetchedDocVersions(IndexReader.CacheKey readerKey, Map<BytesRef, DocIdAndVersion> versions) {
+        // bounds the versions that are never consumed, e.g. because their operations found the document in the version map
+        static final int MAX_SIZE = 10_000;
+        static final DocIdAndVersion NOT_FOUND = new DocIdAndVersion(
+            -1,
+            Versions.NOT_FOUND,
+            SequenceNumbers.UNASSIGNED_SEQ_NO,
+            SequenceNumbers.UNASSIGNED_PRIMARY_TERM,
+            null,
+            0
+        );
+    }
+
     private VersionValue getVersionFromMap(BytesRef id) {
         if (versionMap.isUnsafe()) {
             synchronized (versionMap) {
@@ -2723,6 +2852,12 @@ public class InternalEngine extends Engine {
             // to enable it.
             mergePolicy = new ShuffleForcedMergePolicy(mergePolicy);
         }
+        // Outermost, since it records the timestamp ranges of merged segments through the merges that it returns
+        mergePolicy = new TimestampRangeMergePolicy(
+            mergePolicy,
+            segmentTimestampRanges,
+            engineConfig.getIndexSettings()::getMergeHotTimeRange
+        );
         iwc.setMergePolicy(mergePolicy);
         // TODO: Introduce an index setting for setMaxFullFlushMergeWaitMillis
         iwc.setMaxFullFlushMergeWaitMillis(-1);
@@ -3289,6 +3424,25 @@ public class InternalEngine extends Engine {
         }
     }
 
+    private final class SegmentTimestampRangesListener implements ReferenceManager.RefreshListener {
+        @Override
+        public void beforeRefresh() {}
+
+        @Override
+        public void afterRefresh(boolean didRefresh) throws IOException {
+            if (engineConfig.getIndexSettings().getMergeHotTimeRange().millis() < 0) {
+                segmentTimestampRanges.clear();
+            } else if (didRefresh || segmentTimestampRanges.isEmpty()) {
+                final ElasticsearchDirectoryReader reader = internalReaderManager.acquire();
+                try {
+                    TimestampRangeMergePolicy.updateTimestampRanges(segmentTimestampRanges, reader);
+                } finally {
+                    internalReaderManager.release(reader);
+                }
+            }
+        }
+    }
+
     @Override
     public final long getMaxSeenAutoIdTimestamp() {
         return maxSeenAutoIdTimestamp.get();
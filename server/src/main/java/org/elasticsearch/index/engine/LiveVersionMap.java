@@ -13,14 +13,17 @@ import org.apache.lucene.search.ReferenceManager;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.KeyedLock;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
 
 import java.io.IOException;
 import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
 
 /** Maps _uid value to its version information. */
 public final class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
@@ -29,12 +32,27 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
 
     private final LiveVersionMapArchive archive;
 
+    // creates the lookups that hold the versions between two refreshes, given an expected number of entries
+    private final IntFunction<VersionLookup> lookupFactory;
+
     LiveVersionMap() {
         this(LiveVersionMapArchive.NOOP_ARCHIVE);
     }
 
     LiveVersionMap(LiveVersionMapArchive archive) {
+        this(archive, null);
+    }
+
+    /**
+     * @param pagedBigArrays if not {@code null} the versions between two refreshes are kept in a {@link PagedVersionLookupMap} backed
+     *                       by these big arrays instead of a concurrent hash map
+     */
+    LiveVersionMap(LiveVersionMapArchive archive, @Nullable BigArrays pagedBigArrays) {
         this.archive = archive;
+        this.lookupFactory = pagedBigArrays == null
+            ? VersionLookup::newHeapLookup
+            : expectedSize -> new VersionLookup(new PagedVersionLookupMap(pagedBigArrays, expectedSize));
+        this.maps = new Maps(lookupFactory);
     }
 
     public static final class VersionLookup {
@@ -46,6 +64,9 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
 
         private static final VersionLookup EMPTY = new VersionLookup(Collections.emptyMap());
         private final Map<BytesRef, VersionValue> map;
+        // set if the entries are kept in paged arrays, in which case RAM usage is taken from the map rather than estimated per entry
+        @Nullable
+        private final PagedVersionLookupMap pagedMap;
 
         // each version map has a notion of safe / unsafe which allows us to apply certain optimization in the auto-generated ID usecase
         // where we know that documents can't have any duplicates so we can skip the version map entirely. This reduces
@@ -66,18 +87,51 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
         // Modifies the map of this instance by merging with the given VersionLookup
         public void merge(VersionLookup versionLookup) {
             long existingEntriesSize = 0;
+            long mergedEntriesSize = 0;
             for (var entry : versionLookup.map.entrySet()) {
                 var existingValue = map.get(entry.getKey());
                 existingEntriesSize += existingValue == null ? 0 : mapEntryBytesUsed(entry.getKey(), existingValue);
+                mergedEntriesSize += versionLookup.pagedMap == null ? 0 : mapEntryBytesUsed(entry.getKey(), entry.getValue());
             }
             map.putAll(versionLookup.map);
-            adjustRamUsage(versionLookup.ramBytesUsed() - existingEntriesSize);
+            final long mergedBytes = versionLookup.pagedMap == null ? versionLookup.ramBytesUsed() : mergedEntriesSize;
+            adjustRamUsage(mergedBytes - existingEntriesSize);
             minDeleteTimestamp.accumulateAndGet(versionLookup.minDeleteTimestamp(), Math::min);
         }
 
         // Visible for testing
         VersionLookup(Map<BytesRef, VersionValue> map) {
             this.map = map;
+            this.pagedMap = map instanceof PagedVersionLookupMap paged ? paged : null;
+        }
+
+        static VersionLookup newHeapLookup(int expectedSize) {
+            return new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency(expectedSize));
+        }
+
+        /**
+         * Returns a lookup that holds the same entries on heap. Lookups that keep their entries in paged arrays must be released once
+         * they are swapped out, so this is used to hand them over to a {@link LiveVersionMapArchive} that may retain them.
+         */
+        VersionLookup copyOnHeapIfPaged() {
+            if (pagedMap == null) {
+                return this;
+            }
+            final VersionLookup copy = newHeapLookup(size());
+            copy.merge(this);
+            if (unsafe) {
+                copy.markAsUnsafe();
+            }
+            return copy;
+        }
+
+        /**
+         * Releases the paged arrays backing this lookup, if any. Concurrent lookups that still see this instance complete safely.
+         */
+        void release() {
+            if (pagedMap != null) {
+                pagedMap.close();
+            }
         }
 
         public VersionValue get(BytesRef key) {
@@ -125,14 +179,14 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
         }
 
         void adjustRamUsage(long value) {
-            if (value != 0) {
+            if (value != 0 && pagedMap == null) {
                 long v = ramBytesUsed.addAndGet(value);
                 assert v >= 0 : "bytes=" + v;
             }
         }
 
         public long ramBytesUsed() {
-            return ramBytesUsed.get();
+            return pagedMap == null ? ramBytesUsed.get() : pagedMap.ramBytesUsed();
         }
 
         public static long mapEntryBytesUsed(BytesRef key, VersionValue value) {
@@ -157,15 +211,21 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
         // have the volatile read of the Maps reference to make it visible even across threads.
         boolean needsSafeAccess;
         final boolean previousMapsNeededSafeAccess;
+        final IntFunction<VersionLookup> lookupFactory;
 
-        Maps(VersionLookup current, VersionLookup old, boolean previousMapsNeededSafeAccess) {
+        Maps(VersionLookup current, VersionLookup old, boolean previousMapsNeededSafeAccess, IntFunction<VersionLookup> lookupFactory) {
             this.current = current;
             this.old = old;
             this.previousMapsNeededSafeAccess = previousMapsNeededSafeAccess;
+            this.lookupFactory = lookupFactory;
+        }
+
+        Maps(IntFunction<VersionLookup> lookupFactory) {
+            this(lookupFactory.apply(16), VersionLookup.EMPTY, false, lookupFactory);
         }
 
         Maps() {
-            this(new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency()), VersionLookup.EMPTY, false);
+            this(VersionLookup::newHeapLookup);
         }
 
         boolean isSafeAccessMode() {
@@ -183,26 +243,28 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
          * Builds a new map for the refresh transition this should be called in beforeRefresh()
          */
         Maps buildTransitionMap() {
-            return new Maps(
-                new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency(current.size())),
-                current,
-                shouldInheritSafeAccess()
-            );
+            return new Maps(lookupFactory.apply(current.size()), current, shouldInheritSafeAccess(), lookupFactory);
         }
 
         /**
          * similar to `invalidateOldMap` but used only for the `unsafeKeysMap` used for assertions
          */
         Maps invalidateOldMapForAssert() {
-            return new Maps(current, VersionLookup.EMPTY, previousMapsNeededSafeAccess);
+            return new Maps(current, VersionLookup.EMPTY, previousMapsNeededSafeAccess, lookupFactory);
         }
 
         /**
          * builds a new map that invalidates the old map but maintains the current. This should be called in afterRefresh()
          */
         Maps invalidateOldMap(LiveVersionMapArchive archive) {
-            archive.afterRefresh(old);
-            return new Maps(current, VersionLookup.EMPTY, previousMapsNeededSafeAccess);
+            archive.afterRefresh(archive == LiveVersionMapArchive.NOOP_ARCHIVE ? old : old.copyOnHeapIfPaged());
+            old.release();
+            return new Maps(current, VersionLookup.EMPTY, previousMapsNeededSafeAccess, lookupFactory);
+        }
+
+        void release() {
+            current.release();
+            old.release();
         }
 
         void put(BytesRef uid, VersionValue version) {
@@ -224,14 +286,14 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
         }
 
         long ramBytesUsed() {
-            return current.ramBytesUsed.get() + old.ramBytesUsed.get();
+            return current.ramBytesUsed() + old.ramBytesUsed();
         }
     }
 
     // All deletes also go here, and delete "tombstones" are retained after refresh:
     private final Map<BytesRef, DeleteVersionValue> tombstones = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
 
-    private volatile Maps maps = new Maps();
+    private volatile Maps maps;
     // we maintain a second map that only receives the updates that we skip on the actual map (unsafe ops)
     // this map is only maintained if assertions are enabled
     private volatile Maps unsafeKeysMap = new Maps();
@@ -463,7 +525,10 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
      * Called when this index is closed.
      */
     synchronized void clear() {
+        final Maps previous = maps;
+        // the engine is closed, there is no point in allocating paged arrays again
         maps = new Maps();
+        previous.release();
         tombstones.clear();
         // NOTE: we can't zero this here, because a refresh thread could be calling InternalEngine.pruneDeletedTombstones at the same time,
         // and this will lead to an assert trip. Presumably it's fine if our ramBytesUsedForTombstones is non-zero after clear since the
@@ -495,7 +560,7 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
      */
     long reclaimableRefreshRamBytes() {
         return archive == LiveVersionMapArchive.NOOP_ARCHIVE
-            ? maps.current.ramBytesUsed.get()
+            ? maps.current.ramBytesUsed()
             : maps.ramBytesUsed() + archive.getReclaimableRamBytes();
     }
 
@@ -512,7 +577,7 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
      * fraction of the Archive entries that are kept around until an ongoing unpromotable refresh is finished.
      */
     long getRefreshingBytes() {
-        return archive == LiveVersionMapArchive.NOOP_ARCHIVE ? maps.old.ramBytesUsed.get() : archive.getRefreshingRamBytes();
+        return archive == LiveVersionMapArchive.NOOP_ARCHIVE ? maps.old.ramBytesUsed() : archive.getRefreshingRamBytes();
     }
 
     /**
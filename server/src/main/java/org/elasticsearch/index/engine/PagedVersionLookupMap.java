@@ -0,0 +1,474 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.index.engine;
+
+import com.carrotsearch.hppc.BitMixer;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.ByteArray;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.core.AbstractRefCounted;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.Releasables;
+import org.elasticsearch.index.translog.Translog;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A uid to {@link VersionValue} map for {@link LiveVersionMap.VersionLookup} that keeps its entries in paged arrays allocated from
+ * {@link BigArrays} rather than in a {@link java.util.concurrent.ConcurrentHashMap} of objects. Keys are appended to a {@link ByteArray}
+ * and found through an open addressing table of slots, and the seqNo, primary term, version and translog location of every uid are
+ * packed into a single {@link LongArray}, so indexing does not allocate a key, entry and value object per document. Values are
+ * materialized on lookup only.
+ * <p>
+ * Entries are written once the operation is already in Lucene and in the translog, so growing the map must not fail. The given
+ * {@link BigArrays} must therefore account its memory without circuit breaking.
+ * <p>
+ * The map is split into segments that each have their own {@link StampedLock}. Writes take the write lock, lookups read the arrays
+ * optimistically without locking and only fall back to the read lock if a concurrent write invalidated what they read. Removed uids keep
+ * their key until the map is released on refresh, which is acceptable for the append-mostly workloads this map is meant for.
+ * <p>
+ * Readers may still hold on to a map that got swapped out by a refresh, so pages are only released once {@link #close()} was called
+ * and all in-flight lookups completed. Lookups on a released map find nothing, which is correct since all its entries are visible in
+ * the refreshed reader by then.
+ */
+final class PagedVersionLookupMap extends AbstractMap<BytesRef, VersionValue> implements Accountable, Releasable {
+
+    private static final int SEGMENT_BITS = 4;
+    private static final int NUM_SEGMENTS = 1 << SEGMENT_BITS;
+
+    // every entry uses STRIDE longs:
+    // [state | location size, seqNo, term, version, location generation or delete time, location offset, key offset | key length]
+    private static final int STRIDE = 7;
+    private static final long STATE_REMOVED = 0;
+    private static final long STATE_INDEX = 1;
+    private static final long STATE_INDEX_WITH_LOCATION = 2;
+    private static final long STATE_DELETE = 3;
+    private static final long STATE_MASK = 0xFF;
+    private static final int KEY_LENGTH_BITS = 16;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(PagedVersionLookupMap.class)
+        + RamUsageEstimator.shallowSizeOfInstance(Segment.class) * NUM_SEGMENTS;
+
+    private final BigArrays bigArrays;
+    private final Segment[] segments = new Segment[NUM_SEGMENTS];
+    private final AbstractRefCounted refCounted = AbstractRefCounted.of(this::releaseSegments);
+
+    PagedVersionLookupMap(BigArrays bigArrays, int expectedSize) {
+        this.bigArrays = bigArrays;
+        final long segmentCapacity = Math.max(16, expectedSize / NUM_SEGMENTS);
+        boolean success = false;
+        try {
+            for (int i = 0; i < NUM_SEGMENTS; i++) {
+                segments[i] = new Segment(bigArrays, segmentCapacity);
+            }
+            success = true;
+        } finally {
+            if (success == false) {
+                releaseSegments();
+            }
+        }
+    }
+
+    private Segment segment(int hash) {
+        return segments[hash >>> (Integer.SIZE - SEGMENT_BITS)];
+    }
+
+    private static int hash(BytesRef key) {
+        return BitMixer.mix32(key.hashCode());
+    }
+
+    @Override
+    public VersionValue get(Object key) {
+        if (key instanceof BytesRef uid && refCounted.tryIncRef()) {
+            try {
+                final int hash = hash(uid);
+                return segment(hash).get(uid, hash);
+            } finally {
+                refCounted.decRef();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public VersionValue put(BytesRef key, VersionValue value) {
+        if (refCounted.tryIncRef() == false) {
+            throw new IllegalStateException("version map is already released");
+        }
+        try {
+            final int hash = hash(key);
+            return segment(hash).put(key, hash, value);
+        } finally {
+            refCounted.decRef();
+        }
+    }
+
+    @Override
+    public VersionValue remove(Object key) {
+        if (key instanceof BytesRef uid && refCounted.tryIncRef()) {
+            try {
+                final int hash = hash(uid);
+                return segment(hash).remove(uid, hash);
+            } finally {
+                refCounted.decRef();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    /**
+     * Returns a point in time copy of the entries of this map. This materializes every entry and is only meant for the rare cases
+     * that need to iterate the version map, like merging it into an archive.
+     */
+    @Override
+    public Set<Entry<BytesRef, VersionValue>> entrySet() {
+        final List<Entry<BytesRef, VersionValue>> entries = new ArrayList<>();
+        if (refCounted.tryIncRef()) {
+            try {
+                for (Segment segment : segments) {
+                    segment.collect(entries);
+                }
+            } finally {
+                refCounted.decRef();
+            }
+        }
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<BytesRef, VersionValue>> iterator() {
+                return entries.iterator();
+            }
+
+            @Override
+            public int size() {
+                return entries.size();
+            }
+        };
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        long bytes = BASE_RAM_BYTES_USED;
+        if (refCounted.tryIncRef()) {
+            try {
+                for (Segment segment : segments) {
+                    bytes += segment.ramBytesUsed();
+                }
+            } finally {
+                refCounted.decRef();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Releases the pages of this map once all in-flight operations completed.
+     */
+    @Override
+    public void close() {
+        refCounted.decRef();
+    }
+
+    private void releaseSegments() {
+        Releasables.close(segments);
+    }
+
+    private static final class Segment implements Releasable {
+        private final BigArrays bigArrays;
+        private final StampedLock lock = new StampedLock();
+        // open addressing table of (hash << 32 | id + 1), 0 marks an empty slot
+        private LongArray slots;
+        private ByteArray keys;
+        private LongArray values;
+        private long keysSize;
+        private int count;
+        // the number of keys that are not removed, written under lock and read without for size estimations
+        private volatile int size;
+
+        Segment(BigArrays bigArrays, long capacity) {
+            this.bigArrays = bigArrays;
+            boolean success = false;
+            try {
+                this.slots = bigArrays.newLongArray(slotsFor(capacity), true);
+                this.keys = bigArrays.newByteArray(capacity * 16, false);
+                this.values = bigArrays.newLongArray(capacity * STRIDE, false);
+                success = true;
+            } finally {
+                if (success == false) {
+                    close();
+                }
+            }
+        }
+
+        private static long slotsFor(long capacity) {
+            return Math.max(16, Long.highestOneBit((long) Math.ceil(capacity / LOAD_FACTOR)) << 1);
+        }
+
+        /**
+         * Reads the entry without locking and validates the read afterwards. The arrays may be grown and their old pages recycled
+         * concurrently, so everything read optimistically is treated as possibly garbage: probing is bounded, failures fall back to
+         * the read lock and values are only materialized once the read was validated.
+         */
+        VersionValue get(BytesRef uid, int hash) {
+            final long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                try {
+                    final LongArray values = this.values;
+                    final long id = find(slots, keys, values, count, uid, hash);
+                    if (id < 0) {
+                        if (lock.validate(stamp)) {
+                            return null;
+                        }
+                    } else {
+                        final long base = id * STRIDE;
+                        final long meta = values.get(base);
+                        final long seqNo = values.get(base + 1);
+                        final long term = values.get(base + 2);
+                        final long version = values.get(base + 3);
+                        final long extra = values.get(base + 4);
+                        final long offset = values.get(base + 5);
+                        if (lock.validate(stamp)) {
+                            return toVersionValue(meta, seqNo, term, version, extra, offset);
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    // a concurrent write moved the arrays underneath us, retry under the read lock
+                }
+            }
+            final long readStamp = lock.readLock();
+            try {
+                final long id = find(slots, keys, values, count, uid, hash);
+                return id < 0 ? null : read(id);
+            } finally {
+                lock.unlockRead(readStamp);
+            }
+        }
+
+        VersionValue put(BytesRef uid, int hash, VersionValue value) {
+            final long stamp = lock.writeLock();
+            try {
+                long id = find(slots, keys, values, count, uid, hash);
+                final VersionValue previous;
+                if (id < 0) {
+                    id = add(uid, hash);
+                    previous = null;
+                } else {
+                    previous = read(id);
+                }
+                write(id, value);
+                if (previous == null) {
+                    size++;
+                }
+                return previous;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        VersionValue remove(BytesRef uid, int hash) {
+            final long stamp = lock.writeLock();
+            try {
+                final long id = find(slots, keys, values, count, uid, hash);
+                if (id < 0) {
+                    return null;
+                }
+                final VersionValue previous = read(id);
+                if (previous != null) {
+                    values.set(id * STRIDE, STATE_REMOVED);
+                    size--;
+                }
+                return previous;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void collect(List<Entry<BytesRef, VersionValue>> entries) {
+            final long stamp = lock.readLock();
+            try {
+                final BytesRef spare = new BytesRef();
+                for (long id = 0; id < count; id++) {
+                    final VersionValue value = read(id);
+                    if (value != null) {
+                        final long key = values.get(id * STRIDE + 6);
+                        keys.get(key >>> KEY_LENGTH_BITS, (int) (key & ((1 << KEY_LENGTH_BITS) - 1)), spare);
+                        entries.add(Map.entry(BytesRef.deepCopyOf(spare), value));
+                    }
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        long ramBytesUsed() {
+            final long stamp = lock.readLock();
+            try {
+                return slots.ramBytesUsed() + keys.ramBytesUsed() + values.ramBytesUsed();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        /**
+         * Returns the id of the given uid or {@code -1} if it is not in the map. This does not rely on the arrays being consistent so
+         * that it can be called without holding the lock.
+         */
+        private static long find(LongArray slots, ByteArray keys, LongArray values, int count, BytesRef uid, int hash) {
+            final long mask = slots.size() - 1;
+            for (long i = 0, slot = hash & mask; i <= mask; i++, slot = (slot + 1) & mask) {
+                final long entry = slots.get(slot);
+                if (entry == 0) {
+                    return -1;
+                }
+                if ((int) (entry >>> 32) == hash) {
+                    final long id = (entry & 0xFFFFFFFFL) - 1;
+                    if (id >= 0 && id < count && keyEquals(keys, values.get(id * STRIDE + 6), uid)) {
+                        return id;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        private static boolean keyEquals(ByteArray keys, long key, BytesRef uid) {
+            if ((key & ((1 << KEY_LENGTH_BITS) - 1)) != uid.length) {
+                return false;
+            }
+            final long offset = key >>> KEY_LENGTH_BITS;
+            for (int i = 0; i < uid.length; i++) {
+                if (keys.get(offset + i) != uid.bytes[uid.offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private long add(BytesRef uid, int hash) {
+            assert uid.length < (1 << KEY_LENGTH_BITS) : "uid too long: " + uid.length;
+            final int id = count;
+            values = bigArrays.grow(values, ((long) id + 1) * STRIDE);
+            keys = bigArrays.grow(keys, keysSize + uid.length);
+            keys.set(keysSize, uid.bytes, uid.offset, uid.length);
+            values.set((long) id * STRIDE + 6, (keysSize << KEY_LENGTH_BITS) | uid.length);
+            keysSize += uid.length;
+            if (id + 1 > slots.size() * LOAD_FACTOR) {
+                rehash(slots.size() << 1);
+            }
+            insert(slots, hash, id);
+            count = id + 1;
+            return id;
+        }
+
+        private void rehash(long newSize) {
+            final LongArray newSlots = bigArrays.newLongArray(newSize, true);
+            for (long slot = 0; slot < slots.size(); slot++) {
+                final long entry = slots.get(slot);
+                if (entry != 0) {
+                    insert(newSlots, (int) (entry >>> 32), (entry & 0xFFFFFFFFL) - 1);
+                }
+            }
+            final LongArray oldSlots = slots;
+            slots = newSlots;
+            oldSlots.close();
+        }
+
+        private static void insert(LongArray slots, int hash, long id) {
+            final long mask = slots.size() - 1;
+            long slot = hash & mask;
+            while (slots.get(slot) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots.set(slot, ((long) hash << 32) | (id + 1));
+        }
+
+        private VersionValue read(long id) {
+            final long base = id * STRIDE;
+            return toVersionValue(
+                values.get(base),
+                values.get(base + 1),
+                values.get(base + 2),
+                values.get(base + 3),
+                values.get(base + 4),
+                values.get(base + 5)
+            );
+        }
+
+        private static VersionValue toVersionValue(long meta, long seqNo, long term, long version, long extra, long offset) {
+            final long state = meta & STATE_MASK;
+            if (state == STATE_REMOVED) {
+                return null;
+            }
+            if (state == STATE_DELETE) {
+                return new DeleteVersionValue(version, seqNo, term, extra);
+            }
+            final Translog.Location location = state == STATE_INDEX_WITH_LOCATION
+                ? new Translog.Location(extra, offset, (int) (meta >>> 8))
+                : null;
+            return new IndexVersionValue(location, version, seqNo, term);
+        }
+
+        private void write(long id, VersionValue value) {
+            final long base = id * STRIDE;
+            final long meta;
+            if (value.isDelete()) {
+                meta = STATE_DELETE;
+                values.set(base + 4, ((DeleteVersionValue) value).time);
+            } else {
+                final Translog.Location location = value.getLocation();
+                if (location == null) {
+                    meta = STATE_INDEX;
+                } else {
+                    meta = STATE_INDEX_WITH_LOCATION | ((long) location.size() << 8);
+                    values.set(base + 4, location.generation());
+                    values.set(base + 5, location.translogLocation());
+                }
+            }
+            values.set(base + 1, value.seqNo);
+            values.set(base + 2, value.term);
+            values.set(base + 3, value.version);
+            values.set(base, meta);
+        }
+
+        @Override
+        public void close() {
+            final long stamp = lock.writeLock();
+            try {
+                Releasables.close(slots, keys, values);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.CodecReader;
+import org.apache.lucene.index.FilterMergePolicy;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.MergePolicy;
+import org.apache.lucene.index.MergeTrigger;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.index.SegmentCommitInfo;
+import org.apache.lucene.index.SegmentInfos;
+import org.elasticsearch.cluster.metadata.DataStream;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.TimeValue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * A {@link FilterMergePolicy} for time-based indices that takes the {@code @timestamp} ranges of segments into account when looking
+ * for natural merges, if {@link org.elasticsearch.index.MergePolicyConfig#INDEX_MERGE_POLICY_HOT_TIME_RANGE_SETTING} is set:
+ * <ul>
+ *     <li>Segments are handed to the wrapped merge policy ordered by their maximum timestamp, so that merge policies that only merge
+ *     adjacent segments merge segments with adjacent time ranges, even if data was not ingested in timestamp order.</li>
+ *     <li>Segments are split into hot segments, whose maximum timestamp is within the configured range of the most recent timestamp of
+ *     the index, and cold segments. These are never merged together, so that the cold segments keep narrow time ranges that range
+ *     queries can skip or fully match, and so that they are not rewritten over and over again by merges with recent data.</li>
+ * </ul>
+ * The timestamp ranges of segments are recorded in the diagnostics of the segments that are produced by these merges. Other segments,
+ * such as newly flushed ones, get their ranges from the internal reader on refresh and are considered hot until then. Forced merges
+ * are not affected.
+ */
+final class TimestampRangeMergePolicy extends FilterMergePolicy {
+
+    static final String TIMESTAMP_RANGE_KEY = "es.timestamp_range";
+
+    record TimestampRange(long min, long max) {
+        TimestampRange union(TimestampRange other) {
+            return new TimestampRange(Math.min(min, other.min), Math.max(max, other.max));
+        }
+    }
+
+    private final Map<String, TimestampRange> refreshedRanges;
+    private final Supplier<TimeValue> hotTimeRange;
+
+    /**
+     * @param refreshedRanges the timestamp ranges of the segments of the last refreshed internal reader, by segment name, as maintained
+     *                        through {@link #updateTimestampRanges(Map, IndexReader)}
+     * @param hotTimeRange    the time range, back from the most recent timestamp, of segments that are considered hot
+     */
+    TimestampRangeMergePolicy(MergePolicy in, Map<String, TimestampRange> refreshedRanges, Supplier<TimeValue> hotTimeRange) {
+        super(in);
+        this.refreshedRanges = refreshedRanges;
+        this.hotTimeRange = hotTimeRange;
+    }
+
+    @Override
+    public MergeSpecification findMerges(MergeTrigger mergeTrigger, SegmentInfos segmentInfos, MergeContext mergeContext)
+        throws IOException {
+        final long hotTimeRangeMillis = hotTimeRange.get().millis();
+        if (hotTimeRangeMillis < 0) {
+            return in.findMerges(mergeTrigger, segmentInfos, mergeContext);
+        }
+        final List<SegmentCommitInfo> segments = new ArrayList<>(segmentInfos.size());
+        long mostRecent = Long.MIN_VALUE;
+        for (SegmentCommitInfo info : segmentInfos) {
+            segments.add(info);
+            final TimestampRange range = getTimestampRange(info);
+            if (range != null) {
+                mostRecent = Math.max(mostRecent, range.max());
+            }
+        }
+        if (mostRecent == Long.MIN_VALUE) {
+            // no segment has a known timestamp range, e.g. because the index has no @timestamp field
+            return in.findMerges(mergeTrigger, segmentInfos, mergeContext);
+        }
+
+        // the sort is stable, so segments with unknown ranges stay at the end in their original order
+        segments.sort(Comparator.comparingLong(info -> {
+            final TimestampRange range = getTimestampRange(info);
+            return range == null ? Long.MAX_VALUE : range.max();
+        }));
+        final long hotFrom = mostRecent < Long.MIN_VALUE + hotTimeRangeMillis ? Long.MIN_VALUE : mostRecent - hotTimeRangeMillis;
+        final SegmentInfos cold = new SegmentInfos(segmentInfos.getIndexCreatedVersionMajor());
+        final SegmentInfos hot = new SegmentInfos(segmentInfos.getIndexCreatedVersionMajor());
+        for (SegmentCommitInfo info : segments) {
+            final TimestampRange range = getTimestampRange(info);
+            if (range != null && range.max() < hotFrom) {
+                cold.add(info);
+            } else {
+                hot.add(info);
+            }
+        }
+
+        MergeSpecification merges = null;
+        for (SegmentInfos infos : List.of(cold, hot)) {
+            if (infos.size() > 1) {
+                final MergeSpecification spec = in.findMerges(mergeTrigger, infos, mergeContext);
+                if (spec != null) {
+                    if (merges == null) {
+                        merges = new MergeSpecification();
+                    }
+                    for (OneMerge merge : spec.merges) {
+                        merges.add(recordTimestampRange(merge));
+                    }
+                }
+            }
+        }
+        return merges;
+    }
+
+    @Nullable
+    private TimestampRange getTimestampRange(SegmentCommitInfo info) {
+        final String range = info.info.getDiagnostics().get(TIMESTAMP_RANGE_KEY);
+        if (range != null) {
+            final int separator = range.indexOf(',');
+            return new TimestampRange(Long.parseLong(range.substring(0, separator)), Long.parseLong(range.substring(separator + 1)));
+        }
+        return refreshedRanges.get(info.info.name);
+    }
+
+    private OneMerge recordTimestampRange(OneMerge toWrap) {
+        TimestampRange mergedRange = null;
+        for (SegmentCommitInfo info : toWrap.segments) {
+            final TimestampRange range = getTimestampRange(info);
+            if (range == null) {
+                // a segment with an unknown range was picked, so the range of the merged segment is unknown too
+                return toWrap;
+            }
+            mergedRange = mergedRange == null ? range : mergedRange.union(range);
+        }
+        final TimestampRange range = mergedRange;
+        return new OneMerge(toWrap.segments) {
+            @Override
+            public CodecReader wrapForMerge(CodecReader reader) throws IOException {
+                return toWrap.wrapForMerge(reader);
+            }
+
+            @Override
+            public void setMergeInfo(SegmentCommitInfo info) {
+                info.info.addDiagnostics(Map.of(TIMESTAMP_RANGE_KEY, range.min() + "," + range.max()));
+                super.setMergeInfo(info);
+            }
+        };
+    }
+
+    /**
+     * Updates the given timestamp ranges by segment name to the segments of the given reader.
+     */
+    static void updateTimestampRanges(Map<String, TimestampRange> ranges, IndexReader reader) throws IOException {
+        final Set<String> segmentNames = new HashSet<>();
+        for (LeafReaderContext leaf : reader.leaves()) {
+            final String segmentName = Lucene.segmentReader(leaf.reader()).getSegmentName();
+            segmentNames.add(segmentName);
+            if (ranges.containsKey(segmentName) == false) {
+                final PointValues pointValues = leaf.reader().getPointValues(DataStream.TIMESTAMP_FIELD_NAME);
+                if (pointValues != null) {
+                    ranges.put(
+                        segmentName,
+                        new TimestampRange(
+                            LongPoint.decodeDimension(pointValues.getMinPackedValue(), 0),
+                            LongPoint.decodeDimension(pointValues.getMaxPackedValue(), 0)
+                        )
+                    );
+                }
+            }
+        }
+        ranges.keySet().retainAll(segmentNames);
+    }
+}
@@ -29,11 +29,21 @@ import java.util.Set;
  */
 public abstract class StoredFieldLoader {
 
+    /**
+     * Documents whose ids are at most this far apart are likely to be stored in the same compressed block of stored fields. Blocks
+     * hold up to 128 documents with the default codec and up to 2048 documents with {@code best_compression}, so this is only exact
+     * for documents of a few kilobytes but rarely reads a block of small documents twice.
+     */
+    static final int MAX_DOC_GAP_IN_BLOCK = 16;
+
     /**
      * Return a {@link LeafStoredFieldLoader} for the given segment and document set
      *
      * The loader will use an internal lucene merge reader if the document set is of
-     * sufficient size and is contiguous.  Callers may pass {@code null} if the set
+     * sufficient size and is contiguous. Otherwise documents that are close to each other
+     * are loaded with the merge reader, which decompresses each block of stored fields
+     * only once for all of these documents, and the blocks of the other documents are
+     * prefetched ahead of loading them. Callers may pass {@code null} if the set
      * is not known up front or if the merge reader optimisation will not apply.
      */
     public abstract LeafStoredFieldLoader getLoader(LeafReaderContext ctx, int[] docs) throws IOException;
@@ -142,6 +152,9 @@ public abstract class StoredFieldLoader {
             return sequentialReader(ctx);
         }
         StoredFields storedFields = leafReader.storedFields();
+        if (docs != null && docs.length > 1 && isSorted(docs)) {
+            return new BlockAwareReader(ctx, storedFields, docs);
+        }
         return storedFields::document;
     }
 
@@ -168,6 +181,92 @@ public abstract class StoredFieldLoader {
         return docs.length > 0 && docs[docs.length - 1] - docs[0] == docs.length - 1;
     }
 
+    private static boolean isSorted(int[] docs) {
+        for (int i = 1; i < docs.length; i++) {
+            if (docs[i] <= docs[i - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of runs of documents that the stored fields of the provided, sorted, documents are loaded in. The documents
+     * of a run are close enough to each other to share compressed blocks of stored fields, so that loading them decompresses about one
+     * block per run, rather than one block per document.
+     */
+    public static int countBlockRuns(int[] docs) {
+        if (docs.length == 0) {
+            return 0;
+        }
+        int runs = 1;
+        for (int i = 1; i < docs.length; i++) {
+            if (docs[i] - docs[i - 1] > MAX_DOC_GAP_IN_BLOCK) {
+                runs++;
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Loads the stored fields of a sorted set of documents. Documents that are close to their neighbours, and hence likely share their
+     * compressed block, are read with the sequential reader, which keeps the last decompressed block around. Other documents are read
+     * with the random access reader, which only decompresses what it needs. Before a document is loaded, the block of the next run of
+     * documents is prefetched, so that it can be read from disk while the current document is decompressed.
+     */
+    private static class BlockAwareReader implements CheckedBiConsumer<Integer, FieldsVisitor, IOException> {
+        private final LeafReaderContext ctx;
+        private final StoredFields storedFields;
+        private final int[] docs;
+        private StoredFields sequentialStoredFields;
+        private int index = 0;
+
+        BlockAwareReader(LeafReaderContext ctx, StoredFields storedFields, int[] docs) {
+            this.ctx = ctx;
+            this.storedFields = storedFields;
+            this.docs = docs;
+        }
+
+        @Override
+        public void accept(Integer doc, FieldsVisitor visitor) throws IOException {
+            while (index < docs.length && docs[index] < doc) {
+                index++;
+            }
+            if (index == docs.length || docs[index] != doc) {
+                // not one of the documents we know about, e.g. if called out of order
+                storedFields.document(doc, visitor);
+                return;
+            }
+            final int next = index + 1;
+            if (next < docs.length && startsRun(next)) {
+                readerFor(next).prefetch(docs[next]);
+            }
+            readerFor(index).document(doc, visitor);
+        }
+
+        private boolean startsRun(int i) {
+            return docs[i] - docs[i - 1] > MAX_DOC_GAP_IN_BLOCK;
+        }
+
+        private boolean sharesBlock(int i) {
+            return (i > 0 && startsRun(i) == false) || (i + 1 < docs.length && startsRun(i + 1) == false);
+        }
+
+        private StoredFields readerFor(int i) throws IOException {
+            if (sharesBlock(i) == false) {
+                return storedFields;
+            }
+            if (sequentialStoredFields == null) {
+                if (ctx.reader() instanceof SequentialStoredFieldsLeafReader lf) {
+                    sequentialStoredFields = lf.getSequentialStoredFieldsReader();
+                } else {
+                    sequentialStoredFields = storedFields;
+                }
+            }
+            return sequentialStoredFields;
+        }
+    }
+
     private static class EmptyStoredFieldLoader implements LeafStoredFieldLoader {
 
         @Override
@@ -21,6 +21,7 @@ import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.MappingLookup;
 import org.elasticsearch.index.mapper.ValueFetcher;
 import org.elasticsearch.index.shard.IndexLongFieldRange;
+import org.elasticsearch.index.shard.ShardFieldValueStats;
 import org.elasticsearch.indices.DateFieldRangeInfo;
 import org.elasticsearch.xcontent.XContentParserConfiguration;
 
@@ -34,6 +35,8 @@ import java.util.function.LongSupplier;
  * Right now this context object is able to rewrite range queries that include a known timestamp field
  * (i.e. the timestamp field for DataStreams or the 'event.ingested' field in ECS) into a MatchNoneQueryBuilder
  * and skip the shards that don't hold queried data. See IndexMetadata for more details.
+ * When the shard previously reported {@link ShardFieldValueStats}, term, range and exists queries on other fields can also be
+ * rewritten to a MatchNoneQueryBuilder.
  */
 public class CoordinatorRewriteContext extends QueryRewriteContext {
 
@@ -72,6 +75,8 @@ public class CoordinatorRewriteContext extends QueryRewriteContext {
     @Nullable
     private final DateFieldRangeInfo dateFieldRangeInfo;
     private final String tier;
+    @Nullable
+    private final ShardFieldValueStats fieldValueStats;
 
     /**
      * Context for coordinator search rewrites based on time ranges for the @timestamp field and/or 'event.ingested' field
@@ -88,6 +93,27 @@ public class CoordinatorRewriteContext extends QueryRewriteContext {
         LongSupplier nowInMillis,
         @Nullable DateFieldRangeInfo dateFieldRangeInfo,
         String tier
+    ) {
+        this(parserConfig, client, nowInMillis, dateFieldRangeInfo, tier, null);
+    }
+
+    /**
+     * Context for coordinator search rewrites based on time ranges and on the field value stats of a specific shard
+     *
+     * @param parserConfig
+     * @param client
+     * @param nowInMillis
+     * @param dateFieldRangeInfo range and field type info for @timestamp and 'event.ingested'
+     * @param tier               the configured data tier (via the _tier_preference setting) for the index
+     * @param fieldValueStats    the field value stats that the shard reported, if any
+     */
+    public CoordinatorRewriteContext(
+        XContentParserConfiguration parserConfig,
+        Client client,
+        LongSupplier nowInMillis,
+        @Nullable DateFieldRangeInfo dateFieldRangeInfo,
+        String tier,
+        @Nullable ShardFieldValueStats fieldValueStats
     ) {
         super(
             parserConfig,
@@ -110,6 +136,7 @@ public class CoordinatorRewriteContext extends QueryRewriteContext {
         );
         this.dateFieldRangeInfo = dateFieldRangeInfo;
         this.tier = tier;
+        this.fieldValueStats = fieldValueStats;
     }
 
     /**
@@ -145,6 +172,15 @@ public class CoordinatorRewriteContext extends QueryRewriteContext {
         }
     }
 
+    /**
+     * @return the field value stats that the shard reported, or null if it didn't report any or if they may be stale.
+     * Fields that aren't part of these stats may have any value.
+     */
+    @Nullable
+    public ShardFieldValueStats getFieldValueStats() {
+        return fieldValueStats;
+    }
+
     @Override
     public CoordinatorRewriteContext convertToCoordinatorRewriteContext() {
         return this;
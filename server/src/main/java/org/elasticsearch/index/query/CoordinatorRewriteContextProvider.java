@@ -11,11 +11,15 @@ package org.elasticsearch.index.query;
 
 import org.elasticsearch.client.internal.Client;
 import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.index.shard.IndexLongFieldRange;
+import org.elasticsearch.index.shard.ShardFieldValueStats;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.DateFieldRangeInfo;
+import org.elasticsearch.indices.ShardFieldValueStatsCache;
 import org.elasticsearch.xcontent.XContentParserConfiguration;
 
 import java.util.function.Function;
@@ -28,6 +32,8 @@ public class CoordinatorRewriteContextProvider {
     private final LongSupplier nowInMillis;
     private final Supplier<ClusterState> clusterStateSupplier;
     private final Function<Index, DateFieldRangeInfo> mappingSupplier;
+    @Nullable
+    private final ShardFieldValueStatsCache fieldValueStatsCache;
 
     public CoordinatorRewriteContextProvider(
         XContentParserConfiguration parserConfig,
@@ -35,12 +41,24 @@ public class CoordinatorRewriteContextProvider {
         LongSupplier nowInMillis,
         Supplier<ClusterState> clusterStateSupplier,
         Function<Index, DateFieldRangeInfo> mappingSupplier
+    ) {
+        this(parserConfig, client, nowInMillis, clusterStateSupplier, mappingSupplier, null);
+    }
+
+    public CoordinatorRewriteContextProvider(
+        XContentParserConfiguration parserConfig,
+        Client client,
+        LongSupplier nowInMillis,
+        Supplier<ClusterState> clusterStateSupplier,
+        Function<Index, DateFieldRangeInfo> mappingSupplier,
+        @Nullable ShardFieldValueStatsCache fieldValueStatsCache
     ) {
         this.parserConfig = parserConfig;
         this.client = client;
         this.nowInMillis = nowInMillis;
         this.clusterStateSupplier = clusterStateSupplier;
         this.mappingSupplier = mappingSupplier;
+        this.fieldValueStatsCache = fieldValueStatsCache;
     }
 
     @Nullable
@@ -51,7 +69,40 @@ public class CoordinatorRewriteContextProvider {
         if (indexMetadata == null) {
             return null;
         }
-        DateFieldRangeInfo dateFieldRangeInfo = mappingSupplier.apply(index);
+        return getCoordinatorRewriteContext(indexMetadata, null);
+    }
+
+    /**
+     * Same as {@link #getCoordinatorRewriteContext(Index)}, but also exposes the field value stats that the shard reported in a
+     * previous can_match response, if they are still accurate.
+     */
+    @Nullable
+    public CoordinatorRewriteContext getCoordinatorRewriteContext(ShardId shardId) {
+        var clusterState = clusterStateSupplier.get();
+        var indexMetadata = clusterState.metadata().index(shardId.getIndex());
+
+        if (indexMetadata == null) {
+            return null;
+        }
+        ShardFieldValueStats fieldValueStats = fieldValueStatsCache == null ? null : fieldValueStatsCache.get(shardId, indexMetadata);
+        return getCoordinatorRewriteContext(indexMetadata, fieldValueStats);
+    }
+
+    /**
+     * Caches the field value stats that a shard reported in a can_match response.
+     */
+    public void cacheFieldValueStats(ShardId shardId, ShardFieldValueStatsCache.Entry fieldValueStats) {
+        if (fieldValueStatsCache != null) {
+            fieldValueStatsCache.put(shardId, fieldValueStats);
+        }
+    }
+
+    @Nullable
+    private CoordinatorRewriteContext getCoordinatorRewriteContext(
+        IndexMetadata indexMetadata,
+        @Nullable ShardFieldValueStats fieldValueStats
+    ) {
+        DateFieldRangeInfo dateFieldRangeInfo = mappingSupplier.apply(indexMetadata.getIndex());
         IndexLongFieldRange timestampRange = indexMetadata.getTimestampRange();
         IndexLongFieldRange eventIngestedRange = indexMetadata.getEventIngestedRange();
         DateFieldMapper.DateFieldType timestampFieldType = null;
@@ -64,7 +115,11 @@ public class CoordinatorRewriteContextProvider {
                 // if timestampRange in the time series is null AND the eventIngestedRange is not ready for use, return null (no coord
                 // rewrite)
                 if (timestampRange == null && eventIngestedRange.containsAllShardRanges() == false) {
-                    return null;
+                    if (fieldValueStats == null) {
+                        return null;
+                    }
+                    // the field value stats of the shard can still be used, but not the incomplete ranges
+                    dateFieldRangeInfo = null;
                 }
             }
         }
@@ -83,7 +138,8 @@ public class CoordinatorRewriteContextProvider {
                     dateFieldRangeInfo.eventIngestedFieldType(),
                     eventIngestedRange
                 ),
-            indexMetadata.getTierPreference().isEmpty() == false ? indexMetadata.getTierPreference().getFirst() : ""
+            indexMetadata.getTierPreference().isEmpty() == false ? indexMetadata.getTierPreference().getFirst() : "",
+            fieldValueStats
         );
     }
 }
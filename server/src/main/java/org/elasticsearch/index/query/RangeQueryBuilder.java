@@ -25,6 +25,7 @@ import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.index.mapper.FieldNamesFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.shard.IndexLongFieldRange;
+import org.elasticsearch.index.shard.ShardFieldValueStats;
 import org.elasticsearch.xcontent.ParseField;
 import org.elasticsearch.xcontent.XContentBuilder;
 import org.elasticsearch.xcontent.XContentParser;
@@ -452,6 +453,20 @@ public class RangeQueryBuilder extends AbstractQueryBuilder<RangeQueryBuilder> i
                 coordinatorRewriteContext
             );
         }
+        ShardFieldValueStats fieldValueStats = coordinatorRewriteContext.getFieldValueStats();
+        if (fieldType == null && fieldValueStats != null) {
+            // the shard reported the min/max values of its fields, which are enough to tell whether the range is disjoint
+            return fieldValueStats.rangeRelation(
+                fieldName,
+                from,
+                to,
+                includeLower,
+                includeUpper,
+                timeZone,
+                getForceDateParser(),
+                coordinatorRewriteContext
+            );
+        }
         // If the field type is null or not of type DataFieldType then we have no idea whether this range query will match during
         // coordinating rewrite. So we should return that it intersects, either the data node query rewrite or by actually running
         // the query we know whether this range query actually matches.
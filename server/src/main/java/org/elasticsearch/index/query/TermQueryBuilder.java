@@ -20,6 +20,7 @@ import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.mapper.ConstantFieldType;
 import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.shard.ShardFieldValueStats;
 import org.elasticsearch.xcontent.ParseField;
 import org.elasticsearch.xcontent.XContentBuilder;
 import org.elasticsearch.xcontent.XContentParser;
@@ -180,6 +181,12 @@ public class TermQueryBuilder extends BaseTermQueryBuilder<TermQueryBuilder> {
         MappedFieldType fieldType = coordinatorRewriteContext.getFieldType(this.fieldName);
         // we don't rewrite a null field type to `match_none` on the coordinator because the coordinator has access
         // to only a subset of fields see {@link CoordinatorRewriteContext#getFieldType}
+        if (fieldType == null && caseInsensitive == false) {
+            ShardFieldValueStats fieldValueStats = coordinatorRewriteContext.getFieldValueStats();
+            if (fieldValueStats != null && fieldValueStats.mayContainTerm(fieldName, value) == false) {
+                return new MatchNoneQueryBuilder("The \"" + getName() + "\" query was rewritten to a \"match_none\" query.");
+            }
+        }
         return maybeRewriteBasedOnConstantFields(fieldType, coordinatorRewriteContext);
     }
 
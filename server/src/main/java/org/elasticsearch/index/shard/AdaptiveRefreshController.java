@@ -0,0 +1,133 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.index.shard;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides whether a scheduled refresh of a shard should run, based on how often the shard is actually searched, how expensive its
+ * refreshes are and whether it is being indexed into. The scheduled refresh task keeps running every {@code index.refresh_interval},
+ * which acts as the lower bound of the effective interval, and this controller stretches the interval up to
+ * {@code index.refresh.adaptive.max_interval}:
+ * <ul>
+ *     <li>shards that are searched every few hundred milliseconds keep refreshing at the configured interval, while shards that are
+ *     searched every ten seconds refresh roughly every ten seconds, since more frequent refreshes would not be observed anyway</li>
+ *     <li>shards whose refreshes take long are refreshed at most so often that refreshing takes up a bounded share of the time</li>
+ * </ul>
+ * Shards that are not indexed into are refreshed at the configured interval, their refreshes are cheap and produce no new segments.
+ * <p>
+ * All signals are kept as exponentially weighted moving averages of the samples that are taken on every scheduled refresh.
+ */
+final class AdaptiveRefreshController {
+
+    // weight of the latest sample in the moving averages
+    static final double ALPHA = 0.3;
+    // the share of time a shard may spend refreshing before its refreshes are spread out further
+    static final double MAX_REFRESH_COST_RATIO = 0.1;
+
+    private long lastSampleMillis = -1;
+    private long lastProcessedOps;
+    private long lastRefreshCount;
+    private long lastRefreshTimeNanos;
+    private long lastSearcherAccessMillis;
+    private long lastRefreshMillis;
+
+    private double indexingRate;
+    private double refreshCostNanos = Double.NaN;
+    private double searchGapMillis = Double.NaN;
+    private long intervalMillis;
+
+    /**
+     * Records a sample of the shard's activity and returns whether the scheduled refresh should run now.
+     *
+     * @param nowMillis                the current relative time in milliseconds
+     * @param processedOps             a monotonic count of the operations processed by the shard, e.g. its processed local checkpoint
+     * @param refreshCount             the total number of external refreshes of the shard, which include scheduled refreshes
+     * @param refreshTimeNanos         the total time spent on these refreshes
+     * @param searcherAccessMillis     the relative time of the last search or get on the shard
+     * @param minIntervalMillis        the configured refresh interval
+     * @param maxIntervalMillis        the upper bound of the adaptive refresh interval
+     */
+    synchronized boolean shouldRefresh(
+        long nowMillis,
+        long processedOps,
+        long refreshCount,
+        long refreshTimeNanos,
+        long searcherAccessMillis,
+        long minIntervalMillis,
+        long maxIntervalMillis
+    ) {
+        if (lastSampleMillis < 0) {
+            lastSampleMillis = nowMillis;
+            lastProcessedOps = processedOps;
+            lastRefreshCount = refreshCount;
+            lastRefreshTimeNanos = refreshTimeNanos;
+            lastSearcherAccessMillis = searcherAccessMillis;
+            intervalMillis = minIntervalMillis;
+            return refreshed(nowMillis);
+        }
+
+        final long elapsedMillis = nowMillis - lastSampleMillis;
+        if (elapsedMillis > 0) {
+            indexingRate = average(indexingRate, (processedOps - lastProcessedOps) * 1000.0 / elapsedMillis);
+        }
+        if (refreshCount > lastRefreshCount) {
+            final double costNanos = (double) (refreshTimeNanos - lastRefreshTimeNanos) / (refreshCount - lastRefreshCount);
+            refreshCostNanos = average(refreshCostNanos, costNanos);
+        }
+        if (searcherAccessMillis > lastSearcherAccessMillis) {
+            searchGapMillis = average(searchGapMillis, searcherAccessMillis - lastSearcherAccessMillis);
+        }
+        lastSampleMillis = nowMillis;
+        lastProcessedOps = processedOps;
+        lastRefreshCount = refreshCount;
+        lastRefreshTimeNanos = refreshTimeNanos;
+        lastSearcherAccessMillis = Math.max(lastSearcherAccessMillis, searcherAccessMillis);
+
+        intervalMillis = computeIntervalMillis(minIntervalMillis, maxIntervalMillis);
+        return nowMillis - lastRefreshMillis >= intervalMillis && refreshed(nowMillis);
+    }
+
+    private boolean refreshed(long nowMillis) {
+        lastRefreshMillis = nowMillis;
+        return true;
+    }
+
+    private long computeIntervalMillis(long minIntervalMillis, long maxIntervalMillis) {
+        if (indexingRate <= 0 || maxIntervalMillis <= minIntervalMillis) {
+            return minIntervalMillis;
+        }
+        // a shard that was never searched since sampling started is treated like a shard that is searched rarely
+        final double searchDriven = Double.isNaN(searchGapMillis) ? maxIntervalMillis : searchGapMillis;
+        final double costDriven = Double.isNaN(refreshCostNanos)
+            ? 0
+            : TimeUnit.NANOSECONDS.toMillis((long) refreshCostNanos) / MAX_REFRESH_COST_RATIO;
+        final long interval = (long) Math.max(searchDriven, costDriven);
+        return Math.max(minIntervalMillis, Math.min(maxIntervalMillis, interval));
+    }
+
+    private static double average(double current, double sample) {
+        return Double.isNaN(current) ? sample : ALPHA * sample + (1 - ALPHA) * current;
+    }
+
+    /**
+     * Returns the refresh interval that was picked on the last sample.
+     */
+    synchronized long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * Returns the moving average of the rate of operations per second that are processed by the shard.
+     */
+    synchronized double getIndexingRate() {
+        return indexingRate;
+    }
+}
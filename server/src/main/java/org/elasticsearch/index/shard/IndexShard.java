@@ -17,6 +17,7 @@ import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.FieldInfos;
 import org.apache.lucene.index.FilterDirectoryReader;
 import org.apache.lucene.index.IndexCommit;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SegmentInfos;
@@ -25,6 +26,7 @@ import org.apache.lucene.search.ReferenceManager;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.UsageTrackingQueryCachingPolicy;
 import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.SetOnce;
 import org.apache.lucene.util.ThreadInterruptedException;
 import org.elasticsearch.ElasticsearchException;
@@ -46,6 +48,7 @@ import org.elasticsearch.cluster.routing.RecoverySource.SnapshotRecoverySource;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.allocation.decider.DiskThresholdDecider;
 import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.io.DiskIoBufferPool;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
@@ -134,6 +137,7 @@ import org.elasticsearch.index.store.StoreStats;
 import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.index.translog.TranslogConfig;
 import org.elasticsearch.index.translog.TranslogStats;
+import org.elasticsearch.index.translog.TranslogSyncCoordinator;
 import org.elasticsearch.index.warmer.ShardIndexWarmerService;
 import org.elasticsearch.index.warmer.WarmerStats;
 import org.elasticsearch.indices.IndexingMemoryController;
@@ -228,6 +232,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     private final Engine.IndexCommitListener indexCommitListener;
     private FieldInfos fieldInfos;
     private volatile ShardFieldStats shardFieldStats;
+    private volatile CachedFieldValueStats cachedFieldValueStats;
 
     // sys prop to disable the field has value feature, defaults to true (enabled) if set to false (disabled) the
     // field caps always returns empty fields ignoring the value of the query param `field_caps_empty_fields_filter`.
@@ -255,6 +260,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     private final RecoveryStats recoveryStats = new RecoveryStats();
     private final MeanMetric refreshMetric = new MeanMetric();
     private final MeanMetric externalRefreshMetric = new MeanMetric();
+    private final AdaptiveRefreshController adaptiveRefreshController = new AdaptiveRefreshController();
     private final MeanMetric flushMetric = new MeanMetric();
     private final CounterMetric periodicFlushMetric = new CounterMetric();
 
@@ -326,7 +332,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         final IndexStorePlugin.SnapshotCommitSupplier snapshotCommitSupplier,
         final LongSupplier relativeTimeInNanosSupplier,
         final Engine.IndexCommitListener indexCommitListener,
-        final MapperMetrics mapperMetrics
+        final MapperMetrics mapperMetrics,
+        final TranslogSyncCoordinator translogSyncCoordinator
     ) throws IOException {
         super(shardRouting.shardId(), indexSettings);
         assert shardRouting.initializing();
@@ -369,7 +376,17 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         logger.debug("state: [CREATED]");
 
         this.checkIndexOnStartup = indexSettings.getValue(IndexSettings.INDEX_CHECK_ON_STARTUP);
-        this.translogConfig = new TranslogConfig(shardId, shardPath().resolveTranslog(), indexSettings, bigArrays);
+        this.translogConfig = new TranslogConfig(
+            shardId,
+            shardPath().resolveTranslog(),
+            indexSettings,
+            bigArrays,
+            TranslogConfig.DEFAULT_BUFFER_SIZE,
+            DiskIoBufferPool.INSTANCE,
+            TranslogConfig.NOOP_OPERATION_LISTENER,
+            true,
+            translogSyncCoordinator.groupFor(path.getRootDataPath())
+        );
         final String aId = shardRouting.allocationId().getId();
         final long primaryTerm = indexSettings.getIndexMetadata().primaryTerm(shardId.id());
         this.pendingPrimaryTerm = primaryTerm;
@@ -391,11 +408,15 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         shardCreationTime = threadPool.absoluteTimeInMillis();
 
         // the query cache is a node-level thing, however we want the most popular filters
-        // to be computed on a per-shard basis
+        // to be computed on a per-shard basis, optionally sharing them with the shards of indices that have the same mapping
         if (IndexModule.INDEX_QUERY_CACHE_EVERYTHING_SETTING.get(settings)) {
             cachingPolicy = TrivialQueryCachingPolicy.ALWAYS;
         } else {
-            cachingPolicy = new UsageTrackingQueryCachingPolicy();
+            QueryCachingPolicy sharedPolicy = null;
+            if (indexCache != null && mapperService != null) {
+                sharedPolicy = indexCache.query().newCachingPolicy(mapperService);
+            }
+            cachingPolicy = sharedPolicy == null ? new UsageTrackingQueryCachingPolicy() : sharedPolicy;
         }
         indexShardOperationPermits = new IndexShardOperationPermits(shardId, threadPool);
         readerWrapper = indexReaderWrapper;
@@ -443,6 +464,13 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return mapperService;
     }
 
+    /**
+     * Returns the policy that decides which filters of the searches on this shard are cached in the node query cache.
+     */
+    public QueryCachingPolicy getQueryCachingPolicy() {
+        return cachingPolicy;
+    }
+
     public SearchOperationListener getSearchOperationListener() {
         return this.searchOperationListener;
     }
@@ -916,6 +944,19 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return previousState;
     }
 
+    /**
+     * Resolves the current versions of the documents with the given ids in a single batch, ahead of the operations on these documents
+     * that are about to be applied on this primary. See {@link Engine#prefetchDocVersions(List)}.
+     */
+    public void prefetchDocVersions(List<String> ids) throws IOException {
+        assert shardRouting.primary() : "shard " + shardId + " is not a primary";
+        final List<BytesRef> uids = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            uids.add(Uid.encodeId(id));
+        }
+        getEngine().prefetchDocVersions(uids);
+    }
+
     public Engine.IndexResult applyIndexOperationOnPrimary(
         long version,
         VersionType versionType,
@@ -924,6 +965,33 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         long ifPrimaryTerm,
         long autoGeneratedTimestamp,
         boolean isRetry
+    ) throws IOException {
+        return applyIndexOperationOnPrimary(
+            version,
+            versionType,
+            sourceToParse,
+            null,
+            ifSeqNo,
+            ifPrimaryTerm,
+            autoGeneratedTimestamp,
+            isRetry
+        );
+    }
+
+    /**
+     * Same as {@link #applyIndexOperationOnPrimary(long, VersionType, SourceToParse, long, long, long, boolean)} but indexes the given
+     * document rather than parsing the source, unless it is {@code null}. The document must have been parsed from the given source
+     * with the current {@link MapperService#documentMapper()}.
+     */
+    public Engine.IndexResult applyIndexOperationOnPrimary(
+        long version,
+        VersionType versionType,
+        SourceToParse sourceToParse,
+        @Nullable ParsedDocument parsedDoc,
+        long ifSeqNo,
+        long ifPrimaryTerm,
+        long autoGeneratedTimestamp,
+        boolean isRetry
     ) throws IOException {
         assert versionType.validateVersionForWrites(version);
         return applyIndexOperation(
@@ -937,7 +1005,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             autoGeneratedTimestamp,
             isRetry,
             Engine.Operation.Origin.PRIMARY,
-            sourceToParse
+            sourceToParse,
+            parsedDoc
         );
     }
 
@@ -960,7 +1029,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             autoGeneratedTimeStamp,
             isRetry,
             Engine.Operation.Origin.REPLICA,
-            sourceToParse
+            sourceToParse,
+            null
         );
     }
 
@@ -975,7 +1045,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         long autoGeneratedTimeStamp,
         boolean isRetry,
         Engine.Operation.Origin origin,
-        SourceToParse sourceToParse
+        SourceToParse sourceToParse,
+        @Nullable ParsedDocument parsedDoc
     ) throws IOException {
         assert opPrimaryTerm <= getOperationPrimaryTerm()
             : "op term [ " + opPrimaryTerm + " ] > shard term [" + getOperationPrimaryTerm() + "]";
@@ -985,6 +1056,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             operation = prepareIndex(
                 mapperService,
                 sourceToParse,
+                parsedDoc,
                 seqNo,
                 opPrimaryTerm,
                 version,
@@ -1032,16 +1104,49 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         long ifSeqNo,
         long ifPrimaryTerm,
         long startTimeInNanos
+    ) {
+        return prepareIndex(
+            mapperService,
+            source,
+            null,
+            seqNo,
+            primaryTerm,
+            version,
+            versionType,
+            origin,
+            autoGeneratedIdTimestamp,
+            isRetry,
+            ifSeqNo,
+            ifPrimaryTerm,
+            startTimeInNanos
+        );
+    }
+
+    private static Engine.Index prepareIndex(
+        MapperService mapperService,
+        SourceToParse source,
+        @Nullable ParsedDocument parsedDoc,
+        long seqNo,
+        long primaryTerm,
+        long version,
+        VersionType versionType,
+        Engine.Operation.Origin origin,
+        long autoGeneratedIdTimestamp,
+        boolean isRetry,
+        long ifSeqNo,
+        long ifPrimaryTerm,
+        long startTimeInNanos
     ) {
         assert source.dynamicTemplates().isEmpty() || origin == Engine.Operation.Origin.PRIMARY
             : "dynamic_templates parameter can only be associated with primary operations";
         DocumentMapper documentMapper = mapperService.documentMapper();
         Mapping mapping = null;
         if (documentMapper == null) {
+            assert parsedDoc == null : "documents can only be parsed ahead with an existing mapping";
             documentMapper = DocumentMapper.createEmpty(mapperService);
             mapping = documentMapper.mapping();
         }
-        ParsedDocument doc = documentMapper.parse(source);
+        ParsedDocument doc = parsedDoc != null ? parsedDoc : documentMapper.parse(source);
         if (mapping != null) {
             // If we are indexing but there is no mapping we create one. This is to ensure that whenever at least a document is indexed
             // some mappings do exist. It covers for the case of indexing an empty doc (`{}`).
@@ -4034,6 +4139,15 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                     engine.maybePruneDeletes(); // try to prune the deletes in the engine if we accumulated some
                     setRefreshPending(engine);
                     l.onResponse(false);
+                } else if (listenerNeedsRefresh == false && indexSettings.isAdaptiveRefreshEnabled() && shouldDeferRefresh(engine)) {
+                    // like for search-idle shards the refresh is marked as pending, so the next search or get still sees the
+                    // operations that were indexed until now
+                    logger.trace(
+                        "scheduledRefresh: adaptive refresh interval [{}ms] not reached, skipping refresh",
+                        adaptiveRefreshController.getIntervalMillis()
+                    );
+                    setRefreshPending(engine);
+                    l.onResponse(false);
                 } else {
                     logger.trace("scheduledRefresh: refresh with source [schedule]");
                     engine.maybeRefresh("schedule", l.map(Engine.RefreshResult::refreshed));
@@ -4046,6 +4160,18 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         });
     }
 
+    private boolean shouldDeferRefresh(Engine engine) {
+        return adaptiveRefreshController.shouldRefresh(
+            threadPool.relativeTimeInMillis(),
+            engine.getProcessedLocalCheckpoint(),
+            externalRefreshMetric.count(),
+            externalRefreshMetric.sum(),
+            lastSearcherAccess.get(),
+            indexSettings.getRefreshInterval().millis(),
+            indexSettings.getAdaptiveRefreshMaxInterval().millis()
+        ) == false;
+    }
+
     /**
      * Returns true if this shards is search idle
      */
@@ -4065,7 +4191,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     }
 
     /**
-     * Returns true if this shard has some scheduled refresh that is pending because of search-idle.
+     * Returns true if this shard has some scheduled refresh that is pending because of search-idle or the adaptive refresh interval.
      */
     public final boolean hasRefreshPending() {
         return pendingRefreshLocation.get() != null;
@@ -4133,6 +4259,28 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return shardFieldStats;
     }
 
+    /**
+     * Returns the {@link ShardFieldValueStats} of the given searcher, which must have been acquired from this shard. The stats are
+     * computed lazily and cached until the shard is refreshed or its mapping changes, so that they don't slow down refreshes of
+     * shards that are never asked for them.
+     */
+    public ShardFieldValueStats getFieldValueStats(Engine.Searcher searcher) throws IOException {
+        final MappingLookup mappingLookup = mapperService.mappingLookup();
+        final IndexReader.CacheHelper cacheHelper = searcher.getIndexReader().getReaderCacheHelper();
+        if (cacheHelper == null) {
+            return ShardFieldValueStats.compute(mappingLookup, searcher.getIndexReader());
+        }
+        final CachedFieldValueStats cached = cachedFieldValueStats;
+        if (cached != null && cached.readerKey() == cacheHelper.getKey() && cached.mappingLookup() == mappingLookup) {
+            return cached.stats();
+        }
+        final ShardFieldValueStats stats = ShardFieldValueStats.compute(mappingLookup, searcher.getIndexReader());
+        cachedFieldValueStats = new CachedFieldValueStats(cacheHelper.getKey(), mappingLookup, stats);
+        return stats;
+    }
+
+    private record CachedFieldValueStats(IndexReader.CacheKey readerKey, MappingLookup mappingLookup, ShardFieldValueStats stats) {}
+
     private class RefreshShardFieldStatsListener implements ReferenceManager.RefreshListener {
         @Override
         public void beforeRefresh() {
@@ -4141,6 +4289,10 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
 
         @Override
         public void afterRefresh(boolean didRefresh) {
+            if (didRefresh) {
+                // a new reader is visible, whether because of new documents or a merge
+                cachedFieldValueStats = null;
+            }
             if (shardFieldStats == null || didRefresh) {
                 try (var searcher = getEngine().acquireSearcher("shard_field_stats", Engine.SearcherScope.INTERNAL)) {
                     int numSegments = 0;
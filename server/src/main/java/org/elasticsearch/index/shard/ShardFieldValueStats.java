@@ -0,0 +1,363 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.index.shard;
+
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.MultiTerms;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.lucene.BytesRefs;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.time.DateFormatter;
+import org.elasticsearch.common.time.DateMathParser;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.FieldMapper;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.Mapper;
+import org.elasticsearch.index.mapper.MappingLookup;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.index.query.QueryRewriteContext;
+
+import java.io.IOException;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compact per shard statistics about the values of indexed numeric, date and keyword fields: their min and max values, and the
+ * exact set of terms of low cardinality keyword fields. These stats are cheap to ship to the coordinating node, which can use them
+ * to skip shards for {@code term}, {@code range} and {@code exists} queries without sending a can_match request.
+ * The stats are derived from a point in time reader and must be recomputed whenever the shard is refreshed.
+ *
+ * @param numericFields min/max values of indexed numeric fields
+ * @param dateFields    min/max values of indexed date fields
+ * @param keywordFields min/max terms, and possibly all the terms, of indexed keyword fields
+ */
+public record ShardFieldValueStats(
+    Map<String, NumericRange> numericFields,
+    Map<String, DateRange> dateFields,
+    Map<String, TermRange> keywordFields
+) implements Writeable {
+
+    /**
+     * The maximum number of fields to collect stats for, fields are skipped beyond that.
+     */
+    static final int MAX_FIELDS = 256;
+    /**
+     * The maximum number of unique terms of a keyword field for the stats to keep all its terms.
+     */
+    static final int MAX_TERMS = 16;
+    /**
+     * Keyword fields whose min or max term is longer than this are skipped.
+     */
+    static final int MAX_TERM_LENGTH = 256;
+
+    public static final ShardFieldValueStats EMPTY = new ShardFieldValueStats(Map.of(), Map.of(), Map.of());
+
+    public ShardFieldValueStats(StreamInput in) throws IOException {
+        this(
+            in.readImmutableMap(NumericRange::new),
+            in.readImmutableMap(DateRange::new),
+            in.readImmutableMap(TermRange::new)
+        );
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeMap(numericFields, StreamOutput::writeWriteable);
+        out.writeMap(dateFields, StreamOutput::writeWriteable);
+        out.writeMap(keywordFields, StreamOutput::writeWriteable);
+    }
+
+    /**
+     * Returns {@code false} if the field is known to have no values in the shard.
+     */
+    public boolean mayHaveValues(String field) {
+        NumericRange numeric = numericFields.get(field);
+        if (numeric != null) {
+            return numeric.docCount() > 0;
+        }
+        DateRange date = dateFields.get(field);
+        if (date != null) {
+            return date.docCount() > 0;
+        }
+        TermRange keyword = keywordFields.get(field);
+        if (keyword != null) {
+            return keyword.docCount() > 0;
+        }
+        return true;
+    }
+
+    /**
+     * Returns {@code false} if the field is known not to contain the given value in the shard.
+     */
+    public boolean mayContainTerm(String field, Object value) {
+        if (mayHaveValues(field) == false) {
+            return false;
+        }
+        NumericRange numeric = numericFields.get(field);
+        if (numeric != null) {
+            double parsed = numeric.parse(value);
+            return Double.isNaN(parsed) || (parsed >= numeric.min() && parsed <= numeric.max());
+        }
+        TermRange keyword = keywordFields.get(field);
+        if (keyword != null) {
+            BytesRef term = BytesRefs.toBytesRef(value);
+            if (keyword.terms() != null) {
+                return keyword.terms().contains(term);
+            }
+            return term.compareTo(keyword.min()) >= 0 && term.compareTo(keyword.max()) <= 0;
+        }
+        return true;
+    }
+
+    /**
+     * Returns {@link MappedFieldType.Relation#DISJOINT} if the field is known to have no values within the given range in the shard,
+     * and {@link MappedFieldType.Relation#INTERSECTS} otherwise. The stats are not precise enough to tell that all documents are within
+     * the range so {@link MappedFieldType.Relation#WITHIN} is never returned.
+     */
+    public MappedFieldType.Relation rangeRelation(
+        String field,
+        Object from,
+        Object to,
+        boolean includeLower,
+        boolean includeUpper,
+        ZoneId timeZone,
+        @Nullable DateMathParser dateParser,
+        QueryRewriteContext context
+    ) {
+        if (mayHaveValues(field) == false) {
+            return MappedFieldType.Relation.DISJOINT;
+        }
+        // bounds are compared inclusively, which is conservative for exclusive bounds
+        NumericRange numeric = numericFields.get(field);
+        if (numeric != null) {
+            if ((from != null && numeric.max() < numeric.parse(from)) || (to != null && numeric.min() > numeric.parse(to))) {
+                return MappedFieldType.Relation.DISJOINT;
+            }
+            return MappedFieldType.Relation.INTERSECTS;
+        }
+        DateRange date = dateFields.get(field);
+        if (date != null) {
+            DateFieldMapper.DateFieldType fieldType = new DateFieldMapper.DateFieldType(
+                field,
+                date.resolution(),
+                DateFormatter.forPattern(date.format())
+            );
+            MappedFieldType.Relation relation = fieldType.isFieldWithinQuery(
+                date.min(),
+                date.max(),
+                from,
+                to,
+                includeLower,
+                includeUpper,
+                timeZone,
+                dateParser,
+                context
+            );
+            return relation == MappedFieldType.Relation.DISJOINT ? relation : MappedFieldType.Relation.INTERSECTS;
+        }
+        TermRange keyword = keywordFields.get(field);
+        if (keyword != null) {
+            BytesRef lower = from == null ? null : BytesRefs.toBytesRef(from);
+            BytesRef upper = to == null ? null : BytesRefs.toBytesRef(to);
+            if (keyword.terms() != null) {
+                for (BytesRef term : keyword.terms()) {
+                    if ((lower == null || term.compareTo(lower) >= 0) && (upper == null || term.compareTo(upper) <= 0)) {
+                        return MappedFieldType.Relation.INTERSECTS;
+                    }
+                }
+                return MappedFieldType.Relation.DISJOINT;
+            }
+            if ((lower != null && keyword.max().compareTo(lower) < 0) || (upper != null && keyword.min().compareTo(upper) > 0)) {
+                return MappedFieldType.Relation.DISJOINT;
+            }
+        }
+        return MappedFieldType.Relation.INTERSECTS;
+    }
+
+    /**
+     * Computes the stats of the fields of the given mapping from the given reader.
+     */
+    public static ShardFieldValueStats compute(MappingLookup mappingLookup, IndexReader reader) throws IOException {
+        final Map<String, NumericRange> numericFields = new HashMap<>();
+        final Map<String, DateRange> dateFields = new HashMap<>();
+        final Map<String, TermRange> keywordFields = new HashMap<>();
+        int numFields = 0;
+        for (Mapper mapper : mappingLookup.fieldMappers()) {
+            if (numFields >= MAX_FIELDS) {
+                break;
+            }
+            if (mapper instanceof FieldMapper == false) {
+                continue;
+            }
+            final MappedFieldType fieldType = ((FieldMapper) mapper).fieldType();
+            final String name = fieldType.name();
+            // skip fields that are shadowed by runtime fields, queries would not run against the indexed values
+            if (fieldType.isIndexed() == false || mappingLookup.getFieldType(name) != fieldType) {
+                continue;
+            }
+            if (fieldType instanceof NumberFieldMapper.NumberFieldType numberFieldType) {
+                NumberFieldMapper.NumberType type = numberType(numberFieldType);
+                if (type == null) {
+                    continue;
+                }
+                byte[] minPacked = PointValues.getMinPackedValue(reader, name);
+                if (minPacked == null) {
+                    numericFields.put(name, new NumericRange(type, 0, 0, 0));
+                } else {
+                    double min = numberFieldType.parsePoint(minPacked).doubleValue();
+                    double max = numberFieldType.parsePoint(PointValues.getMaxPackedValue(reader, name)).doubleValue();
+                    if (Double.isNaN(min) || Double.isNaN(max)) {
+                        continue;
+                    }
+                    numericFields.put(name, new NumericRange(type, PointValues.getDocCount(reader, name), min, max));
+                }
+            } else if (fieldType instanceof DateFieldMapper.DateFieldType dateFieldType) {
+                // the coordinating node only rebuilds the format, so skip fields that parse dates in a specific locale
+                if (Locale.ROOT.equals(dateFieldType.dateTimeFormatter().locale()) == false) {
+                    continue;
+                }
+                String format = dateFieldType.dateTimeFormatter().pattern();
+                byte[] minPacked = PointValues.getMinPackedValue(reader, name);
+                if (minPacked == null) {
+                    dateFields.put(name, new DateRange(dateFieldType.resolution(), format, 0, 0, 0));
+                } else {
+                    long min = LongPoint.decodeDimension(minPacked, 0);
+                    long max = LongPoint.decodeDimension(PointValues.getMaxPackedValue(reader, name), 0);
+                    int docCount = PointValues.getDocCount(reader, name);
+                    dateFields.put(name, new DateRange(dateFieldType.resolution(), format, docCount, min, max));
+                }
+            } else if (isPlainKeyword(fieldType)) {
+                Terms terms = MultiTerms.getTerms(reader, name);
+                if (terms == null) {
+                    keywordFields.put(name, new TermRange(0, new BytesRef(), new BytesRef(), List.of()));
+                } else {
+                    BytesRef min = terms.getMin();
+                    BytesRef max = terms.getMax();
+                    if (min == null || max == null || min.length > MAX_TERM_LENGTH || max.length > MAX_TERM_LENGTH) {
+                        continue;
+                    }
+                    int docCount = Math.max(1, terms.getDocCount());
+                    List<BytesRef> allTerms = collectTerms(terms);
+                    keywordFields.put(name, new TermRange(docCount, BytesRef.deepCopyOf(min), BytesRef.deepCopyOf(max), allTerms));
+                }
+            } else {
+                continue;
+            }
+            numFields++;
+        }
+        return new ShardFieldValueStats(Map.copyOf(numericFields), Map.copyOf(dateFields), Map.copyOf(keywordFields));
+    }
+
+    private static boolean isPlainKeyword(MappedFieldType fieldType) {
+        // normalized keywords would need the normalizer to compare query values with the indexed terms
+        return fieldType instanceof KeywordFieldMapper.KeywordFieldType
+            && fieldType.getTextSearchInfo().searchAnalyzer() == Lucene.KEYWORD_ANALYZER;
+    }
+
+    @Nullable
+    private static NumberFieldMapper.NumberType numberType(NumberFieldMapper.NumberFieldType fieldType) {
+        for (NumberFieldMapper.NumberType type : NumberFieldMapper.NumberType.values()) {
+            // half floats are rounded when indexed, which parsing the query value as a double wouldn't reflect
+            if (type != NumberFieldMapper.NumberType.HALF_FLOAT && type.typeName().equals(fieldType.typeName())) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private static List<BytesRef> collectTerms(Terms terms) throws IOException {
+        List<BytesRef> collected = new ArrayList<>();
+        TermsEnum termsEnum = terms.iterator();
+        for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
+            if (collected.size() == MAX_TERMS) {
+                return null;
+            }
+            collected.add(BytesRef.deepCopyOf(term));
+        }
+        return List.copyOf(collected);
+    }
+
+    /**
+     * Min/max values of a numeric field, as doubles.
+     */
+    public record NumericRange(NumberFieldMapper.NumberType type, int docCount, double min, double max) implements Writeable {
+
+        NumericRange(StreamInput in) throws IOException {
+            this(in.readEnum(NumberFieldMapper.NumberType.class), in.readVInt(), in.readDouble(), in.readDouble());
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeEnum(type);
+            out.writeVInt(docCount);
+            out.writeDouble(min);
+            out.writeDouble(max);
+        }
+
+        double parse(Object value) {
+            // floats are parsed with their own precision so that they compare equal to the indexed values
+            if (type == NumberFieldMapper.NumberType.FLOAT) {
+                return type.parse(value, true).doubleValue();
+            }
+            return NumberFieldMapper.NumberType.DOUBLE.parse(value, true).doubleValue();
+        }
+    }
+
+    /**
+     * Min/max values of a date field in the resolution of the field, along with the format of the field.
+     */
+    public record DateRange(DateFieldMapper.Resolution resolution, String format, int docCount, long min, long max) implements Writeable {
+
+        DateRange(StreamInput in) throws IOException {
+            this(DateFieldMapper.Resolution.ofOrdinal(in.readVInt()), in.readString(), in.readVInt(), in.readLong(), in.readLong());
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVInt(resolution.ordinal());
+            out.writeString(format);
+            out.writeVInt(docCount);
+            out.writeLong(min);
+            out.writeLong(max);
+        }
+    }
+
+    /**
+     * Min/max terms of a keyword field, along with all its terms if there are few of them.
+     */
+    public record TermRange(int docCount, BytesRef min, BytesRef max, @Nullable List<BytesRef> terms) implements Writeable {
+
+        TermRange(StreamInput in) throws IOException {
+            this(in.readVInt(), in.readBytesRef(), in.readBytesRef(), in.readOptionalCollectionAsList(StreamInput::readBytesRef));
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVInt(docCount);
+            out.writeBytesRef(min);
+            out.writeBytesRef(max);
+            out.writeOptionalCollection(terms, StreamOutput::writeBytesRef);
+        }
+    }
+}
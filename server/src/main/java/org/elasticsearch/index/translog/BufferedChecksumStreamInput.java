@@ -12,10 +12,13 @@ package org.elasticsearch.index.translog;
 import org.apache.lucene.store.BufferedChecksum;
 import org.elasticsearch.common.Numbers;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.ByteBufferStreamInput;
 import org.elasticsearch.common.io.stream.FilterStreamInput;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.core.Nullable;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.zip.CRC32;
 import java.util.zip.Checksum;
 
@@ -26,15 +29,40 @@ import java.util.zip.Checksum;
 public final class BufferedChecksumStreamInput extends FilterStreamInput {
     private static final int SKIP_BUFFER_SIZE = 1024;
     private byte[] skipBuffer;
+    private final CRC32 crc32;
     private final Checksum digest;
     private final String source;
+    // the buffer the delegate reads from, if known, which allows to checksum skipped ranges in bulk
+    @Nullable
+    private final ByteBuffer sourceBuffer;
 
     public BufferedChecksumStreamInput(StreamInput in, String source, BufferedChecksumStreamInput reuse) {
+        this(in, null, source, reuse);
+    }
+
+    /**
+     * Creates a checksummed stream that reads from the given buffer. Skipped bytes, like the body of an operation whose checksum
+     * is verified before it is deserialized, are fed to the checksum straight from the buffer rather than copied in small chunks,
+     * which uses the intrinsic CRC32 implementation for direct and memory mapped buffers.
+     */
+    public BufferedChecksumStreamInput(ByteBuffer buffer, String source, BufferedChecksumStreamInput reuse) {
+        this(new ByteBufferStreamInput(buffer), buffer, source, reuse);
+    }
+
+    private BufferedChecksumStreamInput(
+        StreamInput in,
+        @Nullable ByteBuffer sourceBuffer,
+        String source,
+        BufferedChecksumStreamInput reuse
+    ) {
         super(in);
         this.source = source;
+        this.sourceBuffer = sourceBuffer;
         if (reuse == null) {
-            this.digest = new BufferedChecksum(new CRC32());
+            this.crc32 = new CRC32();
+            this.digest = new BufferedChecksum(crc32);
         } else {
+            this.crc32 = reuse.crc32;
             this.digest = reuse.digest;
             digest.reset();
             this.skipBuffer = reuse.skipBuffer;
@@ -141,6 +169,15 @@ public final class BufferedChecksumStreamInput extends FilterStreamInput {
         if (numBytes < 0) {
             throw new IllegalArgumentException("numBytes must be >= 0, got " + numBytes);
         }
+        if (sourceBuffer != null && numBytes <= sourceBuffer.remaining()) {
+            final int length = (int) numBytes;
+            final int position = sourceBuffer.position();
+            // flushes the bytes that are buffered by the digest so that the checksum is updated in order
+            digest.getValue();
+            crc32.update(sourceBuffer.slice(position, length));
+            sourceBuffer.position(position + length);
+            return numBytes;
+        }
         if (skipBuffer == null) {
             skipBuffer = new byte[SKIP_BUFFER_SIZE];
         }
@@ -9,13 +9,16 @@
 
 package org.elasticsearch.index.translog;
 
+import org.elasticsearch.core.IOUtils;
 import org.elasticsearch.index.seqno.CountedBitSet;
 import org.elasticsearch.index.seqno.SequenceNumbers;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -71,7 +74,11 @@ final class MultiSnapshot implements Translog.Snapshot {
 
     @Override
     public void close() throws IOException {
-        onClose.close();
+        // unmap the generations before they may be deleted
+        final List<Closeable> toClose = new ArrayList<>(translogs.length + 1);
+        toClose.addAll(Arrays.asList(translogs));
+        toClose.add(onClose);
+        IOUtils.close(toClose);
     }
 
     static final class SeqNoSet {
@@ -21,6 +21,7 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.lucene.uid.Versions;
+import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.core.IOUtils;
 import org.elasticsearch.core.Nullable;
@@ -52,6 +53,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -125,6 +127,9 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
     private final LongConsumer persistedSequenceNumberConsumer;
     private final OperationListener operationListener;
     private final TranslogOperationAsserter operationAsserter;
+    private final CounterMetric groupSyncRequests = new CounterMetric();
+    private final CounterMetric groupSyncBatchedRequests = new CounterMetric();
+    private final CounterMetric groupSyncWaitTimeInNanos = new CounterMetric();
 
     /**
      * Creates a new Translog instance. This method will create a new transaction log unless the given {@link TranslogGeneration} is
@@ -714,12 +719,29 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
         readLock.lock();
         try {
             ensureOpen();
-            TranslogSnapshot[] snapshots = Stream.concat(readers.stream(), Stream.of(current))
-                .filter(reader -> reader.getCheckpoint().minSeqNo <= toSeqNo && fromSeqNo <= reader.getCheckpoint().maxEffectiveSeqNo())
-                .map(BaseTranslogReader::newSnapshot)
-                .toArray(TranslogSnapshot[]::new);
-            final Snapshot snapshot = newMultiSnapshot(snapshots);
-            return new SeqNoFilterSnapshot(snapshot, fromSeqNo, toSeqNo);
+            final boolean mmapSnapshots = indexSettings().isTranslogMmapSnapshots();
+            final List<TranslogSnapshot> snapshotList = new ArrayList<>(readers.size() + 1);
+            boolean success = false;
+            try {
+                for (TranslogReader reader : readers) {
+                    if (reader.getCheckpoint().minSeqNo <= toSeqNo && fromSeqNo <= reader.getCheckpoint().maxEffectiveSeqNo()) {
+                        // completed generations are immutable and can be mapped, the current one is still written to
+                        snapshotList.add(mmapSnapshots ? reader.newMappedSnapshot() : reader.newSnapshot());
+                    }
+                }
+                if (current.getCheckpoint().minSeqNo <= toSeqNo && fromSeqNo <= current.getCheckpoint().maxEffectiveSeqNo()) {
+                    snapshotList.add(current.newSnapshot());
+                }
+                TranslogSnapshot[] snapshots = snapshotList.toArray(TranslogSnapshot[]::new);
+                final Snapshot snapshot = newMultiSnapshot(snapshots);
+                success = true;
+                return new SeqNoFilterSnapshot(snapshot, fromSeqNo, toSeqNo);
+            } finally {
+                if (success == false) {
+                    // release the mappings of the snapshots that were already created
+                    IOUtils.closeWhileHandlingException(snapshotList);
+                }
+            }
         } finally {
             readLock.unlock();
         }
@@ -919,6 +941,18 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
         return false;
     }
 
+    /**
+     * Records that a sync request of this translog was served by a {@link TranslogSyncCoordinator} flush window.
+     *
+     * @param batchSize       the number of requests across all shards of the data path that were flushed in the same window
+     * @param waitTimeInNanos the time the request waited for its window to be flushed
+     */
+    public void onGroupSynced(int batchSize, long waitTimeInNanos) {
+        groupSyncRequests.inc();
+        groupSyncBatchedRequests.inc(batchSize);
+        groupSyncWaitTimeInNanos.inc(waitTimeInNanos);
+    }
+
     /**
      * Closes the translog if the current translog writer experienced a tragic exception.
      *
@@ -958,7 +992,11 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
                 sizeInBytes(),
                 totalOperationsByMinGen(uncommittedGen),
                 sizeInBytesByMinGen(uncommittedGen),
-                earliestLastModifiedAge()
+                earliestLastModifiedAge(),
+                config.getSyncGroup() != null,
+                groupSyncRequests.count(),
+                groupSyncBatchedRequests.count(),
+                TimeUnit.NANOSECONDS.toMillis(groupSyncWaitTimeInNanos.count())
             );
         } finally {
             readLock.unlock();
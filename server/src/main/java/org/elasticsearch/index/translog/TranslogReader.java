@@ -13,6 +13,8 @@ import org.apache.lucene.store.AlreadyClosedException;
 import org.elasticsearch.common.io.Channels;
 import org.elasticsearch.core.IOUtils;
 import org.elasticsearch.index.seqno.SequenceNumbers;
+import org.elasticsearch.nativeaccess.CloseableByteBuffer;
+import org.elasticsearch.nativeaccess.NativeAccess;
 
 import java.io.Closeable;
 import java.io.EOFException;
@@ -117,6 +119,23 @@ public class TranslogReader extends BaseTranslogReader implements Closeable {
         return checkpoint;
     }
 
+    /**
+     * Creates a snapshot that reads its operations from a read-only memory mapping of this immutable generation rather than through
+     * positional reads of the channel. Falls back to a regular snapshot for files that are too large to be mapped as a single buffer,
+     * or if the file can't be mapped such that it is unmapped on close. The mapping is released once the snapshot is closed.
+     */
+    TranslogSnapshot newMappedSnapshot() throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            return newSnapshot();
+        }
+        ensureOpen();
+        final CloseableByteBuffer mapping = NativeAccess.instance().mapReadOnly(channel, 0, length);
+        if (mapping == null) {
+            return newSnapshot();
+        }
+        return new TranslogSnapshot(this, length, mapping);
+    }
+
     /**
      * reads an operation at the given position into the given buffer.
      */
@@ -9,19 +9,28 @@
 package org.elasticsearch.index.translog;
 
 import org.elasticsearch.common.io.Channels;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.seqno.SequenceNumbers;
+import org.elasticsearch.nativeaccess.CloseableByteBuffer;
 
+import java.io.Closeable;
 import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 
-final class TranslogSnapshot extends BaseTranslogReader {
+final class TranslogSnapshot extends BaseTranslogReader implements Closeable {
 
     private final int totalOperations;
     private final Checkpoint checkpoint;
     protected final long length;
 
     private final ByteBuffer reusableBuffer;
+    // a read-only mapping of the translog file up to length, if operations are read from the mapping rather than the channel
+    @Nullable
+    private final CloseableByteBuffer mappedFile;
+    @Nullable
+    private final ByteBuffer mapping;
+    private boolean closed;
     private long position;
     private int skippedOperations;
     private int readOperations;
@@ -31,7 +40,19 @@ final class TranslogSnapshot extends BaseTranslogReader {
      * Create a snapshot of translog file channel.
      */
     TranslogSnapshot(final BaseTranslogReader reader, final long length) {
+        this(reader, length, null);
+    }
+
+    /**
+     * Create a snapshot of translog file channel that reads its operations from the given read-only mapping of the file, which must
+     * cover the file up to the given length. Operations are deserialized straight from slices of the mapping, which is released when
+     * the snapshot is closed.
+     */
+    TranslogSnapshot(final BaseTranslogReader reader, final long length, @Nullable final CloseableByteBuffer mappedFile) {
         super(reader.generation, reader.channel, reader.path, reader.header);
+        this.mappedFile = mappedFile;
+        this.mapping = mappedFile == null ? null : mappedFile.buffer();
+        assert mapping == null || mapping.capacity() >= length : "mapping [" + mapping + "] does not cover length [" + length + "]";
         this.length = length;
         this.totalOperations = reader.totalOperations();
         this.checkpoint = reader.getCheckpoint();
@@ -69,7 +90,12 @@ final class TranslogSnapshot extends BaseTranslogReader {
 
     private Translog.Operation readOperation() throws IOException {
         final int opSize = readSize(reusableBuffer, position);
-        reuse = checksummedStream(reusableBuffer, position, opSize, reuse);
+        if (mapping != null) {
+            // readSize verified that the operation lies within the mapping
+            reuse = new BufferedChecksumStreamInput(mapping.slice((int) position, opSize), path.toString(), reuse);
+        } else {
+            reuse = checksummedStream(reusableBuffer, position, opSize, reuse);
+        }
         Translog.Operation op = read(reuse);
         position += opSize;
         readOperations++;
@@ -80,6 +106,19 @@ final class TranslogSnapshot extends BaseTranslogReader {
         return length;
     }
 
+    /**
+     * Releases the mapping of the file, if operations are read from one. The snapshot must not be read anymore once closed.
+     */
+    @Override
+    public void close() {
+        if (closed == false) {
+            closed = true;
+            if (mappedFile != null) {
+                mappedFile.close();
+            }
+        }
+    }
+
     /**
      * reads an operation at the given position into the given buffer.
      */
@@ -111,7 +150,14 @@ final class TranslogSnapshot extends BaseTranslogReader {
                         + "]"
                 );
             }
-            Channels.readFromFileChannelWithEofException(channel, position, buffer);
+            if (mapping != null) {
+                if (position + buffer.remaining() > length) {
+                    throw new EOFException("read requested past EOF. pos [" + position + "] end: [" + length + "]");
+                }
+                buffer.put(mapping.slice((int) position, buffer.remaining()));
+            } else {
+                Channels.readFromFileChannelWithEofException(channel, position, buffer);
+            }
         } catch (EOFException e) {
             throw new TranslogCorruptedException(path.toString(), "translog truncated", e);
         }
@@ -132,6 +178,8 @@ final class TranslogSnapshot extends BaseTranslogReader {
             + generation
             + ", reusableBuffer="
             + reusableBuffer
+            + ", mapped="
+            + (mapping != null)
             + '}';
     }
 }
@@ -8,11 +8,13 @@
  */
 package org.elasticsearch.index.translog;
 
+import org.elasticsearch.TransportVersions;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.xcontent.ToXContentFragment;
 import org.elasticsearch.xcontent.XContentBuilder;
 
@@ -26,6 +28,10 @@ public class TranslogStats implements Writeable, ToXContentFragment {
     private long uncommittedSizeInBytes;
     private int uncommittedOperations;
     private long earliestLastModifiedAge;
+    private boolean groupSyncEnabled;
+    private long groupSyncRequests;
+    private long groupSyncBatchedRequests;
+    private long groupSyncWaitTimeInMillis;
 
     public TranslogStats() {}
 
@@ -35,6 +41,12 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         uncommittedOperations = in.readVInt();
         uncommittedSizeInBytes = in.readVLong();
         earliestLastModifiedAge = in.readVLong();
+        if (in.getTransportVersion().onOrAfter(TransportVersions.TRANSLOG_GROUP_SYNC_STATS)) {
+            groupSyncEnabled = in.readBoolean();
+            groupSyncRequests = in.readVLong();
+            groupSyncBatchedRequests = in.readVLong();
+            groupSyncWaitTimeInMillis = in.readVLong();
+        }
     }
 
     public TranslogStats(
@@ -43,6 +55,30 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         int uncommittedOperations,
         long uncommittedSizeInBytes,
         long earliestLastModifiedAge
+    ) {
+        this(
+            numberOfOperations,
+            translogSizeInBytes,
+            uncommittedOperations,
+            uncommittedSizeInBytes,
+            earliestLastModifiedAge,
+            false,
+            0,
+            0,
+            0
+        );
+    }
+
+    public TranslogStats(
+        int numberOfOperations,
+        long translogSizeInBytes,
+        int uncommittedOperations,
+        long uncommittedSizeInBytes,
+        long earliestLastModifiedAge,
+        boolean groupSyncEnabled,
+        long groupSyncRequests,
+        long groupSyncBatchedRequests,
+        long groupSyncWaitTimeInMillis
     ) {
         if (numberOfOperations < 0) {
             throw new IllegalArgumentException("numberOfOperations must be >= 0");
@@ -59,11 +95,24 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         if (earliestLastModifiedAge < 0) {
             throw new IllegalArgumentException("earliestLastModifiedAge must be >= 0");
         }
+        if (groupSyncRequests < 0) {
+            throw new IllegalArgumentException("groupSyncRequests must be >= 0");
+        }
+        if (groupSyncBatchedRequests < 0) {
+            throw new IllegalArgumentException("groupSyncBatchedRequests must be >= 0");
+        }
+        if (groupSyncWaitTimeInMillis < 0) {
+            throw new IllegalArgumentException("groupSyncWaitTimeInMillis must be >= 0");
+        }
         this.numberOfOperations = numberOfOperations;
         this.translogSizeInBytes = translogSizeInBytes;
         this.uncommittedSizeInBytes = uncommittedSizeInBytes;
         this.uncommittedOperations = uncommittedOperations;
         this.earliestLastModifiedAge = earliestLastModifiedAge;
+        this.groupSyncEnabled = groupSyncEnabled;
+        this.groupSyncRequests = groupSyncRequests;
+        this.groupSyncBatchedRequests = groupSyncBatchedRequests;
+        this.groupSyncWaitTimeInMillis = groupSyncWaitTimeInMillis;
     }
 
     public void add(TranslogStats translogStats) {
@@ -75,6 +124,10 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         this.translogSizeInBytes += translogStats.translogSizeInBytes;
         this.uncommittedOperations += translogStats.uncommittedOperations;
         this.uncommittedSizeInBytes += translogStats.uncommittedSizeInBytes;
+        this.groupSyncEnabled |= translogStats.groupSyncEnabled;
+        this.groupSyncRequests += translogStats.groupSyncRequests;
+        this.groupSyncBatchedRequests += translogStats.groupSyncBatchedRequests;
+        this.groupSyncWaitTimeInMillis += translogStats.groupSyncWaitTimeInMillis;
         if (this.earliestLastModifiedAge == 0) {
             this.earliestLastModifiedAge = translogStats.earliestLastModifiedAge;
         } else {
@@ -104,6 +157,26 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         return earliestLastModifiedAge;
     }
 
+    /** whether any of the translogs groups its syncs with other shards, see {@link TranslogSyncCoordinator} */
+    public boolean isGroupSyncEnabled() {
+        return groupSyncEnabled;
+    }
+
+    /** the number of sync requests that were served by a node level group sync, see {@link TranslogSyncCoordinator} */
+    public long getGroupSyncRequests() {
+        return groupSyncRequests;
+    }
+
+    /** the sum of the sizes of the group sync batches the sync requests were part of */
+    public long getGroupSyncBatchedRequests() {
+        return groupSyncBatchedRequests;
+    }
+
+    /** the total time sync requests waited for their group sync batch to be flushed */
+    public long getGroupSyncWaitTimeInMillis() {
+        return groupSyncWaitTimeInMillis;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject("translog");
@@ -112,6 +185,13 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         builder.field("uncommitted_operations", uncommittedOperations);
         builder.humanReadableField("uncommitted_size_in_bytes", "uncommitted_size", ByteSizeValue.ofBytes(uncommittedSizeInBytes));
         builder.field("earliest_last_modified_age", earliestLastModifiedAge);
+        if (groupSyncEnabled) {
+            builder.startObject("group_sync");
+            builder.field("requests", groupSyncRequests);
+            builder.field("batched_requests", groupSyncBatchedRequests);
+            builder.humanReadableField("wait_time_in_millis", "wait_time", new TimeValue(groupSyncWaitTimeInMillis));
+            builder.endObject();
+        }
         builder.endObject();
         return builder;
     }
@@ -128,6 +208,12 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         out.writeVInt(uncommittedOperations);
         out.writeVLong(uncommittedSizeInBytes);
         out.writeVLong(earliestLastModifiedAge);
+        if (out.getTransportVersion().onOrAfter(TransportVersions.TRANSLOG_GROUP_SYNC_STATS)) {
+            out.writeBoolean(groupSyncEnabled);
+            out.writeVLong(groupSyncRequests);
+            out.writeVLong(groupSyncBatchedRequests);
+            out.writeVLong(groupSyncWaitTimeInMillis);
+        }
     }
 
     @Override
@@ -139,7 +225,11 @@ public class TranslogStats implements Writeable, ToXContentFragment {
             && translogSizeInBytes == that.translogSizeInBytes
             && uncommittedOperations == that.uncommittedOperations
             && uncommittedSizeInBytes == that.uncommittedSizeInBytes
-            && earliestLastModifiedAge == that.earliestLastModifiedAge;
+            && earliestLastModifiedAge == that.earliestLastModifiedAge
+            && groupSyncEnabled == that.groupSyncEnabled
+            && groupSyncRequests == that.groupSyncRequests
+            && groupSyncBatchedRequests == that.groupSyncBatchedRequests
+            && groupSyncWaitTimeInMillis == that.groupSyncWaitTimeInMillis;
     }
 
     @Override
@@ -149,7 +239,11 @@ public class TranslogStats implements Writeable, ToXContentFragment {
             translogSizeInBytes,
             uncommittedOperations,
             uncommittedSizeInBytes,
-            earliestLastModifiedAge
+            earliestLastModifiedAge,
+            groupSyncEnabled,
+            groupSyncRequests,
+            groupSyncBatchedRequests,
+            groupSyncWaitTimeInMillis
         );
     }
 }
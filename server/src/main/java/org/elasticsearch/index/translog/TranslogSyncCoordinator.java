@@ -0,0 +1,354 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.index.translog;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.action.support.RefCountingRunnable;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.Releasables;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.seqno.SequenceNumbers;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Node level coordinator that groups translog syncs of all shards sharing a data path. Without it every shard fsyncs its translog as
+ * soon as a request asks for durability. With it, sync requests of all shards on a data path are collected into a flush window that
+ * is written out once it is {@link #LATENCY_BUDGET_SETTING} old, or as soon as it holds {@link #MAX_BATCH_SIZE_SETTING} requests,
+ * whichever comes first. Each window issues at most one sync per translog. The syncs of the shards in a window run in parallel on the
+ * {@link ThreadPool.Names#FLUSH} thread pool, never on the thread that submitted the request, and go through the
+ * {@link org.elasticsearch.common.util.concurrent.AsyncIOProcessor} of their shard so they are merged with any other sync of that
+ * shard. Requests keep being added to the window until it is drained, so nobody waits without the batch being able to grow.
+ */
+public class TranslogSyncCoordinator {
+
+    private static final Logger logger = LogManager.getLogger(TranslogSyncCoordinator.class);
+
+    public static final Setting<Boolean> ENABLED_SETTING = Setting.boolSetting(
+        "indices.translog.sync_coordinator.enabled",
+        false,
+        Setting.Property.NodeScope
+    );
+
+    public static final Setting<TimeValue> LATENCY_BUDGET_SETTING = Setting.timeSetting(
+        "indices.translog.sync_coordinator.latency_budget",
+        TimeValue.timeValueMillis(5),
+        TimeValue.ZERO,
+        TimeValue.timeValueSeconds(1),
+        Setting.Property.NodeScope
+    );
+
+    public static final Setting<Integer> MAX_BATCH_SIZE_SETTING = Setting.intSetting(
+        "indices.translog.sync_coordinator.max_batch_size",
+        1024,
+        1,
+        Setting.Property.NodeScope
+    );
+
+    /**
+     * A coordinator that never groups syncs, every shard syncs its own translog.
+     */
+    public static final TranslogSyncCoordinator DISABLED = new TranslogSyncCoordinator(false, TimeValue.ZERO, 1, null, System::nanoTime);
+
+    private final boolean enabled;
+    private final TimeValue latencyBudget;
+    private final int maxBatchSize;
+    private final ThreadPool threadPool;
+    private final LongSupplier relativeTimeInNanosSupplier;
+    private final Map<Path, Group> groups = ConcurrentCollections.newConcurrentMap();
+
+    public TranslogSyncCoordinator(Settings settings, ThreadPool threadPool) {
+        this(
+            ENABLED_SETTING.get(settings),
+            LATENCY_BUDGET_SETTING.get(settings),
+            MAX_BATCH_SIZE_SETTING.get(settings),
+            threadPool,
+            System::nanoTime
+        );
+    }
+
+    TranslogSyncCoordinator(
+        boolean enabled,
+        TimeValue latencyBudget,
+        int maxBatchSize,
+        ThreadPool threadPool,
+        LongSupplier relativeTimeInNanosSupplier
+    ) {
+        this.enabled = enabled;
+        this.latencyBudget = latencyBudget;
+        this.maxBatchSize = maxBatchSize;
+        this.threadPool = threadPool;
+        this.relativeTimeInNanosSupplier = relativeTimeInNanosSupplier;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the sync group shared by all shards on the given data path, or {@code null} if syncs are not coordinated on this node.
+     */
+    @Nullable
+    public Group groupFor(Path dataPath) {
+        if (enabled == false) {
+            return null;
+        }
+        return groups.computeIfAbsent(dataPath, Group::new);
+    }
+
+    /**
+     * A shard level translog that can be synced as part of a group.
+     */
+    public interface SyncTarget {
+
+        /**
+         * Ensures that the given location and global checkpoint are durable, see {@link Translog#ensureSynced(Translog.Location, long)},
+         * and notifies the listener once they are, or with the failure if the sync failed. Called on a
+         * {@link ThreadPool.Names#FLUSH} thread, concurrently with the syncs of other targets of the same window.
+         */
+        void ensureSynced(Translog.Location location, long globalCheckpoint, Consumer<Exception> listener);
+
+        /**
+         * Called for every request of this target once the flush window it was part of completed successfully.
+         *
+         * @param batchSize        the number of requests, across all shards of the data path, that were flushed together
+         * @param waitTimeInNanos  the time the request spent between being submitted and being synced
+         */
+        void onGroupSynced(int batchSize, long waitTimeInNanos);
+    }
+
+    /**
+     * Batches the sync requests of all shards on a single data path.
+     */
+    public final class Group {
+
+        private final Path dataPath;
+        // the requests of the open window and its generation, both guarded by this
+        private List<SyncRequest> window = new ArrayList<>();
+        private long windowGeneration;
+
+        private Group(Path dataPath) {
+            this.dataPath = dataPath;
+        }
+
+        public Path getDataPath() {
+            return dataPath;
+        }
+
+        /**
+         * Asynchronously ensures that the given location and global checkpoint of the given target are synced. The listener is
+         * notified once the flush window this request was added to has been written out.
+         */
+        public void ensureSynced(SyncTarget target, Translog.Location location, long globalCheckpoint, Consumer<Exception> listener) {
+            final SyncRequest request = new SyncRequest(
+                target,
+                location,
+                globalCheckpoint,
+                relativeTimeInNanosSupplier.getAsLong(),
+                preserveContext(listener)
+            );
+            final List<SyncRequest> full;
+            final long generationToSchedule;
+            synchronized (this) {
+                window.add(request);
+                if (latencyBudget.nanos() <= 0L || window.size() >= maxBatchSize) {
+                    full = drainWindow();
+                    generationToSchedule = -1;
+                } else {
+                    full = null;
+                    // the first request of a window starts its clock
+                    generationToSchedule = window.size() == 1 ? windowGeneration : -1;
+                }
+            }
+            if (full != null) {
+                flush(full);
+            } else if (generationToSchedule >= 0) {
+                scheduleFlush(generationToSchedule);
+            }
+        }
+
+        private void scheduleFlush(long generation) {
+            final AbstractRunnable flushWindow = new AbstractRunnable() {
+                @Override
+                protected void doRun() {
+                    flushWindow(generation, null);
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    flushWindow(generation, e);
+                }
+            };
+            try {
+                threadPool.schedule(flushWindow, latencyBudget, threadPool.executor(ThreadPool.Names.FLUSH));
+            } catch (Exception e) {
+                flushWindow.onFailure(e);
+            }
+        }
+
+        /**
+         * Flushes the window with the given generation, unless it was already flushed because it was full.
+         */
+        private void flushWindow(long generation, @Nullable Exception failure) {
+            final List<SyncRequest> requests;
+            synchronized (this) {
+                if (generation != windowGeneration) {
+                    return;
+                }
+                requests = drainWindow();
+            }
+            if (failure == null) {
+                flush(requests);
+            } else {
+                logger.debug(() -> "failed to schedule translog sync on data path [" + dataPath + "]", failure);
+                requests.forEach(r -> r.failure = failure);
+                notifyListeners(requests);
+            }
+        }
+
+        private List<SyncRequest> drainWindow() {
+            assert Thread.holdsLock(this);
+            final List<SyncRequest> requests = window;
+            window = new ArrayList<>();
+            windowGeneration++;
+            return requests;
+        }
+
+        /**
+         * Syncs every shard of the window on its own {@link ThreadPool.Names#FLUSH} thread and notifies the listeners of the window once
+         * all of them are done.
+         */
+        private void flush(List<SyncRequest> requests) {
+            final Map<SyncTarget, PendingSync> pendingSyncs = new IdentityHashMap<>();
+            for (SyncRequest request : requests) {
+                pendingSyncs.computeIfAbsent(request.target, t -> new PendingSync()).add(request);
+            }
+            final Executor executor = threadPool.executor(ThreadPool.Names.FLUSH);
+            try (RefCountingRunnable refs = new RefCountingRunnable(() -> onFlushed(requests))) {
+                for (Map.Entry<SyncTarget, PendingSync> entry : pendingSyncs.entrySet()) {
+                    final SyncTarget target = entry.getKey();
+                    final PendingSync pendingSync = entry.getValue();
+                    final Releasable ref = Releasables.releaseOnce(refs.acquire());
+                    executor.execute(new AbstractRunnable() {
+                        @Override
+                        protected void doRun() {
+                            target.ensureSynced(pendingSync.location, pendingSync.globalCheckpoint, e -> {
+                                if (e != null) {
+                                    onFailure(e);
+                                }
+                                ref.close();
+                            });
+                        }
+
+                        @Override
+                        public void onFailure(Exception e) {
+                            // only fail the requests of the shard whose sync failed, the other shards of this window are not affected
+                            logger.debug(() -> "failed to sync translog on data path [" + dataPath + "]", e);
+                            pendingSync.requests.forEach(r -> r.failure = e);
+                            ref.close();
+                        }
+                    });
+                }
+            }
+        }
+
+        private void onFlushed(List<SyncRequest> requests) {
+            final long now = relativeTimeInNanosSupplier.getAsLong();
+            for (SyncRequest request : requests) {
+                if (request.failure == null) {
+                    request.target.onGroupSynced(requests.size(), Math.max(0L, now - request.submittedNanos));
+                }
+            }
+            notifyListeners(requests);
+        }
+
+        private void notifyListeners(List<SyncRequest> requests) {
+            for (SyncRequest request : requests) {
+                try {
+                    request.listener.accept(request.failure);
+                } catch (Exception e) {
+                    logger.warn("failed to notify callback", e);
+                }
+            }
+        }
+    }
+
+    private Consumer<Exception> preserveContext(Consumer<Exception> listener) {
+        if (threadPool == null) {
+            return listener;
+        }
+        final Supplier<ThreadContext.StoredContext> restorableContext = threadPool.getThreadContext().newRestorableContext(false);
+        return e -> {
+            try (ThreadContext.StoredContext ignore = restorableContext.get()) {
+                listener.accept(e);
+            }
+        };
+    }
+
+    /**
+     * A single sync request as submitted by a shard.
+     */
+    private static final class SyncRequest {
+        private final SyncTarget target;
+        private final Translog.Location location;
+        private final long globalCheckpoint;
+        private final long submittedNanos;
+        private final Consumer<Exception> listener;
+        // only written by the thread that syncs the target of this request, and read once all targets of the window are synced
+        private Exception failure;
+
+        private SyncRequest(
+            SyncTarget target,
+            Translog.Location location,
+            long globalCheckpoint,
+            long submittedNanos,
+            Consumer<Exception> listener
+        ) {
+            this.target = target;
+            this.location = location;
+            this.globalCheckpoint = globalCheckpoint;
+            this.submittedNanos = submittedNanos;
+            this.listener = listener;
+        }
+    }
+
+    /**
+     * The merged sync requests of a single shard within a flush window.
+     */
+    private static final class PendingSync {
+        private final List<SyncRequest> requests = new ArrayList<>();
+        private Translog.Location location = Translog.Location.EMPTY;
+        private long globalCheckpoint = SequenceNumbers.UNASSIGNED_SEQ_NO;
+
+        void add(SyncRequest request) {
+            requests.add(request);
+            if (request.globalCheckpoint != SequenceNumbers.UNASSIGNED_SEQ_NO) {
+                globalCheckpoint = SequenceNumbers.max(globalCheckpoint, request.globalCheckpoint);
+            }
+            location = location.compareTo(request.location) >= 0 ? location : request.location;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.indices;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.xcontent.ToXContentFragment;
+import org.elasticsearch.xcontent.XContentBuilder;
+
+import java.io.IOException;
+
+/**
+ * Statistics about the indexing buffers that {@link IndexingMemoryController} writes to disk to stay within the node's indexing buffer.
+ *
+ * @param queue                the number of shards whose indexing buffer is waiting to be written
+ * @param active               the number of indexing buffer writes that are running or waiting for disk bandwidth
+ * @param total                the total number of indexing buffer writes that completed in the background
+ * @param throttleTimeInMillis the total time indexing buffer writes were delayed to stay within the configured disk bandwidth
+ */
+public record IndexingBufferWriteStats(int queue, int active, long total, long throttleTimeInMillis)
+    implements
+        Writeable,
+        ToXContentFragment {
+
+    public IndexingBufferWriteStats(StreamInput in) throws IOException {
+        this(in.readVInt(), in.readVInt(), in.readVLong(), in.readVLong());
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVInt(queue);
+        out.writeVInt(active);
+        out.writeVLong(total);
+        out.writeVLong(throttleTimeInMillis);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject("indexing_buffer_writes");
+        builder.field("queue", queue);
+        builder.field("active", active);
+        builder.field("total", total);
+        builder.humanReadableField("throttle_time_in_millis", "throttle_time", TimeValue.timeValueMillis(throttleTimeInMillis));
+        return builder.endObject();
+    }
+}
@@ -17,8 +17,10 @@ import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.shard.IndexShard;
@@ -38,6 +40,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -87,6 +91,23 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
         Property.NodeScope
     );
 
+    /** How many indexing buffers may be written concurrently in the background. With the default of {@code 0} indexing buffers are
+     * written by the indexing threads themselves. */
+    public static final Setting<Integer> MAX_CONCURRENT_BUFFER_WRITES_SETTING = Setting.intSetting(
+        "indices.memory.max_concurrent_buffer_writes",
+        0,
+        0,
+        Property.NodeScope
+    );
+
+    /** Only applies when <code>indices.memory.max_concurrent_buffer_writes</code> is positive, the disk bandwidth that background
+     * indexing buffer writes may use across all shards of this node (default: 0, unlimited). */
+    public static final Setting<ByteSizeValue> BUFFER_WRITE_MAX_BYTES_PER_SEC_SETTING = Setting.byteSizeSetting(
+        "indices.memory.buffer_write_max_bytes_per_sec",
+        ByteSizeValue.ZERO,
+        Property.NodeScope
+    );
+
     private final ThreadPool threadPool;
 
     private final Iterable<IndexShard> indexShards;
@@ -109,6 +130,9 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
 
     private final ShardsIndicesStatusChecker statusChecker;
 
+    @Nullable
+    private final IndexingBufferWriteScheduler writeScheduler;
+
     private final Set<IndexShard> pendingWriteIndexingBufferSet = ConcurrentCollections.newConcurrentSet();
     private final Deque<IndexShard> pendingWriteIndexingBufferQueue = new ConcurrentLinkedDeque<>();
 
@@ -137,6 +161,10 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
         this.interval = SHARD_MEMORY_INTERVAL_TIME_SETTING.get(settings);
 
         this.statusChecker = new ShardsIndicesStatusChecker();
+        final int maxConcurrentWrites = MAX_CONCURRENT_BUFFER_WRITES_SETTING.get(settings);
+        this.writeScheduler = maxConcurrentWrites > 0
+            ? new IndexingBufferWriteScheduler(maxConcurrentWrites, BUFFER_WRITE_MAX_BYTES_PER_SEC_SETTING.get(settings).getBytes())
+            : null;
 
         logger.debug(
             "using indexing buffer size [{}] with {} [{}], {} [{}]",
@@ -170,6 +198,16 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
         return indexingBuffer;
     }
 
+    /**
+     * returns statistics about the indexing buffers that are written to disk
+     */
+    public IndexingBufferWriteStats stats() {
+        if (writeScheduler == null) {
+            return new IndexingBufferWriteStats(pendingWriteIndexingBufferQueue.size(), 0, 0, 0);
+        }
+        return writeScheduler.stats();
+    }
+
     protected List<IndexShard> availableShards() {
         List<IndexShard> availableShards = new ArrayList<>();
         for (IndexShard shard : indexShards) {
@@ -216,6 +254,10 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
     }
 
     private void writePendingIndexingBuffersAsync() {
+        if (writeScheduler != null) {
+            writeScheduler.maybeStartWrites();
+            return;
+        }
         for (IndexShard shard = pendingWriteIndexingBufferQueue.pollFirst(); shard != null; shard = pendingWriteIndexingBufferQueue
             .pollFirst()) {
             final IndexShard finalShard = shard;
@@ -254,6 +296,11 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
 
     private void postOperation(ShardId shardId, Engine.Operation operation, Engine.Result result) {
         recordOperationBytes(operation, result);
+        if (writeScheduler != null) {
+            // indexing buffers are written in the background, indexing threads only get throttled if writes can't keep up
+            writeScheduler.maybeStartWrites();
+            return;
+        }
         // Piggy back on indexing threads to write segments. We're not submitting a task to the index threadpool because we want memory to
         // be reclaimed rapidly. This has the downside of increasing the latency of _bulk requests though. Lucene does the same thing in
         // DocumentsWriter#postUpdate, flushing a segment because the size limit on the RAM buffer was reached happens on the call to
@@ -348,6 +395,9 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
             } finally {
                 runLock.unlock();
             }
+            if (writeScheduler != null) {
+                writeScheduler.maybeStartWrites();
+            }
         }
 
         private void runUnlocked() {
@@ -505,6 +555,118 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
         }
     }
 
+    /**
+     * Writes queued indexing buffers on the refresh thread pool, several shards at a time, so that a single large indexing buffer does not
+     * stall indexing into other shards. Writes are started no faster than the configured disk bandwidth allows, based on the size of the
+     * indexing buffer that is about to be written: a write that would exceed the bandwidth is delayed until enough bandwidth is available
+     * again, and the delay is accounted as throttle time.
+     */
+    final class IndexingBufferWriteScheduler {
+
+        private final int maxConcurrentWrites;
+        private final long maxBytesPerSec;
+        // writes that are running or waiting for disk bandwidth
+        private final AtomicInteger activeWrites = new AtomicInteger();
+        private final AtomicLong completedWrites = new AtomicLong();
+        private final AtomicLong throttleTimeNanos = new AtomicLong();
+        // the relative time at which the disk bandwidth that was handed out so far is used up
+        private long bandwidthFreeAtNanos;
+
+        IndexingBufferWriteScheduler(int maxConcurrentWrites, long maxBytesPerSec) {
+            assert maxConcurrentWrites > 0 : maxConcurrentWrites;
+            this.maxConcurrentWrites = maxConcurrentWrites;
+            this.maxBytesPerSec = maxBytesPerSec;
+            this.bandwidthFreeAtNanos = System.nanoTime();
+        }
+
+        /** Starts writing queued indexing buffers as long as fewer than the maximum number of writes are active. */
+        void maybeStartWrites() {
+            while (pendingWriteIndexingBufferQueue.isEmpty() == false) {
+                final int active = activeWrites.get();
+                if (active >= maxConcurrentWrites) {
+                    return;
+                }
+                if (activeWrites.compareAndSet(active, active + 1) == false) {
+                    continue;
+                }
+                final IndexShard shard = pendingWriteIndexingBufferQueue.pollFirst();
+                if (shard == null) {
+                    // another thread took the last queued shard, re-check the queue
+                    activeWrites.decrementAndGet();
+                    continue;
+                }
+                startWrite(shard);
+            }
+        }
+
+        private void startWrite(IndexShard shard) {
+            final long bytes = Math.max(0L, getIndexBufferRAMBytesUsed(shard) - getShardWritingBytes(shard));
+            final long delayNanos = reserveBandwidth(bytes);
+            final AbstractRunnable write = new AbstractRunnable() {
+                @Override
+                protected void doRun() {
+                    // Remove the shard from the set first, so that the shard can be queued again while its buffer is written.
+                    pendingWriteIndexingBufferSet.remove(shard);
+                    shard.writeIndexingBuffer();
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    logger.warn(() -> "failed to write indexing buffer for shard [" + shard.shardId() + "]", e);
+                }
+
+                @Override
+                public void onRejection(Exception e) {
+                    // doRun won't run, let the shard be queued again
+                    pendingWriteIndexingBufferSet.remove(shard);
+                    super.onRejection(e);
+                }
+
+                @Override
+                public void onAfter() {
+                    // The shard must not be removed from the set here, it may have been queued again while its buffer was written.
+                    completedWrites.incrementAndGet();
+                    activeWrites.decrementAndGet();
+                    maybeStartWrites();
+                }
+            };
+            if (delayNanos > 0) {
+                logger.trace(
+                    "delaying write of [{}] indexing buffer of shard [{}] by [{}] to stay within {} [{}/s]",
+                    ByteSizeValue.ofBytes(bytes),
+                    shard.shardId(),
+                    TimeValue.timeValueNanos(delayNanos),
+                    BUFFER_WRITE_MAX_BYTES_PER_SEC_SETTING.getKey(),
+                    ByteSizeValue.ofBytes(maxBytesPerSec)
+                );
+                throttleTimeNanos.addAndGet(delayNanos);
+                threadPool.schedule(write, TimeValue.timeValueNanos(delayNanos), threadPool.executor(ThreadPool.Names.REFRESH));
+            } else {
+                threadPool.executor(ThreadPool.Names.REFRESH).execute(write);
+            }
+        }
+
+        /** Hands out disk bandwidth for writing the given number of bytes and returns how long the write must wait for it. */
+        private synchronized long reserveBandwidth(long bytes) {
+            if (maxBytesPerSec <= 0) {
+                return 0L;
+            }
+            final long now = System.nanoTime();
+            final long start = bandwidthFreeAtNanos - now > 0 ? bandwidthFreeAtNanos : now;
+            bandwidthFreeAtNanos = start + (long) ((double) bytes / maxBytesPerSec * TimeUnit.SECONDS.toNanos(1));
+            return start - now;
+        }
+
+        IndexingBufferWriteStats stats() {
+            return new IndexingBufferWriteStats(
+                pendingWriteIndexingBufferQueue.size(),
+                activeWrites.get(),
+                completedWrites.get(),
+                TimeUnit.NANOSECONDS.toMillis(throttleTimeNanos.get())
+            );
+        }
+    }
+
     /**
      * ask this shard to check now whether it is inactive, and reduces its indexing buffer if so.
      */
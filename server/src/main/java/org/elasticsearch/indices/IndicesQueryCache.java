@@ -12,13 +12,22 @@ package org.elasticsearch.indices;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.BulkScorer;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Explanation;
 import org.apache.lucene.search.LRUQueryCache;
+import org.apache.lucene.search.LeafCollector;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.QueryCache;
 import org.apache.lucene.search.QueryCachingPolicy;
+import org.apache.lucene.search.Scorable;
 import org.apache.lucene.search.ScorerSupplier;
 import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.BitDocIdSet;
+import org.apache.lucene.util.FixedBitSet;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.compress.CompressedXContent;
 import org.elasticsearch.common.lucene.ShardCoreKeyMap;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
@@ -27,7 +36,10 @@ import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Predicates;
 import org.elasticsearch.index.cache.query.QueryCacheStats;
+import org.elasticsearch.index.mapper.DocumentMapper;
+import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.lucene.util.HybridRoaringDocIdSet;
 
 import java.io.Closeable;
 import java.io.IOException;
@@ -36,7 +48,10 @@ import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 public class IndicesQueryCache implements QueryCache, Closeable {
 
@@ -61,8 +76,24 @@ public class IndicesQueryCache implements QueryCache, Closeable {
         false,
         Property.NodeScope
     );
+    // whether shards share the filters they find worth caching with the shards of indices that have the same mapping
+    public static final Setting<Boolean> INDICES_QUERIES_CACHE_SHARED_POLICY_SETTING = Setting.boolSetting(
+        "indices.queries.cache.shared_policy",
+        false,
+        Property.NodeScope
+    );
+    // the maximum number of distinct mappings whose hot filters are tracked
+    static final int MAX_SHARED_POLICY_MAPPINGS = 1000;
+    // the hot filters of all mappings may retain at most this fraction of the query cache size
+    static final double MAX_SHARED_POLICY_MEMORY_RATIO = 0.01;
+    // how many times smaller than a bitset a dense cached filter must be to be encoded with runs instead
+    static final int MIN_COMPRESSION_RATIO = 2;
 
     private final LRUQueryCache cache;
+    @Nullable
+    private final Cache<String, SharedQueryCachingPolicy.HotFilters> hotFiltersByMapping;
+    private final AtomicLong hotFiltersRamBytesUsed = new AtomicLong();
+    private final long maxHotFiltersRamBytes;
     private final ShardCoreKeyMap shardKeyMap = new ShardCoreKeyMap();
     private final Map<ShardId, Stats> shardStats = new ConcurrentHashMap<>();
     private volatile long sharedRamBytesUsed;
@@ -82,9 +113,45 @@ public class IndicesQueryCache implements QueryCache, Closeable {
         } else {
             cache = new ElasticsearchLRUQueryCache(count, size.getBytes());
         }
+        if (INDICES_QUERIES_CACHE_SHARED_POLICY_SETTING.get(settings)) {
+            hotFiltersByMapping = CacheBuilder.<String, SharedQueryCachingPolicy.HotFilters>builder()
+                .setMaximumWeight(MAX_SHARED_POLICY_MAPPINGS)
+                .removalListener(notification -> notification.getValue().close())
+                .build();
+        } else {
+            hotFiltersByMapping = null;
+        }
+        maxHotFiltersRamBytes = (long) (size.getBytes() * MAX_SHARED_POLICY_MEMORY_RATIO);
         sharedRamBytesUsed = 0;
     }
 
+    /**
+     * Returns a new caching policy for a shard with the given mapper service, or {@code null} if shards should only rely on the
+     * usage of their own filters to decide what to cache.
+     */
+    @Nullable
+    public QueryCachingPolicy newCachingPolicy(MapperService mapperService) {
+        if (hotFiltersByMapping == null) {
+            return null;
+        }
+        final Supplier<CompressedXContent> mappingSource = () -> {
+            DocumentMapper documentMapper = mapperService.documentMapper();
+            return documentMapper == null ? null : documentMapper.mappingSource();
+        };
+        return new SharedQueryCachingPolicy(this, mappingSource, this::getHotFilters, System::nanoTime);
+    }
+
+    private SharedQueryCachingPolicy.HotFilters getHotFilters(String mappingHash) {
+        try {
+            return hotFiltersByMapping.computeIfAbsent(
+                mappingHash,
+                k -> new SharedQueryCachingPolicy.HotFilters(hotFiltersRamBytesUsed, maxHotFiltersRamBytes)
+            );
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("failed to create hot filters for mapping [" + mappingHash + "]", e);
+        }
+    }
+
     private static QueryCacheStats toQueryCacheStatsSafe(@Nullable Stats stats) {
         return stats == null ? new QueryCacheStats() : stats.toQueryCacheStats();
     }
@@ -209,6 +276,16 @@ public class IndicesQueryCache implements QueryCache, Closeable {
         // we only know that there are no more doc id sets, but we still track
         // recently used queries, which we want to reclaim.
         cache.clear();
+        if (hotFiltersByMapping != null) {
+            hotFiltersByMapping.invalidateAll();
+        }
+    }
+
+    /**
+     * Returns the memory retained by the filters that shards share with the shards that have the same mapping.
+     */
+    long getHotFiltersRamBytesUsed() {
+        return hotFiltersRamBytesUsed.get();
     }
 
     private static class Stats implements Cloneable {
@@ -283,6 +360,35 @@ public class IndicesQueryCache implements QueryCache, Closeable {
             super(maxSize, maxRamBytesUsed);
         }
 
+        /**
+         * Lucene caches sparse sets as roaring doc id sets and dense sets as bitsets over the whole segment. Dense sets whose
+         * documents are clustered, which is common when filtering on fields that correlate with the index sort or the insertion
+         * order, are encoded with runs instead when this makes them at least {@link #MIN_COMPRESSION_RATIO} times smaller: bitsets
+         * are faster to intersect thanks to random access, so they are only replaced when the memory savings are significant.
+         */
+        @Override
+        protected CacheAndCount cacheImpl(BulkScorer scorer, int maxDoc) throws IOException {
+            if (scorer.cost() * 100 < maxDoc) {
+                return super.cacheImpl(scorer, maxDoc);
+            }
+            final FixedBitSet bitSet = new FixedBitSet(maxDoc);
+            final int[] count = new int[1];
+            scorer.score(new LeafCollector() {
+                @Override
+                public void setScorer(Scorable scorer) {}
+
+                @Override
+                public void collect(int doc) {
+                    count[0]++;
+                    bitSet.set(doc);
+                }
+            }, null, 0, DocIdSetIterator.NO_MORE_DOCS);
+            if (HybridRoaringDocIdSet.estimateRamBytesUsed(bitSet) * MIN_COMPRESSION_RATIO <= bitSet.ramBytesUsed()) {
+                return new CacheAndCount(HybridRoaringDocIdSet.build(bitSet), count[0]);
+            }
+            return new CacheAndCount(new BitDocIdSet(bitSet, count[0]), count[0]);
+        }
+
         private Stats getStats(Object coreKey) {
             final ShardId shardId = shardKeyMap.getShardId(coreKey);
             if (shardId == null) {
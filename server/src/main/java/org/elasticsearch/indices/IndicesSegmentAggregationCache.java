@@ -0,0 +1,169 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.mapper.MappingLookup;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.SearchContextAggregations;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A cache of the partial aggregation results of single segments, keyed by the segment's reader cache key and the same request key as
+ * the {@link IndicesRequestCache}. While the request cache is invalidated by every refresh that changes the shard, the results of the
+ * segments that did not change across refreshes can still be reused, so that aggregations over an index that keeps growing only need
+ * to collect its new segments. Entries of a segment are removed once its reader is closed, e.g. because the segment was merged away or
+ * got new deletes.
+ * <p>
+ * The cache is only used for requests that can be cached by the request cache, on indices that opt in with
+ * {@link #INDEX_CACHE_SEGMENT_AGGREGATIONS_ENABLED_SETTING}.
+ */
+public final class IndicesSegmentAggregationCache implements Closeable {
+
+    /**
+     * A setting to enable caching the aggregation results of single segments on an index level.
+     */
+    public static final Setting<Boolean> INDEX_CACHE_SEGMENT_AGGREGATIONS_ENABLED_SETTING = Setting.boolSetting(
+        "index.requests.cache.segment_aggregations.enable",
+        false,
+        Property.Dynamic,
+        Property.IndexScope
+    );
+    public static final Setting<ByteSizeValue> INDICES_CACHE_SEGMENT_AGGREGATIONS_SIZE = Setting.memorySizeSetting(
+        "indices.requests.cache.segment_aggregations.size",
+        "1%",
+        Property.NodeScope
+    );
+
+    private final NamedWriteableRegistry namedWriteableRegistry;
+    private final Set<IndexReader.CacheKey> registeredClosedListeners = ConcurrentCollections.newConcurrentSet();
+    private final Set<IndexReader.CacheKey> keysToClean = ConcurrentCollections.newConcurrentSet();
+    private final Cache<Key, BytesReference> cache;
+
+    IndicesSegmentAggregationCache(Settings settings, NamedWriteableRegistry namedWriteableRegistry) {
+        this.namedWriteableRegistry = namedWriteableRegistry;
+        this.cache = CacheBuilder.<Key, BytesReference>builder()
+            .setMaximumWeight(INDICES_CACHE_SEGMENT_AGGREGATIONS_SIZE.get(settings).getBytes())
+            .weigher((k, v) -> k.ramBytesUsed() + v.ramBytesUsed())
+            .build();
+    }
+
+    @Override
+    public void close() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Returns a view of this cache for the aggregations of a single request.
+     */
+    SearchContextAggregations.LeafResultCache forRequest(MappingLookup.CacheKey mappingCacheKey, BytesReference requestCacheKey) {
+        return new SearchContextAggregations.LeafResultCache() {
+            @Override
+            public InternalAggregations get(LeafReaderContext leaf) throws IOException {
+                final IndexReader.CacheHelper cacheHelper = leaf.reader().getReaderCacheHelper();
+                if (cacheHelper == null) {
+                    return null;
+                }
+                final BytesReference bytes = cache.get(new Key(cacheHelper.getKey(), mappingCacheKey, requestCacheKey));
+                if (bytes == null) {
+                    return null;
+                }
+                // every request gets its own copy since results are not immutable during reduction
+                try (NamedWriteableAwareStreamInput in = new NamedWriteableAwareStreamInput(bytes.streamInput(), namedWriteableRegistry)) {
+                    return InternalAggregations.readFrom(in);
+                }
+            }
+
+            @Override
+            public void put(LeafReaderContext leaf, InternalAggregations aggregations) throws IOException {
+                final IndexReader.CacheHelper cacheHelper = leaf.reader().getReaderCacheHelper();
+                if (cacheHelper == null) {
+                    return;
+                }
+                final BytesReference bytes;
+                try (BytesStreamOutput out = new BytesStreamOutput()) {
+                    aggregations.writeTo(out);
+                    bytes = out.copyBytes();
+                }
+                final IndexReader.CacheKey readerCacheKey = cacheHelper.getKey();
+                cache.put(new Key(readerCacheKey, mappingCacheKey, requestCacheKey), bytes);
+                // see if its the first time we see this segment reader, and make sure to register a cleanup key
+                if (registeredClosedListeners.add(readerCacheKey)) {
+                    cacheHelper.addClosedListener(key -> {
+                        if (registeredClosedListeners.remove(key)) {
+                            keysToClean.add(key);
+                        }
+                    });
+                }
+            }
+        };
+    }
+
+    synchronized void cleanCache() {
+        final Set<IndexReader.CacheKey> currentKeysToClean = new HashSet<>(keysToClean);
+        if (currentKeysToClean.isEmpty() == false) {
+            keysToClean.removeAll(currentKeysToClean);
+            for (Iterator<Key> iterator = cache.keys().iterator(); iterator.hasNext();) {
+                if (currentKeysToClean.contains(iterator.next().readerCacheKey)) {
+                    iterator.remove();
+                }
+            }
+        }
+        cache.refresh();
+    }
+
+    /**
+     * Returns the current size of the cache
+     */
+    int count() {
+        return cache.count();
+    }
+
+    int numRegisteredCloseListeners() { // for testing
+        return registeredClosedListeners.size();
+    }
+
+    private record Key(IndexReader.CacheKey readerCacheKey, MappingLookup.CacheKey mappingCacheKey, BytesReference requestCacheKey)
+        implements
+            Accountable {
+
+        private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Key.class);
+
+        Key {
+            Objects.requireNonNull(readerCacheKey);
+            Objects.requireNonNull(mappingCacheKey);
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            return BASE_RAM_BYTES_USED + requestCacheKey.length();
+        }
+    }
+}
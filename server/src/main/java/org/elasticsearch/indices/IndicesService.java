@@ -127,6 +127,7 @@ import org.elasticsearch.index.shard.IndexingStats;
 import org.elasticsearch.index.shard.SearchOperationListener;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.translog.TranslogStats;
+import org.elasticsearch.index.translog.TranslogSyncCoordinator;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService;
 import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
@@ -245,6 +246,7 @@ public class IndicesService extends AbstractLifecycleComponent
     private final IndexingMemoryController indexingMemoryController;
     private final TimeValue cleanInterval;
     final IndicesRequestCache indicesRequestCache; // pkg-private for testing
+    final IndicesSegmentAggregationCache indicesSegmentAggregationCache; // pkg-private for testing
     private final IndicesQueryCache indicesQueryCache;
     private final MetaStateService metaStateService;
     private final Collection<Function<IndexSettings, Optional<EngineFactory>>> engineFactoryProviders;
@@ -264,11 +266,13 @@ public class IndicesService extends AbstractLifecycleComponent
     private final boolean nodeWriteDanglingIndicesInfo;
     private final ValuesSourceRegistry valuesSourceRegistry;
     private final TimestampFieldMapperService timestampFieldMapperService;
+    private final ShardFieldValueStatsCache shardFieldValueStatsCache = new ShardFieldValueStatsCache();
     private final CheckedBiConsumer<ShardSearchRequest, StreamOutput, IOException> requestCacheKeyDifferentiator;
     private final MapperMetrics mapperMetrics;
     private final PostRecoveryMerger postRecoveryMerger;
     private final List<SearchOperationListener> searchOperationListeners;
     private final QueryRewriteInterceptor queryRewriteInterceptor;
+    private final TranslogSyncCoordinator translogSyncCoordinator;
     final SlowLogFieldProvider slowLogFieldProvider; // pkg-private for testingå
 
     @Override
@@ -295,6 +299,7 @@ public class IndicesService extends AbstractLifecycleComponent
         this.indicesQueryCache = new IndicesQueryCache(settings);
         this.mapperRegistry = builder.mapperRegistry;
         this.namedWriteableRegistry = builder.namedWriteableRegistry;
+        this.indicesSegmentAggregationCache = new IndicesSegmentAggregationCache(settings, namedWriteableRegistry);
         indexingMemoryController = new IndexingMemoryController(
             settings,
             threadPool,
@@ -321,7 +326,13 @@ public class IndicesService extends AbstractLifecycleComponent
             }
         });
         this.cleanInterval = INDICES_CACHE_CLEAN_INTERVAL_SETTING.get(settings);
-        this.cacheCleaner = new CacheCleaner(indicesFieldDataCache, indicesRequestCache, threadPool, this.cleanInterval);
+        this.cacheCleaner = new CacheCleaner(
+            indicesFieldDataCache,
+            indicesRequestCache,
+            indicesSegmentAggregationCache,
+            threadPool,
+            this.cleanInterval
+        );
         this.metaStateService = builder.metaStateService;
         this.engineFactoryProviders = builder.engineFactoryProviders;
 
@@ -339,6 +350,7 @@ public class IndicesService extends AbstractLifecycleComponent
         this.requestCacheKeyDifferentiator = builder.requestCacheKeyDifferentiator;
         this.queryRewriteInterceptor = builder.queryRewriteInterceptor;
         this.mapperMetrics = builder.mapperMetrics;
+        this.translogSyncCoordinator = new TranslogSyncCoordinator(settings, threadPool);
         // doClose() is called when shutting down a node, yet there might still be ongoing requests
         // that we need to wait for before closing some resources such as the caches. In order to
         // avoid closing these resources while ongoing requests are still being processed, we use a
@@ -352,6 +364,7 @@ public class IndicesService extends AbstractLifecycleComponent
                     indicesFieldDataCache,
                     cacheCleaner,
                     indicesRequestCache,
+                    indicesSegmentAggregationCache,
                     indicesQueryCache
                 );
             } catch (IOException e) {
@@ -466,7 +479,13 @@ public class IndicesService extends AbstractLifecycleComponent
             }
         }
 
-        return new NodeIndicesStats(commonStats, statsByIndex(this, flags), statsByShard(this, flags), includeShardsStats);
+        return new NodeIndicesStats(
+            commonStats,
+            statsByIndex(this, flags),
+            statsByShard(this, flags),
+            flags.isSet(Flag.Indexing) ? indexingMemoryController.stats() : null,
+            includeShardsStats
+        );
     }
 
     static Map<Index, CommonStats> statsByIndex(final IndicesService indicesService, final CommonStatsFlags flags) {
@@ -766,6 +785,7 @@ public class IndicesService extends AbstractLifecycleComponent
         for (IndexingOperationListener operationListener : indexingOperationListeners) {
             indexModule.addIndexOperationListener(operationListener);
         }
+        indexModule.setTranslogSyncCoordinator(translogSyncCoordinator);
         pluginsService.forEach(p -> p.onIndexModule(indexModule));
         for (IndexEventListener listener : builtInListeners) {
             indexModule.addIndexEventListener(listener);
@@ -1487,10 +1507,18 @@ public class IndicesService extends AbstractLifecycleComponent
         private final TimeValue interval;
         private final AtomicBoolean closed = new AtomicBoolean(false);
         private final IndicesRequestCache requestCache;
-
-        CacheCleaner(IndicesFieldDataCache cache, IndicesRequestCache requestCache, ThreadPool threadPool, TimeValue interval) {
+        private final IndicesSegmentAggregationCache segmentAggregationCache;
+
+        CacheCleaner(
+            IndicesFieldDataCache cache,
+            IndicesRequestCache requestCache,
+            IndicesSegmentAggregationCache segmentAggregationCache,
+            ThreadPool threadPool,
+            TimeValue interval
+        ) {
             this.cache = cache;
             this.requestCache = requestCache;
+            this.segmentAggregationCache = segmentAggregationCache;
             this.threadPool = threadPool;
             this.interval = interval;
         }
@@ -1518,6 +1546,11 @@ public class IndicesService extends AbstractLifecycleComponent
             } catch (Exception e) {
                 logger.warn("Exception during periodic request cache cleanup:", e);
             }
+            try {
+                this.segmentAggregationCache.cleanCache();
+            } catch (Exception e) {
+                logger.warn("Exception during periodic segment aggregation cache cleanup:", e);
+            }
             // Reschedule itself to run again if not closed
             if (closed.get() == false) {
                 threadPool.scheduleUnlessShuttingDown(interval, EsExecutors.DIRECT_EXECUTOR_SERVICE, this);
@@ -1633,6 +1666,21 @@ public class IndicesService extends AbstractLifecycleComponent
         }
     }
 
+    /**
+     * Makes the aggregations of the given request, which must be cacheable, use the cache of the aggregation results of single segments.
+     * The aggregations must be accurate when they are collected per segment and reduced afterwards.
+     */
+    public void useSegmentAggregationCache(ShardSearchRequest request, SearchContext context) throws IOException {
+        assert canCache(request, context);
+        context.aggregations()
+            .setLeafResultCache(
+                indicesSegmentAggregationCache.forRequest(
+                    context.getSearchExecutionContext().mappingCacheKey(),
+                    request.cacheKey(requestCacheKeyDifferentiator)
+                )
+            );
+    }
+
     public long getTotalIndexingBufferBytes() {
         return indexingMemoryController.indexingBufferSize();
     }
@@ -1792,7 +1840,8 @@ public class IndicesService extends AbstractLifecycleComponent
             client,
             nowInMillis,
             clusterService::state,
-            this::getTimestampFieldTypeInfo
+            this::getTimestampFieldTypeInfo,
+            shardFieldValueStatsCache
         );
     }
 
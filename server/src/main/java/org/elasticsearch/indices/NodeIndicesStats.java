@@ -66,6 +66,8 @@ public class NodeIndicesStats implements Writeable, ChunkedToXContent {
     private final CommonStats stats;
     private final Map<Index, List<IndexShardStats>> statsByShard;
     private final Map<Index, CommonStats> statsByIndex;
+    @Nullable
+    private final IndexingBufferWriteStats indexingBufferWriteStats;
 
     public NodeIndicesStats(StreamInput in) throws IOException {
         stats = new CommonStats(in);
@@ -87,6 +89,12 @@ public class NodeIndicesStats implements Writeable, ChunkedToXContent {
         } else {
             statsByIndex = new HashMap<>();
         }
+
+        if (in.getTransportVersion().onOrAfter(TransportVersions.INDEXING_BUFFER_WRITE_STATS)) {
+            indexingBufferWriteStats = in.readOptionalWriteable(IndexingBufferWriteStats::new);
+        } else {
+            indexingBufferWriteStats = null;
+        }
     }
 
     public NodeIndicesStats(
@@ -95,6 +103,17 @@ public class NodeIndicesStats implements Writeable, ChunkedToXContent {
         Map<Index, List<IndexShardStats>> statsByShard,
         boolean includeShardsStats
     ) {
+        this(oldStats, statsByIndex, statsByShard, null, includeShardsStats);
+    }
+
+    public NodeIndicesStats(
+        CommonStats oldStats,
+        Map<Index, CommonStats> statsByIndex,
+        Map<Index, List<IndexShardStats>> statsByShard,
+        @Nullable IndexingBufferWriteStats indexingBufferWriteStats,
+        boolean includeShardsStats
+    ) {
+        this.indexingBufferWriteStats = indexingBufferWriteStats;
         if (includeShardsStats) {
             this.statsByShard = Objects.requireNonNull(statsByShard);
         } else {
@@ -221,6 +240,11 @@ public class NodeIndicesStats implements Writeable, ChunkedToXContent {
         return stats.getSparseVectorStats();
     }
 
+    @Nullable
+    public IndexingBufferWriteStats getIndexingBufferWriteStats() {
+        return indexingBufferWriteStats;
+    }
+
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         stats.writeTo(out);
@@ -228,6 +252,9 @@ public class NodeIndicesStats implements Writeable, ChunkedToXContent {
         if (out.getTransportVersion().onOrAfter(VERSION_SUPPORTING_STATS_BY_INDEX)) {
             out.writeMap(statsByIndex);
         }
+        if (out.getTransportVersion().onOrAfter(TransportVersions.INDEXING_BUFFER_WRITE_STATS)) {
+            out.writeOptionalWriteable(indexingBufferWriteStats);
+        }
     }
 
     @Override
@@ -235,12 +262,15 @@ public class NodeIndicesStats implements Writeable, ChunkedToXContent {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         NodeIndicesStats that = (NodeIndicesStats) o;
-        return stats.equals(that.stats) && statsByShard.equals(that.statsByShard) && statsByIndex.equals(that.statsByIndex);
+        return stats.equals(that.stats)
+            && statsByShard.equals(that.statsByShard)
+            && statsByIndex.equals(that.statsByIndex)
+            && Objects.equals(indexingBufferWriteStats, that.indexingBufferWriteStats);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(stats, statsByShard, statsByIndex);
+        return Objects.hash(stats, statsByShard, statsByIndex, indexingBufferWriteStats);
     }
 
     @Override
@@ -250,7 +280,11 @@ public class NodeIndicesStats implements Writeable, ChunkedToXContent {
 
             Iterators.single((builder, params) -> {
                 builder.startObject(Fields.INDICES);
-                return stats.toXContent(builder, params);
+                stats.toXContent(builder, params);
+                if (indexingBufferWriteStats != null) {
+                    indexingBufferWriteStats.toXContent(builder, params);
+                }
+                return builder;
             }),
 
             switch (NodeStatsLevel.of(outerParams, NodeStatsLevel.NODE)) {
@@ -0,0 +1,80 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.indices;
+
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.shard.ShardFieldValueStats;
+import org.elasticsearch.index.shard.ShardId;
+
+import java.io.IOException;
+
+/**
+ * Node level cache of the {@link ShardFieldValueStats} that data nodes report in can_match responses, which the coordinating node
+ * uses to skip shards without sending them a can_match request. Stats are only reported for shards of indices that reject writes, and
+ * are only used as long as the index still rejects writes and neither its settings nor its mapping changed since they were reported,
+ * so that they can't be stale.
+ */
+public final class ShardFieldValueStatsCache {
+
+    static final int MAX_ENTRIES = 10_000;
+
+    private final Cache<ShardId, Entry> cache = CacheBuilder.<ShardId, Entry>builder().setMaximumWeight(MAX_ENTRIES).build();
+
+    /**
+     * Returns whether the documents of the given index can't change, which is a requirement for its stats to be reported and cached.
+     */
+    public static boolean isReadOnly(IndexMetadata indexMetadata) {
+        return IndexMetadata.INDEX_BLOCKS_WRITE_SETTING.get(indexMetadata.getSettings())
+            || IndexMetadata.INDEX_READ_ONLY_SETTING.get(indexMetadata.getSettings());
+    }
+
+    public void put(ShardId shardId, Entry entry) {
+        cache.put(shardId, entry);
+    }
+
+    /**
+     * Returns the cached stats of the given shard, or {@code null} if there are none or if they may no longer be accurate given the
+     * current metadata of the index.
+     */
+    @Nullable
+    public ShardFieldValueStats get(ShardId shardId, IndexMetadata indexMetadata) {
+        Entry entry = cache.get(shardId);
+        if (entry == null
+            || isReadOnly(indexMetadata) == false
+            || entry.settingsVersion() != indexMetadata.getSettingsVersion()
+            || entry.mappingVersion() != indexMetadata.getMappingVersion()) {
+            return null;
+        }
+        return entry.stats();
+    }
+
+    /**
+     * The stats of a shard along with the versions of the index settings and mapping they were computed with.
+     */
+    public record Entry(long settingsVersion, long mappingVersion, ShardFieldValueStats stats) implements Writeable {
+
+        public Entry(StreamInput in) throws IOException {
+            this(in.readVLong(), in.readVLong(), new ShardFieldValueStats(in));
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(settingsVersion);
+            out.writeVLong(mappingVersion);
+            stats.writeTo(out);
+        }
+    }
+}
@@ -0,0 +1,332 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryCache;
+import org.apache.lucene.search.QueryCachingPolicy;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.ScorerSupplier;
+import org.apache.lucene.search.UsageTrackingQueryCachingPolicy;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.compress.CompressedXContent;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.cache.query.TrivialQueryCachingPolicy;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * The caching policy of a shard, which tracks the usage of its own filters like {@link UsageTrackingQueryCachingPolicy} but also
+ * caches the filters that other shards on the same node recently found worth caching, as long as their index has the same mapping.
+ * This way a filter that is popular across the shards of an index, or across indices created from the same template, gets cached
+ * on shards that have not seen it often enough yet, such as shards that were just relocated to this node. The filters that are
+ * currently hot are also cached eagerly on the new segments of refreshed readers by the index warmer, see {@link #warm}, so that
+ * the first searches after a refresh don't need to build them.
+ * <p>
+ * Only the usage of filters is shared, by their equality. A shard never runs the filter instances of other shards, which were built
+ * by other indices and may hold on to their per-index state, like the bitset filter cache of nested queries. It only warms the hot
+ * filters that it built itself.
+ */
+public final class SharedQueryCachingPolicy implements QueryCachingPolicy {
+
+    /**
+     * The maximum number of hot filters that are tracked per mapping.
+     */
+    static final int MAX_HOT_FILTERS = 64;
+
+    /**
+     * How long a filter stays hot after it was last used by a shard that found it worth caching.
+     */
+    static final long HOT_FILTER_TTL_NANOS = TimeValue.timeValueMinutes(5).nanos();
+
+    /**
+     * The last use of a hot filter is only recorded if the recorded one is older than this, so that searches that use the same
+     * filters on many shards don't all write the same memory.
+     */
+    static final long TOUCH_INTERVAL_NANOS = TimeValue.timeValueSeconds(1).nanos();
+
+    private final UsageTrackingQueryCachingPolicy shardUsage = new UsageTrackingQueryCachingPolicy();
+    private final QueryCache queryCache;
+    private final Supplier<CompressedXContent> mappingSource;
+    private final Function<String, HotFilters> hotFiltersByMapping;
+    private final LongSupplier nanoTime;
+    private volatile MappingHotFilters current;
+    // the instances of hot filters that were built by this shard, which are the only ones it warms
+    private final Map<Query, Query> ownHotFilters = new ConcurrentHashMap<>();
+    // the segments of the last reader that hot filters were warmed on
+    private volatile Set<IndexReader.CacheKey> warmedSegments = Set.of();
+
+    SharedQueryCachingPolicy(
+        QueryCache queryCache,
+        Supplier<CompressedXContent> mappingSource,
+        Function<String, HotFilters> hotFiltersByMapping,
+        LongSupplier nanoTime
+    ) {
+        this.queryCache = queryCache;
+        this.mappingSource = mappingSource;
+        this.hotFiltersByMapping = hotFiltersByMapping;
+        this.nanoTime = nanoTime;
+    }
+
+    private HotFilters hotFilters() {
+        final CompressedXContent source = mappingSource.get();
+        MappingHotFilters current = this.current;
+        // the hot filters of a mapping are closed once the node stops tracking that mapping, it may start again later though
+        if (current == null || current.mappingSource() != source || current.hotFilters().isClosed()) {
+            // shards without mapping yet don't share their filters
+            final HotFilters hotFilters = source == null
+                ? new HotFilters(new AtomicLong(), Long.MAX_VALUE)
+                : hotFiltersByMapping.apply(source.getSha256());
+            current = new MappingHotFilters(source, hotFilters);
+            this.current = current;
+        }
+        return current.hotFilters();
+    }
+
+    @Override
+    public void onUse(Query query) {
+        shardUsage.onUse(query);
+        final HotFilters hotFilters = hotFilters();
+        if (hotFilters.touch(query, nanoTime.getAsLong())) {
+            addOwnHotFilter(hotFilters, query);
+        }
+    }
+
+    @Override
+    public boolean shouldCache(Query query) throws IOException {
+        final HotFilters hotFilters = hotFilters();
+        if (shardUsage.shouldCache(query)) {
+            hotFilters.add(query, nanoTime.getAsLong());
+            addOwnHotFilter(hotFilters, query);
+            return true;
+        }
+        if (hotFilters.isHot(query, nanoTime.getAsLong())) {
+            addOwnHotFilter(hotFilters, query);
+            return true;
+        }
+        return false;
+    }
+
+    private void addOwnHotFilter(HotFilters hotFilters, Query query) {
+        if (ownHotFilters.size() >= MAX_HOT_FILTERS && ownHotFilters.containsKey(query) == false) {
+            final long nowNanos = nanoTime.getAsLong();
+            ownHotFilters.keySet().removeIf(filter -> hotFilters.isHot(filter, nowNanos) == false);
+            if (ownHotFilters.size() >= MAX_HOT_FILTERS) {
+                return;
+            }
+        }
+        ownHotFilters.putIfAbsent(query, query);
+    }
+
+    /**
+     * Returns this shard's own instances of the filters that shards with the same mapping as this shard recently found worth
+     * caching, the most recently used last. Hot filters that this shard did not build itself are left out.
+     */
+    public List<Query> getHotFilters() {
+        final List<Query> hotFilters = hotFilters().get(nanoTime.getAsLong());
+        final List<Query> own = new ArrayList<>(hotFilters.size());
+        for (Query filter : hotFilters) {
+            final Query ownFilter = ownHotFilters.get(filter);
+            if (ownFilter != null) {
+                own.add(ownFilter);
+            }
+        }
+        // forget the filters that are not hot anymore, e.g. because they expired or the mapping of the shard changed
+        ownHotFilters.keySet().retainAll(new HashSet<>(hotFilters));
+        return own;
+    }
+
+    /**
+     * Returns the segments of the given reader that hot filters were not warmed on with a previous reader of this shard. Segments
+     * that the previous reader already had got their hot filters cached while they were searched.
+     */
+    public List<LeafReaderContext> newSegments(IndexReader reader) {
+        final Set<IndexReader.CacheKey> warmed = warmedSegments;
+        final Set<IndexReader.CacheKey> segments = new HashSet<>();
+        final List<LeafReaderContext> newSegments = new ArrayList<>();
+        for (LeafReaderContext context : reader.leaves()) {
+            final IndexReader.CacheHelper cacheHelper = context.reader().getCoreCacheHelper();
+            // the query cache doesn't cache segments without a cache helper anyway
+            if (cacheHelper != null) {
+                segments.add(cacheHelper.getKey());
+                if (warmed.contains(cacheHelper.getKey()) == false) {
+                    newSegments.add(context);
+                }
+            }
+        }
+        warmedSegments = segments;
+        return newSegments;
+    }
+
+    /**
+     * Caches the given filter on the given segments of the reader, as far as the query cache accepts to cache filters for them. The
+     * filter must have been built by this shard, see {@link #getHotFilters()}.
+     */
+    public void warm(IndexReader reader, List<LeafReaderContext> segments, Query filter) throws IOException {
+        final IndexSearcher searcher = new IndexSearcher(reader);
+        searcher.setQueryCache(queryCache);
+        // the filter is known to be hot already, warming must not count as a use
+        searcher.setQueryCachingPolicy(TrivialQueryCachingPolicy.ALWAYS);
+        final Weight weight = searcher.createWeight(searcher.rewrite(filter), ScoreMode.COMPLETE_NO_SCORES, 1f);
+        for (LeafReaderContext context : segments) {
+            final ScorerSupplier scorerSupplier = weight.scorerSupplier(context);
+            if (scorerSupplier != null) {
+                // the query cache builds the cache entry of the segment when the scorer is pulled
+                scorerSupplier.get(Long.MAX_VALUE);
+            }
+        }
+    }
+
+    private record MappingHotFilters(@Nullable CompressedXContent mappingSource, HotFilters hotFilters) {}
+
+    /**
+     * The filters that shards with the same mapping recently found worth caching, along with the time they were last used. Looking
+     * up and touching filters is lock free since it happens for every filter of every search, only adding them takes a lock.
+     * <p>
+     * The memory of the retained queries is accounted in a counter that is shared with the hot filters of all other mappings of
+     * the node, and filters are not added once it reaches its limit.
+     */
+    static final class HotFilters {
+
+        private final Map<Query, LastUsed> filters = new ConcurrentHashMap<>();
+        private final AtomicLong usedBytes;
+        private final long maxBytes;
+        private volatile boolean closed;
+
+        HotFilters(AtomicLong usedBytes, long maxBytes) {
+            this.usedBytes = usedBytes;
+            this.maxBytes = maxBytes;
+        }
+
+        void add(Query query, long nowNanos) {
+            if (touch(query, nowNanos)) {
+                return;
+            }
+            synchronized (this) {
+                if (closed || touch(query, nowNanos)) {
+                    return;
+                }
+                while (filters.size() >= MAX_HOT_FILTERS) {
+                    evictLeastRecentlyUsed();
+                }
+                final long bytes = ramBytesUsed(query);
+                if (usedBytes.addAndGet(bytes) > maxBytes) {
+                    usedBytes.addAndGet(-bytes);
+                    return;
+                }
+                filters.put(query, new LastUsed(nowNanos, bytes));
+            }
+        }
+
+        /**
+         * Records a use of the given filter if it is hot, returns whether it is.
+         */
+        boolean touch(Query query, long nowNanos) {
+            final LastUsed lastUsed = filters.get(query);
+            if (lastUsed == null) {
+                return false;
+            }
+            if (nowNanos - lastUsed.nanos > TOUCH_INTERVAL_NANOS) {
+                lastUsed.nanos = nowNanos;
+            }
+            return true;
+        }
+
+        boolean isHot(Query query, long nowNanos) {
+            final LastUsed lastUsed = filters.get(query);
+            if (lastUsed == null) {
+                return false;
+            }
+            if (nowNanos - lastUsed.nanos > HOT_FILTER_TTL_NANOS) {
+                remove(query, lastUsed);
+                return false;
+            }
+            return true;
+        }
+
+        List<Query> get(long nowNanos) {
+            final List<Map.Entry<Query, LastUsed>> hot = new ArrayList<>(filters.size());
+            for (Map.Entry<Query, LastUsed> entry : filters.entrySet()) {
+                if (nowNanos - entry.getValue().nanos > HOT_FILTER_TTL_NANOS) {
+                    remove(entry.getKey(), entry.getValue());
+                } else {
+                    hot.add(entry);
+                }
+            }
+            hot.sort(Comparator.comparingLong(entry -> entry.getValue().nanos));
+            return hot.stream().map(Map.Entry::getKey).toList();
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+
+        /**
+         * Stops tracking hot filters and releases the memory accounted for them.
+         */
+        synchronized void close() {
+            closed = true;
+            for (Map.Entry<Query, LastUsed> entry : filters.entrySet()) {
+                remove(entry.getKey(), entry.getValue());
+            }
+        }
+
+        private void evictLeastRecentlyUsed() {
+            Map.Entry<Query, LastUsed> eldest = null;
+            for (Map.Entry<Query, LastUsed> entry : filters.entrySet()) {
+                if (eldest == null || entry.getValue().nanos < eldest.getValue().nanos) {
+                    eldest = entry;
+                }
+            }
+            if (eldest != null) {
+                remove(eldest.getKey(), eldest.getValue());
+            }
+        }
+
+        private void remove(Query query, LastUsed lastUsed) {
+            // only the thread that removes the entry releases its memory
+            if (filters.remove(query, lastUsed)) {
+                usedBytes.addAndGet(-lastUsed.bytes);
+            }
+        }
+
+        private static long ramBytesUsed(Query query) {
+            return RamUsageEstimator.sizeOf(query) + LastUsed.SHALLOW_SIZE + RamUsageEstimator.HASHTABLE_RAM_BYTES_PER_ENTRY;
+        }
+    }
+
+    private static final class LastUsed {
+        private static final long SHALLOW_SIZE = RamUsageEstimator.shallowSizeOfInstance(LastUsed.class);
+
+        private final long bytes;
+        private volatile long nanos;
+
+        LastUsed(long nanos, long bytes) {
+            this.nanos = nanos;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,402 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.lucene.util;
+
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.RamUsageEstimator;
+
+import java.util.Arrays;
+
+/**
+ * A {@link DocIdSet} that splits the doc id space into blocks of 2^16 documents like Lucene's
+ * {@link org.apache.lucene.util.RoaringDocIdSet}, and encodes each block with whichever of three containers is the smallest: a sorted
+ * array of the documents of the block, a bitmap, or a list of runs of consecutive documents. Runs make sets that are dense but
+ * clustered, such as filters on fields that correlate with the index sort or the insertion order, orders of magnitude smaller than a
+ * bitmap over the whole segment. Bitmaps are iterated a 64-bit word at a time.
+ */
+public final class HybridRoaringDocIdSet extends DocIdSet {
+
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(HybridRoaringDocIdSet.class);
+
+    static final int BLOCK_SHIFT = 16;
+    static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int WORDS_PER_BLOCK = BLOCK_SIZE / Long.SIZE;
+
+    private final Container[] containers;
+    private final int cardinality;
+    private final long ramBytesUsed;
+
+    private HybridRoaringDocIdSet(Container[] containers, int cardinality) {
+        this.containers = containers;
+        this.cardinality = cardinality;
+        long ramBytesUsed = BASE_RAM_BYTES_USED + RamUsageEstimator.shallowSizeOf(containers);
+        for (Container container : containers) {
+            if (container != null) {
+                ramBytesUsed += container.ramBytesUsed();
+            }
+        }
+        this.ramBytesUsed = ramBytesUsed;
+    }
+
+    /**
+     * Returns the number of documents in this set.
+     */
+    public int cardinality() {
+        return cardinality;
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        return ramBytesUsed;
+    }
+
+    @Override
+    public DocIdSetIterator iterator() {
+        return new Iterator();
+    }
+
+    /**
+     * Returns an estimate of the memory that {@link #build} would use to encode the given bits, without building it.
+     */
+    public static long estimateRamBytesUsed(FixedBitSet bits) {
+        final long[] words = bits.getBits();
+        final int numBlocks = numBlocks(bits.length());
+        long ramBytesUsed = BASE_RAM_BYTES_USED + RamUsageEstimator.alignObjectSize(
+            (long) RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) RamUsageEstimator.NUM_BYTES_OBJECT_REF * numBlocks
+        );
+        for (int block = 0; block < numBlocks; block++) {
+            final int cardinality = cardinality(words, block);
+            if (cardinality > 0) {
+                ramBytesUsed += containerRamBytesUsed(cardinality, numRuns(words, block));
+            }
+        }
+        return ramBytesUsed;
+    }
+
+    /**
+     * Encodes the given bits.
+     */
+    public static HybridRoaringDocIdSet build(FixedBitSet bits) {
+        final long[] words = bits.getBits();
+        final Container[] containers = new Container[numBlocks(bits.length())];
+        int cardinality = 0;
+        for (int block = 0; block < containers.length; block++) {
+            final int blockCardinality = cardinality(words, block);
+            if (blockCardinality == 0) {
+                continue;
+            }
+            cardinality += blockCardinality;
+            final int numRuns = numRuns(words, block);
+            final long arrayBytes = ArrayContainer.ramBytesUsed(blockCardinality);
+            final long runBytes = RunContainer.ramBytesUsed(numRuns);
+            if (runBytes <= arrayBytes && runBytes <= BitmapContainer.RAM_BYTES_USED) {
+                containers[block] = RunContainer.build(words, block, numRuns);
+            } else if (arrayBytes <= BitmapContainer.RAM_BYTES_USED) {
+                containers[block] = ArrayContainer.build(words, block, blockCardinality);
+            } else {
+                containers[block] = BitmapContainer.build(words, block);
+            }
+        }
+        return new HybridRoaringDocIdSet(containers, cardinality);
+    }
+
+    private static int numBlocks(int maxDoc) {
+        return (maxDoc + BLOCK_SIZE - 1) >>> BLOCK_SHIFT;
+    }
+
+    private static long word(long[] words, int index) {
+        return index < words.length ? words[index] : 0L;
+    }
+
+    private static int cardinality(long[] words, int block) {
+        final int from = block * WORDS_PER_BLOCK;
+        final int to = Math.min(from + WORDS_PER_BLOCK, words.length);
+        int cardinality = 0;
+        for (int i = from; i < to; i++) {
+            cardinality += Long.bitCount(words[i]);
+        }
+        return cardinality;
+    }
+
+    /**
+     * Returns the set bits of the word at the given index that start a run, i.e. whose previous bit in the same block is not set.
+     */
+    private static long runStarts(long[] words, int block, int index) {
+        final long previousBit = index == block * WORDS_PER_BLOCK ? 0L : word(words, index - 1) >>> 63;
+        final long word = word(words, index);
+        return word & ~((word << 1) | previousBit);
+    }
+
+    /**
+     * Returns the set bits of the word at the given index that end a run, i.e. whose next bit in the same block is not set.
+     */
+    private static long runEnds(long[] words, int block, int index) {
+        final long nextBit = index == (block + 1) * WORDS_PER_BLOCK - 1 ? 0L : word(words, index + 1) & 1L;
+        final long word = word(words, index);
+        return word & ~((word >>> 1) | (nextBit << 63));
+    }
+
+    private static int numRuns(long[] words, int block) {
+        final int from = block * WORDS_PER_BLOCK;
+        final int to = Math.min(from + WORDS_PER_BLOCK, words.length);
+        int numRuns = 0;
+        for (int i = from; i < to; i++) {
+            numRuns += Long.bitCount(runStarts(words, block, i));
+        }
+        return numRuns;
+    }
+
+    private static long containerRamBytesUsed(int cardinality, int numRuns) {
+        return Math.min(
+            Math.min(ArrayContainer.ramBytesUsed(cardinality), RunContainer.ramBytesUsed(numRuns)),
+            BitmapContainer.RAM_BYTES_USED
+        );
+    }
+
+    /**
+     * The documents of a block, identified by their offset in the block.
+     */
+    private abstract static class Container {
+
+        /**
+         * Returns the first document of the block that is greater than or equal to the given offset, or
+         * {@link DocIdSetIterator#NO_MORE_DOCS} if there is none. Calls must be made with increasing offsets.
+         */
+        abstract int advance(int target);
+
+        abstract long ramBytesUsed();
+
+        abstract Container reset();
+    }
+
+    private static final class ArrayContainer extends Container {
+        private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(ArrayContainer.class);
+
+        private final char[] docs;
+        private int index;
+
+        private ArrayContainer(char[] docs) {
+            this.docs = docs;
+        }
+
+        static long ramBytesUsed(int cardinality) {
+            return BASE_RAM_BYTES_USED + RamUsageEstimator.alignObjectSize(
+                (long) RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) Character.BYTES * cardinality
+            );
+        }
+
+        static ArrayContainer build(long[] words, int block, int cardinality) {
+            final char[] docs = new char[cardinality];
+            final int from = block * WORDS_PER_BLOCK;
+            final int to = Math.min(from + WORDS_PER_BLOCK, words.length);
+            int upto = 0;
+            for (int i = from; i < to; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    docs[upto++] = (char) (((i - from) << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            assert upto == cardinality;
+            return new ArrayContainer(docs);
+        }
+
+        @Override
+        int advance(int target) {
+            if (index < docs.length && docs[index] < target) {
+                // galloping would be faster for large jumps, but targets are usually close to the current document
+                int found = Arrays.binarySearch(docs, index, docs.length, (char) target);
+                index = found >= 0 ? found : -1 - found;
+            }
+            return index < docs.length ? docs[index] : DocIdSetIterator.NO_MORE_DOCS;
+        }
+
+        @Override
+        long ramBytesUsed() {
+            return ramBytesUsed(docs.length);
+        }
+
+        @Override
+        Container reset() {
+            return new ArrayContainer(docs);
+        }
+    }
+
+    private static final class RunContainer extends Container {
+        private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(RunContainer.class);
+
+        // the first and last document of each run
+        private final char[] starts;
+        private final char[] lasts;
+        private int index;
+
+        private RunContainer(char[] starts, char[] lasts) {
+            this.starts = starts;
+            this.lasts = lasts;
+        }
+
+        static long ramBytesUsed(int numRuns) {
+            return BASE_RAM_BYTES_USED + 2 * RamUsageEstimator.alignObjectSize(
+                (long) RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) Character.BYTES * numRuns
+            );
+        }
+
+        static RunContainer build(long[] words, int block, int numRuns) {
+            final char[] starts = new char[numRuns];
+            final char[] lasts = new char[numRuns];
+            final int from = block * WORDS_PER_BLOCK;
+            final int to = Math.min(from + WORDS_PER_BLOCK, words.length);
+            int startUpto = 0;
+            int lastUpto = 0;
+            for (int i = from; i < to; i++) {
+                long runStarts = runStarts(words, block, i);
+                while (runStarts != 0) {
+                    starts[startUpto++] = (char) (((i - from) << 6) + Long.numberOfTrailingZeros(runStarts));
+                    runStarts &= runStarts - 1;
+                }
+                long runEnds = runEnds(words, block, i);
+                while (runEnds != 0) {
+                    lasts[lastUpto++] = (char) (((i - from) << 6) + Long.numberOfTrailingZeros(runEnds));
+                    runEnds &= runEnds - 1;
+                }
+            }
+            assert startUpto == numRuns && lastUpto == numRuns;
+            return new RunContainer(starts, lasts);
+        }
+
+        @Override
+        int advance(int target) {
+            if (index < lasts.length && lasts[index] < target) {
+                int found = Arrays.binarySearch(lasts, index, lasts.length, (char) target);
+                index = found >= 0 ? found : -1 - found;
+            }
+            if (index == lasts.length) {
+                return DocIdSetIterator.NO_MORE_DOCS;
+            }
+            return Math.max(target, starts[index]);
+        }
+
+        @Override
+        long ramBytesUsed() {
+            return ramBytesUsed(starts.length);
+        }
+
+        @Override
+        Container reset() {
+            return new RunContainer(starts, lasts);
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        private static final long RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(BitmapContainer.class) + RamUsageEstimator
+            .alignObjectSize((long) RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) Long.BYTES * WORDS_PER_BLOCK);
+
+        private final long[] words;
+
+        private BitmapContainer(long[] words) {
+            this.words = words;
+        }
+
+        static BitmapContainer build(long[] words, int block) {
+            final int from = block * WORDS_PER_BLOCK;
+            // pads the last block with zeros
+            return new BitmapContainer(Arrays.copyOfRange(words, from, from + WORDS_PER_BLOCK));
+        }
+
+        @Override
+        int advance(int target) {
+            if (target >= BLOCK_SIZE) {
+                return DocIdSetIterator.NO_MORE_DOCS;
+            }
+            int i = target >>> 6;
+            long word = words[i] >>> target;
+            if (word != 0) {
+                return target + Long.numberOfTrailingZeros(word);
+            }
+            while (++i < WORDS_PER_BLOCK) {
+                word = words[i];
+                if (word != 0) {
+                    return (i << 6) + Long.numberOfTrailingZeros(word);
+                }
+            }
+            return DocIdSetIterator.NO_MORE_DOCS;
+        }
+
+        @Override
+        long ramBytesUsed() {
+            return RAM_BYTES_USED;
+        }
+
+        @Override
+        Container reset() {
+            return this;
+        }
+    }
+
+    private class Iterator extends DocIdSetIterator {
+        private int block = -1;
+        private Container container;
+        private int doc = -1;
+
+        @Override
+        public int docID() {
+            return doc;
+        }
+
+        @Override
+        public int nextDoc() {
+            return advance(doc + 1);
+        }
+
+        @Override
+        public int advance(int target) {
+            int targetBlock = target >>> BLOCK_SHIFT;
+            if (targetBlock != block) {
+                if (targetBlock >= containers.length) {
+                    return doc = NO_MORE_DOCS;
+                }
+                moveTo(targetBlock);
+            }
+            if (container != null) {
+                int offset = container.advance(target & (BLOCK_SIZE - 1));
+                if (offset != NO_MORE_DOCS) {
+                    return doc = (block << BLOCK_SHIFT) | offset;
+                }
+            }
+            return firstDocFromNextBlock();
+        }
+
+        private void moveTo(int targetBlock) {
+            block = targetBlock;
+            final Container next = containers[targetBlock];
+            // containers track their position, so each iterator needs its own copy
+            container = next == null ? null : next.reset();
+        }
+
+        private int firstDocFromNextBlock() {
+            while (block + 1 < containers.length) {
+                moveTo(block + 1);
+                if (container != null) {
+                    int offset = container.advance(0);
+                    assert offset != NO_MORE_DOCS : "containers are never empty";
+                    return doc = (block << BLOCK_SHIFT) | offset;
+                }
+            }
+            return doc = NO_MORE_DOCS;
+        }
+
+        @Override
+        public long cost() {
+            return cardinality;
+        }
+    }
+}
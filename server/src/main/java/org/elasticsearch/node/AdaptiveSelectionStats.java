@@ -72,6 +72,13 @@ public class AdaptiveSelectionStats implements Writeable, ToXContentFragment {
                     builder.field("avg_response_time", new TimeValue((long) stats.responseTime, TimeUnit.NANOSECONDS).toString());
                 }
                 builder.field("avg_response_time_ns", (long) stats.responseTime);
+                if (stats.responseTimeP95 >= 0) {
+                    builder.field("response_time_p95_ns", stats.responseTimeP95);
+                }
+                if (stats.queueLatencyP50 >= 0) {
+                    builder.field("queue_latency_p50_ns", stats.queueLatencyP50);
+                    builder.field("queue_latency_p99_ns", stats.queueLatencyP99);
+                }
                 builder.field("rank", String.format(Locale.ROOT, "%.1f", stats.rank(outgoingSearches)));
             }
             builder.endObject();
@@ -1216,7 +1216,8 @@ class NodeConstruction {
             b.bind(SearchService.class).toInstance(searchService);
             b.bind(SearchResponseMetrics.class).toInstance(searchResponseMetrics);
             b.bind(SearchTransportService.class).toInstance(searchTransportService);
-            b.bind(SearchPhaseController.class).toInstance(new SearchPhaseController(searchService::aggReduceContextBuilder));
+            b.bind(SearchPhaseController.class)
+                .toInstance(new SearchPhaseController(searchService::aggReduceContextBuilder, namedWriteableRegistry, bigArrays));
             b.bind(Transport.class).toInstance(transport);
             b.bind(TransportService.class).toInstance(transportService);
             b.bind(NodeMetrics.class).toInstance(nodeMetrics);
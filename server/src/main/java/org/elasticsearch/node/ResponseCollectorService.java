@@ -9,6 +9,7 @@
 
 package org.elasticsearch.node;
 
+import org.elasticsearch.TransportVersions;
 import org.elasticsearch.cluster.ClusterChangedEvent;
 import org.elasticsearch.cluster.ClusterStateListener;
 import org.elasticsearch.cluster.node.DiscoveryNode;
@@ -17,6 +18,7 @@ import org.elasticsearch.common.ExponentiallyWeightedMovingAverage;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.network.HandlingTimeTracker;
 import org.elasticsearch.common.util.Maps;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 
@@ -29,7 +31,8 @@ import java.util.concurrent.ConcurrentMap;
 /**
  * Collects statistics about queue size, response time, and service time of
  * tasks executed on each node, making the EWMA of the values available to the
- * coordinating node.
+ * coordinating node. It also keeps the queue latency percentiles reported by
+ * each node and a histogram of the response times observed for each node.
  */
 public final class ResponseCollectorService implements ClusterStateListener {
 
@@ -38,6 +41,22 @@ public final class ResponseCollectorService implements ClusterStateListener {
      */
     public static final double ALPHA = 0.3;
 
+    /**
+     * The number of responses of a node after which its response time histogram forgets half of its history.
+     */
+    static final int RESPONSE_TIME_DECAY_INTERVAL = 200;
+
+    /**
+     * The number of buckets of the response time histograms, which track nanoseconds. The last bucket holds all response times
+     * of more than about 39 hours.
+     */
+    static final int RESPONSE_TIME_BUCKET_COUNT = 48;
+
+    /**
+     * The minimum number of responses of a node for its response time percentiles to be exposed.
+     */
+    static final int MIN_RESPONSE_TIME_SAMPLES = 20;
+
     private final ConcurrentMap<String, NodeStatistics> nodeIdToStats = ConcurrentCollections.newConcurrentMap();
 
     public ResponseCollectorService(ClusterService clusterService) {
@@ -58,17 +77,35 @@ public final class ResponseCollectorService implements ClusterStateListener {
     }
 
     public void addNodeStatistics(String nodeId, int queueSize, long responseTimeNanos, long avgServiceTimeNanos) {
+        addNodeStatistics(nodeId, queueSize, responseTimeNanos, avgServiceTimeNanos, -1, -1);
+    }
+
+    /**
+     * Adds the statistics of a response of the given node, including the median and 99th percentile of the time that tasks recently
+     * spent in its search queue, which are {@code -1} if the node doesn't report them.
+     */
+    public void addNodeStatistics(
+        String nodeId,
+        int queueSize,
+        long responseTimeNanos,
+        long avgServiceTimeNanos,
+        long queueLatencyP50Nanos,
+        long queueLatencyP99Nanos
+    ) {
         nodeIdToStats.compute(nodeId, (id, ns) -> {
             if (ns == null) {
                 ExponentiallyWeightedMovingAverage queueEWMA = new ExponentiallyWeightedMovingAverage(ALPHA, queueSize);
                 ExponentiallyWeightedMovingAverage responseEWMA = new ExponentiallyWeightedMovingAverage(ALPHA, responseTimeNanos);
-                return new NodeStatistics(nodeId, queueEWMA, responseEWMA, avgServiceTimeNanos);
+                ns = new NodeStatistics(nodeId, queueEWMA, responseEWMA, avgServiceTimeNanos);
             } else {
                 ns.queueSize.addValue((double) queueSize);
                 ns.responseTime.addValue((double) responseTimeNanos);
                 ns.serviceTime = avgServiceTimeNanos;
-                return ns;
             }
+            ns.responseTimeHistogram.addHandlingTime(responseTimeNanos);
+            ns.queueLatencyP50 = queueLatencyP50Nanos;
+            ns.queueLatencyP99 = queueLatencyP99Nanos;
+            return ns;
         });
     }
 
@@ -97,7 +134,8 @@ public final class ResponseCollectorService implements ClusterStateListener {
     /**
      * Struct-like class encapsulating a point-in-time snapshot of a particular
      * node's statistics. This includes the EWMA of queue size, response time,
-     * and service time.
+     * and service time, the latest queue latency percentiles reported by the
+     * node and the 95th percentile of its response time.
      */
     public static class ComputedNodeStats implements Writeable {
         // We store timestamps with nanosecond precision, however, the
@@ -112,13 +150,33 @@ public final class ResponseCollectorService implements ClusterStateListener {
         public final int queueSize;
         public final double responseTime;
         public final double serviceTime;
+        // percentiles of the time spent in the search queue of the node and of the response time, -1 if unknown
+        public final long queueLatencyP50;
+        public final long queueLatencyP99;
+        public final long responseTimeP95;
 
         public ComputedNodeStats(String nodeId, int clientNum, int queueSize, double responseTime, double serviceTime) {
+            this(nodeId, clientNum, queueSize, responseTime, serviceTime, -1, -1, -1);
+        }
+
+        public ComputedNodeStats(
+            String nodeId,
+            int clientNum,
+            int queueSize,
+            double responseTime,
+            double serviceTime,
+            long queueLatencyP50,
+            long queueLatencyP99,
+            long responseTimeP95
+        ) {
             this.nodeId = nodeId;
             this.clientNum = clientNum;
             this.queueSize = queueSize;
             this.responseTime = responseTime;
             this.serviceTime = serviceTime;
+            this.queueLatencyP50 = queueLatencyP50;
+            this.queueLatencyP99 = queueLatencyP99;
+            this.responseTimeP95 = responseTimeP95;
         }
 
         ComputedNodeStats(int clientNum, NodeStatistics nodeStats) {
@@ -127,7 +185,10 @@ public final class ResponseCollectorService implements ClusterStateListener {
                 clientNum,
                 (int) nodeStats.queueSize.getAverage(),
                 nodeStats.responseTime.getAverage(),
-                nodeStats.serviceTime
+                nodeStats.serviceTime,
+                nodeStats.queueLatencyP50,
+                nodeStats.queueLatencyP99,
+                nodeStats.responseTimeP95()
             );
         }
 
@@ -137,6 +198,15 @@ public final class ResponseCollectorService implements ClusterStateListener {
             this.queueSize = in.readInt();
             this.responseTime = in.readDouble();
             this.serviceTime = in.readDouble();
+            if (in.getTransportVersion().onOrAfter(TransportVersions.SEARCH_QUEUE_LATENCY_PERCENTILES)) {
+                this.queueLatencyP50 = in.readZLong();
+                this.queueLatencyP99 = in.readZLong();
+                this.responseTimeP95 = in.readZLong();
+            } else {
+                this.queueLatencyP50 = -1;
+                this.queueLatencyP99 = -1;
+                this.responseTimeP95 = -1;
+            }
         }
 
         @Override
@@ -146,6 +216,11 @@ public final class ResponseCollectorService implements ClusterStateListener {
             out.writeInt(this.queueSize);
             out.writeDouble(this.responseTime);
             out.writeDouble(this.serviceTime);
+            if (out.getTransportVersion().onOrAfter(TransportVersions.SEARCH_QUEUE_LATENCY_PERCENTILES)) {
+                out.writeZLong(this.queueLatencyP50);
+                out.writeZLong(this.queueLatencyP99);
+                out.writeZLong(this.responseTimeP95);
+            }
         }
 
         /**
@@ -173,7 +248,19 @@ public final class ResponseCollectorService implements ClusterStateListener {
             double muBarSInverse = serviceTime / FACTOR;
 
             // The final formula
-            return rS - muBarSInverse + Math.pow(qHatS, queueAdjustmentFactor) * muBarSInverse;
+            return rS - muBarSInverse + Math.pow(qHatS, queueAdjustmentFactor) * muBarSInverse + tailQueueLatency();
+        }
+
+        /**
+         * The EWMAs of the formula only capture how long searches take on average on the node. Some nodes have a much longer tail
+         * of queueing than others though, for instance because they periodically run expensive searches that hold the search
+         * threads, so we also penalize nodes by how much longer than usual their slowest tasks waited in the search queue.
+         */
+        private double tailQueueLatency() {
+            if (queueLatencyP50 < 0 || queueLatencyP99 < queueLatencyP50) {
+                return 0;
+            }
+            return (queueLatencyP99 - queueLatencyP50) / FACTOR;
         }
 
         public double rank(long outstandingRequests) {
@@ -191,6 +278,9 @@ public final class ResponseCollectorService implements ClusterStateListener {
             sb.append(", queue: ").append(queueSize);
             sb.append(", response time: ").append(String.format(Locale.ROOT, "%.1f", responseTime));
             sb.append(", service time: ").append(String.format(Locale.ROOT, "%.1f", serviceTime));
+            sb.append(", queue latency p50: ").append(queueLatencyP50);
+            sb.append(", queue latency p99: ").append(queueLatencyP99);
+            sb.append(", response time p95: ").append(responseTimeP95);
             sb.append(", rank: ").append(String.format(Locale.ROOT, "%.1f", rank(1)));
             sb.append(")");
             return sb.toString();
@@ -199,14 +289,18 @@ public final class ResponseCollectorService implements ClusterStateListener {
 
     /**
      * Class encapsulating a node's exponentially weighted queue size, response
-     * time, and service time, however, this class is private and intended only
+     * time, and service time, as well as its queue latency percentiles and
+     * response time histogram, however, this class is private and intended only
      * to be used for the internal accounting of {@code ResponseCollectorService}.
      */
     private static class NodeStatistics {
         final String nodeId;
         final ExponentiallyWeightedMovingAverage queueSize;
         final ExponentiallyWeightedMovingAverage responseTime;
+        final HandlingTimeTracker responseTimeHistogram = new HandlingTimeTracker(RESPONSE_TIME_BUCKET_COUNT, RESPONSE_TIME_DECAY_INTERVAL);
         double serviceTime;
+        long queueLatencyP50 = -1;
+        long queueLatencyP99 = -1;
 
         NodeStatistics(
             String nodeId,
@@ -219,5 +313,14 @@ public final class ResponseCollectorService implements ClusterStateListener {
             this.responseTime = responseTimeEWMA;
             this.serviceTime = serviceTimeEWMA;
         }
+
+        long responseTimeP95() {
+            final long[] histogram = responseTimeHistogram.getHistogram();
+            long count = 0;
+            for (long bucket : histogram) {
+                count += bucket;
+            }
+            return count < MIN_RESPONSE_TIME_SAMPLES ? -1 : HandlingTimeTracker.getPercentile(histogram, 95);
+        }
     }
 }
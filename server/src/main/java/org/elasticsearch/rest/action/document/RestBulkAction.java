@@ -195,7 +195,6 @@ public class RestBulkAction extends BaseRestHandler {
                 return;
             }
 
-            final BytesReference data;
             int bytesConsumed;
             if (chunk.length() == 0) {
                 chunk.close();
@@ -204,17 +203,23 @@ public class RestBulkAction extends BaseRestHandler {
                 try {
                     unParsedChunks.add(chunk);
 
-                    if (unParsedChunks.size() > 1) {
-                        data = CompositeBytesReference.of(unParsedChunks.toArray(new ReleasableBytesReference[0]));
+                    if (isLast == false && parser.endsLine(chunk) == false) {
+                        // A large document arrives in many chunks. Only assemble them once the whole line is there rather than
+                        // building a new composite of all chunks received so far for every chunk.
+                        bytesConsumed = 0;
                     } else {
-                        data = chunk;
-                    }
-
-                    // TODO: Check that the behavior here vs. globalRouting, globalPipeline, globalRequireAlias, globalRequireDatsStream in
-                    // BulkRequest#add is fine
-                    bytesConsumed = parser.parse(data, isLast);
-                    bytesParsed += bytesConsumed;
+                        final BytesReference data;
+                        if (unParsedChunks.size() > 1) {
+                            data = CompositeBytesReference.of(unParsedChunks.toArray(new ReleasableBytesReference[0]));
+                        } else {
+                            data = chunk;
+                        }
 
+                        // TODO: Check that the behavior here vs. globalRouting, globalPipeline, globalRequireAlias, globalRequireDatsStream
+                        // in BulkRequest#add is fine
+                        bytesConsumed = parser.parse(data, isLast);
+                        bytesParsed += bytesConsumed;
+                    }
                 } catch (Exception e) {
                     shortCircuit();
                     new RestToXContentListener<>(channel).onFailure(parseFailureException(e));
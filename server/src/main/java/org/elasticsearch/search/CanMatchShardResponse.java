@@ -9,8 +9,11 @@
 
 package org.elasticsearch.search;
 
+import org.elasticsearch.TransportVersions;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.indices.ShardFieldValueStatsCache;
 import org.elasticsearch.search.sort.MinAndMax;
 
 import java.io.IOException;
@@ -21,22 +24,41 @@ import java.io.IOException;
 public final class CanMatchShardResponse extends SearchPhaseResult {
     private final boolean canMatch;
     private final MinAndMax<?> estimatedMinAndMax;
+    @Nullable
+    private final ShardFieldValueStatsCache.Entry fieldValueStats;
 
     public CanMatchShardResponse(StreamInput in) throws IOException {
         super(in);
         this.canMatch = in.readBoolean();
         estimatedMinAndMax = in.readOptionalWriteable(MinAndMax::new);
+        if (in.getTransportVersion().onOrAfter(TransportVersions.SEARCH_CAN_MATCH_FIELD_VALUE_STATS)) {
+            fieldValueStats = in.readOptionalWriteable(ShardFieldValueStatsCache.Entry::new);
+        } else {
+            fieldValueStats = null;
+        }
     }
 
     public CanMatchShardResponse(boolean canMatch, MinAndMax<?> estimatedMinAndMax) {
+        this(canMatch, estimatedMinAndMax, null);
+    }
+
+    public CanMatchShardResponse(
+        boolean canMatch,
+        MinAndMax<?> estimatedMinAndMax,
+        @Nullable ShardFieldValueStatsCache.Entry fieldValueStats
+    ) {
         this.canMatch = canMatch;
         this.estimatedMinAndMax = estimatedMinAndMax;
+        this.fieldValueStats = fieldValueStats;
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeBoolean(canMatch);
         out.writeOptionalWriteable(estimatedMinAndMax);
+        if (out.getTransportVersion().onOrAfter(TransportVersions.SEARCH_CAN_MATCH_FIELD_VALUE_STATS)) {
+            out.writeOptionalWriteable(fieldValueStats);
+        }
     }
 
     public boolean canMatch() {
@@ -46,4 +68,13 @@ public final class CanMatchShardResponse extends SearchPhaseResult {
     public MinAndMax<?> estimatedMinAndMax() {
         return estimatedMinAndMax;
     }
+
+    /**
+     * Returns the field value stats of the shard if its index is read-only, so that the coordinating node can skip it next time
+     * without sending a can_match request, or {@code null} otherwise.
+     */
+    @Nullable
+    public ShardFieldValueStatsCache.Entry fieldValueStats() {
+        return fieldValueStats;
+    }
 }
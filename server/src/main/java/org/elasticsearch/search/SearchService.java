@@ -12,6 +12,7 @@ package org.elasticsearch.search;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
@@ -28,6 +29,7 @@ import org.elasticsearch.action.search.SearchShardTask;
 import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.action.support.TransportActions;
 import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver.ResolvedExpression;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.service.ClusterService;
@@ -49,6 +51,7 @@ import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.core.IOUtils;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.RefCounted;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.Releasables;
@@ -73,7 +76,9 @@ import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.SearchOperationListener;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.ExecutorSelector;
+import org.elasticsearch.indices.IndicesSegmentAggregationCache;
 import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.indices.ShardFieldValueStatsCache;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService.AllocatedIndices.IndexRemovalReason;
 import org.elasticsearch.script.FieldScript;
@@ -594,12 +599,39 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         final boolean canCache = IndicesService.canCache(request, context);
         context.getSearchExecutionContext().freezeContext();
         if (canCache) {
+            if (canCacheAggregationsPerSegment(request, context)) {
+                indicesService.useSegmentAggregationCache(request, context);
+            }
             indicesService.loadIntoContext(request, context);
         } else {
             QueryPhase.execute(context);
         }
     }
 
+    /**
+     * Can the aggregation results of single segments of a cacheable request be cached? The results of all segments are reduced just
+     * like the results of concurrently collected slices, so this only holds for aggregations that support parallel collection.
+     */
+    private static boolean canCacheAggregationsPerSegment(ShardSearchRequest request, SearchContext context) {
+        if (context.aggregations() == null || context.aggregations().isInSortOrderExecutionRequired()) {
+            return false;
+        }
+        if (context.indexShard()
+            .indexSettings()
+            .getValue(IndicesSegmentAggregationCache.INDEX_CACHE_SEGMENT_AGGREGATIONS_ENABLED_SETTING) == false) {
+            return false;
+        }
+        // terminate_after stops collecting aggregations in the middle of a segment
+        if (context.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER) {
+            return false;
+        }
+        final IndexService indexService = context.readerContext().indexService();
+        final DirectoryReader reader = context.searcher().getDirectoryReader();
+        return request.source()
+            .aggregations()
+            .supportsParallelCollection(field -> DefaultSearchContext.getFieldCardinality(field, indexService, reader));
+    }
+
     public void executeQueryPhase(ShardSearchRequest request, CancellableTask task, ActionListener<SearchPhaseResult> listener) {
         assert request.canReturnNullResponseIfMatchNoDocs() == false || request.numberOfShards() > 1
             : "empty responses require more than one shard";
@@ -769,7 +801,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
             } finally {
                 tracer.stopTrace(task);
             }
-            if (request.numberOfShards() == 1 && (request.source() == null || request.source().rankBuilder() == null)) {
+            if (request.fetchWithQuery()) {
                 // we already have query results, but we can run fetch at the same time
                 context.addFetchResult();
                 return executeFetchPhase(readerContext, context, afterQueryTime);
@@ -1787,6 +1819,33 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
             return getIndexService().getShard(request.shardId().getId());
         }
 
+        /**
+         * Returns the field value stats of the shard if its index is read-only and the searcher sees all its writes, or {@code null}
+         * otherwise. The coordinating node caches the stats across refreshes, so stats of a reader that misses writes that got in
+         * before the index was blocked must not be published. Failures to compute the stats are ignored, the coordinating node will
+         * send a can_match request next time.
+         */
+        @Nullable
+        ShardFieldValueStatsCache.Entry getFieldValueStats(Engine.Searcher searcher) {
+            final IndexMetadata indexMetadata = getIndexService().getMetadata();
+            if (ShardFieldValueStatsCache.isReadOnly(indexMetadata) == false) {
+                return null;
+            }
+            try {
+                if (getShard().hasRefreshPending() || searcher.getDirectoryReader().isCurrent() == false) {
+                    return null;
+                }
+                return new ShardFieldValueStatsCache.Entry(
+                    indexMetadata.getSettingsVersion(),
+                    indexMetadata.getMappingVersion(),
+                    getShard().getFieldValueStats(searcher)
+                );
+            } catch (Exception e) {
+                logger.debug(() -> "failed to compute field value stats of " + request.shardId(), e);
+                return null;
+            }
+        }
+
         IndexService getIndexService() {
             if (this.indexService == null) {
                 this.indexService = indexServiceLookup.apply(request.shardId().getIndex());
@@ -1854,12 +1913,13 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
             try (canMatchSearcher) {
                 SearchExecutionContext context = canMatchContext.getSearchExecutionContext(canMatchSearcher);
                 final boolean canMatch = queryStillMatchesAfterRewrite(canMatchContext.request, context);
+                final ShardFieldValueStatsCache.Entry fieldValueStats = canMatchContext.getFieldValueStats(canMatchSearcher);
                 if (canMatch || hasRefreshPending) {
                     FieldSortBuilder sortBuilder = FieldSortBuilder.getPrimaryFieldSortOrNull(canMatchContext.request.source());
                     final MinAndMax<?> minMax = sortBuilder != null ? FieldSortBuilder.getMinMaxOrNull(context, sortBuilder) : null;
-                    return new CanMatchShardResponse(true, minMax);
+                    return new CanMatchShardResponse(true, minMax, fieldValueStats);
                 }
-                return new CanMatchShardResponse(false, null);
+                return new CanMatchShardResponse(false, null, fieldValueStats);
             }
         } catch (Exception e) {
             return new CanMatchShardResponse(true, null);
@@ -260,6 +260,16 @@ public abstract class AggregationBuilder
         return true;
     }
 
+    /**
+     * Return true if this aggregation, when it is a top level aggregation, can be collected in parallel even though
+     * {@link #supportsParallelCollection} returns false because the results of different slices can't be reduced
+     * precisely. This is the case if its aggregator {@link Aggregator#canMergeSlices() merges the state of the slices}
+     * of a shard before building its result.
+     */
+    public boolean supportsMergingSlices(ToLongFunction<String> fieldCardinalityResolver) {
+        return false;
+    }
+
     /**
      * Called by aggregations whose parents must be sequentially ordered.
      * @param type the type of the aggregation being validated
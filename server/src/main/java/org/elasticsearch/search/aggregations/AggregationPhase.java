@@ -28,11 +28,19 @@ public class AggregationPhase {
         }
         final Supplier<AggregatorCollector> collectorSupplier;
         if (context.aggregations().isInSortOrderExecutionRequired()) {
-            AggregatorCollector collector = newAggregatorCollector(context);
+            AggregatorCollector collector = newAggregatorCollector(context, false);
             executeInSortOrder(context, collector.bucketCollector);
             collectorSupplier = () -> new AggregatorCollector(collector.aggregators, BucketCollector.NO_OP_BUCKET_COLLECTOR);
+        } else if (context.aggregations().getLeafResultCache() != null) {
+            final SearchContextAggregations.LeafResultCache cache = context.aggregations().getLeafResultCache();
+            collectorSupplier = () -> new SegmentCachingAggregatorCollector(
+                () -> newAggregatorCollector(context, false),
+                cache,
+                () -> context.aggregations().getAggregationReduceContextBuilder().forPartialReduction(),
+                context.searcher()::timeExceeded
+            );
         } else {
-            collectorSupplier = () -> newAggregatorCollector(context);
+            collectorSupplier = () -> newAggregatorCollector(context, true);
         }
         context.aggregations()
             .registerAggsCollectorManager(
@@ -44,12 +52,13 @@ public class AggregationPhase {
             );
     }
 
-    private static AggregatorCollector newAggregatorCollector(SearchContext context) {
+    private static AggregatorCollector newAggregatorCollector(SearchContext context, boolean allowMergingSlices) {
         try {
             Aggregator[] aggregators = context.aggregations().factories().createTopLevelAggregators();
             BucketCollector bucketCollector = MultiBucketCollector.wrap(true, List.of(aggregators));
             bucketCollector.preCollection();
-            return new AggregatorCollector(aggregators, bucketCollector);
+            boolean mergeSlices = allowMergingSlices && AggregatorCollector.canMergeSlices(aggregators);
+            return new AggregatorCollector(aggregators, bucketCollector, mergeSlices);
         } catch (IOException e) {
             throw new AggregationInitializationException("Could not initialize aggregators", e);
         }
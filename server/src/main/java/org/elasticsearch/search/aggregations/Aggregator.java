@@ -162,6 +162,29 @@ public abstract class Aggregator extends BucketCollector implements Releasable {
         return buildAggregations(BigArrays.NON_RECYCLING_INSTANCE.newLongArray(1, true))[0];
     }
 
+    /**
+     * Returns true if this top level aggregator can take over what another
+     * instance of the same aggregator collected from a different slice of the
+     * same shard by calling {@link #mergeSlice(Aggregator)}. Merging the slices
+     * of a shard before building the result makes concurrent collection produce
+     * the same result as sequential collection, while reducing the results of
+     * the slices may lose precision, for instance when a {@code terms}
+     * aggregation prunes each slice to its {@code shard_size}.
+     */
+    public boolean canMergeSlices() {
+        return false;
+    }
+
+    /**
+     * Merge the state collected by another instance of this aggregator into
+     * this aggregator. Only called after {@link #postCollection()} ran on both
+     * aggregators and only if {@link #canMergeSlices()} returned true. The
+     * other aggregator is released afterwards.
+     */
+    public void mergeSlice(Aggregator other) throws IOException {
+        throw new UnsupportedOperationException("[" + name() + "] can't merge slices");
+    }
+
     /**
      * Build an empty aggregation.
      */
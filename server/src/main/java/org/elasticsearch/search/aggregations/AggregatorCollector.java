@@ -24,11 +24,36 @@ public class AggregatorCollector implements TwoPhaseCollector {
     final Aggregator[] aggregators;
     final BucketCollector bucketCollector;
     final List<InternalAggregation> internalAggregations;
+    // if true the aggregators are built once the slices of the shard have been merged, see AggregatorCollectorManager#reduce
+    private final boolean mergeSlices;
 
     public AggregatorCollector(Aggregator[] aggregators, BucketCollector bucketCollector) {
+        this(aggregators, bucketCollector, false);
+    }
+
+    /**
+     * @param mergeSlices whether the aggregators should be built after the state that the collectors of the other
+     *                    slices collected has been merged into them instead of straight after collection. All
+     *                    aggregators must {@link Aggregator#canMergeSlices() support merging slices}.
+     */
+    public AggregatorCollector(Aggregator[] aggregators, BucketCollector bucketCollector, boolean mergeSlices) {
+        assert mergeSlices == false || Arrays.stream(aggregators).allMatch(Aggregator::canMergeSlices);
         this.aggregators = aggregators;
         this.bucketCollector = bucketCollector;
         this.internalAggregations = new ArrayList<>(aggregators.length);
+        this.mergeSlices = mergeSlices;
+    }
+
+    /**
+     * Returns true if all the aggregators of this collector support {@link Aggregator#mergeSlice merging slices}.
+     */
+    public static boolean canMergeSlices(Aggregator[] aggregators) {
+        for (Aggregator aggregator : aggregators) {
+            if (aggregator.canMergeSlices() == false) {
+                return false;
+            }
+        }
+        return aggregators.length > 0;
     }
 
     @Override
@@ -44,6 +69,29 @@ public class AggregatorCollector implements TwoPhaseCollector {
     @Override
     public void doPostCollection() throws IOException {
         bucketCollector.postCollection();
+        if (mergeSlices == false) {
+            buildTopLevel();
+        }
+    }
+
+    boolean mergeSlices() {
+        return mergeSlices;
+    }
+
+    /**
+     * Merge the state of the aggregators of another slice into the aggregators of this collector and release them.
+     */
+    void mergeSlice(AggregatorCollector other) throws IOException {
+        assert mergeSlices && other.mergeSlices;
+        assert aggregators.length == other.aggregators.length;
+        for (int i = 0; i < aggregators.length; i++) {
+            aggregators[i].mergeSlice(other.aggregators[i]);
+            // release the aggregator to claim the used bytes as we don't need it anymore
+            other.aggregators[i].releaseAggregations();
+        }
+    }
+
+    void buildTopLevel() throws IOException {
         for (Aggregator aggregator : aggregators) {
             internalAggregations.add(aggregator.buildTopLevel());
             // release the aggregator to claim the used bytes as we don't need it anymore
@@ -42,14 +42,29 @@ public class AggregatorCollectorManager implements CollectorManager<AggregatorCo
 
     @Override
     public Void reduce(Collection<AggregatorCollector> collectors) throws IOException {
-        if (collectors.size() > 1) {
+        // collectors whose aggregators support it are merged into a single collector before building the aggregations.
+        // This is exact, while reducing the aggregations built by each slice may lose precision.
+        AggregatorCollector merged = null;
+        final List<InternalAggregations> internalAggregations = new ArrayList<>(collectors.size());
+        for (AggregatorCollector collector : collectors) {
+            if (collector.mergeSlices() == false) {
+                internalAggregations.add(InternalAggregations.from(collector.internalAggregations));
+            } else if (merged == null) {
+                merged = collector;
+            } else {
+                merged.mergeSlice(collector);
+            }
+        }
+        if (merged != null) {
+            merged.buildTopLevel();
+            internalAggregations.add(InternalAggregations.from(merged.internalAggregations));
+        }
+        if (internalAggregations.size() > 1) {
             // we execute this search using more than one slice. In order to keep memory requirements
             // low, we do a partial reduction here.
-            final List<InternalAggregations> internalAggregations = new ArrayList<>(collectors.size());
-            collectors.forEach(c -> internalAggregations.add(InternalAggregations.from(c.internalAggregations)));
             internalAggregationsConsumer.accept(InternalAggregations.topLevelReduce(internalAggregations, reduceContextSupplier.get()));
-        } else if (collectors.size() == 1) {
-            internalAggregationsConsumer.accept(InternalAggregations.from(collectors.iterator().next().internalAggregations));
+        } else if (internalAggregations.size() == 1) {
+            internalAggregationsConsumer.accept(internalAggregations.get(0));
         }
         return null;
     }
@@ -390,6 +390,23 @@ public class AggregatorFactories {
             return true;
         }
 
+        /**
+         * Return true if these aggregations can be collected in parallel provided that the top level aggregations which don't
+         * {@link #supportsParallelCollection support parallel collection} {@link AggregationBuilder#supportsMergingSlices merge the
+         * slices} of the shard before building their results. Whether slices actually get merged is decided on the built aggregators,
+         * see {@link Aggregator#canMergeSlices()}. Unlike {@link #supportsParallelCollection}, this does not mean that the results of
+         * any partition of the shard can be reduced, which is what caching the results of single segments needs.
+         */
+        public boolean supportsMergingSlices(ToLongFunction<String> fieldCardinalityResolver) {
+            for (AggregationBuilder builder : aggregationBuilders) {
+                if (builder.supportsParallelCollection(fieldCardinalityResolver) == false
+                    && builder.supportsMergingSlices(fieldCardinalityResolver) == false) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
         public Builder addAggregator(AggregationBuilder factory) {
             if (names.add(factory.name) == false) {
                 throw new IllegalArgumentException("Two sibling aggregations cannot have the same name: [" + factory.name + "]");
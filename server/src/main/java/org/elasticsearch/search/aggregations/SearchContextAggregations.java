@@ -8,8 +8,11 @@
  */
 package org.elasticsearch.search.aggregations;
 
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.CollectorManager;
+import org.elasticsearch.core.Nullable;
 
+import java.io.IOException;
 import java.util.function.Supplier;
 
 /**
@@ -20,6 +23,7 @@ public class SearchContextAggregations {
     private final AggregatorFactories factories;
     private final Supplier<AggregationReduceContext.Builder> toAggregationReduceContextBuilder;
     private CollectorManager<AggregatorCollector, Void> aggCollectorManager;
+    private LeafResultCache leafResultCache;
 
     /**
      * Creates a new aggregation context with the parsed aggregator factories
@@ -63,4 +67,37 @@ public class SearchContextAggregations {
     public AggregationReduceContext.Builder getAggregationReduceContextBuilder() {
         return toAggregationReduceContextBuilder.get();
     }
+
+    /**
+     * Sets the cache of the partial aggregation results of single segments that the aggregations phase should use. This must only be
+     * set for aggregations whose results are accurate when collected per segment and reduced afterwards.
+     */
+    public void setLeafResultCache(@Nullable LeafResultCache leafResultCache) {
+        this.leafResultCache = leafResultCache;
+    }
+
+    /**
+     * Returns the cache of the partial aggregation results of single segments, or {@code null} if results must not be cached.
+     */
+    @Nullable
+    public LeafResultCache getLeafResultCache() {
+        return leafResultCache;
+    }
+
+    /**
+     * A cache of the aggregation results of single segments for the aggregations of a request.
+     */
+    public interface LeafResultCache {
+
+        /**
+         * Returns the cached aggregation results of the given segment, or {@code null} if they are not cached.
+         */
+        @Nullable
+        InternalAggregations get(LeafReaderContext leaf) throws IOException;
+
+        /**
+         * Caches the aggregation results of the given segment.
+         */
+        void put(LeafReaderContext leaf, InternalAggregations aggregations) throws IOException;
+    }
 }
@@ -0,0 +1,114 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.ScoreMode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * An {@link AggregatorCollector} that collects every segment with its own set of aggregators, so that the aggregation results of single
+ * segments can be served from and stored in a {@link SearchContextAggregations.LeafResultCache}. Segments whose results are cached are
+ * not collected at all, and the results of all segments are partially reduced once collection is done. When an index keeps growing, this
+ * only aggregates the new segments of a refreshed reader instead of all of its segments.
+ */
+final class SegmentCachingAggregatorCollector extends AggregatorCollector {
+
+    private final Supplier<AggregatorCollector> collectorSupplier;
+    private final SearchContextAggregations.LeafResultCache cache;
+    private final Supplier<AggregationReduceContext> reduceContextSupplier;
+    private final BooleanSupplier timeExceeded;
+    private final ScoreMode scoreMode;
+    private final String description;
+    private final List<InternalAggregations> leafResults = new ArrayList<>();
+    // used for the first segment that is collected, or for the empty results if no segment is collected
+    private AggregatorCollector first;
+    private AggregatorCollector current;
+    private LeafReaderContext currentLeaf;
+
+    SegmentCachingAggregatorCollector(
+        Supplier<AggregatorCollector> collectorSupplier,
+        SearchContextAggregations.LeafResultCache cache,
+        Supplier<AggregationReduceContext> reduceContextSupplier,
+        BooleanSupplier timeExceeded
+    ) {
+        super(new Aggregator[0], BucketCollector.NO_OP_BUCKET_COLLECTOR);
+        this.collectorSupplier = collectorSupplier;
+        this.cache = cache;
+        this.reduceContextSupplier = reduceContextSupplier;
+        this.timeExceeded = timeExceeded;
+        this.first = collectorSupplier.get();
+        this.scoreMode = first.scoreMode();
+        this.description = first.toString();
+    }
+
+    @Override
+    public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+        finishLeaf();
+        final InternalAggregations cached = cache.get(context);
+        if (cached != null) {
+            leafResults.add(cached);
+            throw new CollectionTerminatedException();
+        }
+        if (first != null) {
+            current = first;
+            first = null;
+        } else {
+            current = collectorSupplier.get();
+        }
+        currentLeaf = context;
+        return current.getLeafCollector(context);
+    }
+
+    @Override
+    public ScoreMode scoreMode() {
+        return scoreMode;
+    }
+
+    private void finishLeaf() throws IOException {
+        if (currentLeaf == null) {
+            return;
+        }
+        current.doPostCollection();
+        final InternalAggregations result = InternalAggregations.from(current.internalAggregations);
+        leafResults.add(result);
+        // the last segment may only be partially collected if the search timed out
+        if (timeExceeded.getAsBoolean() == false) {
+            cache.put(currentLeaf, result);
+        }
+        current = null;
+        currentLeaf = null;
+    }
+
+    @Override
+    public void doPostCollection() throws IOException {
+        finishLeaf();
+        if (leafResults.isEmpty()) {
+            first.doPostCollection();
+            internalAggregations.addAll(first.internalAggregations);
+        } else if (leafResults.size() == 1) {
+            internalAggregations.addAll(leafResults.get(0).asList());
+        } else {
+            internalAggregations.addAll(InternalAggregations.topLevelReduce(leafResults, reduceContextSupplier.get()).asList());
+        }
+        leafResults.clear();
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
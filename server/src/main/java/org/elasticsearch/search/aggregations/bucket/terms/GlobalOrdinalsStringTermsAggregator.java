@@ -206,6 +206,30 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
         return resultStrategy.buildEmptyResult();
     }
 
+    /**
+     * The slices of a shard share the global ordinals of the shard's reader, so the buckets that two
+     * slices collected can be merged by global ordinal as long as there are no sub-aggregations.
+     */
+    @Override
+    public boolean canMergeSlices() {
+        return parent == null
+            && subAggregators.length == 0
+            && bucketCountThresholds.getMinDocCount() > 0
+            && resultStrategy instanceof StandardTermsResults;
+    }
+
+    @Override
+    public void mergeSlice(Aggregator other) throws IOException {
+        GlobalOrdinalsStringTermsAggregator slice = (GlobalOrdinalsStringTermsAggregator) other;
+        assert slice.valueCount == valueCount : "slices of the same shard must share global ordinals";
+        slice.collectionStrategy.forEachBucket((globalOrd, bucketOrd) -> {
+            long docCount = slice.bucketDocCount(bucketOrd);
+            if (docCount > 0) {
+                incrementBucketDocCount(collectionStrategy.addGlobalOrd(globalOrd), docCount);
+            }
+        });
+    }
+
     @Override
     public void collectDebugInfo(BiConsumer<String, Object> add) {
         super.collectDebugInfo(add);
@@ -441,6 +465,16 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
          */
         abstract long globalOrdToBucketOrd(long globalOrd);
 
+        /**
+         * Convert a global ordinal of a top level aggregation into a bucket ordinal, adding the bucket if it doesn't exist yet.
+         */
+        abstract long addGlobalOrd(long globalOrd);
+
+        /**
+         * Call the consumer with the global ordinal and bucket ordinal of every bucket of a top level aggregation.
+         */
+        abstract void forEachBucket(BucketOrdConsumer consumer) throws IOException;
+
         /**
          * Create the aggregation result
          */
@@ -451,6 +485,10 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
         void accept(long globalOrd, long bucketOrd, long docCount) throws IOException;
     }
 
+    interface BucketOrdConsumer {
+        void accept(long globalOrd, long bucketOrd) throws IOException;
+    }
+
     /**
      * {@linkplain CollectionStrategy} that just uses the global ordinal as the
      * bucket ordinal.
@@ -494,6 +532,18 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
             return globalOrd;
         }
 
+        @Override
+        long addGlobalOrd(long globalOrd) {
+            return globalOrd;
+        }
+
+        @Override
+        void forEachBucket(BucketOrdConsumer consumer) throws IOException {
+            for (long globalOrd = 0; globalOrd < valueCount; globalOrd++) {
+                consumer.accept(globalOrd, globalOrd);
+            }
+        }
+
         private void collect(BucketInfoConsumer consumer) throws IOException {
             if (excludeDeletedDocs) {
                 forEachExcludeDeletedDocs(consumer);
@@ -661,6 +711,20 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
             return bucketOrds.find(0, globalOrd);
         }
 
+        @Override
+        long addGlobalOrd(long globalOrd) {
+            long bucketOrd = bucketOrds.add(0, globalOrd);
+            return bucketOrd < 0 ? -1 - bucketOrd : bucketOrd;
+        }
+
+        @Override
+        void forEachBucket(BucketOrdConsumer consumer) throws IOException {
+            LongKeyedBucketOrds.BucketOrdsEnum ordsEnum = bucketOrds.ordsEnum(0);
+            while (ordsEnum.next()) {
+                consumer.accept(ordsEnum.value(), ordsEnum.ord());
+            }
+        }
+
         private void collectZeroDocEntriesIfNeeded(long owningBucketOrd) throws IOException {
             if (excludeDeletedDocs) {
                 forEachExcludeDeletedDocs(owningBucketOrd);
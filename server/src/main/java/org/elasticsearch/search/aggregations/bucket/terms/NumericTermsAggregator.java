@@ -146,6 +146,31 @@ public final class NumericTermsAggregator extends TermsAggregator {
         return resultStrategy.buildEmptyResult();
     }
 
+    /**
+     * Buckets are keyed by value, so the buckets that two slices collected can be merged
+     * by value as long as there are no sub-aggregations.
+     */
+    @Override
+    public boolean canMergeSlices() {
+        return parent == null
+            && subAggregators.length == 0
+            && bucketCountThresholds.getMinDocCount() > 0
+            && resultStrategy instanceof StandardTermsResultStrategy<?, ?>;
+    }
+
+    @Override
+    public void mergeSlice(Aggregator other) throws IOException {
+        NumericTermsAggregator slice = (NumericTermsAggregator) other;
+        BucketOrdsEnum ordsEnum = slice.bucketOrds.ordsEnum(0);
+        while (ordsEnum.next()) {
+            long bucketOrd = bucketOrds.add(0, ordsEnum.value());
+            if (bucketOrd < 0) {
+                bucketOrd = -1 - bucketOrd;
+            }
+            incrementBucketDocCount(bucketOrd, slice.bucketDocCount(ordsEnum.ord()));
+        }
+    }
+
     @Override
     public void doClose() {
         Releasables.close(super::doClose, bucketOrds, resultStrategy);
@@ -161,6 +161,23 @@ public class TermsAggregationBuilder extends ValuesSourceAggregationBuilder<Term
         return false;
     }
 
+    /**
+     * Top level terms aggregations without sub-aggregations on a field with global ordinals or on an integral field
+     * merge the buckets of all slices of a shard before pruning them to the shard size, which is as precise as
+     * collecting sequentially, whatever the cardinality of the field. Low cardinality fields are excluded since they
+     * may be aggregated filter by filter, which can't merge slices, and they collect in parallel anyway.
+     */
+    @Override
+    public boolean supportsMergingSlices(ToLongFunction<String> fieldCardinalityResolver) {
+        if (minDocCount() == 0 || script() != null || getSubAggregations().isEmpty() == false || isInSortOrderExecutionRequired()) {
+            return false;
+        }
+        if (executionHint != null && executionHint.equals(TermsAggregatorFactory.ExecutionMode.GLOBAL_ORDINALS.toString()) == false) {
+            return false;
+        }
+        return fieldCardinalityResolver.applyAsLong(field()) > TermsAggregatorFactory.MAX_ORDS_TO_TRY_FILTERS;
+    }
+
     /**
      * Whether a terms aggregation with the provided order and bucket count thresholds against a field
      * with the given cardinality should be executed concurrency.
@@ -2192,7 +2192,10 @@ public final class SearchSourceBuilder implements Writeable, ToXContentObject, R
             }
         }
 
-        return collapse == null && (aggregations == null || aggregations.supportsParallelCollection(fieldCardinality));
+        return collapse == null
+            && (aggregations == null
+                || aggregations.supportsParallelCollection(fieldCardinality)
+                || aggregations.supportsMergingSlices(fieldCardinality));
     }
 
     private void validate() throws ValidationException {
@@ -67,6 +67,10 @@ public class FetchProfiler implements FetchPhase.Profiler {
             @Override
             public LeafStoredFieldLoader getLoader(LeafReaderContext ctx, int[] docs) throws IOException {
                 LeafStoredFieldLoader in = storedFieldLoader.getLoader(ctx, docs);
+                if (docs != null && storedFieldLoader.fieldsToLoad().isEmpty() == false) {
+                    current.addToDebugCount("stored_fields_hits", docs.length);
+                    current.addToDebugCount("stored_fields_block_runs", StoredFieldLoader.countBlockRuns(docs));
+                }
                 return new LeafStoredFieldLoader() {
                     @Override
                     public void advanceTo(int doc) throws IOException {
@@ -171,6 +175,10 @@ public class FetchProfiler implements FetchPhase.Profiler {
             return Map.copyOf(debug);
         }
 
+        void addToDebugCount(String key, int count) {
+            debug.merge(key, count, (a, b) -> (Integer) a + (Integer) b);
+        }
+
         ProfileResult result(long stop) {
             List<ProfileResult> children = subPhases.stream()
                 .sorted(Comparator.comparing(b -> b.type))
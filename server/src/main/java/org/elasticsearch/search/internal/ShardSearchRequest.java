@@ -84,6 +84,7 @@ public class ShardSearchRequest extends TransportRequest implements IndicesReque
     private final OriginalIndices originalIndices;
 
     private boolean canReturnNullResponseIfMatchNoDocs;
+    private boolean speculativeFetch;
     private SearchSortValuesAndFormats bottomSortValues;
 
     // these are the only mutable fields, as they are subject to rewriting
@@ -266,6 +267,7 @@ public class ShardSearchRequest extends TransportRequest implements IndicesReque
         this.clusterAlias = clone.clusterAlias;
         this.allowPartialSearchResults = clone.allowPartialSearchResults;
         this.canReturnNullResponseIfMatchNoDocs = clone.canReturnNullResponseIfMatchNoDocs;
+        this.speculativeFetch = clone.speculativeFetch;
         this.bottomSortValues = clone.bottomSortValues;
         this.originalIndices = clone.originalIndices;
         this.readerId = clone.readerId;
@@ -340,6 +342,9 @@ public class ShardSearchRequest extends TransportRequest implements IndicesReque
              */
             forceSyntheticSource = false;
         }
+        if (in.getTransportVersion().onOrAfter(TransportVersions.SEARCH_SPECULATIVE_FETCH)) {
+            speculativeFetch = in.readBoolean();
+        }
         originalIndices = OriginalIndices.readOriginalIndices(in);
     }
 
@@ -400,6 +405,9 @@ public class ShardSearchRequest extends TransportRequest implements IndicesReque
                 throw new IllegalArgumentException("force_synthetic_source is not supported before 8.4.0");
             }
         }
+        if (asKey == false && out.getTransportVersion().onOrAfter(TransportVersions.SEARCH_SPECULATIVE_FETCH)) {
+            out.writeBoolean(speculativeFetch);
+        }
     }
 
     @Override
@@ -512,6 +520,30 @@ public class ShardSearchRequest extends TransportRequest implements IndicesReque
         this.canReturnNullResponseIfMatchNoDocs = value;
     }
 
+    /**
+     * Returns true if the coordinating node asked this shard to fetch its top hits right after the query phase
+     * and to return them along with the query result, saving the separate fetch round-trip.
+     * The coordinating node only sets this when the hits fetched by the shard are guaranteed to be a superset
+     * of the hits it will pick from that shard. See {@link #fetchWithQuery()}.
+     */
+    public boolean speculativeFetch() {
+        return speculativeFetch;
+    }
+
+    public void speculativeFetch(boolean value) {
+        this.speculativeFetch = value;
+    }
+
+    /**
+     * Returns true if the shard should run the fetch phase directly after the query phase and return a
+     * {@link org.elasticsearch.search.fetch.QueryFetchSearchResult}. This is the case if the search targets a
+     * single shard or if the coordinating node requested a {@link #speculativeFetch() speculative fetch}.
+     * Searches with a rank builder always need a separate fetch phase since the hits are picked after ranking.
+     */
+    public boolean fetchWithQuery() {
+        return (numberOfShards == 1 || speculativeFetch) && (source == null || source.rankBuilder() == null);
+    }
+
     private static final ThreadLocal<BytesStreamOutput> scratch = ThreadLocal.withInitial(BytesStreamOutput::new);
 
     /**
@@ -88,6 +88,16 @@ public class ProfilingAggregator extends Aggregator {
         delegate.releaseAggregations();
     }
 
+    @Override
+    public boolean canMergeSlices() {
+        return delegate.canMergeSlices();
+    }
+
+    @Override
+    public void mergeSlice(Aggregator other) throws IOException {
+        delegate.mergeSlice(other instanceof ProfilingAggregator profiling ? profiling.delegate : other);
+    }
+
     @Override
     public InternalAggregation buildEmptyAggregation() {
         return delegate.buildEmptyAggregation();
@@ -109,6 +109,11 @@ public class QueryPhase {
                     rrfRankResults.add(rrfQuerySearchResult.topDocs().topDocs);
                     serviceTimeEWMA += rrfQuerySearchResult.serviceTimeEWMA();
                     nodeQueueSize = Math.max(nodeQueueSize, rrfQuerySearchResult.nodeQueueSize());
+                    // queue latency percentiles describe the whole node, so the most recent ones are the most accurate
+                    querySearchResult.nodeQueueLatency(
+                        rrfQuerySearchResult.nodeQueueLatencyP50(),
+                        rrfQuerySearchResult.nodeQueueLatencyP99()
+                    );
                     searchTimedOut = rrfQuerySearchResult.searchTimedOut();
                 }
             }
@@ -232,6 +237,7 @@ public class QueryPhase {
             if (executor instanceof TaskExecutionTimeTrackingEsThreadPoolExecutor rExecutor) {
                 queryResult.nodeQueueSize(rExecutor.getCurrentQueueSize());
                 queryResult.serviceTimeEWMA((long) rExecutor.getTaskExecutionEWMA());
+                queryResult.nodeQueueLatency(rExecutor.getQueueLatencyPercentile(50), rExecutor.getQueueLatencyPercentile(99));
             }
         } catch (Exception e) {
             throw new QueryPhaseExecutionException(searchContext.shardTarget(), "Failed to execute main query", e);
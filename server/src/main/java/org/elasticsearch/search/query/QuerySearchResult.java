@@ -67,6 +67,8 @@ public final class QuerySearchResult extends SearchPhaseResult {
     private boolean hasProfileResults;
     private long serviceTimeEWMA = -1;
     private int nodeQueueSize = -1;
+    private long nodeQueueLatencyP50 = -1;
+    private long nodeQueueLatencyP99 = -1;
 
     private final boolean isNull;
 
@@ -353,6 +355,27 @@ public final class QuerySearchResult extends SearchPhaseResult {
         return this;
     }
 
+    /**
+     * The median time (in nanoseconds) that recent tasks spent in the search queue of the node, or {@code -1} if unknown.
+     */
+    public long nodeQueueLatencyP50() {
+        return this.nodeQueueLatencyP50;
+    }
+
+    /**
+     * The 99th percentile of the time (in nanoseconds) that recent tasks spent in the search queue of the node, or {@code -1} if
+     * unknown.
+     */
+    public long nodeQueueLatencyP99() {
+        return this.nodeQueueLatencyP99;
+    }
+
+    public QuerySearchResult nodeQueueLatency(long p50, long p99) {
+        this.nodeQueueLatencyP50 = p50;
+        this.nodeQueueLatencyP99 = p99;
+        return this;
+    }
+
     /**
      * Returns <code>true</code> if this result has any suggest score docs
      */
@@ -406,6 +429,10 @@ public final class QuerySearchResult extends SearchPhaseResult {
             if (in.getTransportVersion().onOrAfter(TransportVersions.V_8_8_0)) {
                 rankShardResult = in.readOptionalNamedWriteable(RankShardResult.class);
             }
+            if (in.getTransportVersion().onOrAfter(TransportVersions.SEARCH_QUEUE_LATENCY_PERCENTILES)) {
+                nodeQueueLatencyP50 = in.readZLong();
+                nodeQueueLatencyP99 = in.readZLong();
+            }
             success = true;
         } finally {
             if (success == false) {
@@ -459,6 +486,10 @@ public final class QuerySearchResult extends SearchPhaseResult {
         } else if (rankShardResult != null) {
             throw new IllegalArgumentException("cannot serialize [rank] to version [" + out.getTransportVersion().toReleaseVersion() + "]");
         }
+        if (out.getTransportVersion().onOrAfter(TransportVersions.SEARCH_QUEUE_LATENCY_PERCENTILES)) {
+            out.writeZLong(nodeQueueLatencyP50);
+            out.writeZLong(nodeQueueLatencyP99);
+        }
     }
 
     @Nullable
@@ -47,6 +47,16 @@ public class DefaultBuiltInExecutorBuilders implements BuiltInExecutorBuilders {
                 new EsExecutors.TaskTrackingConfig(true, indexAutoscalingEWMA)
             )
         );
+        result.put(
+            ThreadPool.Names.WRITE_PARSE,
+            new FixedExecutorBuilder(
+                settings,
+                ThreadPool.Names.WRITE_PARSE,
+                allocatedProcessors,
+                1000,
+                EsExecutors.TaskTrackingConfig.DO_NOT_TRACK
+            )
+        );
         int searchOrGetThreadPoolSize = ThreadPool.searchOrGetThreadPoolSize(allocatedProcessors);
         result.put(
             ThreadPool.Names.GET,
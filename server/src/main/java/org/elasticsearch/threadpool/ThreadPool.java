@@ -87,6 +87,11 @@ public class ThreadPool implements ReportingService<ThreadPoolInfo>, Scheduler,
         public static final String GET = "get";
         public static final String ANALYZE = "analyze";
         public static final String WRITE = "write";
+        /**
+         * Parses the documents of upcoming bulk items ahead of the write thread that applies them, see
+         * {@link org.elasticsearch.index.IndexSettings#BULK_PARSE_LOOKAHEAD_SETTING}.
+         */
+        public static final String WRITE_PARSE = "write_parse";
         public static final String SEARCH = "search";
         public static final String SEARCH_COORDINATION = "search_coordination";
         public static final String AUTO_COMPLETE = "auto_complete";
@@ -150,6 +155,7 @@ public class ThreadPool implements ReportingService<ThreadPoolInfo>, Scheduler,
         entry(Names.GET, ThreadPoolType.FIXED),
         entry(Names.ANALYZE, ThreadPoolType.FIXED),
         entry(Names.WRITE, ThreadPoolType.FIXED),
+        entry(Names.WRITE_PARSE, ThreadPoolType.FIXED),
         entry(Names.SEARCH, ThreadPoolType.FIXED),
         entry(Names.SEARCH_COORDINATION, ThreadPoolType.FIXED),
         entry(Names.AUTO_COMPLETE, ThreadPoolType.FIXED),
@@ -58,6 +58,31 @@ public class ComputedNodeStatsTests extends ESTestCase {
         assertTrue(first.rank(0) < second.rank(1));
     }
 
+    public void testTailQueueLatency() {
+        // A longer tail of queue latencies should result in a larger rank.
+        ComputedNodeStats first = createStats(2, 150, 100, 1, 5);
+        ComputedNodeStats second = createStats(2, 150, 100, 1, 50);
+        assertTrue(first.rank(1) < second.rank(1));
+
+        // Unknown queue latencies don't change the rank.
+        assertThat(createStats(2, 150, 100).rank(1), equalTo(createStats(2, 150, 100, -1, -1).rank(1)));
+        assertThat(createStats(0, 150, 100, 3, 3).rank(0), equalTo(150.0));
+        assertThat(createStats(0, 150, 100, 3, 13).rank(0), equalTo(160.0));
+    }
+
+    private ComputedNodeStats createStats(int queueSize, int responseTimeMillis, int serviceTimeMillis, int p50Millis, int p99Millis) {
+        return new ComputedNodeStats(
+            "node0",
+            5,
+            queueSize,
+            1_000_000 * responseTimeMillis,
+            1_000_000 * serviceTimeMillis,
+            1_000_000L * p50Millis,
+            1_000_000L * p99Millis,
+            -1
+        );
+    }
+
     private ComputedNodeStats createStats(int queueSize, int responseTimeMillis, int serviceTimeMillis) {
         return new ComputedNodeStats("node0", 5, queueSize, 1_000_000 * responseTimeMillis, 1_000_000 * serviceTimeMillis);
     }
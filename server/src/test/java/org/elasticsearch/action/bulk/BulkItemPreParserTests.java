@@ -0,0 +1,191 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.action.bulk;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.support.WriteRequest.RefreshPolicy;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.MapperServiceTestCase;
+import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.plugins.internal.DocumentParsingProvider;
+import org.elasticsearch.plugins.internal.XContentMeteringParserDecorator;
+import org.elasticsearch.xcontent.XContentParser;
+import org.elasticsearch.xcontent.XContentType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class BulkItemPreParserTests extends MapperServiceTestCase {
+
+    private static final ShardId SHARD_ID = new ShardId("index", "_na_", 0);
+
+    public void testParsesIndexItemsAhead() throws Exception {
+        final MapperService mapperService = createMapperService(mapping(b -> b.startObject("field").field("type", "keyword").endObject()));
+        final BulkShardRequest request = bulkRequest(
+            indexRequest("0", "{\"field\":\"a\"}"),
+            new DeleteRequest("index", "1"),
+            indexRequest("2", "{\"field\":\"b\"}").create(true),
+            indexRequest("3", "{\"field\":\"c\"}")
+        );
+        final List<Runnable> scheduled = new ArrayList<>();
+        final Executor executor = r -> {
+            scheduled.add(r);
+            r.run();
+        };
+        final BulkItemPreParser preParser = new BulkItemPreParser(
+            request,
+            mapperService,
+            DocumentParsingProvider.EMPTY_INSTANCE,
+            executor,
+            2
+        );
+
+        preParser.scheduleAhead(0);
+        // the delete is never parsed ahead and the lookahead stops before the last item
+        assertThat(scheduled.size(), equalTo(1));
+        assertThat(preParser.take(1, null), nullValue());
+        final IndexRequest second = (IndexRequest) request.items()[2].request();
+        final ParsedDocument parsed = preParser.take(2, second);
+        assertThat(parsed, notNullValue());
+        assertThat(parsed.id(), equalTo("2"));
+        assertThat(parsed.rootDoc().getField("field").binaryValue(), equalTo(new BytesRef("b")));
+        // a pre-parsed document is handed out once only
+        assertThat(preParser.take(2, second), nullValue());
+
+        preParser.scheduleAhead(2);
+        assertThat(scheduled.size(), equalTo(2));
+        assertThat(preParser.take(3, (IndexRequest) request.items()[3].request()), notNullValue());
+    }
+
+    public void testParsesInlineIfTaskDidNotStart() throws Exception {
+        final MapperService mapperService = createMapperService(mapping(b -> {}));
+        final BulkShardRequest request = bulkRequest(indexRequest("0", "{}"), indexRequest("1", "{}"));
+        final List<Runnable> queue = new ArrayList<>();
+        final BulkItemPreParser preParser = new BulkItemPreParser(
+            request,
+            mapperService,
+            DocumentParsingProvider.EMPTY_INSTANCE,
+            queue::add,
+            randomIntBetween(1, 10)
+        );
+        preParser.scheduleAhead(0);
+        assertThat(queue.size(), equalTo(1));
+        assertThat(preParser.take(1, (IndexRequest) request.items()[1].request()), nullValue());
+        // the cancelled task is a no-op once it gets to run
+        queue.forEach(Runnable::run);
+    }
+
+    public void testParsesInlineIfMappingChanged() throws Exception {
+        final MapperService mapperService = createMapperService(mapping(b -> {}));
+        final BulkShardRequest request = bulkRequest(indexRequest("0", "{}"), indexRequest("1", "{\"field\":\"a\"}"));
+        final BulkItemPreParser preParser = new BulkItemPreParser(
+            request,
+            mapperService,
+            DocumentParsingProvider.EMPTY_INSTANCE,
+            Runnable::run,
+            1
+        );
+        preParser.scheduleAhead(0);
+        merge(mapperService, mapping(b -> b.startObject("field").field("type", "keyword").endObject()));
+        assertThat(preParser.take(1, (IndexRequest) request.items()[1].request()), nullValue());
+    }
+
+    public void testParsesInlineIfParsingFailed() throws Exception {
+        final MapperService mapperService = createMapperService(mapping(b -> b.startObject("field").field("type", "long").endObject()));
+        final BulkShardRequest request = bulkRequest(indexRequest("0", "{}"), indexRequest("1", "{\"field\":\"not a number\"}"));
+        final BulkItemPreParser preParser = new BulkItemPreParser(
+            request,
+            mapperService,
+            DocumentParsingProvider.EMPTY_INSTANCE,
+            Runnable::run,
+            1
+        );
+        preParser.scheduleAhead(0);
+        assertThat(preParser.take(1, (IndexRequest) request.items()[1].request()), nullValue());
+    }
+
+    public void testCloseWaitsForRunningTasks() throws Exception {
+        final MapperService mapperService = createMapperService(mapping(b -> {}));
+        final BulkShardRequest request = bulkRequest(indexRequest("0", "{}"), indexRequest("1", "{}"), indexRequest("2", "{}"));
+        final CountDownLatch parsing = new CountDownLatch(1);
+        final CountDownLatch finishParsing = new CountDownLatch(1);
+        final AtomicInteger parsed = new AtomicInteger();
+        final DocumentParsingProvider documentParsingProvider = new DocumentParsingProvider() {
+            @Override
+            public <T> XContentMeteringParserDecorator newMeteringParserDecorator(IndexRequest indexRequest) {
+                return new XContentMeteringParserDecorator() {
+                    @Override
+                    public long meteredDocumentSize() {
+                        return UNKNOWN_SIZE;
+                    }
+
+                    @Override
+                    public XContentParser decorate(XContentParser xContentParser) {
+                        parsed.incrementAndGet();
+                        parsing.countDown();
+                        safeAwait(finishParsing);
+                        return xContentParser;
+                    }
+                };
+            }
+        };
+        final List<Runnable> queue = new ArrayList<>();
+        final BulkItemPreParser preParser = new BulkItemPreParser(request, mapperService, documentParsingProvider, r -> {
+            if (queue.isEmpty()) {
+                // the first task runs, the other one stays in the queue
+                new Thread(r).start();
+            }
+            queue.add(r);
+        }, 2);
+        preParser.scheduleAhead(0);
+        assertThat(queue.size(), equalTo(2));
+        safeAwait(parsing);
+
+        // the request must not complete while a task still reads its source
+        final CountDownLatch closed = new CountDownLatch(1);
+        final Thread closing = new Thread(() -> {
+            preParser.close();
+            closed.countDown();
+        });
+        closing.start();
+        assertFalse(closed.await(100, TimeUnit.MILLISECONDS));
+        finishParsing.countDown();
+        safeAwait(closed);
+        closing.join();
+
+        // the task that did not start yet was cancelled
+        queue.get(1).run();
+        assertThat(parsed.get(), equalTo(1));
+    }
+
+    private static IndexRequest indexRequest(String id, String source) {
+        return new IndexRequest("index").id(id).source(source, XContentType.JSON);
+    }
+
+    private static BulkShardRequest bulkRequest(DocWriteRequest<?>... requests) {
+        final BulkItemRequest[] items = new BulkItemRequest[requests.length];
+        for (int i = 0; i < requests.length; i++) {
+            items[i] = new BulkItemRequest(i, requests[i]);
+        }
+        return new BulkShardRequest(SHARD_ID, RefreshPolicy.NONE, items);
+    }
+}
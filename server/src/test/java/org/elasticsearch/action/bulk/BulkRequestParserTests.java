@@ -12,7 +12,9 @@ package org.elasticsearch.action.bulk;
 import org.elasticsearch.action.DocWriteRequest;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.core.RestApiVersion;
+import org.elasticsearch.core.Strings;
 import org.elasticsearch.core.UpdateForV10;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.xcontent.XContentType;
@@ -111,6 +113,53 @@ public class BulkRequestParserTests extends ESTestCase {
         assertThat(deleteRequests.size(), equalTo(2));
     }
 
+    public void testIncrementalParsingSkipsChunksWithinLine() throws IOException {
+        ArrayList<IndexRequest> indexRequests = new ArrayList<>();
+
+        BulkRequestParser parser = new BulkRequestParser(randomBoolean(), true, RestApiVersion.current());
+        BulkRequestParser.IncrementalParser incrementalParser = parser.incrementalParser(
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            false,
+            XContentType.JSON,
+            (r, t) -> indexRequests.add(r),
+            req -> fail(),
+            req -> fail()
+        );
+
+        final String value = randomAlphaOfLength(randomIntBetween(100, 10_000));
+        BytesArray request = new BytesArray(Strings.format("""
+            { "index":{ "_id": "bar" } }
+            { "field": "%s" }
+            { "index":{ "_id": "baz" } }
+            { "field": "%s" }
+            """, value, value));
+
+        // feed the request in chunks, and only parse once a chunk terminates a line
+        int consumed = 0;
+        int received = 0;
+        while (received < request.length()) {
+            final int chunkLength = Math.min(randomIntBetween(1, 64), request.length() - received);
+            final BytesReference chunk = request.slice(received, chunkLength);
+            received += chunkLength;
+            final boolean lastData = received == request.length();
+            if (lastData || incrementalParser.endsLine(chunk)) {
+                consumed += incrementalParser.parse(request.slice(consumed, received - consumed), lastData);
+            }
+        }
+        assertThat(consumed, equalTo(request.length()));
+
+        assertThat(indexRequests.size(), equalTo(2));
+        for (IndexRequest indexRequest : indexRequests) {
+            assertThat(indexRequest.sourceAsMap().get("field"), equalTo(value));
+        }
+    }
+
     public void testIndexRequest() throws IOException {
         BytesArray request = new BytesArray("""
             { "index":{ "_id": "bar" } }
@@ -9,18 +9,33 @@
 
 package org.elasticsearch.action.bulk;
 
+import org.elasticsearch.TransportVersion;
+import org.elasticsearch.TransportVersions;
 import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.DocWriteResponse;
 import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.delete.DeleteResponse;
 import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.support.WriteRequest.RefreshPolicy;
+import org.elasticsearch.action.support.replication.TransportReplicationAction;
 import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.core.AbstractRefCounted;
+import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.TransportVersionUtils;
+import org.elasticsearch.xcontent.XContentType;
 
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.apache.lucene.tests.util.TestUtil.randomSimpleString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
 
 public class BulkShardRequestTests extends ESTestCase {
     public void testToString() {
@@ -60,6 +75,126 @@ public class BulkShardRequestTests extends ESTestCase {
         assertThat(bulkShardRequest.getRefreshPolicy(), equalTo(copy.getRefreshPolicy()));
     }
 
+    public void testReplicaSerializationReferencesSource() throws IOException {
+        final String indexName = randomAlphaOfLength(10);
+        final ShardId shardId = new ShardId(indexName, randomAlphaOfLength(10), 0);
+        final BulkItemRequest[] items = new BulkItemRequest[4];
+        final IndexRequest indexRequest = new IndexRequest(indexName).id("0")
+            .routing("r")
+            .source("{\"field\":\"value\"}", XContentType.JSON);
+        items[0] = new BulkItemRequest(0, indexRequest);
+        items[0].setPrimaryResponse(
+            BulkItemResponse.success(0, DocWriteRequest.OpType.INDEX, new IndexResponse(shardId, "0", 10, 2, 3, true))
+        );
+        items[1] = new BulkItemRequest(1, new DeleteRequest(indexName, "1"));
+        items[1].setPrimaryResponse(
+            BulkItemResponse.success(1, DocWriteRequest.OpType.DELETE, new DeleteResponse(shardId, "1", 11, 2, 4, false))
+        );
+        items[2] = new BulkItemRequest(2, new IndexRequest(indexName).id("2").source("{}", XContentType.JSON));
+        items[2].setPrimaryResponse(
+            BulkItemResponse.failure(
+                2,
+                DocWriteRequest.OpType.INDEX,
+                new BulkItemResponse.Failure(indexName, "2", new IllegalArgumentException("boom"), 12, 2)
+            )
+        );
+        items[3] = null;
+        final BulkShardRequest request = new BulkShardRequest(shardId, RefreshPolicy.NONE, items);
+
+        final AtomicBoolean released = new AtomicBoolean();
+        final BulkShardRequest copy;
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            request.writeToReplica(out);
+            final ReleasableBytesReference bytes = new ReleasableBytesReference(
+                out.bytes(),
+                AbstractRefCounted.of(() -> released.set(true))
+            );
+            try (StreamInput in = bytes.streamInput()) {
+                copy = new BulkShardRequest(in);
+            }
+            bytes.decRef();
+        }
+        assertFalse("the copy references the source bytes", released.get());
+
+        assertThat(copy.items().length, equalTo(items.length));
+        final IndexRequest indexCopy = (IndexRequest) copy.items()[0].request();
+        assertThat(indexCopy.id(), equalTo("0"));
+        assertThat(indexCopy.routing(), equalTo("r"));
+        assertThat(indexCopy.index(), equalTo(indexName));
+        assertThat(indexCopy.getContentType(), equalTo(XContentType.JSON));
+        assertThat(indexCopy.source(), equalTo(indexRequest.source()));
+        final DocWriteResponse indexResponse = copy.items()[0].getPrimaryResponse().getResponse();
+        assertThat(indexResponse.getSeqNo(), equalTo(10L));
+        assertThat(indexResponse.getPrimaryTerm(), equalTo(2L));
+        assertThat(indexResponse.getVersion(), equalTo(3L));
+        assertThat(indexResponse.getResult(), equalTo(DocWriteResponse.Result.CREATED));
+
+        assertThat(copy.items()[1].request().id(), equalTo("1"));
+        final DocWriteResponse deleteResponse = copy.items()[1].getPrimaryResponse().getResponse();
+        assertThat(deleteResponse.getSeqNo(), equalTo(11L));
+        assertThat(deleteResponse.getResult(), equalTo(DocWriteResponse.Result.NOT_FOUND));
+
+        final BulkItemResponse.Failure failure = copy.items()[2].getPrimaryResponse().getFailure();
+        assertThat(failure.getSeqNo(), equalTo(12L));
+        assertThat(failure.getMessage(), equalTo(items[2].getPrimaryResponse().getFailure().getMessage()));
+        assertThat(copy.items()[3], nullValue());
+
+        copy.decRef();
+        assertTrue(released.get());
+    }
+
+    public void testReplicaSerializationWithOlderTransportVersion() throws IOException {
+        final BulkShardRequest request = randomBulkShardRequest();
+        final BulkShardRequest copy = copyInstance(
+            request,
+            null,
+            (out, r) -> r.writeToReplica(out),
+            BulkShardRequest::new,
+            TransportVersionUtils.getPreviousVersion(TransportVersions.BULK_SHARD_COMPACT_REPLICA_ITEMS)
+        );
+        assertThat(copy.items().length, equalTo(request.items().length));
+        for (int i = 0; i < request.items().length; i++) {
+            assertThat(copy.items()[i].request().opType(), equalTo(request.items()[i].request().opType()));
+        }
+    }
+
+    public void testPrimaryRetryAfterExecutionOnPrimary() throws IOException {
+        final String indexName = randomAlphaOfLength(10);
+        final ShardId shardId = new ShardId(indexName, randomAlphaOfLength(10), 0);
+        final BulkItemRequest[] items = new BulkItemRequest[2];
+        items[0] = new BulkItemRequest(
+            0,
+            new IndexRequest(indexName).id("0").setIfSeqNo(5).setIfPrimaryTerm(1).setPipeline("pipeline").source("{}", XContentType.JSON)
+        );
+        items[0].setPrimaryResponse(
+            BulkItemResponse.success(0, DocWriteRequest.OpType.INDEX, new IndexResponse(shardId, "0", 6, 1, 2, false))
+        );
+        items[1] = new BulkItemRequest(1, new DeleteRequest(indexName, "1").version(7).versionType(VersionType.EXTERNAL));
+        items[1].setPrimaryResponse(
+            BulkItemResponse.success(1, DocWriteRequest.OpType.DELETE, new DeleteResponse(shardId, "1", 7, 1, 7, true))
+        );
+        // the primary executed the items, replicated them and then failed with a RetryOnPrimaryException, so the very same request is
+        // rerouted to the new primary and must keep all the options the new primary needs to execute it again
+        final BulkShardRequest request = new BulkShardRequest(shardId, RefreshPolicy.NONE, items);
+        copyInstance(request, null, (out, r) -> r.writeToReplica(out), BulkShardRequest::new, TransportVersion.current()).decRef();
+
+        final BulkShardRequest rerouted = copyWriteable(request, null, BulkShardRequest::new);
+        final TransportReplicationAction.ConcreteShardRequest<BulkShardRequest> onPrimary = copyWriteable(
+            new TransportReplicationAction.ConcreteShardRequest<>(request, randomAlphaOfLength(10), 1),
+            null,
+            in -> new TransportReplicationAction.ConcreteShardRequest<>(BulkShardRequest::new, in)
+        );
+        for (BulkShardRequest copy : new BulkShardRequest[] { rerouted, onPrimary.getRequest() }) {
+            final IndexRequest indexCopy = (IndexRequest) copy.items()[0].request();
+            assertThat(indexCopy.ifSeqNo(), equalTo(5L));
+            assertThat(indexCopy.ifPrimaryTerm(), equalTo(1L));
+            assertThat(indexCopy.getPipeline(), equalTo("pipeline"));
+            final DeleteRequest deleteCopy = (DeleteRequest) copy.items()[1].request();
+            assertThat(deleteCopy.version(), equalTo(7L));
+            assertThat(deleteCopy.versionType(), equalTo(VersionType.EXTERNAL));
+        }
+    }
+
     protected BulkShardRequest randomBulkShardRequest() {
         String indexName = randomAlphaOfLength(100);
         ShardId shardId = new ShardId(indexName, randomAlphaOfLength(50), randomInt());
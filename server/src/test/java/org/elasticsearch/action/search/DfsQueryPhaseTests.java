@@ -387,6 +387,6 @@ public class DfsQueryPhaseTests extends ESTestCase {
     }
 
     private SearchPhaseController searchPhaseController() {
-        return new SearchPhaseController((task, request) -> InternalAggregationTestCase.emptyReduceContextBuilder());
+        return new SearchPhaseController((task, request) -> InternalAggregationTestCase.emptyReduceContextBuilder(), writableRegistry());
     }
 }
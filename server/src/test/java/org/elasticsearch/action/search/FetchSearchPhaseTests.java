@@ -91,7 +91,10 @@ public class FetchSearchPhaseTests extends ESTestCase {
     private static final long FETCH_PROFILE_TIME = 555;
 
     public void testShortcutQueryAndFetchOptimization() throws Exception {
-        SearchPhaseController controller = new SearchPhaseController((t, s) -> InternalAggregationTestCase.emptyReduceContextBuilder());
+        SearchPhaseController controller = new SearchPhaseController(
+            (t, s) -> InternalAggregationTestCase.emptyReduceContextBuilder(),
+            writableRegistry()
+        );
         MockSearchPhaseContext mockSearchPhaseContext = new MockSearchPhaseContext(1);
         try (
             SearchPhaseResults<SearchPhaseResult> results = controller.newSearchPhaseResults(
@@ -177,7 +180,10 @@ public class FetchSearchPhaseTests extends ESTestCase {
 
     public void testFetchTwoDocument() throws Exception {
         MockSearchPhaseContext mockSearchPhaseContext = new MockSearchPhaseContext(2);
-        SearchPhaseController controller = new SearchPhaseController((t, s) -> InternalAggregationTestCase.emptyReduceContextBuilder());
+        SearchPhaseController controller = new SearchPhaseController(
+            (t, s) -> InternalAggregationTestCase.emptyReduceContextBuilder(),
+            writableRegistry()
+        );
         try (
             SearchPhaseResults<SearchPhaseResult> results = controller.newSearchPhaseResults(
                 EsExecutors.DIRECT_EXECUTOR_SERVICE,
@@ -290,7 +296,10 @@ public class FetchSearchPhaseTests extends ESTestCase {
 
     public void testFailFetchOneDoc() throws Exception {
         MockSearchPhaseContext mockSearchPhaseContext = new MockSearchPhaseContext(2);
-        SearchPhaseController controller = new SearchPhaseController((t, s) -> InternalAggregationTestCase.emptyReduceContextBuilder());
+        SearchPhaseController controller = new SearchPhaseController(
+            (t, s) -> InternalAggregationTestCase.emptyReduceContextBuilder(),
+            writableRegistry()
+        );
         try (
             SearchPhaseResults<SearchPhaseResult> results = controller.newSearchPhaseResults(
                 EsExecutors.DIRECT_EXECUTOR_SERVICE,
@@ -412,7 +421,10 @@ public class FetchSearchPhaseTests extends ESTestCase {
         // we use at least 2 hits otherwise this is subject to single shard optimization and we trip an assert...
         int numHits = randomIntBetween(2, 100); // also numshards --> 1 hit per shard
         boolean profiled = randomBoolean();
-        SearchPhaseController controller = new SearchPhaseController((t, s) -> InternalAggregationTestCase.emptyReduceContextBuilder());
+        SearchPhaseController controller = new SearchPhaseController(
+            (t, s) -> InternalAggregationTestCase.emptyReduceContextBuilder(),
+            writableRegistry()
+        );
         MockSearchPhaseContext mockSearchPhaseContext = new MockSearchPhaseContext(numHits);
         try (
             SearchPhaseResults<SearchPhaseResult> results = controller.newSearchPhaseResults(
@@ -532,7 +544,10 @@ public class FetchSearchPhaseTests extends ESTestCase {
 
     public void testExceptionFailsPhase() throws Exception {
         MockSearchPhaseContext mockSearchPhaseContext = new MockSearchPhaseContext(2);
-        SearchPhaseController controller = new SearchPhaseController((t, s) -> InternalAggregationTestCase.emptyReduceContextBuilder());
+        SearchPhaseController controller = new SearchPhaseController(
+            (t, s) -> InternalAggregationTestCase.emptyReduceContextBuilder(),
+            writableRegistry()
+        );
         try (
             SearchPhaseResults<SearchPhaseResult> results = controller.newSearchPhaseResults(
                 EsExecutors.DIRECT_EXECUTOR_SERVICE,
@@ -646,7 +661,10 @@ public class FetchSearchPhaseTests extends ESTestCase {
 
     public void testCleanupIrrelevantContexts() throws Exception { // contexts that are not fetched should be cleaned up
         MockSearchPhaseContext mockSearchPhaseContext = new MockSearchPhaseContext(2);
-        SearchPhaseController controller = new SearchPhaseController((t, s) -> InternalAggregationTestCase.emptyReduceContextBuilder());
+        SearchPhaseController controller = new SearchPhaseController(
+            (t, s) -> InternalAggregationTestCase.emptyReduceContextBuilder(),
+            writableRegistry()
+        );
         try (
             SearchPhaseResults<SearchPhaseResult> results = controller.newSearchPhaseResults(
                 EsExecutors.DIRECT_EXECUTOR_SERVICE,
@@ -756,6 +774,124 @@ public class FetchSearchPhaseTests extends ESTestCase {
 
     }
 
+    public void testSpeculativelyFetchedShardsAreNotFetchedAgain() throws Exception {
+        MockSearchPhaseContext mockSearchPhaseContext = new MockSearchPhaseContext(2);
+        SearchPhaseController controller = new SearchPhaseController(
+            (t, s) -> InternalAggregationTestCase.emptyReduceContextBuilder(),
+            writableRegistry()
+        );
+        try (
+            SearchPhaseResults<SearchPhaseResult> results = controller.newSearchPhaseResults(
+                EsExecutors.DIRECT_EXECUTOR_SERVICE,
+                new NoopCircuitBreaker(CircuitBreaker.REQUEST),
+                () -> false,
+                SearchProgressListener.NOOP,
+                mockSearchPhaseContext.getRequest(),
+                2,
+                exc -> {}
+            )
+        ) {
+            int resultSetSize = 2;
+            // the first shard fetched its top hits along with the query, only the first one makes it to the global top hits
+            final ShardSearchContextId ctx1 = new ShardSearchContextId(UUIDs.base64UUID(), 123);
+            SearchShardTarget shard1Target = new SearchShardTarget("node1", new ShardId("test", "na", 0), null);
+            QuerySearchResult queryResult = new QuerySearchResult(ctx1, shard1Target, null);
+            FetchSearchResult fetchResult = new FetchSearchResult();
+            try {
+                queryResult.topDocs(
+                    new TopDocsAndMaxScore(
+                        new TopDocs(
+                            new TotalHits(2, TotalHits.Relation.EQUAL_TO),
+                            new ScoreDoc[] { new ScoreDoc(42, 3.0F), new ScoreDoc(43, 1.0F) }
+                        ),
+                        3.0F
+                    ),
+                    new DocValueFormat[0]
+                );
+                queryResult.size(resultSetSize);
+                fetchResult.setSearchShardTarget(shard1Target);
+                SearchHits hits = SearchHits.unpooled(
+                    new SearchHit[] { SearchHit.unpooled(42), SearchHit.unpooled(43) },
+                    new TotalHits(2, TotalHits.Relation.EQUAL_TO),
+                    3.0F
+                );
+                fetchResult.shardResult(hits, null);
+                QueryFetchSearchResult queryFetchResult = QueryFetchSearchResult.of(queryResult, fetchResult);
+                try {
+                    queryFetchResult.setShardIndex(0);
+                    results.consumeResult(queryFetchResult, () -> {});
+                } finally {
+                    queryFetchResult.decRef();
+                }
+            } finally {
+                queryResult.decRef();
+                fetchResult.decRef();
+            }
+            final ShardSearchContextId ctx2 = new ShardSearchContextId(UUIDs.base64UUID(), 321);
+            SearchShardTarget shard2Target = new SearchShardTarget("node2", new ShardId("test", "na", 1), null);
+            queryResult = new QuerySearchResult(ctx2, shard2Target, null);
+            try {
+                queryResult.topDocs(
+                    new TopDocsAndMaxScore(
+                        new TopDocs(new TotalHits(1, TotalHits.Relation.EQUAL_TO), new ScoreDoc[] { new ScoreDoc(84, 2.0F) }),
+                        2.0F
+                    ),
+                    new DocValueFormat[0]
+                );
+                queryResult.size(resultSetSize);
+                queryResult.setShardIndex(1);
+                results.consumeResult(queryResult, () -> {});
+            } finally {
+                queryResult.decRef();
+            }
+
+            mockSearchPhaseContext.searchTransport = new SearchTransportService(null, null, null) {
+                @Override
+                public void sendExecuteFetch(
+                    Transport.Connection connection,
+                    ShardFetchSearchRequest request,
+                    SearchTask task,
+                    ActionListener<FetchSearchResult> listener
+                ) {
+                    assertThat(request.contextId(), equalTo(ctx2));
+                    assertThat(request.docIds(), equalTo(new int[] { 84 }));
+                    FetchSearchResult fetchResult = new FetchSearchResult();
+                    try {
+                        fetchResult.setSearchShardTarget(shard2Target);
+                        SearchHits hits = SearchHits.unpooled(
+                            new SearchHit[] { SearchHit.unpooled(84) },
+                            new TotalHits(1, TotalHits.Relation.EQUAL_TO),
+                            2.0F
+                        );
+                        fetchResult.shardResult(hits, null);
+                        listener.onResponse(fetchResult);
+                    } finally {
+                        fetchResult.decRef();
+                    }
+                }
+            };
+            SearchPhaseController.ReducedQueryPhase reducedQueryPhase = results.reduce();
+            FetchSearchPhase phase = getFetchSearchPhase(results, mockSearchPhaseContext, reducedQueryPhase);
+            phase.run();
+            mockSearchPhaseContext.assertNoFailure();
+            SearchResponse searchResponse = mockSearchPhaseContext.searchResponse.get();
+            assertNotNull(searchResponse);
+            assertEquals(3, searchResponse.getHits().getTotalHits().value());
+            assertEquals(2, searchResponse.getHits().getHits().length);
+            assertEquals(42, searchResponse.getHits().getAt(0).docId());
+            assertEquals(84, searchResponse.getHits().getAt(1).docId());
+            assertEquals(0, searchResponse.getFailedShards());
+            assertEquals(2, searchResponse.getSuccessfulShards());
+            // the shard that fetched speculatively already released its context
+            assertTrue(mockSearchPhaseContext.releasedSearchContexts.isEmpty());
+        } finally {
+            var resp = mockSearchPhaseContext.searchResponse.get();
+            if (resp != null) {
+                resp.decRef();
+            }
+        }
+    }
+
     private static BiFunction<SearchResponseSections, AtomicArray<SearchPhaseResult>, SearchPhase> searchPhaseFactory(
         MockSearchPhaseContext mockSearchPhaseContext
     ) {
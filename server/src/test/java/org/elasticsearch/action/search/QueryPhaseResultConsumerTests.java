@@ -51,29 +51,32 @@ public class QueryPhaseResultConsumerTests extends ESTestCase {
 
     @Before
     public void setup() {
-        searchPhaseController = new SearchPhaseController((t, s) -> new AggregationReduceContext.Builder() {
-            @Override
-            public AggregationReduceContext forPartialReduction() {
-                return new AggregationReduceContext.ForPartial(
-                    BigArrays.NON_RECYCLING_INSTANCE,
-                    null,
-                    t,
-                    mock(AggregationBuilder.class),
-                    b -> {}
-                );
-            }
-
-            public AggregationReduceContext forFinalReduction() {
-                return new AggregationReduceContext.ForFinal(
-                    BigArrays.NON_RECYCLING_INSTANCE,
-                    null,
-                    t,
-                    mock(AggregationBuilder.class),
-                    b -> {},
-                    PipelineAggregator.PipelineTree.EMPTY
-                );
-            };
-        });
+        searchPhaseController = new SearchPhaseController(
+            (t, s) -> new AggregationReduceContext.Builder() {
+                @Override
+                public AggregationReduceContext forPartialReduction() {
+                    return new AggregationReduceContext.ForPartial(
+                        BigArrays.NON_RECYCLING_INSTANCE,
+                        null,
+                        t,
+                        mock(AggregationBuilder.class),
+                        b -> {}
+                    );
+                }
+
+                public AggregationReduceContext forFinalReduction() {
+                    return new AggregationReduceContext.ForFinal(
+                        BigArrays.NON_RECYCLING_INSTANCE,
+                        null,
+                        t,
+                        mock(AggregationBuilder.class),
+                        b -> {},
+                        PipelineAggregator.PipelineTree.EMPTY
+                    );
+                };
+            },
+            writableRegistry()
+        );
         threadPool = new TestThreadPool(SearchPhaseControllerTests.class.getName());
         executor = EsExecutors.newFixed(
             "test",
@@ -857,7 +857,7 @@ public class RankFeaturePhaseTests extends ESTestCase {
     }
 
     private SearchPhaseController searchPhaseController() {
-        return new SearchPhaseController((task, request) -> InternalAggregationTestCase.emptyReduceContextBuilder());
+        return new SearchPhaseController((task, request) -> InternalAggregationTestCase.emptyReduceContextBuilder(), writableRegistry());
     }
 
     private RankBuilder rankBuilder(
@@ -31,12 +31,16 @@ import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.text.Text;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.MockBigArrays;
+import org.elasticsearch.common.util.MockPageCacheRecycler;
 import org.elasticsearch.common.util.concurrent.AtomicArray;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.common.util.concurrent.EsExecutors.TaskTrackingConfig;
 import org.elasticsearch.common.util.concurrent.EsThreadPoolExecutor;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.lucene.grouping.TopFieldGroups;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchHit;
@@ -85,6 +89,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static java.util.Collections.emptyList;
@@ -107,6 +112,8 @@ public class SearchPhaseControllerTests extends ESTestCase {
     private ThreadPool threadPool;
     private EsThreadPoolExecutor fixedExecutor;
     private SearchPhaseController searchPhaseController;
+    // the bytes of the pooled pages that partial reduce results were serialized into
+    private final AtomicLong pooledBytes = new AtomicLong();
     private List<Boolean> reductions;
 
     @Override
@@ -118,18 +125,39 @@ public class SearchPhaseControllerTests extends ESTestCase {
     @Before
     public void setup() {
         reductions = new CopyOnWriteArrayList<>();
-        searchPhaseController = new SearchPhaseController((t, agg) -> new AggregationReduceContext.Builder() {
-            @Override
-            public AggregationReduceContext forPartialReduction() {
-                reductions.add(false);
-                return new AggregationReduceContext.ForPartial(BigArrays.NON_RECYCLING_INSTANCE, null, t, agg, b -> {});
-            }
+        searchPhaseController = new SearchPhaseController(
+            (t, agg) -> new AggregationReduceContext.Builder() {
+                @Override
+                public AggregationReduceContext forPartialReduction() {
+                    reductions.add(false);
+                    return new AggregationReduceContext.ForPartial(BigArrays.NON_RECYCLING_INSTANCE, null, t, agg, b -> {});
+                }
 
-            public AggregationReduceContext forFinalReduction() {
-                reductions.add(true);
-                return new AggregationReduceContext.ForFinal(BigArrays.NON_RECYCLING_INSTANCE, null, t, agg, b -> {});
-            };
-        });
+                public AggregationReduceContext forFinalReduction() {
+                    reductions.add(true);
+                    return new AggregationReduceContext.ForFinal(BigArrays.NON_RECYCLING_INSTANCE, null, t, agg, b -> {});
+                };
+            },
+            writableRegistry(),
+            new MockBigArrays(new MockPageCacheRecycler(Settings.EMPTY), new NoneCircuitBreakerService() {
+                @Override
+                public CircuitBreaker getBreaker(String name) {
+                    return new NoopCircuitBreaker(name) {
+                        @Override
+                        public void addEstimateBytesAndMaybeBreak(long bytes, String label) {
+                            addWithoutBreaking(bytes);
+                        }
+
+                        @Override
+                        public void addWithoutBreaking(long bytes) {
+                            if (bytes > 0) {
+                                pooledBytes.addAndGet(bytes);
+                            }
+                        }
+                    };
+                }
+            })
+        );
         threadPool = new TestThreadPool(SearchPhaseControllerTests.class.getName());
         fixedExecutor = EsExecutors.newFixed(
             "test",
@@ -1376,6 +1404,83 @@ public class SearchPhaseControllerTests extends ESTestCase {
         assertThat(circuitBreaker.allocated, equalTo(0L));
     }
 
+    public void testPartialReduceNearCircuitBreakerLimit() throws Exception {
+        // the results of partial reduces are serialized since any reservation is above the share of the limit
+        AssertingCircuitBreaker circuitBreaker = new AssertingCircuitBreaker(CircuitBreaker.REQUEST) {
+            @Override
+            public long getLimit() {
+                return 1;
+            }
+        };
+        runMaxPartialReduces(circuitBreaker);
+        assertThat(pooledBytes.get(), greaterThan(0L));
+    }
+
+    public void testPartialReduceFarFromCircuitBreakerLimit() throws Exception {
+        // the common case: the results of partial reduces stay objects and never pay for a round trip through pooled pages
+        AssertingCircuitBreaker circuitBreaker = new AssertingCircuitBreaker(CircuitBreaker.REQUEST) {
+            @Override
+            public long getLimit() {
+                return ByteSizeValue.ofGb(1).getBytes();
+            }
+        };
+        runMaxPartialReduces(circuitBreaker);
+        assertThat(pooledBytes.get(), equalTo(0L));
+    }
+
+    private void runMaxPartialReduces(AssertingCircuitBreaker circuitBreaker) throws Exception {
+        int numShards = randomIntBetween(20, 200);
+        int bufferSize = randomIntBetween(2, numShards - 1);
+        SearchRequest request = new SearchRequest();
+        request.source(new SearchSourceBuilder().aggregation(new MaxAggregationBuilder("test")).size(0));
+        request.setBatchedReduceSize(bufferSize);
+        try (
+            SearchPhaseResults<SearchPhaseResult> consumer = searchPhaseController.newSearchPhaseResults(
+                fixedExecutor,
+                circuitBreaker,
+                () -> false,
+                SearchProgressListener.NOOP,
+                request,
+                numShards,
+                exc -> {}
+            )
+        ) {
+            AtomicInteger max = new AtomicInteger();
+            CountDownLatch latch = new CountDownLatch(numShards);
+            for (int i = 0; i < numShards; i++) {
+                int number = randomIntBetween(1, 1000);
+                max.updateAndGet(prev -> Math.max(prev, number));
+                QuerySearchResult result = new QuerySearchResult(
+                    new ShardSearchContextId("", i),
+                    new SearchShardTarget("node", new ShardId("a", "b", i), null),
+                    null
+                );
+                try {
+                    result.topDocs(
+                        new TopDocsAndMaxScore(new TopDocs(new TotalHits(1, TotalHits.Relation.EQUAL_TO), new ScoreDoc[0]), number),
+                        new DocValueFormat[0]
+                    );
+                    InternalAggregations aggs = InternalAggregations.from(
+                        Collections.singletonList(new Max("test", (double) number, DocValueFormat.RAW, Collections.emptyMap()))
+                    );
+                    result.aggregations(aggs);
+                    result.setShardIndex(i);
+                    result.size(1);
+                    consumer.consumeResult(result, latch::countDown);
+                } finally {
+                    result.decRef();
+                }
+            }
+            latch.await();
+
+            SearchPhaseController.ReducedQueryPhase reduce = consumer.reduce();
+            assertThat(reduce.numReducePhases(), greaterThan(1));
+            Max internalMax = (Max) reduce.aggregations().asList().get(0);
+            assertEquals(max.get(), internalMax.value(), 0.0D);
+        }
+        assertThat(circuitBreaker.allocated, equalTo(0L));
+    }
+
     public void testFailConsumeAggs() throws Exception {
         int expectedNumResults = randomIntBetween(20, 200);
         int bufferSize = randomIntBetween(2, expectedNumResults - 1);
@@ -21,14 +21,17 @@ import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodeUtils;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.lucene.grouping.TopFieldGroups;
+import org.elasticsearch.node.ResponseCollectorService;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.builder.PointInTimeBuilder;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.collapse.CollapseBuilder;
 import org.elasticsearch.search.internal.AliasFilter;
@@ -43,6 +46,7 @@ import org.elasticsearch.transport.Transport;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -65,6 +69,66 @@ public class SearchQueryThenFetchAsyncActionTests extends ESTestCase {
         testCase(false, true);
     }
 
+    public void testCanSpeculativelyFetch() {
+        assertTrue(SearchQueryThenFetchAsyncAction.canSpeculativelyFetch(new SearchRequest(), 10, 100));
+        assertFalse(SearchQueryThenFetchAsyncAction.canSpeculativelyFetch(new SearchRequest(), 11, 100));
+        assertFalse(SearchQueryThenFetchAsyncAction.canSpeculativelyFetch(new SearchRequest(), 10, 0));
+        // single shard searches always fetch along with the query
+        assertFalse(SearchQueryThenFetchAsyncAction.canSpeculativelyFetch(new SearchRequest(), 1, 100));
+
+        assertTrue(SearchQueryThenFetchAsyncAction.canSpeculativelyFetch(requestWithSource(new SearchSourceBuilder().size(5)), 20, 100));
+        assertTrue(SearchQueryThenFetchAsyncAction.canSpeculativelyFetch(requestWithSource(new SearchSourceBuilder().from(0)), 5, 100));
+        assertFalse(SearchQueryThenFetchAsyncAction.canSpeculativelyFetch(requestWithSource(new SearchSourceBuilder().size(0)), 5, 100));
+        assertFalse(SearchQueryThenFetchAsyncAction.canSpeculativelyFetch(requestWithSource(new SearchSourceBuilder().from(5)), 5, 100));
+        assertFalse(
+            SearchQueryThenFetchAsyncAction.canSpeculativelyFetch(
+                requestWithSource(new SearchSourceBuilder().collapse(new CollapseBuilder("field"))),
+                5,
+                100
+            )
+        );
+        assertFalse(
+            SearchQueryThenFetchAsyncAction.canSpeculativelyFetch(new SearchRequest().scroll(TimeValue.timeValueMinutes(1)), 5, 100)
+        );
+    }
+
+    public void testIsRoundTripBound() {
+        assertFalse(SearchQueryThenFetchAsyncAction.isRoundTripBound(Optional.empty()));
+        assertTrue(SearchQueryThenFetchAsyncAction.isRoundTripBound(Optional.of(nodeStats(3_000_000, 1_000_000))));
+        assertTrue(SearchQueryThenFetchAsyncAction.isRoundTripBound(Optional.of(nodeStats(2_000_000, 1_000_000))));
+        assertFalse(SearchQueryThenFetchAsyncAction.isRoundTripBound(Optional.of(nodeStats(1_500_000, 1_000_000))));
+        assertFalse(SearchQueryThenFetchAsyncAction.isRoundTripBound(Optional.of(nodeStats(1_000_000, 0))));
+    }
+
+    public void testCanHedge() {
+        assertTrue(SearchQueryThenFetchAsyncAction.canHedge(new SearchRequest()));
+        assertFalse(SearchQueryThenFetchAsyncAction.canHedge(new SearchRequest().scroll(TimeValue.timeValueMinutes(1))));
+        assertFalse(
+            SearchQueryThenFetchAsyncAction.canHedge(
+                requestWithSource(new SearchSourceBuilder().pointInTimeBuilder(new PointInTimeBuilder(new BytesArray("pit"))))
+            )
+        );
+    }
+
+    public void testHedgeDelay() {
+        assertNull(SearchQueryThenFetchAsyncAction.hedgeDelay(Optional.empty()));
+        assertNull(SearchQueryThenFetchAsyncAction.hedgeDelay(Optional.of(nodeStats(3_000_000, 1_000_000))));
+        assertThat(
+            SearchQueryThenFetchAsyncAction.hedgeDelay(
+                Optional.of(new ResponseCollectorService.ComputedNodeStats("node", 1, 0, 3_000_000, 1_000_000, 10, 20, 5_000_000))
+            ),
+            equalTo(TimeValue.timeValueMillis(5))
+        );
+    }
+
+    private static SearchRequest requestWithSource(SearchSourceBuilder source) {
+        return new SearchRequest().source(source);
+    }
+
+    private static ResponseCollectorService.ComputedNodeStats nodeStats(double responseTime, double serviceTime) {
+        return new ResponseCollectorService.ComputedNodeStats("node", 1, 0, responseTime, serviceTime);
+    }
+
     private void testCase(boolean withScroll, boolean withCollapse) throws Exception {
         final TransportSearchAction.SearchTimeProvider timeProvider = new TransportSearchAction.SearchTimeProvider(
             0,
@@ -171,7 +235,10 @@ public class SearchQueryThenFetchAsyncActionTests extends ESTestCase {
             searchRequest.source().collapse(new CollapseBuilder("collapse_field"));
         }
         searchRequest.allowPartialSearchResults(false);
-        SearchPhaseController controller = new SearchPhaseController((t, r) -> InternalAggregationTestCase.emptyReduceContextBuilder());
+        SearchPhaseController controller = new SearchPhaseController(
+            (t, r) -> InternalAggregationTestCase.emptyReduceContextBuilder(),
+            writableRegistry()
+        );
         SearchTask task = new SearchTask(0, "n/a", "n/a", () -> "test", null, Collections.emptyMap());
         try (
             QueryPhaseResultConsumer resultConsumer = new QueryPhaseResultConsumer(
@@ -201,6 +268,8 @@ public class SearchQueryThenFetchAsyncActionTests extends ESTestCase {
                 new ClusterState.Builder(new ClusterName("test")).build(),
                 task,
                 SearchResponse.Clusters.EMPTY,
+                null,
+                null,
                 null
             ) {
                 @Override
@@ -0,0 +1,249 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.common.cache;
+
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class TinyLfuCacheTests extends ESTestCase {
+
+    public void testBuilder() {
+        Cache<Integer, String> cache = CacheBuilder.<Integer, String>builder()
+            .setEvictionPolicy(CacheBuilder.EvictionPolicy.W_TINY_LFU)
+            .setExpireAfterAccess(TimeValue.timeValueMinutes(1))
+            .build();
+        assertThat(cache, instanceOf(TinyLfuCache.class));
+        assertThat(cache.getExpireAfterAccessNanos(), equalTo(TimeValue.timeValueMinutes(1).nanos()));
+    }
+
+    public void testPutGetAndInvalidate() {
+        List<RemovalNotification<Integer, String>> notifications = new ArrayList<>();
+        Cache<Integer, String> cache = CacheBuilder.<Integer, String>builder()
+            .setEvictionPolicy(CacheBuilder.EvictionPolicy.W_TINY_LFU)
+            .weigher((k, v) -> v.length())
+            .removalListener(notifications::add)
+            .build();
+        cache.put(1, "a");
+        cache.put(2, "bb");
+        cache.put(3, "ccc");
+        assertThat(cache.count(), equalTo(3));
+        assertThat(cache.weight(), equalTo(6L));
+        assertThat(cache.get(2), equalTo("bb"));
+        assertThat(cache.get(4), nullValue());
+        assertThat(cache.stats().getHits(), equalTo(1L));
+        assertThat(cache.stats().getMisses(), equalTo(1L));
+
+        cache.put(2, "b");
+        assertThat(cache.weight(), equalTo(5L));
+        assertThat(notifications.size(), equalTo(1));
+        assertThat(notifications.get(0).getValue(), equalTo("bb"));
+        assertThat(notifications.get(0).getRemovalReason(), equalTo(RemovalNotification.RemovalReason.REPLACED));
+
+        cache.invalidate(1);
+        cache.invalidate(3, "other");
+        assertThat(cache.get(1), nullValue());
+        assertThat(cache.get(3), equalTo("ccc"));
+        assertThat(cache.count(), equalTo(2));
+        assertThat(notifications.size(), equalTo(2));
+        assertThat(notifications.get(1).getKey(), equalTo(1));
+        assertThat(notifications.get(1).getRemovalReason(), equalTo(RemovalNotification.RemovalReason.INVALIDATED));
+
+        for (var iterator = cache.keys().iterator(); iterator.hasNext();) {
+            if (iterator.next() == 3) {
+                iterator.remove();
+            }
+        }
+        assertThat(cache.get(3), nullValue());
+        cache.invalidateAll();
+        assertThat(cache.count(), equalTo(0));
+        assertThat(cache.weight(), equalTo(0L));
+        assertThat(notifications.size(), equalTo(4));
+    }
+
+    public void testEvictsToMaximumWeight() {
+        int maximumWeight = randomIntBetween(10, 1000);
+        Set<Integer> live = new HashSet<>();
+        Cache<Integer, Integer> cache = CacheBuilder.<Integer, Integer>builder()
+            .setEvictionPolicy(CacheBuilder.EvictionPolicy.W_TINY_LFU)
+            .setMaximumWeight(maximumWeight)
+            .weigher((k, v) -> v)
+            .removalListener(notification -> {
+                assertThat(notification.getRemovalReason(), equalTo(RemovalNotification.RemovalReason.EVICTED));
+                assertTrue(live.remove(notification.getKey()));
+            })
+            .build();
+        int numberOfEntries = randomIntBetween(maximumWeight, 10 * maximumWeight);
+        for (int i = 0; i < numberOfEntries; i++) {
+            live.add(i);
+            cache.put(i, randomIntBetween(1, 10));
+            if (randomBoolean()) {
+                cache.get(randomIntBetween(0, i));
+            }
+            assertThat(cache.weight(), lessThanOrEqualTo((long) maximumWeight));
+        }
+        assertThat(cache.count(), equalTo(live.size()));
+        long weight = 0;
+        for (Integer key : live) {
+            weight += cache.get(key);
+        }
+        assertThat(cache.weight(), equalTo(weight));
+    }
+
+    public void testFrequentlyUsedEntriesSurviveScans() throws Exception {
+        int maximumWeight = 100;
+        Cache<Integer, Integer> tinyLfu = CacheBuilder.<Integer, Integer>builder()
+            .setEvictionPolicy(CacheBuilder.EvictionPolicy.W_TINY_LFU)
+            .setMaximumWeight(maximumWeight)
+            .build();
+        Cache<Integer, Integer> lru = CacheBuilder.<Integer, Integer>builder().setMaximumWeight(maximumWeight).build();
+        int hotKeys = maximumWeight / 2;
+        for (Cache<Integer, Integer> cache : List.of(tinyLfu, lru)) {
+            for (int i = 0; i < maximumWeight; i++) {
+                cache.put(i, i);
+            }
+            // every hot key is used every 200 writes of one-off entries, which is not enough to stay in a LRU cache of 100 entries
+            for (int i = 0; i < 10_000; i++) {
+                cache.put(maximumWeight + i, i);
+                if (i % 4 == 0) {
+                    cache.computeIfAbsent((i / 4) % hotKeys, key -> key);
+                }
+            }
+        }
+        int tinyLfuHits = 0;
+        int lruHits = 0;
+        for (int i = 0; i < hotKeys; i++) {
+            tinyLfuHits += tinyLfu.get(i) == null ? 0 : 1;
+            lruHits += lru.get(i) == null ? 0 : 1;
+        }
+        assertThat(tinyLfuHits, greaterThanOrEqualTo(hotKeys * 9 / 10));
+        assertThat(lruHits, lessThanOrEqualTo(hotKeys / 2));
+    }
+
+    public void testExpireAfterAccess() {
+        AtomicLong now = new AtomicLong();
+        List<Integer> evicted = new ArrayList<>();
+        Cache<Integer, String> cache = new TinyLfuCache<>(-1, 10, -1, null, notification -> evicted.add(notification.getKey())) {
+            @Override
+            protected long now() {
+                return now.get();
+            }
+        };
+        cache.put(1, "1");
+        cache.put(2, "2");
+        now.set(8);
+        assertThat(cache.get(1), equalTo("1"));
+        now.set(15);
+        assertThat(cache.get(2), nullValue());
+        assertThat(cache.get(1), equalTo("1"));
+        cache.refresh();
+        assertThat(evicted, equalTo(List.of(2)));
+        assertThat(cache.count(), equalTo(1));
+        now.set(30);
+        cache.refresh();
+        assertThat(evicted, equalTo(List.of(2, 1)));
+        assertThat(cache.count(), equalTo(0));
+    }
+
+    public void testComputeIfAbsentLoadsOnce() throws Exception {
+        Cache<Integer, String> cache = CacheBuilder.<Integer, String>builder()
+            .setEvictionPolicy(CacheBuilder.EvictionPolicy.W_TINY_LFU)
+            .build();
+        int numberOfThreads = randomIntBetween(2, 8);
+        int numberOfKeys = randomIntBetween(1, 100);
+        ConcurrentHashMap<Integer, AtomicInteger> loads = new ConcurrentHashMap<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < numberOfThreads; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < numberOfKeys; i++) {
+                        String value = cache.computeIfAbsent(i, key -> {
+                            loads.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+                            return Integer.toString(key);
+                        });
+                        assertThat(value, equalTo(Integer.toString(i)));
+                    }
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(loads.size(), equalTo(numberOfKeys));
+        for (AtomicInteger count : loads.values()) {
+            assertThat(count.get(), equalTo(1));
+        }
+        assertThat(cache.count(), equalTo(numberOfKeys));
+    }
+
+    public void testConcurrentReadsAndWrites() throws Exception {
+        int maximumWeight = randomIntBetween(10, 500);
+        Cache<Integer, Integer> cache = CacheBuilder.<Integer, Integer>builder()
+            .setEvictionPolicy(CacheBuilder.EvictionPolicy.W_TINY_LFU)
+            .setMaximumWeight(maximumWeight)
+            .build();
+        int numberOfThreads = randomIntBetween(2, 8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger nextValue = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < numberOfThreads; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+                for (int i = 0; i < 5_000; i++) {
+                    int key = randomIntBetween(0, 2 * maximumWeight);
+                    switch (randomIntBetween(0, 9)) {
+                        case 0 -> cache.invalidate(key);
+                        case 1, 2 -> cache.put(key, nextValue.incrementAndGet());
+                        default -> cache.get(key);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        cache.refresh();
+        assertThat(cache.weight(), lessThanOrEqualTo((long) maximumWeight));
+        int count = 0;
+        for (Integer key : cache.keys()) {
+            assertNotNull(cache.get(key));
+            count++;
+        }
+        assertThat(cache.count(), equalTo(count));
+    }
+}
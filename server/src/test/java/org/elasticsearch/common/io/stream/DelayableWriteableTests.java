@@ -11,6 +11,10 @@ package org.elasticsearch.common.io.stream;
 
 import org.elasticsearch.TransportVersion;
 import org.elasticsearch.TransportVersions;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.MockBigArrays;
+import org.elasticsearch.common.util.MockPageCacheRecycler;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.TransportVersionUtils;
 
@@ -117,6 +121,19 @@ public class DelayableWriteableTests extends ESTestCase {
         roundTripTestCase(original, Example::new);
     }
 
+    public void testRoundTripFromDelayedInBigArrays() throws IOException {
+        MockBigArrays bigArrays = new MockBigArrays(new MockPageCacheRecycler(Settings.EMPTY), new NoneCircuitBreakerService());
+        NamedHolder n = new NamedHolder(new Example(randomAlphaOfLength(5)));
+        try (
+            DelayableWriteable<NamedHolder> original = DelayableWriteable.referencing(n)
+                .asSerialized(NamedHolder::new, writableRegistry(), bigArrays)
+        ) {
+            assertTrue(original.isSerialized());
+            assertSame(original, original.asSerialized(NamedHolder::new, writableRegistry(), bigArrays));
+            roundTripTestCase(original, NamedHolder::new);
+        }
+    }
+
     public void testRoundTripFromReferencingWithNamedWriteable() throws IOException {
         NamedHolder n = new NamedHolder(new Example(randomAlphaOfLength(5)));
         DelayableWriteable<NamedHolder> original = DelayableWriteable.referencing(n);
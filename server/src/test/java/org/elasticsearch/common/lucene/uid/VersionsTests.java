@@ -22,6 +22,7 @@ import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.cluster.metadata.DataStream;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.lucene.uid.VersionsAndSeqNoResolver.DocIdAndVersion;
 import org.elasticsearch.index.mapper.IdFieldMapper;
 import org.elasticsearch.index.mapper.SeqNoFieldMapper;
 import org.elasticsearch.index.mapper.VersionFieldMapper;
@@ -30,7 +31,9 @@ import org.elasticsearch.test.ESTestCase;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.elasticsearch.common.lucene.uid.VersionsAndSeqNoResolver.timeSeriesLoadDocIdAndVersion;
 import static org.elasticsearch.index.mapper.TsidExtractingIdFieldMapper.createId;
@@ -139,6 +142,63 @@ public class VersionsTests extends ESTestCase {
         dir.close();
     }
 
+    public void testLoadDocIdsAndVersions() throws IOException {
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(Lucene.STANDARD_ANALYZER));
+        DirectoryReader directoryReader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("foo", "_na_", 1));
+
+        final int numIds = randomIntBetween(1, 50);
+        final Map<String, Long> versions = new HashMap<>();
+        final int numRounds = randomIntBetween(1, 5);
+        for (int round = 0; round < numRounds; round++) {
+            for (int i = 0; i < numIds; i++) {
+                final String id = Integer.toString(i);
+                if (rarely()) {
+                    writer.deleteDocuments(new Term(IdFieldMapper.NAME, id));
+                    versions.remove(id);
+                } else if (randomBoolean()) {
+                    final long version = versions.getOrDefault(id, 0L) + 1;
+                    Document doc = new Document();
+                    doc.add(new StringField(IdFieldMapper.NAME, id, Field.Store.YES));
+                    doc.add(new NumericDocValuesField(VersionFieldMapper.NAME, version));
+                    doc.add(new NumericDocValuesField(SeqNoFieldMapper.NAME, randomNonNegativeLong()));
+                    doc.add(new NumericDocValuesField(SeqNoFieldMapper.PRIMARY_TERM_NAME, randomLongBetween(1, Long.MAX_VALUE)));
+                    writer.updateDocument(new Term(IdFieldMapper.NAME, id), doc);
+                    versions.put(id, version);
+                }
+            }
+            // create a new segment for every round
+            writer.flush();
+        }
+        directoryReader = reopen(directoryReader);
+
+        final BytesRef[] uids = new BytesRef[randomIntBetween(1, numIds * 2)];
+        for (int i = 0; i < uids.length; i++) {
+            uids[i] = new BytesRef(Integer.toString(randomIntBetween(0, numIds * 2)));
+        }
+        final boolean loadSeqNo = randomBoolean();
+        final DocIdAndVersion[] results = VersionsAndSeqNoResolver.loadDocIdsAndVersions(directoryReader, uids, loadSeqNo);
+        assertThat(results.length, equalTo(uids.length));
+        for (int i = 0; i < uids.length; i++) {
+            final Long expectedVersion = versions.get(uids[i].utf8ToString());
+            final DocIdAndVersion single = timeSeriesLoadDocIdAndVersion(directoryReader, uids[i], loadSeqNo);
+            if (expectedVersion == null) {
+                assertThat(results[i], nullValue());
+                assertThat(single, nullValue());
+            } else {
+                assertThat(results[i], notNullValue());
+                assertThat(results[i].version, equalTo(expectedVersion));
+                assertThat(results[i].docId, equalTo(single.docId));
+                assertThat(results[i].docBase, equalTo(single.docBase));
+                assertThat(results[i].seqNo, equalTo(single.seqNo));
+                assertThat(results[i].primaryTerm, equalTo(single.primaryTerm));
+            }
+        }
+        directoryReader.close();
+        writer.close();
+        dir.close();
+    }
+
     /** Test that version map cache works, is evicted on close, etc */
     public void testCache() throws Exception {
         int size = VersionsAndSeqNoResolver.lookupStates.size();
@@ -11,7 +11,13 @@ package org.elasticsearch.common.network;
 
 import org.elasticsearch.test.ESTestCase;
 
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
 
 public class HandlingTimeTrackerTests extends ESTestCase {
 
@@ -73,6 +79,51 @@ public class HandlingTimeTrackerTests extends ESTestCase {
         assertArrayEquals(expectedCounts, handlingTimeTracker.getHistogram());
     }
 
+    public void testBuckets() {
+        int bucketCount = between(2, HandlingTimeTracker.MAX_BUCKET_COUNT);
+        assertThat(HandlingTimeTracker.getBucket(Long.MAX_VALUE, bucketCount), equalTo(bucketCount - 1));
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            long lowerBound = HandlingTimeTracker.getBucketLowerBound(bucket);
+            assertThat(HandlingTimeTracker.getBucket(lowerBound, bucketCount), equalTo(bucket));
+        }
+        assertThat(HandlingTimeTracker.getBucket(Long.MAX_VALUE, HandlingTimeTracker.MAX_BUCKET_COUNT), equalTo(Long.SIZE - 1));
+        expectThrows(IllegalArgumentException.class, () -> new HandlingTimeTracker(1, 0));
+        expectThrows(IllegalArgumentException.class, () -> new HandlingTimeTracker(HandlingTimeTracker.MAX_BUCKET_COUNT + 1, 0));
+        expectThrows(IllegalArgumentException.class, () -> new HandlingTimeTracker(HandlingTimeTracker.BUCKET_COUNT, -1));
+    }
+
+    public void testPercentiles() {
+        HandlingTimeTracker tracker = new HandlingTimeTracker(48, 0);
+        assertThat(tracker.getPercentile(50), equalTo(-1L));
+
+        for (int i = 0; i < 99; i++) {
+            tracker.addHandlingTime(randomLongBetween(1000, 1023));
+        }
+        tracker.addHandlingTime(1_000_000);
+        assertThat(tracker.getPercentile(0), allOf(greaterThanOrEqualTo(512L), lessThan(1024L)));
+        assertThat(tracker.getPercentile(50), allOf(greaterThanOrEqualTo(512L), lessThan(1024L)));
+        assertThat(tracker.getPercentile(99), allOf(greaterThanOrEqualTo(512L), lessThan(1024L)));
+        assertThat(tracker.getPercentile(100), allOf(greaterThanOrEqualTo(524_288L), lessThan(1_048_576L)));
+
+        expectThrows(IllegalArgumentException.class, () -> tracker.getPercentile(101));
+    }
+
+    public void testDecay() {
+        HandlingTimeTracker tracker = new HandlingTimeTracker(48, 10);
+        for (int i = 0; i < 9; i++) {
+            tracker.addHandlingTime(1_000_000);
+        }
+        assertThat(Arrays.stream(tracker.getHistogram()).sum(), equalTo(9L));
+        tracker.addHandlingTime(1_000_000);
+        assertThat(Arrays.stream(tracker.getHistogram()).sum(), equalTo(5L));
+
+        // once times drop, the old ones fade out of the histogram
+        for (int i = 0; i < 100; i++) {
+            tracker.addHandlingTime(10);
+        }
+        assertThat(tracker.getPercentile(99), allOf(greaterThanOrEqualTo(8L), lessThan(16L)));
+    }
+
     public void testBoundsConsistency() {
         final int[] upperBounds = HandlingTimeTracker.getBucketUpperBounds();
         assertThat(upperBounds[0], greaterThan(0));
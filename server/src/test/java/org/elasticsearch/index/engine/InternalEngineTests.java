@@ -1858,6 +1858,67 @@ public class InternalEngineTests extends EngineTestCase {
 
     }
 
+    public void testPrefetchDocVersions() throws IOException {
+        final int numDocs = randomIntBetween(2, 20);
+        final Map<String, Long> versions = new HashMap<>();
+        final List<BytesRef> uids = new ArrayList<>();
+        for (int i = 0; i < numDocs; i++) {
+            final ParsedDocument doc = testParsedDocument(Integer.toString(i), null, testDocument(), B_1, null);
+            uids.add(newUid(doc));
+            if (randomBoolean()) {
+                continue;
+            }
+            final int updates = randomIntBetween(1, 3);
+            for (int v = 0; v < updates; v++) {
+                assertThat(engine.index(indexForDoc(doc)).getVersion(), equalTo(v + 1L));
+            }
+            versions.put(doc.id(), (long) updates);
+            if (randomBoolean()) {
+                engine.refresh("test");
+            }
+        }
+        engine.refresh("test");
+        engine.prefetchDocVersions(uids);
+
+        // a document that is updated and refreshed after the prefetch must not see the prefetched version
+        final ParsedDocument updated = testParsedDocument("0", null, testDocument(), B_1, null);
+        engine.index(indexForDoc(updated));
+        versions.merge("0", 1L, Long::sum);
+        engine.refresh("test");
+
+        for (int i = 0; i < numDocs; i++) {
+            final ParsedDocument doc = testParsedDocument(Integer.toString(i), null, testDocument(), B_1, null);
+            final long expectedVersion = versions.getOrDefault(doc.id(), 0L) + 1;
+            assertThat("document [" + doc.id() + "]", engine.index(indexForDoc(doc)).getVersion(), equalTo(expectedVersion));
+        }
+    }
+
+    public void testPrefetchDocVersionsIsBounded() throws IOException {
+        engine.index(indexForDoc(testParsedDocument("0", null, testDocument(), B_1, null)));
+        engine.refresh("test");
+        final List<BytesRef> uids = new ArrayList<>();
+        for (int i = 0; i < InternalEngine.PrefetchedDocVersions.MAX_SIZE - randomIntBetween(2, 100); i++) {
+            uids.add(Uid.encodeId(Integer.toString(i)));
+        }
+        engine.prefetchDocVersions(uids);
+        assertThat(engine.prefetchedDocVersionsCount(), equalTo(uids.size()));
+
+        // a single bulk cannot grow the prefetched versions beyond the limit
+        final List<BytesRef> more = new ArrayList<>();
+        for (int i = 0; i < randomIntBetween(2, 1000); i++) {
+            more.add(Uid.encodeId("more-" + i));
+        }
+        engine.prefetchDocVersions(more);
+        assertThat(
+            engine.prefetchedDocVersionsCount(),
+            equalTo(Math.min(uids.size() + more.size(), InternalEngine.PrefetchedDocVersions.MAX_SIZE))
+        );
+
+        // once it is full the next bulk starts over
+        engine.prefetchDocVersions(more);
+        assertThat(engine.prefetchedDocVersionsCount(), lessThanOrEqualTo(InternalEngine.PrefetchedDocVersions.MAX_SIZE));
+    }
+
     public void testVersioningCreateExistsException() throws IOException {
         ParsedDocument doc = testParsedDocument("1", null, testDocument(), B_1, null);
         Engine.Index create = new Engine.Index(
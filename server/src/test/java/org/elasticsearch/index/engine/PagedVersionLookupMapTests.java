@@ -0,0 +1,127 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.MockBigArrays;
+import org.elasticsearch.common.util.MockPageCacheRecycler;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.elasticsearch.index.engine.LiveVersionMapTestUtils.randomIndexVersionValue;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.nullValue;
+
+public class PagedVersionLookupMapTests extends ESTestCase {
+
+    private static BigArrays bigArrays() {
+        return new MockBigArrays(new MockPageCacheRecycler(Settings.EMPTY), new NoneCircuitBreakerService());
+    }
+
+    public void testMatchesHashMap() {
+        final Map<BytesRef, VersionValue> expected = new HashMap<>();
+        try (PagedVersionLookupMap map = new PagedVersionLookupMap(bigArrays(), randomIntBetween(0, 100))) {
+            final int iterations = scaledRandomIntBetween(100, 10_000);
+            for (int i = 0; i < iterations; i++) {
+                final BytesRef uid = new BytesRef(Integer.toString(randomIntBetween(0, 500)));
+                switch (randomIntBetween(0, 3)) {
+                    case 0, 1 -> {
+                        final IndexVersionValue value = randomIndexVersionValue();
+                        assertThat(map.put(uid, value), equalTo(expected.put(uid, value)));
+                    }
+                    case 2 -> {
+                        final DeleteVersionValue value = new DeleteVersionValue(
+                            randomNonNegativeLong(),
+                            randomNonNegativeLong(),
+                            randomNonNegativeLong(),
+                            randomNonNegativeLong()
+                        );
+                        assertThat(map.put(uid, value), equalTo(expected.put(uid, value)));
+                    }
+                    default -> assertThat(map.remove(uid), equalTo(expected.remove(uid)));
+                }
+                assertThat(map.get(uid), equalTo(expected.get(uid)));
+                assertThat(map.size(), equalTo(expected.size()));
+            }
+            assertThat(Map.copyOf(map), equalTo(expected));
+            assertThat(map.ramBytesUsed(), greaterThan(0L));
+        }
+    }
+
+    public void testConcurrentReads() {
+        try (PagedVersionLookupMap map = new PagedVersionLookupMap(bigArrays(), 0)) {
+            final int uids = scaledRandomIntBetween(100, 5_000);
+            final AtomicInteger written = new AtomicInteger();
+            runInParallel(randomIntBetween(2, 5), t -> {
+                if (t == 0) {
+                    for (int i = 0; i < uids; i++) {
+                        map.put(new BytesRef(Integer.toString(i)), new IndexVersionValue(null, i, i, 1));
+                        // rewrite an earlier uid with the same values while new uids grow the arrays underneath the readers
+                        final int earlier = randomIntBetween(0, i);
+                        map.put(new BytesRef(Integer.toString(earlier)), new IndexVersionValue(null, earlier, earlier, 1));
+                        written.set(i + 1);
+                    }
+                } else {
+                    int upTo;
+                    while ((upTo = written.get()) < uids) {
+                        if (upTo > 0) {
+                            final int uid = randomIntBetween(0, upTo - 1);
+                            final VersionValue value = map.get(new BytesRef(Integer.toString(uid)));
+                            assertNotNull(value);
+                            assertThat(value.version, equalTo((long) uid));
+                            assertThat(value.seqNo, equalTo((long) uid));
+                        }
+                    }
+                }
+            });
+            assertThat(map.size(), equalTo(uids));
+        }
+    }
+
+    public void testReleasedMapIsEmpty() {
+        final PagedVersionLookupMap map = new PagedVersionLookupMap(bigArrays(), 0);
+        final BytesRef uid = new BytesRef("test");
+        map.put(uid, randomIndexVersionValue());
+        map.close();
+        assertThat(map.get(uid), nullValue());
+        assertThat(map.remove(uid), nullValue());
+        assertTrue(map.entrySet().isEmpty());
+        expectThrows(IllegalStateException.class, () -> map.put(uid, randomIndexVersionValue()));
+    }
+
+    public void testLiveVersionMapReleasesPagedLookups() throws IOException {
+        final LiveVersionMap map = new LiveVersionMap(LiveVersionMapArchive.NOOP_ARCHIVE, bigArrays());
+        final int refreshes = randomIntBetween(1, 5);
+        for (int r = 0; r < refreshes; r++) {
+            for (int i = 0; i < 100; i++) {
+                final BytesRef uid = new BytesRef(r + "_" + i);
+                final IndexVersionValue value = randomIndexVersionValue();
+                try (Releasable ignored = map.acquireLock(uid)) {
+                    map.putIndexUnderLock(uid, value);
+                    assertThat(map.getUnderLock(uid), equalTo(value));
+                }
+            }
+            assertThat(map.reclaimableRefreshRamBytes(), greaterThan(0L));
+            map.beforeRefresh();
+            map.afterRefresh(true);
+        }
+        // all lookups but the current one have been released on refresh, the current one is released when the map is cleared
+        map.clear();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.LogByteSizeMergePolicy;
+import org.apache.lucene.index.MergePolicy;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.SerialMergeScheduler;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.tests.index.BaseMergePolicyTestCase;
+import org.elasticsearch.cluster.metadata.DataStream;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.core.TimeValue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+public class TimestampRangeMergePolicyTests extends BaseMergePolicyTestCase {
+
+    private static final long HOT_TIME_RANGE_MILLIS = 10_000;
+
+    public void testNeverMergesHotAndColdSegments() throws IOException {
+        final Map<String, TimestampRangeMergePolicy.TimestampRange> ranges = ConcurrentCollections.newConcurrentMap();
+        final LogByteSizeMergePolicy logMergePolicy = new LogByteSizeMergePolicy();
+        // no merges while the segments are written
+        logMergePolicy.setMergeFactor(1000);
+        try (Directory dir = newDirectory()) {
+            final IndexWriterConfig iwc = newIndexWriterConfig();
+            iwc.setMergeScheduler(new SerialMergeScheduler());
+            iwc.setMaxFullFlushMergeWaitMillis(0L);
+            iwc.setMergePolicy(
+                new TimestampRangeMergePolicy(logMergePolicy, ranges, () -> TimeValue.timeValueMillis(HOT_TIME_RANGE_MILLIS))
+            );
+            try (IndexWriter writer = new IndexWriter(dir, iwc)) {
+                // cold segments hold timestamps up to 10s, hot ones start at 100s, and segments are flushed in random order
+                final List<Long> segmentStarts = new ArrayList<>();
+                final int numSegments = randomIntBetween(3, 8);
+                for (int i = 0; i < numSegments; i++) {
+                    segmentStarts.add(i * 1_000L);
+                    segmentStarts.add(100_000L + i * 1_000L);
+                }
+                Collections.shuffle(segmentStarts, random());
+                for (long start : segmentStarts) {
+                    for (int doc = 0; doc < 10; doc++) {
+                        final Document document = new Document();
+                        document.add(new LongPoint(DataStream.TIMESTAMP_FIELD_NAME, start + doc * 10));
+                        writer.addDocument(document);
+                    }
+                    writer.flush();
+                }
+                try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                    assertThat(reader.leaves().size(), equalTo(segmentStarts.size()));
+                    TimestampRangeMergePolicy.updateTimestampRanges(ranges, reader);
+                    assertThat(ranges.size(), equalTo(segmentStarts.size()));
+                }
+
+                logMergePolicy.setMergeFactor(2);
+                writer.maybeMerge();
+                try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                    assertThat(reader.leaves().size(), lessThan(segmentStarts.size()));
+                    final long hotFrom = 100_000L + (numSegments - 1) * 1_000L + 90 - HOT_TIME_RANGE_MILLIS;
+                    for (LeafReaderContext leaf : reader.leaves()) {
+                        final PointValues pointValues = leaf.reader().getPointValues(DataStream.TIMESTAMP_FIELD_NAME);
+                        final long min = LongPoint.decodeDimension(pointValues.getMinPackedValue(), 0);
+                        final long max = LongPoint.decodeDimension(pointValues.getMaxPackedValue(), 0);
+                        assertThat("segment [" + min + ", " + max + "] mixes hot and cold data", min < hotFrom, equalTo(max < hotFrom));
+                    }
+                    TimestampRangeMergePolicy.updateTimestampRanges(ranges, reader);
+                    assertThat(ranges.size(), equalTo(reader.leaves().size()));
+                }
+            }
+        }
+    }
+
+    @Override
+    protected MergePolicy mergePolicy() {
+        return new TimestampRangeMergePolicy(
+            newLogMergePolicy(),
+            ConcurrentCollections.newConcurrentMap(),
+            () -> TimeValue.timeValueMillis(HOT_TIME_RANGE_MILLIS)
+        );
+    }
+
+    @Override
+    protected void assertSegmentInfos(MergePolicy policy, SegmentInfos infos) throws IOException {}
+
+    @Override
+    protected void assertMerge(MergePolicy policy, MergePolicy.MergeSpecification merge) throws IOException {}
+}
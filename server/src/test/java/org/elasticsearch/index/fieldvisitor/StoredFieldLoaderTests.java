@@ -0,0 +1,112 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.index.fieldvisitor;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.index.mapper.IdFieldMapper;
+import org.elasticsearch.index.mapper.SourceFieldMapper;
+import org.elasticsearch.index.mapper.Uid;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class StoredFieldLoaderTests extends ESTestCase {
+
+    public void testBlockAwareReaderLoadsSameFieldsAsPlainReader() throws IOException {
+        final int gap = StoredFieldLoader.MAX_DOC_GAP_IN_BLOCK;
+        final int numDocs = randomIntBetween(gap * 20, gap * 100);
+        try (Directory dir = newDirectory()) {
+            try (IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig())) {
+                for (int i = 0; i < numDocs; i++) {
+                    final Document doc = new Document();
+                    doc.add(new StoredField(IdFieldMapper.NAME, Uid.encodeId(Integer.toString(i))));
+                    final String source = "{\"field\":\"" + randomAlphaOfLength(between(1, 2000)) + "\"}";
+                    doc.add(new StoredField(SourceFieldMapper.NAME, new BytesRef(source.getBytes(StandardCharsets.UTF_8))));
+                    doc.add(new StoredField("field", "value-" + i));
+                    writer.addDocument(doc);
+                }
+                writer.forceMerge(1);
+            }
+            // the sequential reader is only used by readers that provide it
+            final DirectoryReader directoryReader = DirectoryReader.open(dir);
+            try (
+                DirectoryReader reader = randomBoolean()
+                    ? ElasticsearchDirectoryReader.wrap(directoryReader, new ShardId("index", "_na_", 0))
+                    : directoryReader
+            ) {
+                final LeafReaderContext ctx = reader.leaves().get(0);
+                final int[] docs = randomDocsWithMixedGaps(numDocs);
+                assertThat(StoredFieldLoader.countBlockRuns(docs), greaterThan(1));
+
+                final StoredFieldLoader loader = StoredFieldLoader.create(true, Set.of("field"));
+                final LeafStoredFieldLoader plain = loader.getLoader(ctx, null);
+                final LeafStoredFieldLoader blockAware = loader.getLoader(ctx, docs);
+                for (int doc : docs) {
+                    plain.advanceTo(doc);
+                    blockAware.advanceTo(doc);
+                    assertSameFields(doc, plain, blockAware);
+                }
+
+                // documents that are not part of the set, or are loaded out of order, are still loaded correctly
+                final int other = randomIntBetween(0, numDocs - 1);
+                plain.advanceTo(other);
+                blockAware.advanceTo(other);
+                assertSameFields(other, plain, blockAware);
+            }
+        }
+    }
+
+    /**
+     * Returns sorted documents whose gaps are at, just below and just above {@link StoredFieldLoader#MAX_DOC_GAP_IN_BLOCK}, or much
+     * larger, so that they form runs of documents that share blocks as well as isolated documents.
+     */
+    private static int[] randomDocsWithMixedGaps(int numDocs) {
+        final int gap = StoredFieldLoader.MAX_DOC_GAP_IN_BLOCK;
+        final List<Integer> docs = new ArrayList<>();
+        int doc = randomIntBetween(0, gap);
+        // start with an isolated document so that there is at least one run boundary
+        docs.add(doc);
+        doc += gap + 1;
+        while (doc < numDocs) {
+            docs.add(doc);
+            doc += switch (between(0, 4)) {
+                case 0 -> 1;
+                case 1 -> between(2, gap - 1);
+                case 2 -> gap;
+                case 3 -> gap + 1;
+                default -> between(gap + 2, gap * 10);
+            };
+        }
+        return docs.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static void assertSameFields(int doc, LeafStoredFieldLoader expected, LeafStoredFieldLoader actual) {
+        // merges may reorder documents, so they are only compared with what the plain reader loads
+        assertNotNull("id of doc [" + doc + "]", expected.id());
+        assertThat("id of doc [" + doc + "]", actual.id(), equalTo(expected.id()));
+        assertThat("source of doc [" + doc + "]", actual.source(), equalTo(expected.source()));
+        assertThat("fields of doc [" + doc + "]", actual.storedFields(), equalTo(expected.storedFields()));
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.index.shard;
+
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class AdaptiveRefreshControllerTests extends ESTestCase {
+
+    private static final long MIN_INTERVAL = 1_000;
+    private static final long MAX_INTERVAL = 30_000;
+
+    private final AdaptiveRefreshController controller = new AdaptiveRefreshController();
+    private long now = randomLongBetween(0, 1_000_000);
+    private long ops;
+    private long refreshes;
+    private long refreshNanos;
+    private long searcherAccess = now;
+
+    public void testRefreshesAtConfiguredIntervalWithoutIndexing() {
+        assertTrue(sample());
+        for (int i = 0; i < 20; i++) {
+            tick(MIN_INTERVAL);
+            assertTrue(sample());
+            assertThat(controller.getIntervalMillis(), equalTo(MIN_INTERVAL));
+        }
+    }
+
+    public void testRefreshesAtConfiguredIntervalWhenSearchedFrequently() {
+        assertTrue(sample());
+        for (int i = 0; i < 20; i++) {
+            tick(MIN_INTERVAL);
+            ops += 1000;
+            searcherAccess = now - randomLongBetween(0, 100);
+            assertTrue(sample());
+            refreshes++;
+        }
+        assertThat(controller.getIntervalMillis(), equalTo(MIN_INTERVAL));
+        assertThat(controller.getIndexingRate(), greaterThan(0.0));
+    }
+
+    public void testFollowsSearchDemandWhileIndexing() {
+        assertTrue(sample());
+        int refreshed = 0;
+        for (int i = 1; i <= 100; i++) {
+            tick(MIN_INTERVAL);
+            ops += 1000;
+            if (i % 10 == 0) {
+                searcherAccess = now;
+            }
+            if (sample()) {
+                refreshed++;
+            }
+        }
+        assertThat(controller.getIntervalMillis(), equalTo(10 * MIN_INTERVAL));
+        assertThat(refreshed, lessThanOrEqualTo(15));
+    }
+
+    public void testRarelySearchedShardUsesMaxInterval() {
+        assertTrue(sample());
+        int refreshed = 0;
+        for (int i = 0; i < 90; i++) {
+            tick(MIN_INTERVAL);
+            ops += 1000;
+            if (sample()) {
+                refreshed++;
+            }
+        }
+        assertThat(controller.getIntervalMillis(), equalTo(MAX_INTERVAL));
+        assertThat(refreshed, equalTo(3));
+    }
+
+    public void testSpreadsOutExpensiveRefreshes() {
+        assertTrue(sample());
+        for (int i = 0; i < 20; i++) {
+            tick(MIN_INTERVAL);
+            ops += 1000;
+            searcherAccess = now;
+            // every refresh takes 500ms, which is above the budget for a 1s interval
+            refreshes++;
+            refreshNanos += TimeUnit.MILLISECONDS.toNanos(500);
+            sample();
+        }
+        assertThat(controller.getIntervalMillis(), equalTo(5_000L));
+    }
+
+    public void testNeverExceedsBounds() {
+        final long max = randomLongBetween(MIN_INTERVAL, MAX_INTERVAL);
+        for (int i = 0; i < 100; i++) {
+            tick(randomLongBetween(1, 5_000));
+            ops += randomIntBetween(0, 1000);
+            if (randomBoolean()) {
+                searcherAccess = now;
+            }
+            if (randomBoolean()) {
+                refreshes++;
+                refreshNanos += TimeUnit.MILLISECONDS.toNanos(randomLongBetween(0, 10_000));
+            }
+            controller.shouldRefresh(now, ops, refreshes, refreshNanos, searcherAccess, MIN_INTERVAL, max);
+            assertThat(controller.getIntervalMillis(), lessThanOrEqualTo(max));
+            assertThat(controller.getIntervalMillis(), greaterThan(MIN_INTERVAL - 1));
+        }
+    }
+
+    private void tick(long millis) {
+        now += millis;
+    }
+
+    private boolean sample() {
+        return controller.shouldRefresh(now, ops, refreshes, refreshNanos, searcherAccess, MIN_INTERVAL, MAX_INTERVAL);
+    }
+}
@@ -4147,6 +4147,40 @@ public class IndexShardTests extends IndexShardTestCase {
         closeShards(primary);
     }
 
+    public void testDeferredScheduledRefreshIsPending() throws Exception {
+        Settings settings = Settings.builder()
+            .put(indexSettings(IndexVersion.current(), 1, 1).build())
+            .put(IndexSettings.INDEX_REFRESH_ADAPTIVE_ENABLED_SETTING.getKey(), true)
+            .build();
+        IndexMetadata metadata = IndexMetadata.builder("test").putMapping("""
+            { "properties": { "foo":  { "type": "text"}}}""").settings(settings).primaryTerm(0, 1).build();
+        IndexShard primary = newShard(new ShardId(metadata.getIndex(), 0), true, "n1", metadata, null);
+        recoverShardFromStore(primary);
+        indexDoc(primary, "_doc", "0", "{\"foo\" : \"bar\"}");
+        // the first sample of the adaptive refresh interval always refreshes
+        PlainActionFuture<Boolean> future = new PlainActionFuture<>();
+        primary.scheduledRefresh(future);
+        assertTrue(future.actionGet());
+        long lastRefresh = primary.getThreadPool().relativeTimeInMillis();
+
+        // the shard is indexed into but not searched, so the next scheduled refresh is deferred
+        indexDoc(primary, "_doc", "1", "{\"foo\" : \"bar\"}");
+        assertBusy(() -> assertThat(primary.getThreadPool().relativeTimeInMillis(), greaterThan(lastRefresh)));
+        PlainActionFuture<Boolean> future2 = new PlainActionFuture<>();
+        primary.scheduledRefresh(future2);
+        assertFalse(future2.actionGet());
+        assertTrue(primary.getEngine().refreshNeeded());
+        assertTrue(primary.hasRefreshPending());
+
+        // a search forces the deferred refresh
+        primary.ensureShardSearchActive(registered -> assertTrue(registered));
+        assertBusy(() -> assertFalse(primary.hasRefreshPending()));
+        try (Engine.Searcher searcher = primary.acquireSearcher("test")) {
+            assertEquals(2, searcher.getIndexReader().numDocs());
+        }
+        closeShards(primary);
+    }
+
     public void testRefreshIsNeededWithRefreshListeners() throws IOException, InterruptedException {
         Settings settings = indexSettings(IndexVersion.current(), 1, 1).build();
         IndexMetadata metadata = IndexMetadata.builder("test").putMapping("""
@@ -0,0 +1,129 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.index.shard;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.analysis.AnalyzerScope;
+import org.elasticsearch.index.analysis.IndexAnalyzers;
+import org.elasticsearch.index.analysis.LowercaseNormalizer;
+import org.elasticsearch.index.analysis.NamedAnalyzer;
+import org.elasticsearch.index.mapper.MappedFieldType.Relation;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.MapperServiceTestCase;
+import org.elasticsearch.index.query.QueryRewriteContext;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+public class ShardFieldValueStatsTests extends MapperServiceTestCase {
+
+    @Override
+    protected IndexAnalyzers createIndexAnalyzers(IndexSettings indexSettings) {
+        return IndexAnalyzers.of(
+            Map.of("default", new NamedAnalyzer("default", AnalyzerScope.INDEX, new StandardAnalyzer())),
+            Map.of("lowercase", new NamedAnalyzer("lowercase", AnalyzerScope.INDEX, new LowercaseNormalizer())),
+            Map.of()
+        );
+    }
+
+    public void testCompute() throws IOException {
+        MapperService mapperService = createMapperService(mapping(b -> {
+            b.startObject("num").field("type", "long").endObject();
+            b.startObject("price").field("type", "float").endObject();
+            b.startObject("ts").field("type", "date").endObject();
+            b.startObject("tag").field("type", "keyword").endObject();
+            b.startObject("id").field("type", "keyword").endObject();
+            b.startObject("empty").field("type", "keyword").endObject();
+            b.startObject("not_indexed").field("type", "long").field("index", false).endObject();
+            b.startObject("normalized").field("type", "keyword").field("normalizer", "lowercase").endObject();
+        }));
+        withLuceneIndex(mapperService, iw -> {
+            for (int i = 0; i < 20; i++) {
+                int value = i;
+                iw.addDocument(mapperService.documentMapper().parse(source(b -> {
+                    b.field("num", 10 + value);
+                    b.field("price", 0.1f * value);
+                    b.field("ts", "2024-01-" + (10 + value));
+                    b.field("tag", value % 2 == 0 ? "even" : "odd");
+                    b.field("id", "id-" + (100 + value));
+                    b.field("not_indexed", value);
+                    b.field("normalized", "Value");
+                })).rootDoc());
+            }
+        }, reader -> {
+            ShardFieldValueStats stats = ShardFieldValueStats.compute(mapperService.mappingLookup(), reader);
+            assertThat(stats.numericFields(), not(hasKey("not_indexed")));
+            assertThat(stats.keywordFields(), not(hasKey("normalized")));
+            assertThat(stats.keywordFields().get("tag").terms(), equalTo(List.of(new BytesRef("even"), new BytesRef("odd"))));
+            assertThat(stats.keywordFields().get("id").terms(), nullValue());
+
+            assertTrue(stats.mayHaveValues("num"));
+            assertFalse(stats.mayHaveValues("empty"));
+            assertTrue(stats.mayHaveValues("unknown"));
+
+            assertTrue(stats.mayContainTerm("num", 15));
+            assertTrue(stats.mayContainTerm("num", new BytesRef("29")));
+            assertFalse(stats.mayContainTerm("num", 30));
+            assertTrue(stats.mayContainTerm("price", 0.1f * 19));
+            assertFalse(stats.mayContainTerm("price", 2));
+            assertTrue(stats.mayContainTerm("tag", new BytesRef("odd")));
+            assertFalse(stats.mayContainTerm("tag", new BytesRef("none")));
+            assertTrue(stats.mayContainTerm("id", new BytesRef("id-105")));
+            assertFalse(stats.mayContainTerm("id", new BytesRef("id-200")));
+            assertFalse(stats.mayContainTerm("empty", new BytesRef("any")));
+            assertTrue(stats.mayContainTerm("normalized", new BytesRef("value")));
+
+            QueryRewriteContext context = createSearchExecutionContext(mapperService);
+            assertThat(stats.rangeRelation("num", 25, null, true, true, null, null, context), equalTo(Relation.INTERSECTS));
+            assertThat(stats.rangeRelation("num", 29, 40, false, true, null, null, context), equalTo(Relation.INTERSECTS));
+            assertThat(stats.rangeRelation("num", 30, 40, true, true, null, null, context), equalTo(Relation.DISJOINT));
+            assertThat(stats.rangeRelation("num", null, 9, true, true, null, null, context), equalTo(Relation.DISJOINT));
+            assertThat(
+                stats.rangeRelation("ts", "2024-01-15", "2024-02-01", true, true, null, null, context),
+                equalTo(Relation.INTERSECTS)
+            );
+            assertThat(stats.rangeRelation("ts", "2024-02-01", null, true, true, null, null, context), equalTo(Relation.DISJOINT));
+            assertThat(stats.rangeRelation("ts", null, "2024-01-09", true, true, null, null, context), equalTo(Relation.DISJOINT));
+            BytesRef a = new BytesRef("a");
+            BytesRef f = new BytesRef("f");
+            BytesRef z = new BytesRef("z");
+            assertThat(stats.rangeRelation("tag", a, f, true, true, null, null, context), equalTo(Relation.INTERSECTS));
+            assertThat(stats.rangeRelation("tag", f, new BytesRef("o"), true, true, null, null, context), equalTo(Relation.DISJOINT));
+            assertThat(stats.rangeRelation("id", new BytesRef("id-2"), z, true, true, null, null, context), equalTo(Relation.DISJOINT));
+            assertThat(stats.rangeRelation("empty", null, null, true, true, null, null, context), equalTo(Relation.DISJOINT));
+            assertThat(stats.rangeRelation("unknown", 0, 1, true, true, null, null, context), equalTo(Relation.INTERSECTS));
+
+            assertThat(copyWriteable(stats, writableRegistry(), ShardFieldValueStats::new), equalTo(stats));
+        });
+    }
+
+    public void testShadowedByRuntimeField() throws IOException {
+        MapperService mapperService = createMapperService(topMapping(b -> {
+            b.startObject("runtime").startObject("num").field("type", "long").endObject().endObject();
+            b.startObject("properties").startObject("num").field("type", "long").endObject().endObject();
+        }));
+        withLuceneIndex(
+            mapperService,
+            iw -> iw.addDocument(mapperService.documentMapper().parse(source(b -> b.field("num", 1))).rootDoc()),
+            reader -> {
+                ShardFieldValueStats stats = ShardFieldValueStats.compute(mapperService.mappingLookup(), reader);
+                assertThat(stats.numericFields(), not(hasKey("num")));
+            }
+        );
+    }
+}
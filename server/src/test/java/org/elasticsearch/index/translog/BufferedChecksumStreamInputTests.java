@@ -14,6 +14,8 @@ import org.elasticsearch.common.io.stream.AbstractStreamTests;
 import org.elasticsearch.common.io.stream.StreamInput;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.zip.CRC32;
 
 public class BufferedChecksumStreamInputTests extends AbstractStreamTests {
@@ -36,4 +38,34 @@ public class BufferedChecksumStreamInputTests extends AbstractStreamTests {
             assertEquals(crc32.getValue(), input.getChecksum());
         }
     }
+
+    public void testChecksumSkippedBytesFromBuffer() throws IOException {
+        int bytesSize = randomIntBetween(512, 8192);
+        byte[] bytes = randomByteArrayOfLength(bytesSize);
+        CRC32 crc32 = new CRC32();
+        crc32.update(bytes);
+
+        ByteBuffer buffer = randomBoolean() ? ByteBuffer.allocateDirect(bytesSize) : ByteBuffer.allocate(bytesSize);
+        buffer.put(bytes).flip();
+        try (BufferedChecksumStreamInput input = new BufferedChecksumStreamInput(buffer, "test", null)) {
+            int position = 0;
+            while (position < bytesSize) {
+                int step = randomIntBetween(1, bytesSize - position);
+                if (randomBoolean()) {
+                    assertEquals(step, input.skip(step));
+                } else {
+                    byte[] read = new byte[step];
+                    input.readBytes(read, 0, step);
+                    assertArrayEquals(Arrays.copyOfRange(bytes, position, position + step), read);
+                }
+                position += step;
+            }
+            assertEquals(-1, input.read());
+            assertEquals(crc32.getValue(), input.getChecksum());
+
+            input.reset();
+            assertEquals(bytesSize, input.skip(bytesSize));
+            assertEquals(crc32.getValue(), input.getChecksum());
+        }
+    }
 }
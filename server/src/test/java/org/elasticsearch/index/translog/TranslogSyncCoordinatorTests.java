@@ -0,0 +1,258 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.index.translog;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.seqno.SequenceNumbers;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.junit.After;
+import org.junit.Before;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class TranslogSyncCoordinatorTests extends ESTestCase {
+
+    private ThreadPool threadPool;
+
+    @Before
+    public void setUpThreadPool() {
+        threadPool = new TestThreadPool(getTestName());
+    }
+
+    @After
+    public void tearDownThreadPool() {
+        terminate(threadPool);
+    }
+
+    public void testDisabledByDefault() {
+        final TranslogSyncCoordinator coordinator = new TranslogSyncCoordinator(Settings.EMPTY, threadPool);
+        assertFalse(coordinator.isEnabled());
+        assertThat(coordinator.groupFor(createTempDir()), nullValue());
+        assertThat(TranslogSyncCoordinator.DISABLED.groupFor(createTempDir()), nullValue());
+    }
+
+    public void testGroupPerDataPath() {
+        final TranslogSyncCoordinator coordinator = newCoordinator(TimeValue.ZERO);
+        final Path first = createTempDir();
+        final Path second = createTempDir();
+        assertThat(coordinator.groupFor(first), sameInstance(coordinator.groupFor(first)));
+        assertNotSame(coordinator.groupFor(first), coordinator.groupFor(second));
+        assertThat(coordinator.groupFor(second).getDataPath(), equalTo(second));
+    }
+
+    public void testSyncsEachTargetUpToItsHighestLocation() throws Exception {
+        final TranslogSyncCoordinator.Group group = newCoordinator(
+            TimeValue.timeValueMillis(randomIntBetween(0, 5)),
+            randomIntBetween(1, 100)
+        ).groupFor(createTempDir());
+        final List<RecordingTarget> targets = new ArrayList<>();
+        final int numTargets = randomIntBetween(1, 5);
+        for (int i = 0; i < numTargets; i++) {
+            targets.add(new RecordingTarget());
+        }
+        final int numThreads = randomIntBetween(2, 8);
+        final int requestsPerThread = randomIntBetween(10, 100);
+        final CountDownLatch done = new CountDownLatch(numThreads * requestsPerThread);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Thread[] threads = new Thread[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < requestsPerThread; i++) {
+                    final RecordingTarget target = randomFrom(targets);
+                    final Translog.Location location = new Translog.Location(1, target.nextOffset.incrementAndGet(), 1);
+                    group.ensureSynced(target, location, SequenceNumbers.NO_OPS_PERFORMED, e -> {
+                        if (e != null) {
+                            failure.set(e);
+                        } else if (target.syncedUpTo.get() < location.translogLocation()) {
+                            failure.set(new AssertionError("location [" + location + "] was not synced"));
+                        }
+                        done.countDown();
+                    });
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        done.await();
+        assertThat(failure.get(), nullValue());
+        long totalRequests = 0;
+        for (RecordingTarget target : targets) {
+            assertThat(target.syncedUpTo.get(), equalTo(target.nextOffset.get()));
+            assertThat(target.syncs.get(), lessThanOrEqualTo(target.groupSynced.get()));
+            totalRequests += target.groupSynced.get();
+        }
+        assertThat(totalRequests, equalTo((long) numThreads * requestsPerThread));
+    }
+
+    public void testFailureOnlyAffectsFailingTarget() throws Exception {
+        final TranslogSyncCoordinator.Group group = newCoordinator(TimeValue.timeValueSeconds(1), 2).groupFor(createTempDir());
+        final RecordingTarget failing = new RecordingTarget() {
+            @Override
+            public void ensureSynced(Translog.Location location, long globalCheckpoint, Consumer<Exception> listener) {
+                listener.accept(new IOException("boom"));
+            }
+        };
+        final RecordingTarget healthy = new RecordingTarget();
+        final AtomicReference<Exception> failingResult = new AtomicReference<>();
+        final AtomicReference<Exception> healthyResult = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(2);
+        // both requests end up in the same window
+        group.ensureSynced(failing, new Translog.Location(1, 10, 1), SequenceNumbers.NO_OPS_PERFORMED, e -> {
+            failingResult.set(e);
+            done.countDown();
+        });
+        group.ensureSynced(healthy, new Translog.Location(1, 20, 1), SequenceNumbers.NO_OPS_PERFORMED, e -> {
+            healthyResult.set(e);
+            done.countDown();
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertThat(failingResult.get(), notNullValue());
+        assertThat(failingResult.get(), instanceOf(IOException.class));
+        assertThat(failing.groupSynced.get(), equalTo(0L));
+        assertThat(healthyResult.get(), nullValue());
+        assertThat(healthy.syncedUpTo.get(), equalTo(20L));
+        assertThat(healthy.groupSynced.get(), equalTo(1L));
+        assertThat(healthy.lastBatchSize.get(), equalTo(2L));
+    }
+
+    public void testFullWindowIsFlushedByTheLastRequest() throws Exception {
+        final int maxBatchSize = randomIntBetween(2, 10);
+        // a budget that doesn't run out during the test, so only the size of the window triggers the flush
+        final TranslogSyncCoordinator.Group group = newCoordinator(TimeValue.timeValueSeconds(1), maxBatchSize).groupFor(createTempDir());
+        final RecordingTarget target = new RecordingTarget();
+        final AtomicLong completed = new AtomicLong();
+        final CountDownLatch done = new CountDownLatch(maxBatchSize);
+        for (int i = 0; i < maxBatchSize; i++) {
+            if (i > 0) {
+                // nothing is synced until the window is full, the requests are collected rather than flushed one by one
+                assertThat(completed.get(), equalTo(0L));
+                assertThat(target.syncs.get(), equalTo(0L));
+            }
+            final Translog.Location location = new Translog.Location(1, target.nextOffset.incrementAndGet(), 1);
+            group.ensureSynced(target, location, SequenceNumbers.NO_OPS_PERFORMED, e -> {
+                assertThat(e, nullValue());
+                completed.incrementAndGet();
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertThat(target.syncs.get(), equalTo(1L));
+        assertThat(target.syncedUpTo.get(), equalTo((long) maxBatchSize));
+        assertThat(target.lastBatchSize.get(), equalTo((long) maxBatchSize));
+    }
+
+    public void testWindowIsFlushedWhenTheBudgetRunsOut() throws Exception {
+        final TranslogSyncCoordinator.Group group = newCoordinator(TimeValue.timeValueMillis(randomIntBetween(1, 20)), 1000).groupFor(
+            createTempDir()
+        );
+        final RecordingTarget target = new RecordingTarget();
+        final int requests = randomIntBetween(1, 10);
+        final CountDownLatch done = new CountDownLatch(requests);
+        for (int i = 0; i < requests; i++) {
+            final Translog.Location location = new Translog.Location(1, target.nextOffset.incrementAndGet(), 1);
+            group.ensureSynced(target, location, SequenceNumbers.NO_OPS_PERFORMED, e -> {
+                assertThat(e, nullValue());
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertThat(target.syncedUpTo.get(), equalTo((long) requests));
+        assertThat(target.groupSynced.get(), equalTo((long) requests));
+    }
+
+    public void testTargetsAreSyncedInParallelOffTheSubmittingThread() throws Exception {
+        final int numTargets = Math.min(threadPool.info(ThreadPool.Names.FLUSH).getMax(), randomIntBetween(2, 4));
+        assumeTrue("needs at least two flush threads", numTargets >= 2);
+        final TranslogSyncCoordinator.Group group = newCoordinator(TimeValue.timeValueSeconds(1), numTargets).groupFor(createTempDir());
+        // every sync waits for all others to start, which only completes if they run at the same time
+        final CyclicBarrier barrier = new CyclicBarrier(numTargets);
+        final Thread submittingThread = Thread.currentThread();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(numTargets);
+        for (int i = 0; i < numTargets; i++) {
+            final RecordingTarget target = new RecordingTarget() {
+                @Override
+                public void ensureSynced(Translog.Location location, long globalCheckpoint, Consumer<Exception> listener) {
+                    try {
+                        assertThat(Thread.currentThread(), not(sameInstance(submittingThread)));
+                        assertThat(Thread.currentThread().getName(), containsString("[" + ThreadPool.Names.FLUSH + "]"));
+                        barrier.await(10, TimeUnit.SECONDS);
+                    } catch (Exception | AssertionError e) {
+                        failure.set(e);
+                    }
+                    super.ensureSynced(location, globalCheckpoint, listener);
+                }
+            };
+            group.ensureSynced(target, new Translog.Location(1, 1, 1), SequenceNumbers.NO_OPS_PERFORMED, e -> {
+                if (e != null) {
+                    failure.set(e);
+                }
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertThat(failure.get(), nullValue());
+    }
+
+    private TranslogSyncCoordinator newCoordinator(TimeValue latencyBudget) {
+        return newCoordinator(latencyBudget, 1024);
+    }
+
+    private TranslogSyncCoordinator newCoordinator(TimeValue latencyBudget, int maxBatchSize) {
+        return new TranslogSyncCoordinator(true, latencyBudget, maxBatchSize, threadPool, System::nanoTime);
+    }
+
+    private static class RecordingTarget implements TranslogSyncCoordinator.SyncTarget {
+        final AtomicLong nextOffset = new AtomicLong();
+        final AtomicLong syncedUpTo = new AtomicLong();
+        final AtomicLong syncs = new AtomicLong();
+        final AtomicLong groupSynced = new AtomicLong();
+        final AtomicLong lastBatchSize = new AtomicLong();
+
+        @Override
+        public void ensureSynced(Translog.Location location, long globalCheckpoint, Consumer<Exception> listener) {
+            syncs.incrementAndGet();
+            syncedUpTo.accumulateAndGet(location.translogLocation(), Math::max);
+            listener.accept(null);
+        }
+
+        @Override
+        public void onGroupSynced(int batchSize, long waitTimeInNanos) {
+            assertThat(batchSize, greaterThanOrEqualTo(1));
+            assertThat(waitTimeInNanos, greaterThanOrEqualTo(0L));
+            groupSynced.incrementAndGet();
+            lastBatchSize.set(batchSize);
+        }
+    }
+}
@@ -718,6 +718,33 @@ public class TranslogTests extends ESTestCase {
         }
     }
 
+    public void testMappedSnapshot() throws IOException {
+        final Settings settings = Settings.builder()
+            .put(IndexMetadata.SETTING_VERSION_CREATED, IndexVersion.current())
+            .put(IndexSettings.INDEX_TRANSLOG_MMAP_SNAPSHOTS_SETTING.getKey(), true)
+            .build();
+        final List<Translog.Operation> ops = new ArrayList<>();
+        try (Translog mappedTranslog = createTranslog(getTranslogConfig(createTempDir(), settings))) {
+            final int generations = between(1, 5);
+            int seqNo = 0;
+            for (int gen = 0; gen < generations; gen++) {
+                final int numOps = between(1, 100);
+                for (int i = 0; i < numOps; i++) {
+                    final Translog.Operation op = TranslogOperationsUtils.indexOp(Integer.toString(seqNo), seqNo, primaryTerm.get());
+                    addToTranslogAndList(mappedTranslog, ops, op);
+                    seqNo++;
+                }
+                mappedTranslog.rollGeneration();
+            }
+            // the current generation is read through the channel
+            addToTranslogAndList(mappedTranslog, ops, TranslogOperationsUtils.indexOp(Integer.toString(seqNo), seqNo, primaryTerm.get()));
+            try (Translog.Snapshot snapshot = mappedTranslog.newSnapshot()) {
+                assertThat(snapshot, containsOperationsInAnyOrder(ops));
+                assertThat(snapshot.totalOperations(), equalTo(ops.size()));
+            }
+        }
+    }
+
     public void testSnapshotOnClosedTranslog() throws IOException {
         assertTrue(Files.exists(translogDir.resolve(Translog.getFilename(1))));
         translog.add(TranslogOperationsUtils.indexOp("1", 0, primaryTerm.get()));
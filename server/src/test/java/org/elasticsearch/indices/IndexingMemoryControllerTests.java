@@ -38,6 +38,7 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import static java.util.Collections.emptySet;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.lessThan;
 
@@ -448,4 +449,88 @@ public class IndexingMemoryControllerTests extends IndexShardTestCase {
         assertThat(afterStats.completed() - beforeStats.completed(), lessThan(100L));
         closeShards(shard);
     }
+
+    public void testWritesIndexingBuffersConcurrentlyInBackground() throws Exception {
+        final int maxConcurrentWrites = randomIntBetween(1, 3);
+        final int numShards = maxConcurrentWrites + randomIntBetween(1, 3);
+        final CountDownLatch entered = new CountDownLatch(maxConcurrentWrites);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<IndexShard> shards = new ArrayList<>();
+        for (int i = 0; i < numShards; i++) {
+            shards.add(newStartedShard(randomBoolean(), Settings.EMPTY, config -> new InternalEngine(config) {
+                @Override
+                public void writeIndexingBuffer() throws IOException {
+                    entered.countDown();
+                    safeAwait(latch);
+                    super.writeIndexingBuffer();
+                }
+            }));
+        }
+        final IndexingMemoryController controller = new IndexingMemoryController(
+            Settings.builder()
+                .put("indices.memory.interval", "200h") // disable it
+                .put("indices.memory.index_buffer_size", "1024b")
+                .put(IndexingMemoryController.MAX_CONCURRENT_BUFFER_WRITES_SETTING.getKey(), maxConcurrentWrites)
+                .build(),
+            threadPool,
+            shards
+        ) {
+            @Override
+            protected long getIndexBufferRAMBytesUsed(IndexShard shard) {
+                return randomLongBetween(1025, 10 * 1024 * 1024);
+            }
+
+            @Override
+            protected long getShardWritingBytes(IndexShard shard) {
+                return 0L;
+            }
+        };
+        controller.forceCheck();
+        safeAwait(entered);
+        IndexingBufferWriteStats stats = controller.stats();
+        assertThat(stats.active(), equalTo(maxConcurrentWrites));
+        assertThat(stats.queue(), equalTo(numShards - maxConcurrentWrites));
+        latch.countDown();
+        assertBusy(() -> {
+            final IndexingBufferWriteStats afterStats = controller.stats();
+            assertThat(afterStats.total(), equalTo((long) numShards));
+            assertThat(afterStats.active(), equalTo(0));
+            assertThat(afterStats.queue(), equalTo(0));
+        });
+        assertThat(controller.stats().throttleTimeInMillis(), equalTo(0L));
+        closeShards(shards.toArray(new IndexShard[0]));
+    }
+
+    public void testThrottlesBackgroundWritesToDiskBandwidth() throws Exception {
+        final List<IndexShard> shards = List.of(newStartedShard(randomBoolean()), newStartedShard(randomBoolean()));
+        final IndexingMemoryController controller = new IndexingMemoryController(
+            Settings.builder()
+                .put("indices.memory.interval", "200h") // disable it
+                .put("indices.memory.index_buffer_size", "1024b")
+                .put(IndexingMemoryController.MAX_CONCURRENT_BUFFER_WRITES_SETTING.getKey(), 2)
+                .put(IndexingMemoryController.BUFFER_WRITE_MAX_BYTES_PER_SEC_SETTING.getKey(), "1mb")
+                .build(),
+            threadPool,
+            shards
+        ) {
+            @Override
+            protected long getIndexBufferRAMBytesUsed(IndexShard shard) {
+                return ByteSizeValue.ofKb(100).getBytes();
+            }
+
+            @Override
+            protected long getShardWritingBytes(IndexShard shard) {
+                return 0L;
+            }
+        };
+        controller.forceCheck();
+        // the second write has to wait for the first one's share of the bandwidth
+        assertThat(controller.stats().throttleTimeInMillis(), greaterThan(0L));
+        assertBusy(() -> {
+            final IndexingBufferWriteStats stats = controller.stats();
+            assertThat(stats.total(), equalTo(2L));
+            assertThat(stats.active(), equalTo(0));
+        });
+        closeShards(shards.toArray(new IndexShard[0]));
+    }
 }
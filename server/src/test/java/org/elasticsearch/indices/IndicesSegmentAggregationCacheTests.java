@@ -0,0 +1,100 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.mapper.MappingLookup;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchModule;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.SearchContextAggregations;
+import org.elasticsearch.search.aggregations.metrics.Max;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class IndicesSegmentAggregationCacheTests extends ESTestCase {
+
+    private static final NamedWriteableRegistry NAMED_WRITEABLE_REGISTRY = new NamedWriteableRegistry(
+        new SearchModule(Settings.EMPTY, List.of()).getNamedWriteables()
+    );
+
+    public void testCachesResultsPerSegment() throws Exception {
+        IndicesSegmentAggregationCache cache = new IndicesSegmentAggregationCache(Settings.EMPTY, NAMED_WRITEABLE_REGISTRY);
+        MappingLookup.CacheKey mappingKey = MappingLookup.EMPTY.cacheKey();
+        SearchContextAggregations.LeafResultCache requestCache = cache.forRequest(mappingKey, new BytesArray("max"));
+        SearchContextAggregations.LeafResultCache otherRequestCache = cache.forRequest(mappingKey, new BytesArray("min"));
+        try (Directory dir = newDirectory(); IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig(NoMergePolicy.INSTANCE))) {
+            writer.addDocument(newDoc("0"));
+            writer.flush();
+            writer.addDocument(newDoc("1"));
+            writer.flush();
+            ShardId shardId = new ShardId("foo", "bar", 1);
+            DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), shardId);
+            assertThat(reader.leaves().size(), equalTo(2));
+
+            requestCache.put(reader.leaves().get(0), InternalAggregations.from(new Max("max", 1.0, DocValueFormat.RAW, Map.of())));
+            requestCache.put(reader.leaves().get(1), InternalAggregations.from(new Max("max", 2.0, DocValueFormat.RAW, Map.of())));
+            assertThat(cache.count(), equalTo(2));
+            assertThat(cache.numRegisteredCloseListeners(), equalTo(2));
+            assertThat(maxOf(requestCache.get(reader.leaves().get(0))), equalTo(1.0));
+            assertThat(maxOf(requestCache.get(reader.leaves().get(1))), equalTo(2.0));
+            assertThat(otherRequestCache.get(reader.leaves().get(0)), nullValue());
+
+            // a delete changes the first segment, the results of the second one can still be used
+            writer.deleteDocuments(new Term("id", "0"));
+            DirectoryReader newReader = DirectoryReader.openIfChanged(reader, writer);
+            assertNotNull(newReader);
+            assertThat(newReader.leaves().size(), equalTo(2));
+            assertThat(requestCache.get(newReader.leaves().get(0)), nullValue());
+            assertThat(maxOf(requestCache.get(newReader.leaves().get(1))), equalTo(2.0));
+
+            // only the entries of the segment readers that got closed are cleaned
+            reader.close();
+            cache.cleanCache();
+            assertThat(cache.count(), equalTo(1));
+            assertThat(cache.numRegisteredCloseListeners(), equalTo(1));
+            assertThat(maxOf(requestCache.get(newReader.leaves().get(1))), equalTo(2.0));
+
+            newReader.close();
+            cache.cleanCache();
+            assertThat(cache.count(), equalTo(0));
+            assertThat(cache.numRegisteredCloseListeners(), equalTo(0));
+        }
+        cache.close();
+    }
+
+    private static Document newDoc(String id) {
+        Document document = new Document();
+        document.add(new StringField("id", id, Field.Store.NO));
+        return document;
+    }
+
+    private static double maxOf(InternalAggregations aggregations) {
+        assertNotNull(aggregations);
+        return ((Max) aggregations.get("max")).value();
+    }
+}
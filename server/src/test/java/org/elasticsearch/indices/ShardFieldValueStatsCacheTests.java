@@ -0,0 +1,116 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.client.internal.Client;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.metadata.Metadata;
+import org.elasticsearch.index.IndexVersion;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.index.query.CoordinatorRewriteContext;
+import org.elasticsearch.index.query.CoordinatorRewriteContextProvider;
+import org.elasticsearch.index.query.ExistsQueryBuilder;
+import org.elasticsearch.index.query.MatchNoneQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.index.query.Rewriteable;
+import org.elasticsearch.index.query.TermQueryBuilder;
+import org.elasticsearch.index.shard.ShardFieldValueStats;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+
+public class ShardFieldValueStatsCacheTests extends ESTestCase {
+
+    private static final ShardFieldValueStats STATS = new ShardFieldValueStats(
+        Map.of("num", new ShardFieldValueStats.NumericRange(NumberFieldMapper.NumberType.LONG, 10, 100, 200)),
+        Map.of(),
+        Map.of(
+            "tag",
+            new ShardFieldValueStats.TermRange(10, new BytesRef("a"), new BytesRef("b"), List.of(new BytesRef("a"), new BytesRef("b"))),
+            "empty",
+            new ShardFieldValueStats.TermRange(0, new BytesRef(), new BytesRef(), List.of())
+        )
+    );
+
+    public void testGet() {
+        IndexMetadata indexMetadata = indexMetadata(true, 3, 5);
+        ShardId shardId = new ShardId(indexMetadata.getIndex(), 0);
+        ShardFieldValueStatsCache cache = new ShardFieldValueStatsCache();
+        assertThat(cache.get(shardId, indexMetadata), nullValue());
+
+        cache.put(shardId, new ShardFieldValueStatsCache.Entry(3, 5, STATS));
+        assertThat(cache.get(shardId, indexMetadata), sameInstance(STATS));
+        assertThat(cache.get(new ShardId(indexMetadata.getIndex(), 1), indexMetadata), nullValue());
+        assertThat(cache.get(shardId, indexMetadata(false, 3, 5)), nullValue());
+        assertThat(cache.get(shardId, indexMetadata(true, 4, 5)), nullValue());
+        assertThat(cache.get(shardId, indexMetadata(true, 3, 6)), nullValue());
+    }
+
+    public void testCoordinatorRewrite() throws IOException {
+        IndexMetadata indexMetadata = indexMetadata(true, 1, 1);
+        ShardId shardId = new ShardId(indexMetadata.getIndex(), 0);
+        ClusterState clusterState = ClusterState.builder(ClusterName.DEFAULT)
+            .metadata(Metadata.builder().put(indexMetadata, false))
+            .build();
+        CoordinatorRewriteContextProvider provider = new CoordinatorRewriteContextProvider(
+            parserConfig(),
+            mock(Client.class),
+            System::currentTimeMillis,
+            () -> clusterState,
+            index -> null,
+            new ShardFieldValueStatsCache()
+        );
+        assertThat(provider.getCoordinatorRewriteContext(shardId).getFieldValueStats(), nullValue());
+
+        provider.cacheFieldValueStats(shardId, new ShardFieldValueStatsCache.Entry(1, 1, STATS));
+        CoordinatorRewriteContext context = provider.getCoordinatorRewriteContext(shardId);
+        assertThat(context.getFieldValueStats(), sameInstance(STATS));
+        assertThat(provider.getCoordinatorRewriteContext(indexMetadata.getIndex()).getFieldValueStats(), nullValue());
+
+        assertThat(rewrite(new TermQueryBuilder("tag", "c"), context), instanceOf(MatchNoneQueryBuilder.class));
+        assertThat(rewrite(new TermQueryBuilder("tag", "a"), context), not(instanceOf(MatchNoneQueryBuilder.class)));
+        assertThat(rewrite(new TermQueryBuilder("tag", "c").caseInsensitive(true), context), not(instanceOf(MatchNoneQueryBuilder.class)));
+        assertThat(rewrite(new TermQueryBuilder("num", 99), context), instanceOf(MatchNoneQueryBuilder.class));
+        assertThat(rewrite(new TermQueryBuilder("other", "c"), context), not(instanceOf(MatchNoneQueryBuilder.class)));
+        assertThat(rewrite(new RangeQueryBuilder("num").gt(300), context), instanceOf(MatchNoneQueryBuilder.class));
+        assertThat(rewrite(new RangeQueryBuilder("num").gt(150), context), not(instanceOf(MatchNoneQueryBuilder.class)));
+        assertThat(rewrite(new ExistsQueryBuilder("empty"), context), instanceOf(MatchNoneQueryBuilder.class));
+        assertThat(rewrite(new ExistsQueryBuilder("emp*"), context), not(instanceOf(MatchNoneQueryBuilder.class)));
+        assertThat(rewrite(new ExistsQueryBuilder("tag"), context), not(instanceOf(MatchNoneQueryBuilder.class)));
+    }
+
+    private static QueryBuilder rewrite(QueryBuilder query, CoordinatorRewriteContext context) throws IOException {
+        return Rewriteable.rewrite(query, context);
+    }
+
+    private static IndexMetadata indexMetadata(boolean readOnly, long settingsVersion, long mappingVersion) {
+        return IndexMetadata.builder("index")
+            .settings(
+                indexSettings(IndexVersion.current(), 2, 0).put(IndexMetadata.SETTING_INDEX_UUID, "uuid")
+                    .put(IndexMetadata.INDEX_BLOCKS_WRITE_SETTING.getKey(), readOnly)
+            )
+            .settingsVersion(settingsVersion)
+            .mappingVersion(mappingVersion)
+            .build();
+    }
+}
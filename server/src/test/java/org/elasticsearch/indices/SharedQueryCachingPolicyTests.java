@@ -0,0 +1,269 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.compress.CompressedXContent;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.IOUtils;
+import org.elasticsearch.index.cache.query.QueryCacheStats;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class SharedQueryCachingPolicyTests extends ESTestCase {
+
+    public void testShareHotFilters() throws IOException {
+        IndicesQueryCache cache = new IndicesQueryCache(Settings.EMPTY);
+        Map<String, SharedQueryCachingPolicy.HotFilters> hotFiltersByMapping = new HashMap<>();
+        AtomicLong nanoTime = new AtomicLong();
+        CompressedXContent mapping = new CompressedXContent("{\"_doc\":{\"properties\":{\"field\":{\"type\":\"long\"}}}}");
+        CompressedXContent sameMapping = new CompressedXContent(mapping.string());
+        CompressedXContent otherMapping = new CompressedXContent("{\"_doc\":{\"properties\":{\"field\":{\"type\":\"keyword\"}}}}");
+        SharedQueryCachingPolicy policy = newPolicy(cache, mapping, hotFiltersByMapping, nanoTime);
+        SharedQueryCachingPolicy sameMappingPolicy = newPolicy(cache, sameMapping, hotFiltersByMapping, nanoTime);
+        SharedQueryCachingPolicy otherMappingPolicy = newPolicy(cache, otherMapping, hotFiltersByMapping, nanoTime);
+        SharedQueryCachingPolicy noMappingPolicy = newPolicy(cache, null, hotFiltersByMapping, nanoTime);
+
+        Query filter = LongPoint.newRangeQuery("field", 0, 10);
+        policy.onUse(filter);
+        assertFalse(policy.shouldCache(filter));
+        assertFalse(sameMappingPolicy.shouldCache(filter));
+        assertThat(sameMappingPolicy.getHotFilters(), empty());
+
+        // point queries are costly, so they are cached on their second use
+        policy.onUse(filter);
+        assertTrue(policy.shouldCache(filter));
+        assertTrue(sameMappingPolicy.shouldCache(filter));
+        assertThat(sameMappingPolicy.getHotFilters(), equalTo(List.of(filter)));
+        assertFalse(otherMappingPolicy.shouldCache(filter));
+        assertThat(otherMappingPolicy.getHotFilters(), empty());
+        assertFalse(noMappingPolicy.shouldCache(filter));
+
+        // uses on any shard keep the filter hot
+        nanoTime.addAndGet(SharedQueryCachingPolicy.HOT_FILTER_TTL_NANOS);
+        sameMappingPolicy.onUse(filter);
+        nanoTime.addAndGet(SharedQueryCachingPolicy.HOT_FILTER_TTL_NANOS);
+        assertTrue(sameMappingPolicy.shouldCache(filter));
+
+        nanoTime.addAndGet(SharedQueryCachingPolicy.HOT_FILTER_TTL_NANOS + 1);
+        assertThat(sameMappingPolicy.getHotFilters(), empty());
+        assertFalse(sameMappingPolicy.shouldCache(filter));
+        cache.close();
+    }
+
+    public void testMaxHotFilters() throws IOException {
+        IndicesQueryCache cache = new IndicesQueryCache(Settings.EMPTY);
+        CompressedXContent mapping = new CompressedXContent("{\"_doc\":{}}");
+        AtomicLong nanoTime = new AtomicLong();
+        SharedQueryCachingPolicy policy = newPolicy(cache, mapping, new HashMap<>(), nanoTime);
+        int numFilters = SharedQueryCachingPolicy.MAX_HOT_FILTERS + randomIntBetween(1, 10);
+        for (int i = 0; i < numFilters; i++) {
+            nanoTime.incrementAndGet();
+            Query filter = LongPoint.newRangeQuery("field", i, i + 10);
+            policy.onUse(filter);
+            policy.onUse(filter);
+            assertTrue(policy.shouldCache(filter));
+        }
+        List<Query> hotFilters = policy.getHotFilters();
+        assertThat(hotFilters.size(), equalTo(SharedQueryCachingPolicy.MAX_HOT_FILTERS));
+        // the least recently used filters are evicted first
+        assertThat(hotFilters.get(hotFilters.size() - 1), equalTo(LongPoint.newRangeQuery("field", numFilters - 1, numFilters + 9)));
+        cache.close();
+    }
+
+    public void testHotFiltersMemoryLimit() {
+        AtomicLong usedBytes = new AtomicLong();
+        Query filter = LongPoint.newRangeQuery("field", 0, 10);
+        Query otherFilter = LongPoint.newRangeQuery("field", 10, 20);
+        SharedQueryCachingPolicy.HotFilters unlimited = new SharedQueryCachingPolicy.HotFilters(usedBytes, Long.MAX_VALUE);
+        unlimited.add(filter, 0);
+        long filterBytes = usedBytes.get();
+        assertThat(filterBytes, greaterThan(0L));
+
+        // the memory limit is shared with the hot filters of other mappings
+        SharedQueryCachingPolicy.HotFilters limited = new SharedQueryCachingPolicy.HotFilters(usedBytes, filterBytes * 3 / 2);
+        limited.add(otherFilter, 0);
+        assertFalse(limited.isHot(otherFilter, 0));
+        assertThat(usedBytes.get(), equalTo(filterBytes));
+
+        // expired filters release their memory
+        assertFalse(unlimited.isHot(filter, SharedQueryCachingPolicy.HOT_FILTER_TTL_NANOS + 1));
+        assertThat(usedBytes.get(), equalTo(0L));
+        limited.add(otherFilter, 0);
+        assertTrue(limited.isHot(otherFilter, 0));
+
+        // so do closed hot filters, which don't take new filters anymore
+        limited.close();
+        assertThat(usedBytes.get(), equalTo(0L));
+        limited.add(filter, 0);
+        assertFalse(limited.isHot(filter, 0));
+    }
+
+    public void testWarm() throws IOException {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+        for (int i = 0; i < 10; i++) {
+            Document doc = new Document();
+            doc.add(new LongPoint("field", i));
+            w.addDocument(doc);
+        }
+        ShardId shard = new ShardId("index", "_na_", 0);
+        DirectoryReader r = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(w), shard);
+        w.close();
+
+        Settings settings = Settings.builder().put(IndicesQueryCache.INDICES_QUERIES_CACHE_ALL_SEGMENTS_SETTING.getKey(), true).build();
+        IndicesQueryCache cache = new IndicesQueryCache(settings);
+        SharedQueryCachingPolicy policy = newPolicy(cache, new CompressedXContent("{\"_doc\":{}}"), new HashMap<>(), new AtomicLong());
+        assertThat(policy.newSegments(r), equalTo(r.leaves()));
+        policy.warm(r, r.leaves(), LongPoint.newRangeQuery("field", 2, 5));
+
+        QueryCacheStats stats = cache.getStats(shard);
+        assertThat(stats.getCacheSize(), equalTo((long) r.leaves().size()));
+        assertThat(stats.getHitCount(), equalTo(0L));
+
+        // the segments were warmed already
+        assertThat(policy.newSegments(r), empty());
+        // warming again finds the filter in the cache
+        policy.warm(r, r.leaves(), LongPoint.newRangeQuery("field", 2, 5));
+        stats = cache.getStats(shard);
+        assertThat(stats.getCacheSize(), equalTo((long) r.leaves().size()));
+        assertThat(stats.getHitCount(), equalTo((long) r.leaves().size()));
+
+        IOUtils.close(r, dir);
+        cache.onClose(shard);
+        cache.close();
+    }
+
+    public void testWarmOnlyFiltersBuiltByTheShard() throws IOException {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+        for (int i = 0; i < 10; i++) {
+            Document doc = new Document();
+            doc.add(new LongPoint("field", i));
+            w.addDocument(doc);
+        }
+        ShardId shard = new ShardId("index", "_na_", 0);
+        DirectoryReader r = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(w), shard);
+        w.close();
+
+        Settings settings = Settings.builder().put(IndicesQueryCache.INDICES_QUERIES_CACHE_ALL_SEGMENTS_SETTING.getKey(), true).build();
+        IndicesQueryCache cache = new IndicesQueryCache(settings);
+        Map<String, SharedQueryCachingPolicy.HotFilters> hotFiltersByMapping = new HashMap<>();
+        AtomicLong nanoTime = new AtomicLong();
+        CompressedXContent mapping = new CompressedXContent("{\"_doc\":{\"properties\":{\"field\":{\"type\":\"long\"}}}}");
+        SharedQueryCachingPolicy otherIndexPolicy = newPolicy(cache, mapping, hotFiltersByMapping, nanoTime);
+        SharedQueryCachingPolicy policy = newPolicy(cache, new CompressedXContent(mapping.string()), hotFiltersByMapping, nanoTime);
+
+        // another index with the same mapping makes the filter hot
+        Query otherIndexFilter = new IndexBoundQuery("other", LongPoint.newRangeQuery("field", 2, 5));
+        otherIndexPolicy.onUse(otherIndexFilter);
+        otherIndexPolicy.onUse(otherIndexFilter);
+        assertTrue(otherIndexPolicy.shouldCache(otherIndexFilter));
+
+        // this shard caches its own instances of the filter right away, but doesn't warm the instance of the other index
+        assertThat(policy.getHotFilters(), empty());
+        Query filter = new IndexBoundQuery("index", LongPoint.newRangeQuery("field", 2, 5));
+        assertTrue(policy.shouldCache(filter));
+        List<Query> hotFilters = policy.getHotFilters();
+        assertThat(hotFilters.size(), equalTo(1));
+        assertSame(filter, hotFilters.get(0));
+
+        for (Query hotFilter : hotFilters) {
+            policy.warm(r, r.leaves(), hotFilter);
+        }
+        assertThat(cache.getStats(shard).getCacheSize(), equalTo((long) r.leaves().size()));
+
+        // this shard forgets its instance once the filter is not hot anymore
+        nanoTime.addAndGet(SharedQueryCachingPolicy.HOT_FILTER_TTL_NANOS + 1);
+        assertThat(policy.getHotFilters(), empty());
+        otherIndexPolicy.onUse(otherIndexFilter);
+        otherIndexPolicy.onUse(otherIndexFilter);
+        assertTrue(otherIndexPolicy.shouldCache(otherIndexFilter));
+        assertThat(policy.getHotFilters(), empty());
+
+        IOUtils.close(r, dir);
+        cache.onClose(shard);
+        cache.close();
+    }
+
+    /**
+     * A filter that may only be run by the shards of the index it was built for, like filters that use per-index state.
+     */
+    private static class IndexBoundQuery extends Query {
+        private final String index;
+        private final Query filter;
+
+        IndexBoundQuery(String index, Query filter) {
+            this.index = index;
+            this.filter = filter;
+        }
+
+        @Override
+        public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+            assertThat("filter built by another index must not be run", index, equalTo("index"));
+            return filter.createWeight(searcher, scoreMode, boost);
+        }
+
+        @Override
+        public void visit(QueryVisitor visitor) {
+            visitor.visitLeaf(this);
+        }
+
+        @Override
+        public String toString(String field) {
+            return filter.toString(field);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            // equal across indices, so that its usage is shared
+            return sameClassAs(obj) && filter.equals(((IndexBoundQuery) obj).filter);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * classHash() + filter.hashCode();
+        }
+    }
+
+    private static SharedQueryCachingPolicy newPolicy(
+        IndicesQueryCache cache,
+        CompressedXContent mapping,
+        Map<String, SharedQueryCachingPolicy.HotFilters> hotFiltersByMapping,
+        AtomicLong nanoTime
+    ) {
+        return new SharedQueryCachingPolicy(
+            cache,
+            () -> mapping,
+            key -> hotFiltersByMapping.computeIfAbsent(key, k -> new SharedQueryCachingPolicy.HotFilters(new AtomicLong(), Long.MAX_VALUE)),
+            nanoTime::get
+        );
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.lucene.util;
+
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.FixedBitSet;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+public class HybridRoaringDocIdSetTests extends ESTestCase {
+
+    public void testEmpty() throws IOException {
+        testCase(new FixedBitSet(randomIntBetween(1, 200_000)));
+    }
+
+    public void testRandomDensity() throws IOException {
+        for (float density : new float[] { 0.001f, 0.01f, 0.1f, 0.5f, 0.9f, 1f }) {
+            int numBits = randomIntBetween(1, 300_000);
+            FixedBitSet bits = new FixedBitSet(numBits);
+            for (int i = 0; i < numBits; i++) {
+                if (randomFloat() < density) {
+                    bits.set(i);
+                }
+            }
+            testCase(bits);
+        }
+    }
+
+    public void testRuns() throws IOException {
+        int numBits = randomIntBetween(1, 500_000);
+        FixedBitSet bits = new FixedBitSet(numBits);
+        int doc = 0;
+        while (doc < numBits) {
+            int runEnd = Math.min(numBits, doc + randomIntBetween(1, 100_000));
+            if (randomBoolean()) {
+                bits.set(doc, runEnd);
+            }
+            doc = runEnd;
+        }
+        testCase(bits);
+    }
+
+    public void testClusteredSetIsSmallerThanBitSet() throws IOException {
+        int numBits = 10_000_000;
+        FixedBitSet bits = new FixedBitSet(numBits);
+        // half of the documents, in a few large runs
+        for (int i = 0; i < 10; i++) {
+            bits.set(i * 1_000_000, i * 1_000_000 + 500_000);
+        }
+        HybridRoaringDocIdSet set = testCase(bits);
+        assertThat(set.ramBytesUsed() * 100, lessThan(bits.ramBytesUsed()));
+    }
+
+    private HybridRoaringDocIdSet testCase(FixedBitSet bits) throws IOException {
+        HybridRoaringDocIdSet set = HybridRoaringDocIdSet.build(bits);
+        assertThat(set.cardinality(), equalTo(bits.cardinality()));
+        assertThat(set.ramBytesUsed(), equalTo(HybridRoaringDocIdSet.estimateRamBytesUsed(bits)));
+
+        DocIdSetIterator iterator = set.iterator();
+        assertThat(iterator.cost(), equalTo((long) bits.cardinality()));
+        for (int doc = bits.length() == 0 ? DocIdSetIterator.NO_MORE_DOCS : bits.nextSetBit(0); doc != DocIdSetIterator.NO_MORE_DOCS;) {
+            assertThat(iterator.nextDoc(), equalTo(doc));
+            doc = doc + 1 >= bits.length() ? DocIdSetIterator.NO_MORE_DOCS : bits.nextSetBit(doc + 1);
+        }
+        assertThat(iterator.nextDoc(), equalTo(DocIdSetIterator.NO_MORE_DOCS));
+
+        iterator = set.iterator();
+        int target = 0;
+        while (true) {
+            target += randomIntBetween(1, 100_000);
+            int expected = target >= bits.length() ? DocIdSetIterator.NO_MORE_DOCS : bits.nextSetBit(target);
+            assertThat(iterator.advance(target), equalTo(expected));
+            if (expected == DocIdSetIterator.NO_MORE_DOCS) {
+                break;
+            }
+            target = expected;
+            if (randomBoolean()) {
+                int next = target + 1 >= bits.length() ? DocIdSetIterator.NO_MORE_DOCS : bits.nextSetBit(target + 1);
+                assertThat(iterator.nextDoc(), equalTo(next));
+                if (next == DocIdSetIterator.NO_MORE_DOCS) {
+                    break;
+                }
+                target = next;
+            }
+        }
+        return set;
+    }
+}
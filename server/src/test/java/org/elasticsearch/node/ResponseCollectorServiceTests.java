@@ -27,8 +27,11 @@ import org.junit.Before;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 
+import static org.hamcrest.Matchers.allOf;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
 
 public class ResponseCollectorServiceTests extends ESTestCase {
 
@@ -64,6 +67,23 @@ public class ResponseCollectorServiceTests extends ESTestCase {
         assertThat(nodeStats.get("node1").serviceTime, equalTo(10.0));
     }
 
+    public void testLatencyPercentiles() {
+        collector.addNodeStatistics("node1", 1, 100, 10);
+        ResponseCollectorService.ComputedNodeStats stats = collector.getNodeStatistics("node1").get();
+        assertThat(stats.queueLatencyP50, equalTo(-1L));
+        assertThat(stats.queueLatencyP99, equalTo(-1L));
+        // not enough responses to estimate the response time percentiles
+        assertThat(stats.responseTimeP95, equalTo(-1L));
+
+        for (int i = 1; i < ResponseCollectorService.MIN_RESPONSE_TIME_SAMPLES; i++) {
+            collector.addNodeStatistics("node1", 1, 100, 10, 20, 40);
+        }
+        stats = collector.getNodeStatistics("node1").get();
+        assertThat(stats.queueLatencyP50, equalTo(20L));
+        assertThat(stats.queueLatencyP99, equalTo(40L));
+        assertThat(stats.responseTimeP95, allOf(greaterThanOrEqualTo(64L), lessThan(128L)));
+    }
+
     /*
      * Test that concurrently adding values and removing nodes does not cause exceptions
      */
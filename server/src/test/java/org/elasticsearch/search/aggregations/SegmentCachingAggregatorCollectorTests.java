@@ -0,0 +1,202 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.search.aggregations.metrics.Sum;
+import org.elasticsearch.search.aggregations.metrics.SumAggregationBuilder;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.hamcrest.Matchers.anEmptyMap;
+import static org.hamcrest.Matchers.equalTo;
+
+public class SegmentCachingAggregatorCollectorTests extends AggregatorTestCase {
+
+    private static final String FIELD = "number";
+
+    private final MappedFieldType fieldType = new NumberFieldMapper.NumberFieldType(FIELD, NumberFieldMapper.NumberType.LONG);
+    private final SumAggregationBuilder builder = new SumAggregationBuilder("sum").field(FIELD);
+
+    public void testCachedResultsMatchUncachedResultsAcrossRefreshes() throws IOException {
+        MapLeafResultCache cache = new MapLeafResultCache();
+        try (Directory directory = newDirectory(); IndexWriter writer = writer(directory)) {
+            int nextId = indexSegment(writer, 0, between(1, 100));
+            nextId = indexSegment(writer, nextId, between(1, 100));
+            DirectoryReader reader = DirectoryReader.open(writer);
+            try {
+                // the first search collects and caches every segment
+                assertThat(sum(reader, cache, () -> false), equalTo(sum(reader)));
+                assertThat(cache.puts, equalTo(reader.leaves().size()));
+
+                // searching the same reader again is served from the cache only
+                assertThat(sum(reader, cache, () -> false), equalTo(sum(reader)));
+                assertThat(cache.puts, equalTo(reader.leaves().size()));
+                assertThat(cache.hits, equalTo(reader.leaves().size()));
+
+                // after a refresh only the new segment is collected
+                indexSegment(writer, nextId, between(1, 100));
+                DirectoryReader refreshed = DirectoryReader.openIfChanged(reader, writer);
+                assertNotNull(refreshed);
+                reader.close();
+                reader = refreshed;
+                assertThat(reader.leaves().size(), equalTo(3));
+                cache.hits = 0;
+                assertThat(sum(reader, cache, () -> false), equalTo(sum(reader)));
+                assertThat(cache.puts, equalTo(3));
+                assertThat(cache.hits, equalTo(2));
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    public void testDeletesInvalidateCachedSegment() throws IOException {
+        MapLeafResultCache cache = new MapLeafResultCache();
+        try (Directory directory = newDirectory(); IndexWriter writer = writer(directory)) {
+            int firstSegment = between(2, 100);
+            int nextId = indexSegment(writer, 0, firstSegment);
+            indexSegment(writer, nextId, between(1, 100));
+            DirectoryReader reader = DirectoryReader.open(writer);
+            try {
+                assertThat(sum(reader, cache, () -> false), equalTo(sum(reader)));
+                assertThat(cache.puts, equalTo(2));
+
+                // deleting from the first segment changes its live docs, so it must not be served from the cache anymore
+                writer.deleteDocuments(new Term("id", Integer.toString(between(0, firstSegment - 1))));
+                DirectoryReader refreshed = DirectoryReader.openIfChanged(reader, writer);
+                assertNotNull(refreshed);
+                reader.close();
+                reader = refreshed;
+                cache.hits = 0;
+                assertThat(sum(reader, cache, () -> false), equalTo(sum(reader)));
+                assertThat(cache.puts, equalTo(3));
+                assertThat(cache.hits, equalTo(1));
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    public void testTimedOutLeavesAreNotCached() throws IOException {
+        MapLeafResultCache cache = new MapLeafResultCache();
+        try (Directory directory = newDirectory(); IndexWriter writer = writer(directory)) {
+            int nextId = indexSegment(writer, 0, between(1, 100));
+            indexSegment(writer, nextId, between(1, 100));
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                assertThat(sum(reader, cache, () -> true), equalTo(sum(reader)));
+                assertThat(cache.puts, equalTo(0));
+                assertThat(cache.results, anEmptyMap());
+            }
+        }
+    }
+
+    private static IndexWriter writer(Directory directory) throws IOException {
+        // Not a random config so it doesn't flush or merge more segments than we ask for
+        return new IndexWriter(directory, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+    }
+
+    /**
+     * Index {@code count} documents with the ids starting at {@code firstId} into a new segment and return the next free id.
+     */
+    private static int indexSegment(IndexWriter writer, int firstId, int count) throws IOException {
+        for (int id = firstId; id < firstId + count; id++) {
+            Document document = new Document();
+            document.add(new StringField("id", Integer.toString(id), Field.Store.NO));
+            document.add(new SortedNumericDocValuesField(FIELD, randomLongBetween(-1000, 1000)));
+            writer.addDocument(document);
+        }
+        writer.flush();
+        return firstId + count;
+    }
+
+    /**
+     * Sum the field with a plain {@link AggregatorCollector}.
+     */
+    private double sum(IndexReader reader) throws IOException {
+        AggregatorCollector collector = newCollector(createAggregationContext(reader, new MatchAllDocsQuery(), fieldType));
+        return search(reader, collector);
+    }
+
+    /**
+     * Sum the field with a {@link SegmentCachingAggregatorCollector} that uses the given cache.
+     */
+    private double sum(IndexReader reader, MapLeafResultCache cache, BooleanSupplier timeExceeded) throws IOException {
+        AggregationContext context = createAggregationContext(reader, new MatchAllDocsQuery(), fieldType);
+        AggregatorCollector collector = new SegmentCachingAggregatorCollector(
+            () -> newCollector(context),
+            cache,
+            () -> new AggregationReduceContext.ForPartial(context.bigArrays(), null, () -> false, builder, b -> {}),
+            timeExceeded
+        );
+        return search(reader, collector);
+    }
+
+    private AggregatorCollector newCollector(AggregationContext context) {
+        try {
+            Aggregator aggregator = createAggregator(builder, context);
+            aggregator.preCollection();
+            return new AggregatorCollector(new Aggregator[] { aggregator }, MultiBucketCollector.wrap(true, List.of(aggregator)));
+        } catch (IOException e) {
+            throw new AggregationInitializationException("Could not initialize aggregators", e);
+        }
+    }
+
+    private static double search(IndexReader reader, AggregatorCollector collector) throws IOException {
+        new IndexSearcher(reader).search(new MatchAllDocsQuery(), collector);
+        collector.doPostCollection();
+        Sum sum = InternalAggregations.from(collector.internalAggregations).get("sum");
+        return sum.value();
+    }
+
+    /**
+     * A {@link SearchContextAggregations.LeafResultCache} that is keyed by the reader cache key of the segments like the cache of
+     * the node, so that the results of a segment are not served anymore once its live docs change.
+     */
+    private static class MapLeafResultCache implements SearchContextAggregations.LeafResultCache {
+        private final Map<IndexReader.CacheKey, InternalAggregations> results = new HashMap<>();
+        private int hits;
+        private int puts;
+
+        @Override
+        public InternalAggregations get(LeafReaderContext leaf) {
+            InternalAggregations cached = results.get(leaf.reader().getReaderCacheHelper().getKey());
+            if (cached != null) {
+                hits++;
+            }
+            return cached;
+        }
+
+        @Override
+        public void put(LeafReaderContext leaf, InternalAggregations aggregations) {
+            results.put(leaf.reader().getReaderCacheHelper().getKey(), aggregations);
+            puts++;
+        }
+    }
+}
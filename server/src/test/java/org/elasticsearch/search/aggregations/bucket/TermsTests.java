@@ -10,9 +10,12 @@
 package org.elasticsearch.search.aggregations.bucket;
 
 import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
 import org.elasticsearch.search.aggregations.Aggregator.SubAggCollectionMode;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.BaseAggregationTestCase;
 import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.bucket.histogram.HistogramAggregationBuilder;
 import org.elasticsearch.search.aggregations.bucket.terms.IncludeExclude;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregatorFactory.ExecutionMode;
@@ -222,4 +225,38 @@ public class TermsTests extends BaseAggregationTestCase<TermsAggregationBuilder>
             assertFalse(terms.supportsParallelCollection(field -> randomIntBetween(1, 100)));
         }
     }
+
+    public void testSupportsMergingSlices() {
+        long highCardinality = randomLongBetween(1001, 100_000);
+        {
+            TermsAggregationBuilder terms = new TermsAggregationBuilder("terms").field("field");
+            assertFalse(terms.supportsParallelCollection(field -> highCardinality));
+            assertTrue(terms.supportsMergingSlices(field -> highCardinality));
+            assertFalse(terms.supportsMergingSlices(field -> randomLongBetween(-1, 1000)));
+            AggregatorFactories.Builder topLevel = AggregatorFactories.builder().addAggregator(terms);
+            assertTrue(topLevel.supportsMergingSlices(field -> highCardinality));
+            // merging slices doesn't make the results of arbitrary partitions of the shard reducible
+            assertFalse(topLevel.supportsParallelCollection(field -> highCardinality));
+            // only top level aggregations merge slices
+            AggregationBuilder parent = new HistogramAggregationBuilder("parent").subAggregation(terms);
+            assertFalse(AggregatorFactories.builder().addAggregator(parent).supportsMergingSlices(field -> highCardinality));
+        }
+        {
+            TermsAggregationBuilder terms = new TermsAggregationBuilder("terms").field("field").executionHint("global_ordinals");
+            assertTrue(terms.supportsMergingSlices(field -> highCardinality));
+        }
+        {
+            TermsAggregationBuilder terms = new TermsAggregationBuilder("terms").field("field").executionHint("map");
+            assertFalse(terms.supportsMergingSlices(field -> highCardinality));
+        }
+        {
+            TermsAggregationBuilder terms = new TermsAggregationBuilder("terms").field("field").minDocCount(0);
+            assertFalse(terms.supportsMergingSlices(field -> highCardinality));
+        }
+        {
+            TermsAggregationBuilder terms = new TermsAggregationBuilder("terms").field("field");
+            terms.subAggregation(new TermsAggregationBuilder("sub").field("other"));
+            assertFalse(terms.supportsMergingSlices(field -> highCardinality));
+        }
+    }
 }
@@ -422,6 +422,35 @@ public class TermsAggregatorTests extends AggregatorTestCase {
         }, new AggTestConfig(aggregationBuilder, fieldType));
     }
 
+    public void testManyTermsMergesSlices() throws Exception {
+        MappedFieldType fieldType = new KeywordFieldMapper.KeywordFieldType("string", randomBoolean(), true, Collections.emptyMap());
+        TermsAggregationBuilder aggregationBuilder = new TermsAggregationBuilder("_name").field("string").size(1);
+        int numSegments = 10;
+        testCase(iw -> {
+            /*
+             * Every segment has a local winner and many terms that sort before the global winner,
+             * which only appears once per segment. Pruning each slice to the shard size would miss
+             * the global winner, merging the slices before pruning must find it.
+             */
+            for (int segment = 0; segment < numSegments; segment++) {
+                List<List<? extends IndexableField>> docs = new ArrayList<>();
+                for (int i = 0; i < TermsAggregatorFactory.MAX_ORDS_TO_TRY_FILTERS / numSegments + 50; i++) {
+                    docs.add(doc(fieldType, Strings.format("a%02d%04d", segment, i)));
+                }
+                for (int i = 0; i < 3; i++) {
+                    docs.add(doc(fieldType, Strings.format("local%02d", segment)));
+                }
+                docs.add(doc(fieldType, "zzz"));
+                iw.addDocuments(docs);
+                iw.commit();
+            }
+        }, (StringTerms result) -> {
+            assertThat(result.getBuckets(), hasSize(1));
+            assertThat(result.getBuckets().get(0).getKeyAsString(), equalTo("zzz"));
+            assertThat(result.getBuckets().get(0).getDocCount(), equalTo((long) numSegments));
+        }, new AggTestConfig(aggregationBuilder, fieldType));
+    }
+
     public void testManyTermsOrderBySubAgg() throws Exception {
         MappedFieldType kft = new KeywordFieldMapper.KeywordFieldType("string", randomBoolean(), true, Collections.emptyMap());
         MappedFieldType lft = new NumberFieldType("long", NumberType.LONG);
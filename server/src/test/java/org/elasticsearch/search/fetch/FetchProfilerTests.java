@@ -9,7 +9,13 @@
 
 package org.elasticsearch.search.fetch;
 
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.store.Directory;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.index.fieldvisitor.LeafStoredFieldLoader;
 import org.elasticsearch.index.fieldvisitor.StoredFieldLoader;
 import org.elasticsearch.search.profile.ProfileResult;
 import org.elasticsearch.test.ESTestCase;
@@ -17,6 +23,7 @@ import org.elasticsearch.test.ESTestCase;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 import static org.elasticsearch.test.MapMatcher.assertMap;
 import static org.elasticsearch.test.MapMatcher.matchesMap;
@@ -40,4 +47,33 @@ public class FetchProfilerTests extends ESTestCase {
         ProfileResult copy = copyWriteable(result, new NamedWriteableRegistry(List.of()), ProfileResult::new);
         assertMap(copy.getDebugInfo(), matchesMap().entry("stored_fields", List.of("_id", "_routing", "_source")));
     }
+
+    public void testStoredFieldsBlockRuns() throws IOException {
+        try (Directory dir = newDirectory(); IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig())) {
+            for (int i = 0; i < 600; i++) {
+                Document doc = new Document();
+                doc.add(new StoredField("field", i));
+                writer.addDocument(doc);
+            }
+            writer.forceMerge(1);
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                FetchProfiler profiler = new FetchProfiler();
+                StoredFieldLoader loader = profiler.storedFields(StoredFieldLoader.create(false, Set.of("field")));
+                int[] docs = new int[] { 0, 1, 5, 100, 110, 500 };
+                LeafStoredFieldLoader leafLoader = loader.getLoader(reader.leaves().get(0), docs);
+                for (int doc : docs) {
+                    leafLoader.advanceTo(doc);
+                    Number expected = reader.storedFields().document(doc).getField("field").numericValue();
+                    assertThat(leafLoader.storedFields().get("field"), equalTo(List.of(expected)));
+                }
+                ProfileResult result = profiler.finish();
+                assertMap(
+                    result.getDebugInfo(),
+                    matchesMap().entry("stored_fields", List.of("_id", "_routing", "field"))
+                        .entry("stored_fields_hits", 6)
+                        .entry("stored_fields_block_runs", 3)
+                );
+            }
+        }
+    }
 }
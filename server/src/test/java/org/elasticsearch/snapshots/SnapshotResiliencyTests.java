@@ -2466,7 +2466,10 @@ public class SnapshotResiliencyTests extends ESTestCase {
                     )
                 );
 
-                SearchPhaseController searchPhaseController = new SearchPhaseController(searchService::aggReduceContextBuilder);
+                SearchPhaseController searchPhaseController = new SearchPhaseController(
+                    searchService::aggReduceContextBuilder,
+                    namedWriteableRegistry
+                );
                 actions.put(
                     TransportSearchAction.TYPE,
                     new TransportSearchAction(
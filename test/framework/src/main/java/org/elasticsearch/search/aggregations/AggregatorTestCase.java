@@ -568,9 +568,12 @@ public abstract class AggregatorTestCase extends ESTestCase {
      * in order to mak sure the implementation does not leak.
      */
     protected <A extends InternalAggregation> A searchAndReduce(IndexReader reader, AggTestConfig aggTestConfig) throws IOException {
+        // top level aggregations that merge slices are collected in parallel even if the builder doesn't support parallel collection
+        Builder topLevel = AggregatorFactories.builder().addAggregator(aggTestConfig.builder);
         IndexSearcher searcher = newIndexSearcher(
             reader,
-            aggTestConfig.builder.supportsParallelCollection(field -> getCardinality(reader, field))
+            topLevel.supportsParallelCollection(field -> getCardinality(reader, field))
+                || topLevel.supportsMergingSlices(field -> getCardinality(reader, field))
         );
         IndexSettings indexSettings = createIndexSettings();
         // First run it to find circuit breaker leaks on the aggregator
@@ -718,7 +721,8 @@ public abstract class AggregatorTestCase extends ESTestCase {
                             Aggregator aggregator = createAggregator(builder, context);
                             aggregator.preCollection();
                             BucketCollector bucketCollector = MultiBucketCollector.wrap(true, List.of(aggregator));
-                            return new AggregatorCollector(new Aggregator[] { aggregator }, bucketCollector);
+                            Aggregator[] aggregators = new Aggregator[] { aggregator };
+                            return new AggregatorCollector(aggregators, bucketCollector, AggregatorCollector.canMergeSlices(aggregators));
                         } catch (IOException e) {
                             throw new AggregationInitializationException("Could not initialize aggregators", e);
                         }
@@ -42,4 +42,22 @@ public @interface Evaluator {
      * into a warning and turn into a null value.
      */
     Class<? extends Exception>[] warnExceptions() default {};
+
+    /**
+     * Name of a static method on the same class that processes all positions
+     * at once when every argument is a {@code Vector} backed by an array. It
+     * receives the arrays behind the arguments, which may be longer than the
+     * number of positions and must not be modified, an array for the results
+     * and the number of positions. Use it to process the values in bulk, for
+     * example with SIMD instructions. Other vectors are processed one position
+     * at a time.
+     * <p>
+     *     If the evaluator has {@link #warnExceptions} then the method must
+     *     return a {@code boolean} which is {@code false} if any position
+     *     would have thrown. The generated evaluator then falls back to
+     *     calling the {@code process} method for each position so it can
+     *     register the warnings. Otherwise it must return {@code void}.
+     * </p>
+     */
+    String bulkProcess() default "";
 }
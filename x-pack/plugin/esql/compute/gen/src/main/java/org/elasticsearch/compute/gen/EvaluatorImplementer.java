@@ -36,6 +36,7 @@ import javax.lang.model.util.Elements;
 import static org.elasticsearch.compute.gen.Methods.appendMethod;
 import static org.elasticsearch.compute.gen.Methods.buildFromFactory;
 import static org.elasticsearch.compute.gen.Methods.getMethod;
+import static org.elasticsearch.compute.gen.Types.ARRAY_VECTORS;
 import static org.elasticsearch.compute.gen.Types.BLOCK;
 import static org.elasticsearch.compute.gen.Types.BOOLEAN_BLOCK;
 import static org.elasticsearch.compute.gen.Types.BYTES_REF;
@@ -62,13 +63,15 @@ public class EvaluatorImplementer {
     private final ProcessFunction processFunction;
     private final ClassName implementation;
     private final boolean processOutputsMultivalued;
+    private final String bulkProcess;
 
     public EvaluatorImplementer(
         Elements elements,
         javax.lang.model.util.Types types,
         ExecutableElement processFunction,
         String extraName,
-        List<TypeMirror> warnExceptions
+        List<TypeMirror> warnExceptions,
+        String bulkProcess
     ) {
         this.declarationType = (TypeElement) processFunction.getEnclosingElement();
         this.processFunction = new ProcessFunction(elements, types, processFunction, warnExceptions);
@@ -78,6 +81,22 @@ public class EvaluatorImplementer {
             declarationType.getSimpleName() + extraName + "Evaluator"
         );
         this.processOutputsMultivalued = this.processFunction.hasBlockType && (this.processFunction.builderArg != null);
+        this.bulkProcess = bulkProcess;
+        if (bulkProcess.isEmpty() == false) {
+            if (isBulkType(TypeName.get(processFunction.getReturnType())) == false) {
+                throw new IllegalArgumentException("bulkProcess requires a primitive return type but was " + processFunction);
+            }
+            for (ProcessFunctionArg arg : this.processFunction.args) {
+                boolean bulkArg = arg instanceof StandardProcessFunctionArg standard && isBulkType(standard.type);
+                if (bulkArg == false) {
+                    throw new IllegalArgumentException("bulkProcess requires primitive arguments but was " + processFunction);
+                }
+            }
+        }
+    }
+
+    private static boolean isBulkType(TypeName type) {
+        return type.equals(TypeName.BOOLEAN) || type.equals(TypeName.INT) || type.equals(TypeName.LONG) || type.equals(TypeName.DOUBLE);
     }
 
     public JavaFile sourceFile() {
@@ -178,6 +197,16 @@ public class EvaluatorImplementer {
             vectorize = type.simpleName().startsWith("BytesRef") == false;
         }
 
+        processFunction.args.stream().forEach(a -> {
+            if (a.paramName(blockStyle) != null) {
+                builder.addParameter(a.dataType(blockStyle), a.paramName(blockStyle));
+            }
+        });
+
+        if (blockStyle == false && bulkProcess.isEmpty() == false) {
+            bulkEval(builder);
+        }
+
         TypeName builderType = vectorize ? vectorFixedBuilderType(elementType(resultDataType)) : builderType(resultDataType);
         builder.beginControlFlow(
             "try($T result = driverContext.blockFactory().$L(positionCount))",
@@ -185,12 +214,6 @@ public class EvaluatorImplementer {
             buildFromFactory(builderType)
         );
         {
-            processFunction.args.stream().forEach(a -> {
-                if (a.paramName(blockStyle) != null) {
-                    builder.addParameter(a.dataType(blockStyle), a.paramName(blockStyle));
-                }
-            });
-
             processFunction.args.stream().forEach(a -> a.createScratch(builder));
 
             builder.beginControlFlow("position: for (int p = 0; p < positionCount; p++)");
@@ -266,6 +289,37 @@ public class EvaluatorImplementer {
         return builder.build();
     }
 
+    /**
+     * Calls the {@code bulkProcess} method on the arrays behind the vectors if all of them are array backed.
+     * This only returns if the bulk method handled all positions, falling through to the per-position code
+     * for other vectors or if the bulk method reports that a position needs a warning.
+     */
+    private void bulkEval(MethodSpec.Builder builder) {
+        List<String> values = new ArrayList<>();
+        for (ProcessFunctionArg a : processFunction.args) {
+            StandardProcessFunctionArg arg = (StandardProcessFunctionArg) a;
+            String name = arg.name + "Values";
+            builder.addStatement("$T[] $L = $T.values($L)", arg.type, name, ARRAY_VECTORS, arg.paramName(false));
+            values.add(name);
+        }
+        builder.beginControlFlow("if (" + values.stream().map(v -> v + " != null").collect(Collectors.joining(" && ")) + ")");
+        TypeName resultType = TypeName.get(processFunction.function.getReturnType());
+        builder.addStatement("$T[] bulkResult = new $T[positionCount]", resultType, resultType);
+
+        String invocation = "$T.$N(" + String.join(", ", values) + ", bulkResult, positionCount)";
+        String primitive = resultType.toString();
+        String newVector = "new" + Character.toUpperCase(primitive.charAt(0)) + primitive.substring(1) + "ArrayVector";
+        if (processFunction.warnExceptions.isEmpty()) {
+            builder.addStatement(invocation, declarationType, bulkProcess);
+            builder.addStatement("return driverContext.blockFactory().$L(bulkResult, positionCount)", newVector);
+        } else {
+            builder.beginControlFlow("if (" + invocation + ")", declarationType, bulkProcess);
+            builder.addStatement("return driverContext.blockFactory().$L(bulkResult, positionCount).asBlock()", newVector);
+            builder.endControlFlow();
+        }
+        builder.endControlFlow();
+    }
+
     private static void skipNull(MethodSpec.Builder builder, String value) {
         builder.beginControlFlow("if ($N.isNull(p))", value);
         {
@@ -63,6 +63,13 @@ final class BooleanArrayVector extends AbstractVector implements BooleanVector {
         }
     }
 
+    /**
+     * The array that backs this vector, see {@link ArrayVectors}.
+     */
+    boolean[] values() {
+        return values;
+    }
+
     @Override
     public BooleanBlock asBlock() {
         return new BooleanVectorBlock(this);
@@ -62,6 +62,13 @@ final class DoubleArrayVector extends AbstractVector implements DoubleVector {
         }
     }
 
+    /**
+     * The array that backs this vector, see {@link ArrayVectors}.
+     */
+    double[] values() {
+        return values;
+    }
+
     @Override
     public DoubleBlock asBlock() {
         return new DoubleVectorBlock(this);
@@ -72,6 +72,13 @@ final class IntArrayVector extends AbstractVector implements IntVector {
         }
     }
 
+    /**
+     * The array that backs this vector, see {@link ArrayVectors}.
+     */
+    int[] values() {
+        return values;
+    }
+
     @Override
     public IntBlock asBlock() {
         return new IntVectorBlock(this);
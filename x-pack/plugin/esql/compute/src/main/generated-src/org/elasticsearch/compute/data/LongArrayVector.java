@@ -62,6 +62,13 @@ final class LongArrayVector extends AbstractVector implements LongVector {
         }
     }
 
+    /**
+     * The array that backs this vector, see {@link ArrayVectors}.
+     */
+    long[] values() {
+        return values;
+    }
+
     @Override
     public LongBlock asBlock() {
         return new LongVectorBlock(this);
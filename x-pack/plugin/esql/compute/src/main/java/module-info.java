@@ -11,6 +11,7 @@ module org.elasticsearch.compute {
     requires org.apache.lucene.core;
     requires org.elasticsearch.base;
     requires org.elasticsearch.server;
+    requires org.elasticsearch.simdvec;
     requires org.elasticsearch.compute.ann;
     requires org.elasticsearch.xcontent;
     // required due to dependency on org.elasticsearch.common.util.concurrent.AbstractAsyncTask
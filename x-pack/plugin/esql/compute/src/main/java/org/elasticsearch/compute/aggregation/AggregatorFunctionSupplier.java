@@ -11,6 +11,7 @@ import org.elasticsearch.compute.Describable;
 import org.elasticsearch.compute.operator.DriverContext;
 
 import java.util.List;
+import java.util.stream.IntStream;
 
 /**
  * Builds aggregation implementations, closing over any state required to do so.
@@ -45,6 +46,14 @@ public interface AggregatorFunctionSupplier extends Describable {
                 return new GroupingAggregator(groupingAggregator(driverContext, channels), mode);
             }
 
+            @Override
+            public GroupingAggregator.Factory intermediateStateFactory(int firstChannel) {
+                int channelCount = groupingIntermediateStateDesc().size();
+                List<Integer> intermediateChannels = IntStream.range(firstChannel, firstChannel + channelCount).boxed().toList();
+                AggregatorMode intermediateMode = mode.isOutputPartial() ? AggregatorMode.INTERMEDIATE : AggregatorMode.FINAL;
+                return groupingAggregatorFactory(intermediateMode, intermediateChannels);
+            }
+
             @Override
             public String describe() {
                 return AggregatorFunctionSupplier.this.describe();
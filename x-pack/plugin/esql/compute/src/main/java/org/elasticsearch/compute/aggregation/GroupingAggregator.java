@@ -13,6 +13,7 @@ import org.elasticsearch.compute.data.IntBlock;
 import org.elasticsearch.compute.data.IntVector;
 import org.elasticsearch.compute.data.Page;
 import org.elasticsearch.compute.operator.DriverContext;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
 
 import java.util.function.Function;
@@ -22,7 +23,17 @@ public class GroupingAggregator implements Releasable {
 
     private final AggregatorMode mode;
 
-    public interface Factory extends Function<DriverContext, GroupingAggregator>, Describable {}
+    public interface Factory extends Function<DriverContext, GroupingAggregator>, Describable {
+        /**
+         * Build a factory for aggregators that read the intermediate state of the aggregators
+         * built by this factory from the channels starting at {@code firstChannel}, and that
+         * produce the same output as them. Returns {@code null} if this isn't supported.
+         */
+        @Nullable
+        default Factory intermediateStateFactory(int firstChannel) {
+            return null;
+        }
+    }
 
     public GroupingAggregator(GroupingAggregatorFunction aggregatorFunction, AggregatorMode mode) {
         this.aggregatorFunction = aggregatorFunction;
@@ -34,6 +45,11 @@ public class GroupingAggregator implements Releasable {
         return mode.isOutputPartial() ? aggregatorFunction.intermediateBlockCount() : 1;
     }
 
+    /** The number of Blocks of the intermediate state, whatever the mode. */
+    public int intermediateBlockCount() {
+        return aggregatorFunction.intermediateBlockCount();
+    }
+
     /**
      * Prepare to process a single page of results.
      */
@@ -78,6 +94,15 @@ public class GroupingAggregator implements Releasable {
         }
     }
 
+    /**
+     * Build the intermediate state of this aggregation, whatever the mode.
+     * @param selected the groupIds that have been selected to be included in
+     *                 the results. Always ascending.
+     */
+    public void evaluateIntermediate(Block[] blocks, int offset, IntVector selected) {
+        aggregatorFunction.evaluateIntermediate(blocks, offset, selected);
+    }
+
     @Override
     public void close() {
         aggregatorFunction.close();
@@ -0,0 +1,52 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.compute.data;
+
+import org.elasticsearch.core.Nullable;
+
+/**
+ * Read access to the arrays behind array backed vectors, for code that processes all positions of a
+ * vector at once rather than calling {@code getLong(p)} and friends for every position. The returned
+ * arrays are shared with the vector, so they must not be modified and are only valid as long as the
+ * vector isn't released. They may be longer than the vector.
+ */
+public final class ArrayVectors {
+    private ArrayVectors() {}
+
+    /**
+     * The values of the vector if it is backed by an {@code int[]}, {@code null} otherwise.
+     */
+    @Nullable
+    public static int[] values(IntVector vector) {
+        return vector instanceof IntArrayVector array ? array.values() : null;
+    }
+
+    /**
+     * The values of the vector if it is backed by a {@code long[]}, {@code null} otherwise.
+     */
+    @Nullable
+    public static long[] values(LongVector vector) {
+        return vector instanceof LongArrayVector array ? array.values() : null;
+    }
+
+    /**
+     * The values of the vector if it is backed by a {@code double[]}, {@code null} otherwise.
+     */
+    @Nullable
+    public static double[] values(DoubleVector vector) {
+        return vector instanceof DoubleArrayVector array ? array.values() : null;
+    }
+
+    /**
+     * The values of the vector if it is backed by a {@code boolean[]}, {@code null} otherwise.
+     */
+    @Nullable
+    public static boolean[] values(BooleanVector vector) {
+        return vector instanceof BooleanArrayVector array ? array.values() : null;
+    }
+}
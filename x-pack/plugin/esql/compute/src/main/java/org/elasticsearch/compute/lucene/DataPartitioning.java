@@ -14,4 +14,10 @@ public enum DataPartitioning {
     SEGMENT,
 
     DOC,
+
+    /**
+     * Split the segments of all shards into ranges of documents while the query runs so
+     * drivers that finish early take over the remaining work from the bigger segments.
+     */
+    DYNAMIC,
 }
@@ -54,6 +54,14 @@ public abstract class LuceneOperator extends SourceOperator {
      * Count of the number of slices processed.
      */
     private int processedSlices;
+    /**
+     * Count of the documents in the slices processed, matching or not.
+     */
+    private long sliceDocs;
+    /**
+     * Count of the slices processed that {@link DataPartitioning#DYNAMIC} split off a larger one.
+     */
+    private int splitSlices;
     final int maxPageSize;
     private final LuceneSliceQueue sliceQueue;
 
@@ -104,7 +112,7 @@ public abstract class LuceneOperator extends SourceOperator {
             this.dataPartitioning = dataPartitioning;
             var weightFunction = weightFunction(queryFunction, scoreMode);
             this.sliceQueue = LuceneSliceQueue.create(contexts, weightFunction, dataPartitioning, taskConcurrency);
-            this.taskConcurrency = Math.min(sliceQueue.totalSlices(), taskConcurrency);
+            this.taskConcurrency = Math.min(sliceQueue.maxSlices(), taskConcurrency);
         }
 
         public final int taskConcurrency() {
@@ -145,6 +153,10 @@ public abstract class LuceneOperator extends SourceOperator {
                     return null;
                 }
                 processedSlices++;
+                sliceDocs += currentSlice.numDocs();
+                if (currentSlice.split()) {
+                    splitSlices++;
+                }
                 processedShards.add(currentSlice.shardContext().shardIdentifier());
             }
             final PartialLeafReaderContext partialLeaf = currentSlice.getLeaf(sliceIndex++);
@@ -262,6 +274,8 @@ public abstract class LuceneOperator extends SourceOperator {
         private final int sliceMax;
         private final int current;
         private final long rowsEmitted;
+        private final long sliceDocs;
+        private final int splitSlices;
 
         private Status(LuceneOperator operator) {
             processedSlices = operator.processedSlices;
@@ -287,6 +301,8 @@ public abstract class LuceneOperator extends SourceOperator {
             }
             pagesEmitted = operator.pagesEmitted;
             rowsEmitted = operator.rowsEmitted;
+            sliceDocs = operator.sliceDocs;
+            splitSlices = operator.splitSlices;
         }
 
         Status(
@@ -300,7 +316,9 @@ public abstract class LuceneOperator extends SourceOperator {
             int sliceMin,
             int sliceMax,
             int current,
-            long rowsEmitted
+            long rowsEmitted,
+            long sliceDocs,
+            int splitSlices
         ) {
             this.processedSlices = processedSlices;
             this.processedQueries = processedQueries;
@@ -313,6 +331,8 @@ public abstract class LuceneOperator extends SourceOperator {
             this.sliceMax = sliceMax;
             this.current = current;
             this.rowsEmitted = rowsEmitted;
+            this.sliceDocs = sliceDocs;
+            this.splitSlices = splitSlices;
         }
 
         Status(StreamInput in) throws IOException {
@@ -336,6 +356,13 @@ public abstract class LuceneOperator extends SourceOperator {
             } else {
                 rowsEmitted = 0;
             }
+            if (in.getTransportVersion().onOrAfter(TransportVersions.ESQL_DYNAMIC_DATA_PARTITIONING)) {
+                sliceDocs = in.readVLong();
+                splitSlices = in.readVInt();
+            } else {
+                sliceDocs = 0;
+                splitSlices = 0;
+            }
         }
 
         @Override
@@ -357,6 +384,10 @@ public abstract class LuceneOperator extends SourceOperator {
             if (out.getTransportVersion().onOrAfter(TransportVersions.ESQL_PROFILE_ROWS_PROCESSED)) {
                 out.writeVLong(rowsEmitted);
             }
+            if (out.getTransportVersion().onOrAfter(TransportVersions.ESQL_DYNAMIC_DATA_PARTITIONING)) {
+                out.writeVLong(sliceDocs);
+                out.writeVInt(splitSlices);
+            }
         }
 
         @Override
@@ -408,6 +439,14 @@ public abstract class LuceneOperator extends SourceOperator {
             return rowsEmitted;
         }
 
+        public long sliceDocs() {
+            return sliceDocs;
+        }
+
+        public int splitSlices() {
+            return splitSlices;
+        }
+
         @Override
         public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
             builder.startObject();
@@ -425,6 +464,8 @@ public abstract class LuceneOperator extends SourceOperator {
             builder.field("slice_max", sliceMax);
             builder.field("current", current);
             builder.field("rows_emitted", rowsEmitted);
+            builder.field("slice_docs", sliceDocs);
+            builder.field("split_slices", splitSlices);
             return builder.endObject();
         }
 
@@ -443,12 +484,25 @@ public abstract class LuceneOperator extends SourceOperator {
                 && sliceMin == status.sliceMin
                 && sliceMax == status.sliceMax
                 && current == status.current
-                && rowsEmitted == status.rowsEmitted;
+                && rowsEmitted == status.rowsEmitted
+                && sliceDocs == status.sliceDocs
+                && splitSlices == status.splitSlices;
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(processedSlices, sliceIndex, totalSlices, pagesEmitted, sliceMin, sliceMax, current, rowsEmitted);
+            return Objects.hash(
+                processedSlices,
+                sliceIndex,
+                totalSlices,
+                pagesEmitted,
+                sliceMin,
+                sliceMax,
+                current,
+                rowsEmitted,
+                sliceDocs,
+                splitSlices
+            );
         }
 
         @Override
@@ -13,8 +13,9 @@ import java.util.List;
 
 /**
  * Holds a list of multiple partial Lucene segments
+ * @param split was this slice split off a larger one by {@link DataPartitioning#DYNAMIC}?
  */
-public record LuceneSlice(ShardContext shardContext, List<PartialLeafReaderContext> leaves, Weight weight) {
+public record LuceneSlice(ShardContext shardContext, List<PartialLeafReaderContext> leaves, Weight weight, boolean split) {
     int numLeaves() {
         return leaves.size();
     }
@@ -22,4 +23,15 @@ public record LuceneSlice(ShardContext shardContext, List<PartialLeafReaderConte
     PartialLeafReaderContext getLeaf(int index) {
         return leaves.get(index);
     }
+
+    /**
+     * The number of documents in all the leaves of this slice.
+     */
+    int numDocs() {
+        int docs = 0;
+        for (PartialLeafReaderContext leaf : leaves) {
+            docs += leaf.maxDoc() - leaf.minDoc();
+        }
+        return docs;
+    }
 }
@@ -16,35 +16,123 @@ import org.elasticsearch.core.Nullable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.List;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.function.Function;
 
 /**
  * Shared Lucene slices between Lucene operators.
+ * <p>
+ *     With {@link DataPartitioning#DYNAMIC} the slices aren't fixed up front. The queue
+ *     starts with a slice per segment of all the shards, biggest first, and splits a range
+ *     of documents off the front of each segment as operators ask for slices. The ranges
+ *     shrink as the remaining documents run out so all the drivers finish at about the
+ *     same time even when one shard is much bigger than the others.
+ * </p>
  */
 public final class LuceneSliceQueue {
     private static final int MAX_DOCS_PER_SLICE = 250_000; // copied from IndexSearcher
     private static final int MAX_SEGMENTS_PER_SLICE = 5; // copied from IndexSearcher
+    /**
+     * The smallest range of documents {@link DataPartitioning#DYNAMIC} splits off a segment.
+     * Each slice builds a new {@link org.apache.lucene.search.BulkScorer} so smaller ranges
+     * cost more than they save.
+     */
+    static final int MIN_DOCS_PER_DYNAMIC_SLICE = 10_000;
+    /**
+     * How many slices {@link DataPartitioning#DYNAMIC} aims to hand each driver out of the remaining documents.
+     */
+    private static final int DYNAMIC_SLICES_PER_TASK = 4;
 
-    private final int totalSlices;
-    private final Queue<LuceneSlice> slices;
+    private final Deque<LuceneSlice> slices;
+    private final int maxSlices;
+    /**
+     * The number of drivers sharing the queue if it splits slices dynamically, {@code 0} otherwise.
+     */
+    private final int dynamicTaskConcurrency;
+    private volatile int totalSlices;
+    /**
+     * The number of documents in the slices that haven't been handed out yet. Only used when splitting dynamically.
+     */
+    private long remainingDocs;
 
     private LuceneSliceQueue(List<LuceneSlice> slices) {
+        this.slices = new ConcurrentLinkedDeque<>(slices);
         this.totalSlices = slices.size();
-        this.slices = new ConcurrentLinkedQueue<>(slices);
+        this.maxSlices = slices.size();
+        this.dynamicTaskConcurrency = 0;
+    }
+
+    private LuceneSliceQueue(List<LuceneSlice> slices, int taskConcurrency) {
+        this.slices = new ConcurrentLinkedDeque<>(slices);
+        this.totalSlices = slices.size();
+        int maxSlices = 0;
+        for (LuceneSlice slice : slices) {
+            remainingDocs += slice.numDocs();
+            maxSlices += Math.max(1, slice.numDocs() / MIN_DOCS_PER_DYNAMIC_SLICE);
+        }
+        this.maxSlices = maxSlices;
+        this.dynamicTaskConcurrency = Math.max(1, taskConcurrency);
     }
 
     @Nullable
     public LuceneSlice nextSlice() {
-        return slices.poll();
+        if (dynamicTaskConcurrency == 0) {
+            return slices.poll();
+        }
+        synchronized (this) {
+            LuceneSlice slice = slices.poll();
+            if (slice == null) {
+                return null;
+            }
+            int sliceDocs = dynamicSliceDocs();
+            // Don't split off less than the minimum either, that just makes another tiny slice
+            if (slice.numDocs() >= sliceDocs + MIN_DOCS_PER_DYNAMIC_SLICE) {
+                PartialLeafReaderContext leaf = slice.getLeaf(0);
+                int splitAt = leaf.minDoc() + sliceDocs;
+                List<PartialLeafReaderContext> rest = List.of(
+                    new PartialLeafReaderContext(leaf.leafReaderContext(), splitAt, leaf.maxDoc())
+                );
+                // Put the rest back at the front so the big segments are done first
+                slices.addFirst(new LuceneSlice(slice.shardContext(), rest, slice.weight(), true));
+                List<PartialLeafReaderContext> first = List.of(
+                    new PartialLeafReaderContext(leaf.leafReaderContext(), leaf.minDoc(), splitAt)
+                );
+                slice = new LuceneSlice(slice.shardContext(), first, slice.weight(), true);
+                totalSlices++;
+            }
+            remainingDocs -= slice.numDocs();
+            return slice;
+        }
+    }
+
+    /**
+     * The number of documents to split off a segment so each driver gets a few more slices out of
+     * the remaining documents.
+     */
+    private int dynamicSliceDocs() {
+        assert Thread.holdsLock(this);
+        long docs = remainingDocs / ((long) dynamicTaskConcurrency * DYNAMIC_SLICES_PER_TASK);
+        return (int) Math.max(MIN_DOCS_PER_DYNAMIC_SLICE, Math.min(MAX_DOCS_PER_SLICE, docs));
     }
 
+    /**
+     * The number of slices in the queue, including the ones already handed out. When splitting
+     * slices dynamically this grows as the slices are split.
+     */
     public int totalSlices() {
         return totalSlices;
     }
 
+    /**
+     * The most slices this queue can ever hand out. There's no point in running more drivers than this.
+     */
+    public int maxSlices() {
+        return maxSlices;
+    }
+
     public Iterable<LuceneSlice> getSlices() {
         return slices;
     }
@@ -55,6 +143,9 @@ public final class LuceneSliceQueue {
         DataPartitioning dataPartitioning,
         int taskConcurrency
     ) {
+        if (dataPartitioning == DataPartitioning.DYNAMIC) {
+            return dynamic(contexts, weightFunction, taskConcurrency);
+        }
         final List<LuceneSlice> slices = new ArrayList<>();
         for (ShardContext ctx : contexts) {
             final List<LeafReaderContext> leafContexts = ctx.searcher().getLeafContexts();
@@ -62,17 +153,36 @@ public final class LuceneSliceQueue {
                 case SHARD -> Collections.singletonList(leafContexts.stream().map(PartialLeafReaderContext::new).toList());
                 case SEGMENT -> segmentSlices(leafContexts);
                 case DOC -> docSlices(ctx.searcher().getIndexReader(), taskConcurrency);
+                case DYNAMIC -> throw new IllegalStateException("dynamic slices are built separately");
             };
             final Weight weight = weightFunction.apply(ctx);
             for (List<PartialLeafReaderContext> group : groups) {
                 if (group.isEmpty() == false) {
-                    slices.add(new LuceneSlice(ctx, group, weight));
+                    slices.add(new LuceneSlice(ctx, group, weight, false));
                 }
             }
         }
         return new LuceneSliceQueue(slices);
     }
 
+    private static LuceneSliceQueue dynamic(
+        List<? extends ShardContext> contexts,
+        Function<ShardContext, Weight> weightFunction,
+        int taskConcurrency
+    ) {
+        final List<LuceneSlice> slices = new ArrayList<>();
+        for (ShardContext ctx : contexts) {
+            final Weight weight = weightFunction.apply(ctx);
+            for (LeafReaderContext leaf : ctx.searcher().getLeafContexts()) {
+                if (leaf.reader().maxDoc() > 0) {
+                    slices.add(new LuceneSlice(ctx, List.of(new PartialLeafReaderContext(leaf)), weight, false));
+                }
+            }
+        }
+        slices.sort(Comparator.comparingInt(LuceneSlice::numDocs).reversed());
+        return new LuceneSliceQueue(slices, taskConcurrency);
+    }
+
     static List<List<PartialLeafReaderContext>> docSlices(IndexReader indexReader, int numSlices) {
         final int totalDocCount = indexReader.maxDoc();
         final int normalMaxDocsPerSlice = totalDocCount / numSlices;
@@ -7,11 +7,14 @@
 
 package org.elasticsearch.compute.operator;
 
+import org.elasticsearch.compute.data.ArrayVectors;
 import org.elasticsearch.compute.data.Block;
 import org.elasticsearch.compute.data.BooleanBlock;
+import org.elasticsearch.compute.data.BooleanVector;
 import org.elasticsearch.compute.data.Page;
 import org.elasticsearch.compute.operator.EvalOperator.ExpressionEvaluator;
 import org.elasticsearch.core.Releasables;
+import org.elasticsearch.simdvec.columnar.ESColumnarUtil;
 
 import java.util.Arrays;
 
@@ -49,14 +52,21 @@ public class FilterOperator extends AbstractPageMappingOperator {
             }
             // TODO we can detect constant true or false from the type
             // TODO or we could make a new method in bool-valued evaluators that returns a list of numbers
-            for (int p = 0; p < page.getPositionCount(); p++) {
-                if (test.isNull(p) || test.getValueCount(p) != 1) {
-                    // Null is like false
-                    // And, for now, multivalued results are like false too
-                    continue;
-                }
-                if (test.getBoolean(test.getFirstValueIndex(p))) {
-                    positions[rowCount++] = p;
+            BooleanVector vector = test.asVector();
+            boolean[] mask = vector == null ? null : ArrayVectors.values(vector);
+            if (mask != null) {
+                // No nulls and no multivalued fields, so collect the true values of the mask without branching on each of them
+                rowCount = ESColumnarUtil.indicesOfTrue(mask, page.getPositionCount(), positions);
+            } else {
+                for (int p = 0; p < page.getPositionCount(); p++) {
+                    if (test.isNull(p) || test.getValueCount(p) != 1) {
+                        // Null is like false
+                        // And, for now, multivalued results are like false too
+                        continue;
+                    }
+                    if (test.getBoolean(test.getFirstValueIndex(p))) {
+                        positions[rowCount++] = p;
+                    }
                 }
             }
 
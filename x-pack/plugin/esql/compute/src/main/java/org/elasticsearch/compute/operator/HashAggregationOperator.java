@@ -10,6 +10,7 @@ package org.elasticsearch.compute.operator;
 import org.elasticsearch.TransportVersion;
 import org.elasticsearch.TransportVersions;
 import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -22,30 +23,52 @@ import org.elasticsearch.compute.data.Block;
 import org.elasticsearch.compute.data.IntBlock;
 import org.elasticsearch.compute.data.IntVector;
 import org.elasticsearch.compute.data.Page;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasables;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.analysis.AnalysisRegistry;
 import org.elasticsearch.xcontent.XContentBuilder;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.joining;
 
 public class HashAggregationOperator implements Operator {
 
+    /**
+     * The minimum number of rows received between two spills when the factory configures spilling, so memory
+     * pressure from other operators doesn't make this operator write many tiny files.
+     */
+    public static final int DEFAULT_MIN_ROWS_BETWEEN_SPILLS = 100_000;
+
     public record HashAggregationOperatorFactory(
         List<BlockHash.GroupSpec> groups,
         AggregatorMode aggregatorMode,
         List<GroupingAggregator.Factory> aggregators,
         int maxPageSize,
-        AnalysisRegistry analysisRegistry
+        AnalysisRegistry analysisRegistry,
+        double spillThreshold,
+        Supplier<Path> spillDirectory
     ) implements OperatorFactory {
+        public HashAggregationOperatorFactory(
+            List<BlockHash.GroupSpec> groups,
+            AggregatorMode aggregatorMode,
+            List<GroupingAggregator.Factory> aggregators,
+            int maxPageSize,
+            AnalysisRegistry analysisRegistry
+        ) {
+            this(groups, aggregatorMode, aggregators, maxPageSize, analysisRegistry, 0, null);
+        }
+
         @Override
         public Operator get(DriverContext driverContext) {
             if (groups.stream().anyMatch(BlockHash.GroupSpec::isCategorize)) {
@@ -64,10 +87,27 @@ public class HashAggregationOperator implements Operator {
             return new HashAggregationOperator(
                 aggregators,
                 () -> BlockHash.build(groups, driverContext.blockFactory(), maxPageSize, false),
-                driverContext
+                driverContext,
+                spill()
             );
         }
 
+        /**
+         * The spilling configuration, or {@code null} if spilling is disabled or if
+         * some aggregators can't merge their intermediate state.
+         */
+        @Nullable
+        private Spill spill() {
+            if (spillThreshold <= 0 || aggregators.stream().anyMatch(a -> a.intermediateStateFactory(0) == null)) {
+                return null;
+            }
+            List<BlockHash.GroupSpec> spilledGroups = new ArrayList<>(groups.size());
+            for (int i = 0; i < groups.size(); i++) {
+                spilledGroups.add(new BlockHash.GroupSpec(i, groups.get(i).elementType()));
+            }
+            return new Spill(spillDirectory.get(), spillThreshold, DEFAULT_MIN_ROWS_BETWEEN_SPILLS, spilledGroups, maxPageSize);
+        }
+
         @Override
         public String describe() {
             return "HashAggregationOperator[mode = "
@@ -78,15 +118,37 @@ public class HashAggregationOperator implements Operator {
         }
     }
 
+    /**
+     * Configures spilling the groups to local temporary files when memory runs low, see {@link SpilledGroups}.
+     * @param directory where to create the temporary files
+     * @param threshold fraction of the limit of the {@link DriverContext#breaker() circuit breaker} above which groups are spilled
+     * @param minRowsBetweenSpills minimum number of rows to receive before spilling again
+     * @param groups the groups of the spilled pages, whose keys are in the first channels
+     * @param maxPageSize maximum batch size of the block hash that merges the spilled groups
+     */
+    public record Spill(Path directory, double threshold, int minRowsBetweenSpills, List<BlockHash.GroupSpec> groups, int maxPageSize) {}
+
     private boolean finished;
     private Page output;
 
-    private final BlockHash blockHash;
+    private final Supplier<BlockHash> blockHashSupplier;
+    private BlockHash blockHash;
 
+    private final List<GroupingAggregator.Factory> aggregatorFactories;
     private final List<GroupingAggregator> aggregators;
 
     private final DriverContext driverContext;
 
+    @Nullable
+    private final Spill spill;
+    @Nullable
+    private SpilledGroups spilledGroups;
+    /**
+     * The next spilled partition to merge once finished.
+     */
+    private int nextPartition;
+    private long rowsSinceSpill;
+
     /**
      * Nanoseconds this operator has spent hashing grouping keys.
      */
@@ -108,14 +170,26 @@ public class HashAggregationOperator implements Operator {
      */
     private long rowsEmitted;
 
-    @SuppressWarnings("this-escape")
     public HashAggregationOperator(
         List<GroupingAggregator.Factory> aggregators,
         Supplier<BlockHash> blockHash,
         DriverContext driverContext
     ) {
+        this(aggregators, blockHash, driverContext, null);
+    }
+
+    @SuppressWarnings("this-escape")
+    public HashAggregationOperator(
+        List<GroupingAggregator.Factory> aggregators,
+        Supplier<BlockHash> blockHash,
+        DriverContext driverContext,
+        @Nullable Spill spill
+    ) {
+        this.blockHashSupplier = blockHash;
+        this.aggregatorFactories = aggregators;
         this.aggregators = new ArrayList<>(aggregators.size());
         this.driverContext = driverContext;
+        this.spill = spill;
         boolean success = false;
         try {
             this.blockHash = blockHash.get();
@@ -138,69 +212,140 @@ public class HashAggregationOperator implements Operator {
     @Override
     public void addInput(Page page) {
         try {
-            GroupingAggregatorFunction.AddInput[] prepared = new GroupingAggregatorFunction.AddInput[aggregators.size()];
-            class AddInput implements GroupingAggregatorFunction.AddInput {
-                long hashStart = System.nanoTime();
-                long aggStart;
-
-                @Override
-                public void add(int positionOffset, IntBlock groupIds) {
-                    IntVector groupIdsVector = groupIds.asVector();
-                    if (groupIdsVector != null) {
-                        add(positionOffset, groupIdsVector);
-                    } else {
-                        startAggEndHash();
-                        for (GroupingAggregatorFunction.AddInput p : prepared) {
-                            p.add(positionOffset, groupIds);
-                        }
-                        end();
-                    }
-                }
+            checkState(needsInput(), "Operator is already finishing");
+            requireNonNull(page, "page is null");
+            addPage(blockHash, aggregators, page, wrapPage(page));
+        } finally {
+            page.releaseBlocks();
+            pagesProcessed++;
+            rowsReceived += page.getPositionCount();
+            rowsSinceSpill += page.getPositionCount();
+        }
+        if (shouldSpill()) {
+            spill();
+            blockHash = blockHashSupplier.get();
+            for (GroupingAggregator.Factory a : aggregatorFactories) {
+                aggregators.add(a.apply(driverContext));
+            }
+        }
+    }
 
-                @Override
-                public void add(int positionOffset, IntVector groupIds) {
+    /**
+     * Hashes the keys of {@code hashPage} and adds {@code page} to the aggregators.
+     */
+    private void addPage(BlockHash hash, List<GroupingAggregator> aggs, Page page, Page hashPage) {
+        GroupingAggregatorFunction.AddInput[] prepared = new GroupingAggregatorFunction.AddInput[aggs.size()];
+        class AddInput implements GroupingAggregatorFunction.AddInput {
+            long hashStart = System.nanoTime();
+            long aggStart;
+
+            @Override
+            public void add(int positionOffset, IntBlock groupIds) {
+                IntVector groupIdsVector = groupIds.asVector();
+                if (groupIdsVector != null) {
+                    add(positionOffset, groupIdsVector);
+                } else {
                     startAggEndHash();
                     for (GroupingAggregatorFunction.AddInput p : prepared) {
                         p.add(positionOffset, groupIds);
                     }
                     end();
                 }
+            }
 
-                private void startAggEndHash() {
-                    aggStart = System.nanoTime();
-                    hashNanos += aggStart - hashStart;
+            @Override
+            public void add(int positionOffset, IntVector groupIds) {
+                startAggEndHash();
+                for (GroupingAggregatorFunction.AddInput p : prepared) {
+                    p.add(positionOffset, groupIds);
                 }
+                end();
+            }
 
-                private void end() {
-                    hashStart = System.nanoTime();
-                    aggregationNanos += hashStart - aggStart;
-                }
+            private void startAggEndHash() {
+                aggStart = System.nanoTime();
+                hashNanos += aggStart - hashStart;
+            }
 
-                @Override
-                public void close() {
-                    Releasables.closeExpectNoException(prepared);
-                }
+            private void end() {
+                hashStart = System.nanoTime();
+                aggregationNanos += hashStart - aggStart;
+            }
+
+            @Override
+            public void close() {
+                Releasables.closeExpectNoException(prepared);
+            }
+        }
+        try (AddInput add = new AddInput()) {
+            for (int i = 0; i < prepared.length; i++) {
+                prepared[i] = aggs.get(i).prepareProcessPage(hash, page);
             }
-            try (AddInput add = new AddInput()) {
-                checkState(needsInput(), "Operator is already finishing");
-                requireNonNull(page, "page is null");
 
-                for (int i = 0; i < prepared.length; i++) {
-                    prepared[i] = aggregators.get(i).prepareProcessPage(blockHash, page);
+            hash.add(hashPage, add);
+            hashNanos += System.nanoTime() - add.hashStart;
+        }
+    }
+
+    private boolean shouldSpill() {
+        if (spill == null || rowsSinceSpill < spill.minRowsBetweenSpills()) {
+            return false;
+        }
+        CircuitBreaker breaker = driverContext.breaker();
+        return breaker.getLimit() > 0 && breaker.getUsed() >= breaker.getLimit() * spill.threshold();
+    }
+
+    /**
+     * Writes the keys and the intermediate state of all groups to disk, and releases the groups.
+     */
+    private void spill() {
+        if (spilledGroups == null) {
+            spilledGroups = new SpilledGroups(spill.directory(), spill.groups().size());
+        }
+        try (IntVector selected = blockHash.nonEmpty()) {
+            Block[] keys = blockHash.getKeys();
+            try {
+                // evaluate the intermediate state by chunks so we don't need memory for the state of all groups at once
+                for (int start = 0; start < selected.getPositionCount(); start += spill.maxPageSize()) {
+                    int end = Math.min(selected.getPositionCount(), start + spill.maxPageSize());
+                    spillChunk(keys, selected, start, end);
                 }
+            } finally {
+                Releasables.closeExpectNoException(keys);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Releasables.close(blockHash, () -> Releasables.close(aggregators));
+        blockHash = null;
+        aggregators.clear();
+        rowsSinceSpill = 0;
+    }
 
-                blockHash.add(wrapPage(page), add);
-                hashNanos += System.nanoTime() - add.hashStart;
+    private void spillChunk(Block[] keys, IntVector selected, int start, int end) throws IOException {
+        int[] positions = IntStream.range(start, end).toArray();
+        int blockCount = keys.length + aggregators.stream().mapToInt(GroupingAggregator::intermediateBlockCount).sum();
+        Block[] blocks = new Block[blockCount];
+        try (IntVector selectedChunk = selected.filter(positions)) {
+            for (int k = 0; k < keys.length; k++) {
+                blocks[k] = keys[k].filter(positions);
             }
+            int offset = keys.length;
+            for (GroupingAggregator aggregator : aggregators) {
+                aggregator.evaluateIntermediate(blocks, offset, selectedChunk);
+                offset += aggregator.intermediateBlockCount();
+            }
+            spilledGroups.write(new Page(blocks));
         } finally {
-            page.releaseBlocks();
-            pagesProcessed++;
-            rowsReceived += page.getPositionCount();
+            Releasables.closeExpectNoException(blocks);
         }
     }
 
     @Override
     public Page getOutput() {
+        if (output == null && finished && spilledGroups != null) {
+            output = mergeNextPartitions();
+        }
         Page p = output;
         if (p != null) {
             rowsEmitted += p.getPositionCount();
@@ -215,23 +360,38 @@ public class HashAggregationOperator implements Operator {
             return;
         }
         finished = true;
+        if (spilledGroups == null) {
+            output = buildOutput(blockHash, aggregators);
+            return;
+        }
+        // spill the remaining groups too, so each group is in a single partition
+        spill();
+        try {
+            spilledGroups.finishWriting();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Page buildOutput(BlockHash hash, List<GroupingAggregator> aggs) {
         Block[] blocks = null;
         IntVector selected = null;
         boolean success = false;
         try {
-            selected = blockHash.nonEmpty();
-            Block[] keys = blockHash.getKeys();
-            int[] aggBlockCounts = aggregators.stream().mapToInt(GroupingAggregator::evaluateBlockCount).toArray();
+            selected = hash.nonEmpty();
+            Block[] keys = hash.getKeys();
+            int[] aggBlockCounts = aggs.stream().mapToInt(GroupingAggregator::evaluateBlockCount).toArray();
             blocks = new Block[keys.length + Arrays.stream(aggBlockCounts).sum()];
             System.arraycopy(keys, 0, blocks, 0, keys.length);
             int offset = keys.length;
-            for (int i = 0; i < aggregators.size(); i++) {
-                var aggregator = aggregators.get(i);
+            for (int i = 0; i < aggs.size(); i++) {
+                var aggregator = aggs.get(i);
                 aggregator.evaluate(blocks, offset, selected, driverContext);
                 offset += aggBlockCounts[i];
             }
-            output = new Page(blocks);
+            Page page = new Page(blocks);
             success = true;
+            return page;
         } finally {
             // selected should always be closed
             if (selected != null) {
@@ -243,9 +403,51 @@ public class HashAggregationOperator implements Operator {
         }
     }
 
+    /**
+     * Merges the spilled partitions in order until one of them has groups.
+     * Returns {@code null} if there are no more partitions.
+     */
+    private Page mergeNextPartitions() {
+        while (nextPartition < SpilledGroups.PARTITIONS) {
+            Page page = mergePartition(nextPartition++);
+            if (page.getPositionCount() > 0) {
+                return page;
+            }
+            page.releaseBlocks();
+        }
+        return null;
+    }
+
+    private Page mergePartition(int partition) {
+        BlockHash hash = null;
+        List<GroupingAggregator> mergers = new ArrayList<>(aggregatorFactories.size());
+        try {
+            hash = BlockHash.build(spill.groups(), driverContext.blockFactory(), spill.maxPageSize(), false);
+            int channel = spill.groups().size();
+            for (GroupingAggregator.Factory factory : aggregatorFactories) {
+                GroupingAggregator merger = factory.intermediateStateFactory(channel).apply(driverContext);
+                mergers.add(merger);
+                channel += merger.intermediateBlockCount();
+            }
+            BlockHash mergeHash = hash;
+            spilledGroups.read(partition, driverContext.blockFactory(), page -> {
+                try {
+                    addPage(mergeHash, mergers, page, page);
+                } finally {
+                    page.releaseBlocks();
+                }
+            });
+            return buildOutput(hash, mergers);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            Releasables.close(hash, () -> Releasables.close(mergers));
+        }
+    }
+
     @Override
     public boolean isFinished() {
-        return finished && output == null;
+        return finished && output == null && (spilledGroups == null || nextPartition == SpilledGroups.PARTITIONS);
     }
 
     @Override
@@ -253,7 +455,15 @@ public class HashAggregationOperator implements Operator {
         if (output != null) {
             output.releaseBlocks();
         }
-        Releasables.close(blockHash, () -> Releasables.close(aggregators));
+        Releasables.close(blockHash, () -> Releasables.close(aggregators), () -> {
+            if (spilledGroups != null) {
+                try {
+                    spilledGroups.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
     }
 
     @Override
@@ -0,0 +1,177 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.compute.operator;
+
+import com.carrotsearch.hppc.BitMixer;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.compute.data.Block;
+import org.elasticsearch.compute.data.BlockFactory;
+import org.elasticsearch.compute.data.BlockStreamInput;
+import org.elasticsearch.compute.data.BlockWritables;
+import org.elasticsearch.compute.data.BooleanBlock;
+import org.elasticsearch.compute.data.BytesRefBlock;
+import org.elasticsearch.compute.data.DoubleBlock;
+import org.elasticsearch.compute.data.FloatBlock;
+import org.elasticsearch.compute.data.IntBlock;
+import org.elasticsearch.compute.data.LongBlock;
+import org.elasticsearch.compute.data.Page;
+import org.elasticsearch.core.IOUtils;
+import org.elasticsearch.core.Releasables;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Groups that a {@link HashAggregationOperator} spilled to local temporary files, along with their intermediate aggregation
+ * state. Rows are split in {@link #PARTITIONS} partitions by the hash of their keys, so all the rows of a group end up in the
+ * same partition, no matter how many times the operator spilled. Partitions can then be merged one at a time, so only the groups
+ * of a single partition need to fit in memory.
+ * <p>
+ *     Spilled pages start with the key blocks, followed by the intermediate state of each aggregator.
+ * </p>
+ */
+final class SpilledGroups implements Closeable {
+    static final int PARTITIONS = 16;
+
+    private static final NamedWriteableRegistry REGISTRY = new NamedWriteableRegistry(BlockWritables.getNamedWriteables());
+
+    private final Path directory;
+    private final int keyCount;
+    private final Path[] files = new Path[PARTITIONS];
+    private final StreamOutput[] outputs = new StreamOutput[PARTITIONS];
+    private final int[] pageCounts = new int[PARTITIONS];
+
+    SpilledGroups(Path directory, int keyCount) {
+        this.directory = directory;
+        this.keyCount = keyCount;
+    }
+
+    /**
+     * Appends the rows of the page to the files of their partitions. Doesn't release the page.
+     */
+    void write(Page page) throws IOException {
+        int positionCount = page.getPositionCount();
+        int[] partitions = new int[positionCount];
+        int[] counts = new int[PARTITIONS];
+        BytesRef scratch = new BytesRef();
+        for (int p = 0; p < positionCount; p++) {
+            int hash = 0;
+            for (int k = 0; k < keyCount; k++) {
+                hash = 31 * hash + hash(page.getBlock(k), p, scratch);
+            }
+            partitions[p] = Math.floorMod(BitMixer.mix32(hash), PARTITIONS);
+            counts[partitions[p]]++;
+        }
+        for (int partition = 0; partition < PARTITIONS; partition++) {
+            if (counts[partition] == positionCount) {
+                write(partition, page);
+            } else if (counts[partition] > 0) {
+                int[] positions = new int[counts[partition]];
+                int upto = 0;
+                for (int p = 0; p < positionCount; p++) {
+                    if (partitions[p] == partition) {
+                        positions[upto++] = p;
+                    }
+                }
+                Block[] blocks = new Block[page.getBlockCount()];
+                try {
+                    for (int b = 0; b < blocks.length; b++) {
+                        blocks[b] = page.getBlock(b).filter(positions);
+                    }
+                    write(partition, new Page(blocks));
+                } finally {
+                    Releasables.closeExpectNoException(blocks);
+                }
+            }
+        }
+    }
+
+    private void write(int partition, Page page) throws IOException {
+        if (outputs[partition] == null) {
+            files[partition] = Files.createTempFile(directory, "esql-hash-aggregation-", ".spill");
+            outputs[partition] = new OutputStreamStreamOutput(new BufferedOutputStream(Files.newOutputStream(files[partition])));
+        }
+        page.writeTo(outputs[partition]);
+        pageCounts[partition]++;
+    }
+
+    private static int hash(Block block, int position, BytesRef scratch) {
+        if (block.isNull(position)) {
+            return 0;
+        }
+        // keys are never multivalued, the block hash emits one row per combination of values
+        int i = block.getFirstValueIndex(position);
+        return switch (block.elementType()) {
+            case BOOLEAN -> Boolean.hashCode(((BooleanBlock) block).getBoolean(i));
+            case INT -> Integer.hashCode(((IntBlock) block).getInt(i));
+            case LONG -> Long.hashCode(((LongBlock) block).getLong(i));
+            case FLOAT -> Float.hashCode(((FloatBlock) block).getFloat(i));
+            case DOUBLE -> Double.hashCode(((DoubleBlock) block).getDouble(i));
+            case BYTES_REF -> ((BytesRefBlock) block).getBytesRef(i, scratch).hashCode();
+            default -> throw new IllegalArgumentException("can't spill keys of type [" + block.elementType() + "]");
+        };
+    }
+
+    /**
+     * Flushes the files of all partitions. No pages can be written afterwards.
+     */
+    void finishWriting() throws IOException {
+        IOUtils.close(outputs);
+        for (int i = 0; i < PARTITIONS; i++) {
+            outputs[i] = null;
+        }
+    }
+
+    /**
+     * Reads the pages of a partition, passing the ownership of each page to the consumer.
+     */
+    void read(int partition, BlockFactory blockFactory, Consumer<Page> consumer) throws IOException {
+        assert outputs[partition] == null : "partition [" + partition + "] is still being written";
+        if (pageCounts[partition] == 0) {
+            return;
+        }
+        try (
+            InputStream file = new BufferedInputStream(Files.newInputStream(files[partition]));
+            BlockStreamInput in = new BlockStreamInput(
+                new NamedWriteableAwareStreamInput(new InputStreamStreamInput(file), REGISTRY),
+                blockFactory
+            )
+        ) {
+            for (int i = 0; i < pageCounts[partition]; i++) {
+                consumer.accept(new Page(in));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        List<Closeable> toClose = new ArrayList<>(PARTITIONS * 2);
+        for (int i = 0; i < PARTITIONS; i++) {
+            toClose.add(outputs[i]);
+            Path file = files[i];
+            if (file != null) {
+                toClose.add(() -> Files.deleteIfExists(file));
+            }
+        }
+        IOUtils.close(toClose);
+    }
+}
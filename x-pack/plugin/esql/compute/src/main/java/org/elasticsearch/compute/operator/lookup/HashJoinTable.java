@@ -0,0 +1,396 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.compute.operator.lookup;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.collect.Iterators;
+import org.elasticsearch.compute.aggregation.GroupingAggregatorFunction;
+import org.elasticsearch.compute.aggregation.blockhash.BlockHash;
+import org.elasticsearch.compute.data.Block;
+import org.elasticsearch.compute.data.BlockFactory;
+import org.elasticsearch.compute.data.ElementType;
+import org.elasticsearch.compute.data.IntBlock;
+import org.elasticsearch.compute.data.IntVector;
+import org.elasticsearch.compute.data.Page;
+import org.elasticsearch.compute.operator.Warnings;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.ReleasableIterator;
+import org.elasticsearch.core.Releasables;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The build side of a hash join: all rows of a lookup table keyed by a {@link BlockHash}
+ * on their join key. {@link #probe Probing} it produces the same "right hand" pages
+ * that {@link RightChunkedLeftJoin} expects from the lookup service, so a table that
+ * fits in memory can replace a round trip per page.
+ * <p>
+ *     Like the term queries sent by the lookup service, only single valued keys match.
+ *     Rows with a {@code null} key never match and rows with a multivalued key produce
+ *     a warning when one of their values is probed.
+ * </p>
+ * <p>
+ *     A table is built once and then probed by many drivers at the same time. The
+ *     {@link BlockHash} isn't safe to read concurrently so lookups into it are serialized,
+ *     but expanding the matching rows into pages runs in parallel.
+ * </p>
+ */
+public final class HashJoinTable implements Releasable {
+    private final BlockFactory blockFactory;
+    private final BlockHash hash;
+    private final Block[] values;
+    /**
+     * The rows whose key is in group {@code g} are {@code rows[groupStarts[g]]} until
+     * {@code rows[groupStarts[g + 1]]}, in ascending order.
+     */
+    private final int[] groupStarts;
+    private final int[] rows;
+    /**
+     * Groups that are also a value of a multivalued key.
+     */
+    private final BitSet multivaluedGroups;
+    private final int rowCount;
+    private final long arraysBytes;
+
+    private HashJoinTable(
+        BlockFactory blockFactory,
+        BlockHash hash,
+        int rowCount,
+        Block[] values,
+        int[] groupStarts,
+        int[] rows,
+        BitSet multivaluedGroups,
+        long arraysBytes
+    ) {
+        this.blockFactory = blockFactory;
+        this.hash = hash;
+        this.rowCount = rowCount;
+        this.values = values;
+        this.groupStarts = groupStarts;
+        this.rows = rows;
+        this.multivaluedGroups = multivaluedGroups;
+        this.arraysBytes = arraysBytes;
+    }
+
+    /**
+     * Start building a table. The {@link BlockFactory} must be safe to use from any
+     * thread because the table is shared between drivers.
+     */
+    public static Builder builder(BlockFactory blockFactory, ElementType keyType, List<ElementType> valueTypes) {
+        return new Builder(blockFactory, keyType, valueTypes);
+    }
+
+    /**
+     * Collects the rows of the table before hashing them.
+     */
+    public static final class Builder implements Releasable {
+        private final BlockFactory blockFactory;
+        private final ElementType keyType;
+        private final Block.Builder keys;
+        private final Block.Builder[] values;
+
+        private Builder(BlockFactory blockFactory, ElementType keyType, List<ElementType> valueTypes) {
+            this.blockFactory = blockFactory;
+            this.keyType = keyType;
+            this.values = new Block.Builder[valueTypes.size()];
+            boolean success = false;
+            try {
+                this.keys = keyType.newBlockBuilder(0, blockFactory);
+                for (int v = 0; v < values.length; v++) {
+                    values[v] = valueTypes.get(v).newBlockBuilder(0, blockFactory);
+                }
+                success = true;
+            } finally {
+                if (success == false) {
+                    close();
+                }
+            }
+        }
+
+        /**
+         * Copy rows into the table.
+         */
+        public void add(Block keys, Block... values) {
+            if (values.length != this.values.length) {
+                throw new IllegalArgumentException("expected [" + this.values.length + "] value blocks but got [" + values.length + "]");
+            }
+            int positions = keys.getPositionCount();
+            this.keys.copyFrom(keys, 0, positions);
+            for (int v = 0; v < values.length; v++) {
+                if (values[v].getPositionCount() != positions) {
+                    throw new IllegalArgumentException(
+                        "keys and values must have the same number of positions but ["
+                            + positions
+                            + "] != ["
+                            + values[v].getPositionCount()
+                            + "]"
+                    );
+                }
+                this.values[v].copyFrom(values[v], 0, positions);
+            }
+        }
+
+        /**
+         * The estimated size of the rows added so far. The built table is a little larger
+         * because of the hash.
+         */
+        public long estimatedBytes() {
+            long bytes = keys.estimatedBytes();
+            for (Block.Builder v : values) {
+                bytes += v.estimatedBytes();
+            }
+            return bytes;
+        }
+
+        public HashJoinTable build() {
+            Block keyBlock = null;
+            Block[] valueBlocks = new Block[values.length];
+            BlockHash hash = null;
+            boolean success = false;
+            try {
+                keyBlock = keys.build();
+                for (int v = 0; v < values.length; v++) {
+                    valueBlocks[v] = values[v].build();
+                }
+                // Use the declared type because the key block is a constant null block if all keys are null
+                hash = BlockHash.build(
+                    List.of(new BlockHash.GroupSpec(0, keyType)),
+                    blockFactory,
+                    (int) BlockFactory.DEFAULT_MAX_BLOCK_PRIMITIVE_ARRAY_SIZE.getBytes(),
+                    false
+                );
+                HashJoinTable table = index(blockFactory, hash, keyBlock, valueBlocks);
+                success = true;
+                return table;
+            } finally {
+                Releasables.close(keyBlock);
+                if (success == false) {
+                    Releasables.close(Releasables.wrap(valueBlocks), hash);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            Releasables.close(keys, Releasables.wrap(values));
+        }
+    }
+
+    private static HashJoinTable index(BlockFactory blockFactory, BlockHash hash, Block keys, Block[] values) {
+        int rowCount = keys.getPositionCount();
+        GroupCollector collector = new GroupCollector(keys, rowCount);
+        hash.add(new Page(keys), collector);
+
+        // Counting sort the single valued rows by group so each group's rows are contiguous
+        int[] groupStarts = new int[collector.maxGroup + 2];
+        int[] rows = new int[collector.count];
+        long arraysBytes = RamUsageEstimator.sizeOf(groupStarts) + RamUsageEstimator.sizeOf(rows);
+        blockFactory.adjustBreaker(arraysBytes);
+        for (int i = 0; i < collector.count; i++) {
+            groupStarts[collector.groups[i] + 1]++;
+        }
+        for (int g = 1; g < groupStarts.length; g++) {
+            groupStarts[g] += groupStarts[g - 1];
+        }
+        int[] next = Arrays.copyOf(groupStarts, groupStarts.length - 1);
+        for (int i = 0; i < collector.count; i++) {
+            rows[next[collector.groups[i]]++] = collector.rows[i];
+        }
+        return new HashJoinTable(blockFactory, hash, rowCount, values, groupStarts, rows, collector.multivaluedGroups, arraysBytes);
+    }
+
+    /**
+     * Collects the group of each row with a single valued key and the groups of multivalued keys.
+     */
+    private static class GroupCollector implements GroupingAggregatorFunction.AddInput {
+        private final Block keys;
+        private int[] groups;
+        private int[] rows;
+        private int count;
+        private int maxGroup = -1;
+        private final BitSet multivaluedGroups = new BitSet();
+
+        GroupCollector(Block keys, int rowCount) {
+            this.keys = keys;
+            this.groups = new int[rowCount];
+            this.rows = new int[rowCount];
+        }
+
+        @Override
+        public void add(int positionOffset, IntBlock groupIds) {
+            for (int p = 0; p < groupIds.getPositionCount(); p++) {
+                int row = positionOffset + p;
+                int valueCount = keys.getValueCount(row);
+                if (valueCount == 0 || groupIds.isNull(p)) {
+                    continue;
+                }
+                int first = groupIds.getFirstValueIndex(p);
+                int end = first + groupIds.getValueCount(p);
+                for (int i = first; i < end; i++) {
+                    int group = groupIds.getInt(i);
+                    if (valueCount == 1) {
+                        collect(group, row);
+                    } else {
+                        multivaluedGroups.set(group);
+                        maxGroup = Math.max(maxGroup, group);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void add(int positionOffset, IntVector groupIds) {
+            for (int p = 0; p < groupIds.getPositionCount(); p++) {
+                int row = positionOffset + p;
+                if (keys.getValueCount(row) == 1) {
+                    collect(groupIds.getInt(p), row);
+                }
+            }
+        }
+
+        private void collect(int group, int row) {
+            if (count == groups.length) {
+                groups = ArrayUtil.grow(groups, count + 1);
+                rows = ArrayUtil.grow(rows, count + 1);
+            }
+            groups[count] = group;
+            rows[count] = row;
+            count++;
+            maxGroup = Math.max(maxGroup, group);
+        }
+
+        @Override
+        public void close() {}
+    }
+
+    /**
+     * Join {@code keys} against this table. Returns pages shaped like
+     * {@code [IntBlock: positions, Block: value1, Block: value2, ...]} where the positions
+     * are non-decreasing offsets into {@code keys}, one row for each matching row in
+     * the table, and each page has at most {@code maxPageSize} rows. Positions without
+     * matches are skipped. The pages are built with the {@link BlockFactory} of the table.
+     */
+    public List<Page> probe(Block keys, int maxPageSize, Warnings warnings, String multiValueWarningMessage) {
+        List<IntBlock> groupIds = lookupGroups(keys);
+        List<Page> pages = new ArrayList<>();
+        boolean success = false;
+        try {
+            int[] positions = new int[Math.min(maxPageSize, keys.getPositionCount())];
+            int[] matches = new int[positions.length];
+            int count = 0;
+            int offset = 0;
+            for (IntBlock chunk : groupIds) {
+                for (int p = 0; p < chunk.getPositionCount(); p++) {
+                    int position = offset + p;
+                    int valueCount = keys.getValueCount(position);
+                    if (valueCount != 1) {
+                        if (valueCount > 1) {
+                            warnings.registerException(new IllegalArgumentException(multiValueWarningMessage));
+                        }
+                        continue;
+                    }
+                    if (chunk.isNull(p)) {
+                        continue;
+                    }
+                    int group = chunk.getInt(chunk.getFirstValueIndex(p));
+                    if (group >= groupStarts.length - 1) {
+                        continue;
+                    }
+                    if (multivaluedGroups.get(group)) {
+                        warnings.registerException(IllegalArgumentException.class, multiValueWarningMessage);
+                    }
+                    for (int r = groupStarts[group]; r < groupStarts[group + 1]; r++) {
+                        if (count == positions.length) {
+                            pages.add(buildPage(positions, matches, count));
+                            count = 0;
+                        }
+                        positions[count] = position;
+                        matches[count] = rows[r];
+                        count++;
+                    }
+                }
+                offset += chunk.getPositionCount();
+            }
+            if (count > 0) {
+                pages.add(buildPage(positions, matches, count));
+            }
+            success = true;
+            return pages;
+        } finally {
+            Releasables.close(groupIds);
+            if (success == false) {
+                Releasables.close(Releasables.wrap(() -> Iterators.map(pages.iterator(), page -> page::releaseBlocks)));
+            }
+        }
+    }
+
+    private List<IntBlock> lookupGroups(Block keys) {
+        List<IntBlock> groupIds = new ArrayList<>(1);
+        boolean success = false;
+        synchronized (hash) {
+            try (ReleasableIterator<IntBlock> itr = hash.lookup(new Page(keys), BlockFactory.DEFAULT_MAX_BLOCK_PRIMITIVE_ARRAY_SIZE)) {
+                while (itr.hasNext()) {
+                    groupIds.add(itr.next());
+                }
+                success = true;
+            } finally {
+                if (success == false) {
+                    Releasables.close(groupIds);
+                }
+            }
+        }
+        return groupIds;
+    }
+
+    private Page buildPage(int[] positions, int[] matches, int count) {
+        Block[] blocks = new Block[values.length + 1];
+        boolean success = false;
+        try {
+            int[] selected = Arrays.copyOf(matches, count);
+            blocks[0] = blockFactory.newIntArrayVector(Arrays.copyOf(positions, count), count).asBlock();
+            for (int v = 0; v < values.length; v++) {
+                blocks[v + 1] = values[v].filter(selected);
+            }
+            success = true;
+            return new Page(blocks);
+        } finally {
+            if (success == false) {
+                Releasables.close(blocks);
+            }
+        }
+    }
+
+    /**
+     * The number of rows in the table.
+     */
+    public int rowCount() {
+        return rowCount;
+    }
+
+    public long ramBytesUsed() {
+        long bytes = arraysBytes;
+        for (Block v : values) {
+            bytes += v.ramBytesUsed();
+        }
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return "HashJoinTable[rows=" + rowCount() + ", hash=" + hash + "]";
+    }
+
+    @Override
+    public void close() {
+        Releasables.close(hash, Releasables.wrap(values), () -> blockFactory.breaker().addWithoutBreaking(-arraysBytes));
+    }
+}
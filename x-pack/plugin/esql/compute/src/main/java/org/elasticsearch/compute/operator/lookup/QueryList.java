@@ -213,6 +213,14 @@ public abstract class QueryList {
         return new GeoShapeQueryList(field, searchExecutionContext, block, null);
     }
 
+    /**
+     * Returns a list with a query matching every document for each non-null position of the
+     * input block. Used to load a whole lookup index at once rather than looking up terms.
+     */
+    public static QueryList matchAllQueryList(SearchExecutionContext searchExecutionContext, Block block) {
+        return new MatchAllQueryList(searchExecutionContext, block);
+    }
+
     private static class TermQueryList extends QueryList {
         private final IntFunction<Object> blockValueReader;
 
@@ -255,6 +263,22 @@ public abstract class QueryList {
         }
     }
 
+    private static class MatchAllQueryList extends QueryList {
+        private MatchAllQueryList(SearchExecutionContext searchExecutionContext, Block block) {
+            super(null, searchExecutionContext, block, null);
+        }
+
+        @Override
+        public QueryList onlySingleValues(Warnings warnings, String multiValueWarningMessage) {
+            throw new UnsupportedOperationException("can't check for multivalued fields without a field");
+        }
+
+        @Override
+        Query doGetQuery(int position, int firstValueIndex, int valueCount) {
+            return valueCount == 0 ? null : new MatchAllDocsQuery();
+        }
+    }
+
     private static class GeoShapeQueryList extends QueryList {
         private final BytesRef scratch = new BytesRef();
         private final IntFunction<Geometry> blockValueReader;
@@ -0,0 +1,576 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.compute.operator.topn;
+
+import org.apache.lucene.util.PriorityQueue;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.compute.data.BlockFactory;
+import org.elasticsearch.compute.data.ElementType;
+import org.elasticsearch.compute.data.Page;
+import org.elasticsearch.compute.operator.BreakingBytesRefBuilder;
+import org.elasticsearch.compute.operator.DriverContext;
+import org.elasticsearch.compute.operator.Operator;
+import org.elasticsearch.core.IOUtils;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.Releasables;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link TopNOperator} for limits that are too large to keep the top rows in memory. Rows are encoded like
+ * {@link TopNOperator} does, so they can be compared as bytes, and buffered until they use more than
+ * {@code runBudgetBytes}. The buffered rows are then sorted, and the first {@code topCount} of them are written
+ * to a local temporary file as a sorted run. Once all input is received, the runs are merged with a k-way merge
+ * that only keeps the current row of each run in memory.
+ * <p>
+ *     Once the runs written since the last compaction hold {@code topCount} rows, or there are
+ *     {@link #MAX_MERGE_FAN_IN} runs, all runs are merged into a single run of at most {@code topCount} rows.
+ *     This bounds the number of runs, and so the fan-in of the merges, and the last row of a compacted run
+ *     with {@code topCount} rows is the {@code topCount}-th row of everything spilled so far. No row that sorts
+ *     after it can be part of the results, so such rows are dropped as soon as they're received. Runs that hold
+ *     {@code topCount} rows on their own give such a cutoff too before the first compaction.
+ * </p>
+ */
+public class ExternalTopNOperator implements Operator {
+    /**
+     * The maximum number of runs that are merged at once.
+     */
+    static final int MAX_MERGE_FAN_IN = 64;
+
+    public record ExternalTopNOperatorFactory(
+        int topCount,
+        List<ElementType> elementTypes,
+        List<TopNEncoder> encoders,
+        List<TopNOperator.SortOrder> sortOrders,
+        int maxPageSize,
+        long runBudgetBytes,
+        Path directory
+    ) implements OperatorFactory {
+        public ExternalTopNOperatorFactory {
+            for (ElementType e : elementTypes) {
+                if (e == null) {
+                    throw new IllegalArgumentException("ElementType not known");
+                }
+            }
+        }
+
+        @Override
+        public ExternalTopNOperator get(DriverContext driverContext) {
+            return new ExternalTopNOperator(
+                driverContext.blockFactory(),
+                driverContext.breaker(),
+                topCount,
+                elementTypes,
+                encoders,
+                sortOrders,
+                maxPageSize,
+                runBudgetBytes,
+                directory
+            );
+        }
+
+        @Override
+        public String describe() {
+            return "ExternalTopNOperator[count="
+                + topCount
+                + ", elementTypes="
+                + elementTypes
+                + ", encoders="
+                + encoders
+                + ", sortOrders="
+                + sortOrders
+                + ", runBudget="
+                + runBudgetBytes
+                + "]";
+        }
+    }
+
+    private final BlockFactory blockFactory;
+    private final CircuitBreaker breaker;
+    private final int topCount;
+    private final List<ElementType> elementTypes;
+    private final List<TopNEncoder> encoders;
+    private final List<TopNOperator.SortOrder> sortOrders;
+    private final int maxPageSize;
+    private final long runBudgetBytes;
+    private final Path directory;
+
+    /**
+     * Rows received since the last run was written.
+     */
+    private final List<TopNOperator.Row> buffer = new ArrayList<>();
+    private long bufferedBytes;
+    /**
+     * The last row of the best run with {@code topCount} rows, rows that sort after it are dropped.
+     */
+    private TopNOperator.Row cutoff;
+
+    private final List<Run> runs = new ArrayList<>();
+    /**
+     * Rows written to runs since they were last compacted.
+     */
+    private long rowsSinceCompaction;
+    private Merge merge;
+    private boolean finished;
+
+    /**
+     * Count of pages that have been received by this operator.
+     */
+    private int pagesReceived;
+
+    /**
+     * Count of pages that have been emitted by this operator.
+     */
+    private int pagesEmitted;
+
+    /**
+     * Count of rows this operator has received.
+     */
+    private long rowsReceived;
+
+    /**
+     * Count of rows this operator has emitted.
+     */
+    private long rowsEmitted;
+
+    public ExternalTopNOperator(
+        BlockFactory blockFactory,
+        CircuitBreaker breaker,
+        int topCount,
+        List<ElementType> elementTypes,
+        List<TopNEncoder> encoders,
+        List<TopNOperator.SortOrder> sortOrders,
+        int maxPageSize,
+        long runBudgetBytes,
+        Path directory
+    ) {
+        this.blockFactory = blockFactory;
+        this.breaker = breaker;
+        this.topCount = topCount;
+        this.elementTypes = elementTypes;
+        this.encoders = encoders;
+        this.sortOrders = sortOrders;
+        this.maxPageSize = maxPageSize;
+        this.runBudgetBytes = runBudgetBytes;
+        this.directory = directory;
+    }
+
+    @Override
+    public boolean needsInput() {
+        return finished == false;
+    }
+
+    @Override
+    public void addInput(Page page) {
+        TopNOperator.Row row = null;
+        try {
+            TopNOperator.RowFiller rowFiller = new TopNOperator.RowFiller(elementTypes, encoders, sortOrders, page);
+            for (int i = 0; i < page.getPositionCount(); i++) {
+                if (row == null) {
+                    row = new TopNOperator.Row(breaker, sortOrders, 0, 0);
+                } else {
+                    row.keys.clear();
+                    row.values.clear();
+                }
+                rowFiller.row(i, row);
+                if (cutoff != null && TopNOperator.compareRows(row, cutoff) <= 0) {
+                    continue;
+                }
+                buffer.add(row);
+                bufferedBytes += row.ramBytesUsed();
+                row = null;
+                if (bufferedBytes >= runBudgetBytes) {
+                    writeRun();
+                    if (runs.size() >= MAX_MERGE_FAN_IN || (runs.size() > 1 && rowsSinceCompaction >= topCount)) {
+                        compactRuns();
+                    }
+                }
+            }
+        } finally {
+            Releasables.closeExpectNoException(row);
+            page.releaseBlocks();
+            pagesReceived++;
+            rowsReceived += page.getPositionCount();
+        }
+    }
+
+    /**
+     * Sorts the buffered rows in output order and keeps the first {@code topCount} of them.
+     */
+    private void sortBuffer() {
+        // TopNOperator#compareRows orders the rows that come first in the output last
+        buffer.sort((r1, r2) -> TopNOperator.compareRows(r2, r1));
+        if (buffer.size() > topCount) {
+            List<TopNOperator.Row> dropped = buffer.subList(topCount, buffer.size());
+            Releasables.closeExpectNoException(Releasables.wrap(dropped));
+            dropped.clear();
+        }
+    }
+
+    private void writeRun() {
+        sortBuffer();
+        bufferedBytes = 0;
+        if (buffer.isEmpty()) {
+            return;
+        }
+        try {
+            Run run = newRun();
+            runs.add(run);
+            try (StreamOutput out = run.output()) {
+                for (TopNOperator.Row row : buffer) {
+                    writeRow(out, row);
+                }
+            }
+            run.rowCount = buffer.size();
+            rowsSinceCompaction += run.rowCount;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        updateCutoff(buffer.size() == topCount ? buffer.remove(topCount - 1) : null);
+        Releasables.closeExpectNoException(Releasables.wrap(buffer));
+        buffer.clear();
+    }
+
+    /**
+     * Merges all runs into a single run of at most {@code topCount} rows.
+     */
+    private void compactRuns() {
+        Run compacted = null;
+        TopNOperator.Row last = null;
+        boolean success = false;
+        try {
+            compacted = newRun();
+            try (Merge merge = new Merge(runs.size()); StreamOutput out = compacted.output()) {
+                for (Run run : runs) {
+                    merge.add(new RunCursor(run));
+                }
+                TopNOperator.Row row;
+                while ((row = merge.peek()) != null) {
+                    writeRow(out, row);
+                    if (++compacted.rowCount == topCount) {
+                        last = copyRow(row);
+                    }
+                    merge.pop();
+                }
+            }
+            success = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (success == false) {
+                Releasables.closeExpectNoException(compacted, last);
+            }
+        }
+        Releasables.closeExpectNoException(Releasables.wrap(runs));
+        runs.clear();
+        runs.add(compacted);
+        rowsSinceCompaction = 0;
+        updateCutoff(last);
+    }
+
+    /**
+     * Use {@code last}, the {@code topCount}-th row of some rows, as the cutoff if it's better than the current one.
+     */
+    private void updateCutoff(TopNOperator.Row last) {
+        if (last != null && (cutoff == null || TopNOperator.compareRows(last, cutoff) > 0)) {
+            Releasables.closeExpectNoException(cutoff);
+            cutoff = last;
+        } else {
+            Releasables.closeExpectNoException(last);
+        }
+    }
+
+    private Run newRun() throws IOException {
+        return new Run(Files.createTempFile(directory, "esql-topn-", ".run"));
+    }
+
+    private TopNOperator.Row copyRow(TopNOperator.Row row) {
+        TopNOperator.Row copy = new TopNOperator.Row(breaker, sortOrders, row.keys.length(), row.values.length());
+        copy.keys.append(row.keys.bytesRefView());
+        System.arraycopy(row.bytesOrder.endOffsets, 0, copy.bytesOrder.endOffsets, 0, row.bytesOrder.endOffsets.length);
+        copy.values.append(row.values.bytesRefView());
+        return copy;
+    }
+
+    private static void writeRow(StreamOutput out, TopNOperator.Row row) throws IOException {
+        writeBytes(out, row.keys);
+        for (int endOffset : row.bytesOrder.endOffsets) {
+            out.writeVInt(endOffset);
+        }
+        writeBytes(out, row.values);
+    }
+
+    private static void writeBytes(StreamOutput out, BreakingBytesRefBuilder bytes) throws IOException {
+        out.writeVInt(bytes.length());
+        out.writeBytes(bytes.bytes(), 0, bytes.length());
+    }
+
+    private static void readRow(StreamInput in, TopNOperator.Row row) throws IOException {
+        readBytes(in, row.keys);
+        int[] endOffsets = row.bytesOrder.endOffsets;
+        for (int i = 0; i < endOffsets.length; i++) {
+            endOffsets[i] = in.readVInt();
+        }
+        readBytes(in, row.values);
+    }
+
+    private static void readBytes(StreamInput in, BreakingBytesRefBuilder bytes) throws IOException {
+        int length = in.readVInt();
+        bytes.clear();
+        bytes.grow(length);
+        in.readBytes(bytes.bytes(), 0, length);
+        bytes.setLength(length);
+    }
+
+    @Override
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        // addInput keeps fewer than MAX_MERGE_FAN_IN runs, plus one for the last run
+        merge = new Merge(runs.size() + 1);
+        try {
+            if (runs.isEmpty()) {
+                // everything fit in memory, no need for temporary files
+                sortBuffer();
+                merge.add(new BufferCursor());
+            } else {
+                writeRun();
+                for (Run run : runs) {
+                    merge.add(new RunCursor(run));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean isFinished() {
+        return finished && (merge == null || merge.hasNext() == false);
+    }
+
+    @Override
+    public Page getOutput() {
+        if (merge == null || merge.hasNext() == false) {
+            return null;
+        }
+        Page page = merge.next();
+        pagesEmitted++;
+        rowsEmitted += page.getPositionCount();
+        return page;
+    }
+
+    @Override
+    public void close() {
+        List<Releasable> close = new ArrayList<>(buffer);
+        close.add(cutoff);
+        close.add(merge);
+        for (Run run : runs) {
+            close.add(run);
+        }
+        Releasables.closeExpectNoException(Releasables.wrap(close));
+    }
+
+    @Override
+    public Status status() {
+        return new TopNOperatorStatus(buffer.size(), bufferedBytes, pagesReceived, pagesEmitted, rowsReceived, rowsEmitted);
+    }
+
+    @Override
+    public String toString() {
+        return "ExternalTopNOperator[count="
+            + topCount
+            + ", elementTypes="
+            + elementTypes
+            + ", encoders="
+            + encoders
+            + ", sortOrders="
+            + sortOrders
+            + ", runs="
+            + runs.size()
+            + "]";
+    }
+
+    /**
+     * A sorted run of rows written to a temporary file.
+     */
+    private static final class Run implements Releasable {
+        private final Path file;
+        private int rowCount;
+
+        Run(Path file) {
+            this.file = file;
+        }
+
+        StreamOutput output() throws IOException {
+            return new OutputStreamStreamOutput(new BufferedOutputStream(Files.newOutputStream(file)));
+        }
+
+        @Override
+        public void close() {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * The rows of a sorted run, in output order.
+     */
+    private abstract static class Cursor implements Releasable {
+        /**
+         * The current row, or {@code null} once all rows were read.
+         */
+        TopNOperator.Row row;
+
+        abstract void advance() throws IOException;
+    }
+
+    private class BufferCursor extends Cursor {
+        private int next;
+
+        BufferCursor() {
+            advance();
+        }
+
+        @Override
+        void advance() {
+            Releasables.closeExpectNoException(row);
+            row = next < buffer.size() ? buffer.set(next++, null) : null;
+        }
+
+        @Override
+        public void close() {
+            Releasables.closeExpectNoException(row);
+            row = null;
+        }
+    }
+
+    private class RunCursor extends Cursor {
+        private final StreamInput in;
+        private int remaining;
+
+        RunCursor(Run run) throws IOException {
+            this.in = new InputStreamStreamInput(new BufferedInputStream(Files.newInputStream(run.file)));
+            this.remaining = run.rowCount;
+            this.row = new TopNOperator.Row(breaker, sortOrders, 0, 0);
+            advance();
+        }
+
+        @Override
+        void advance() throws IOException {
+            if (remaining == 0) {
+                close();
+                return;
+            }
+            readRow(in, row);
+            remaining--;
+        }
+
+        @Override
+        public void close() {
+            Releasables.closeExpectNoException(row);
+            row = null;
+            try {
+                IOUtils.close(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Merges the runs into pages of results.
+     */
+    private class Merge implements Releasable {
+        private final PriorityQueue<Cursor> queue;
+        private final List<Cursor> cursors = new ArrayList<>();
+        private int remaining = topCount;
+
+        Merge(int maxCursors) {
+            this.queue = new PriorityQueue<>(Math.max(1, maxCursors)) {
+                @Override
+                protected boolean lessThan(Cursor a, Cursor b) {
+                    // the top of the queue is the cursor whose row comes first in the output
+                    return TopNOperator.compareRows(a.row, b.row) > 0;
+                }
+            };
+        }
+
+        void add(Cursor cursor) {
+            cursors.add(cursor);
+            if (cursor.row != null) {
+                queue.add(cursor);
+            }
+        }
+
+        boolean hasNext() {
+            return peek() != null;
+        }
+
+        /**
+         * The row that comes next in the output, or {@code null} if there are no more rows.
+         */
+        TopNOperator.Row peek() {
+            return remaining > 0 && queue.size() > 0 ? queue.top().row : null;
+        }
+
+        /**
+         * Move past the row returned by {@link #peek}, which may be reused.
+         */
+        void pop() throws IOException {
+            Cursor top = queue.top();
+            top.advance();
+            if (top.row == null) {
+                queue.pop();
+            } else {
+                queue.updateTop();
+            }
+            remaining--;
+        }
+
+        Page next() {
+            int size = Math.min(maxPageSize, remaining);
+            ResultBuilder[] builders = TopNOperator.newResultBuilders(blockFactory, elementTypes, encoders, sortOrders, size);
+            try {
+                int rows = 0;
+                TopNOperator.Row row;
+                while (rows < size && (row = peek()) != null) {
+                    TopNOperator.decodeRow(sortOrders, row, builders);
+                    rows++;
+                    pop();
+                }
+                return TopNOperator.buildPage(builders);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                Releasables.closeExpectNoException(builders);
+            }
+        }
+
+        @Override
+        public void close() {
+            Releasables.closeExpectNoException(Releasables.wrap(cursors));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+
+package org.elasticsearch.compute.data;
+
+import org.elasticsearch.compute.test.TestBlockFactory;
+import org.elasticsearch.test.ESTestCase;
+
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class ArrayVectorsTests extends ESTestCase {
+    private final BlockFactory blockFactory = TestBlockFactory.getNonBreakingInstance();
+
+    public void testArrayBacked() {
+        int positions = between(2, 100);
+        int[] ints = new int[positions];
+        long[] longs = new long[positions];
+        double[] doubles = new double[positions];
+        boolean[] booleans = new boolean[positions];
+        try (
+            IntVector intVector = blockFactory.newIntArrayVector(ints, positions);
+            LongVector longVector = blockFactory.newLongArrayVector(longs, positions);
+            DoubleVector doubleVector = blockFactory.newDoubleArrayVector(doubles, positions);
+            BooleanVector booleanVector = blockFactory.newBooleanArrayVector(booleans, positions)
+        ) {
+            assertThat(ArrayVectors.values(intVector), sameInstance(ints));
+            assertThat(ArrayVectors.values(longVector), sameInstance(longs));
+            assertThat(ArrayVectors.values(doubleVector), sameInstance(doubles));
+            assertThat(ArrayVectors.values(booleanVector), sameInstance(booleans));
+        }
+    }
+
+    public void testNotArrayBacked() {
+        int positions = between(1, 100);
+        try (
+            IntVector intVector = blockFactory.newConstantIntVector(randomInt(), positions);
+            LongVector longVector = blockFactory.newConstantLongVector(randomLong(), positions);
+            DoubleVector doubleVector = blockFactory.newConstantDoubleVector(randomDouble(), positions);
+            BooleanVector booleanVector = blockFactory.newConstantBooleanVector(randomBoolean(), positions)
+        ) {
+            assertThat(ArrayVectors.values(intVector), nullValue());
+            assertThat(ArrayVectors.values(longVector), nullValue());
+            assertThat(ArrayVectors.values(doubleVector), nullValue());
+            assertThat(ArrayVectors.values(booleanVector), nullValue());
+        }
+    }
+}
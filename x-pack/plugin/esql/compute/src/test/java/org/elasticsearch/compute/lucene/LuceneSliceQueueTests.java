@@ -0,0 +1,151 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.compute.lucene;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.core.IOUtils;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class LuceneSliceQueueTests extends ESTestCase {
+    public void testDynamic() throws IOException {
+        try (Directory big = newDirectory(); Directory small = newDirectory()) {
+            int bigDocs = between(3 * LuceneSliceQueue.MIN_DOCS_PER_DYNAMIC_SLICE, 6 * LuceneSliceQueue.MIN_DOCS_PER_DYNAMIC_SLICE);
+            IndexReader bigReader = reader(big, List.of(bigDocs));
+            IndexReader smallReader = null;
+            try {
+                List<Integer> segments = new ArrayList<>();
+                for (int s = between(1, 5); s > 0; s--) {
+                    segments.add(between(1, 1_000));
+                }
+                smallReader = reader(small, segments);
+                List<ShardContext> contexts = List.of(
+                    new LuceneSourceOperatorTests.MockShardContext(smallReader, 0),
+                    new LuceneSourceOperatorTests.MockShardContext(bigReader, 1)
+                );
+                LuceneSliceQueue queue = LuceneSliceQueue.create(
+                    contexts,
+                    LuceneOperator.weightFunction(c -> new MatchAllDocsQuery(), ScoreMode.COMPLETE_NO_SCORES),
+                    DataPartitioning.DYNAMIC,
+                    between(1, 8)
+                );
+                List<LuceneSlice> slices = new ArrayList<>();
+                LuceneSlice slice;
+                while ((slice = queue.nextSlice()) != null) {
+                    slices.add(slice);
+                }
+                // the biggest segment goes first and gets split
+                assertThat(slices.get(0).shardContext().index(), equalTo(1));
+                assertTrue(slices.get(0).split());
+                assertThat(queue.totalSlices(), equalTo(slices.size()));
+                assertThat(slices.size(), lessThanOrEqualTo(queue.maxSlices()));
+                for (LuceneSlice s : slices) {
+                    assertThat(s.leaves(), hasSize(1));
+                    if (s.split()) {
+                        assertThat(s.numDocs(), greaterThanOrEqualTo(LuceneSliceQueue.MIN_DOCS_PER_DYNAMIC_SLICE));
+                    }
+                }
+                assertCovers(slices, List.of(bigReader, smallReader));
+            } finally {
+                IOUtils.close(bigReader, smallReader);
+            }
+        }
+    }
+
+    public void testDynamicConcurrent() throws IOException {
+        try (Directory directory = newDirectory()) {
+            List<Integer> segments = new ArrayList<>();
+            for (int s = between(1, 4); s > 0; s--) {
+                segments.add(between(1, 4 * LuceneSliceQueue.MIN_DOCS_PER_DYNAMIC_SLICE));
+            }
+            try (IndexReader reader = reader(directory, segments)) {
+                int tasks = between(2, 8);
+                LuceneSliceQueue queue = LuceneSliceQueue.create(
+                    List.of(new LuceneSourceOperatorTests.MockShardContext(reader, 0)),
+                    LuceneOperator.weightFunction(c -> new MatchAllDocsQuery(), ScoreMode.COMPLETE_NO_SCORES),
+                    DataPartitioning.DYNAMIC,
+                    tasks
+                );
+                Queue<LuceneSlice> slices = new ConcurrentLinkedQueue<>();
+                runInParallel(tasks, t -> {
+                    LuceneSlice slice;
+                    while ((slice = queue.nextSlice()) != null) {
+                        slices.add(slice);
+                    }
+                });
+                assertThat(queue.totalSlices(), equalTo(slices.size()));
+                assertCovers(new ArrayList<>(slices), List.of(reader));
+            }
+        }
+    }
+
+    /**
+     * Assert that the slices cover every document of the readers exactly once.
+     */
+    private static void assertCovers(List<LuceneSlice> slices, List<IndexReader> readers) {
+        Map<LeafReaderContext, List<PartialLeafReaderContext>> byLeaf = new HashMap<>();
+        for (LuceneSlice slice : slices) {
+            for (PartialLeafReaderContext leaf : slice.leaves()) {
+                byLeaf.computeIfAbsent(leaf.leafReaderContext(), l -> new ArrayList<>()).add(leaf);
+            }
+        }
+        for (IndexReader reader : readers) {
+            for (LeafReaderContext leaf : reader.leaves()) {
+                List<PartialLeafReaderContext> ranges = byLeaf.remove(leaf);
+                assertNotNull("missing " + leaf, ranges);
+                ranges.sort(Comparator.comparingInt(PartialLeafReaderContext::minDoc));
+                int next = 0;
+                for (PartialLeafReaderContext range : ranges) {
+                    assertThat(range.minDoc(), equalTo(next));
+                    next = range.maxDoc();
+                }
+                assertThat(next, equalTo(leaf.reader().maxDoc()));
+            }
+        }
+        assertThat(byLeaf.keySet(), hasSize(0));
+    }
+
+    /**
+     * Build a reader with a segment for each entry in {@code segments} containing that many documents.
+     */
+    private static IndexReader reader(Directory directory, List<Integer> segments) throws IOException {
+        // Not a random config so it doesn't flush more segments than we ask for
+        IndexWriterConfig config = new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE);
+        try (IndexWriter writer = new IndexWriter(directory, config)) {
+            for (int docs : segments) {
+                for (int d = 0; d < docs; d++) {
+                    writer.addDocument(new Document());
+                }
+                writer.flush();
+            }
+        }
+        return DirectoryReader.open(directory);
+    }
+}
@@ -31,7 +31,9 @@ public class LuceneSourceOperatorStatusTests extends AbstractWireSerializingTest
             123,
             99990,
             8000,
-            222
+            222,
+            100000,
+            3
         );
     }
 
@@ -54,7 +56,9 @@ public class LuceneSourceOperatorStatusTests extends AbstractWireSerializingTest
               "slice_min" : 123,
               "slice_max" : 99990,
               "current" : 8000,
-              "rows_emitted" : 222
+              "rows_emitted" : 222,
+              "slice_docs" : 100000,
+              "split_slices" : 3
             }""";
     }
 
@@ -80,7 +84,9 @@ public class LuceneSourceOperatorStatusTests extends AbstractWireSerializingTest
             randomNonNegativeInt(),
             randomNonNegativeInt(),
             randomNonNegativeInt(),
-            randomNonNegativeLong()
+            randomNonNegativeLong(),
+            randomNonNegativeLong(),
+            randomNonNegativeInt()
         );
     }
 
@@ -115,7 +121,9 @@ public class LuceneSourceOperatorStatusTests extends AbstractWireSerializingTest
         int sliceMax = instance.sliceMax();
         int current = instance.current();
         long rowsEmitted = instance.rowsEmitted();
-        switch (between(0, 10)) {
+        long sliceDocs = instance.sliceDocs();
+        int splitSlices = instance.splitSlices();
+        switch (between(0, 12)) {
             case 0 -> processedSlices = randomValueOtherThan(processedSlices, ESTestCase::randomNonNegativeInt);
             case 1 -> processedQueries = randomValueOtherThan(processedQueries, LuceneSourceOperatorStatusTests::randomProcessedQueries);
             case 2 -> processedShards = randomValueOtherThan(processedShards, LuceneSourceOperatorStatusTests::randomProcessedShards);
@@ -127,6 +135,8 @@ public class LuceneSourceOperatorStatusTests extends AbstractWireSerializingTest
             case 8 -> sliceMax = randomValueOtherThan(sliceMax, ESTestCase::randomNonNegativeInt);
             case 9 -> current = randomValueOtherThan(current, ESTestCase::randomNonNegativeInt);
             case 10 -> rowsEmitted = randomValueOtherThan(rowsEmitted, ESTestCase::randomNonNegativeLong);
+            case 11 -> sliceDocs = randomValueOtherThan(sliceDocs, ESTestCase::randomNonNegativeLong);
+            case 12 -> splitSlices = randomValueOtherThan(splitSlices, ESTestCase::randomNonNegativeInt);
             default -> throw new UnsupportedOperationException();
         }
         return new LuceneSourceOperator.Status(
@@ -140,7 +150,9 @@ public class LuceneSourceOperatorStatusTests extends AbstractWireSerializingTest
             sliceMin,
             sliceMax,
             current,
-            rowsEmitted
+            rowsEmitted,
+            sliceDocs,
+            splitSlices
         );
     }
 }
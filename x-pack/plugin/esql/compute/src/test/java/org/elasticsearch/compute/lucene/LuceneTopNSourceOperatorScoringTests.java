@@ -116,7 +116,8 @@ public class LuceneTopNSourceOperatorScoringTests extends LuceneTopNSourceOperat
     protected Matcher<String> expectedDescriptionOfSimple() {
         return matchesRegex(
             "LuceneTopNSourceOperator"
-                + "\\[dataPartitioning = (DOC|SHARD|SEGMENT), maxPageSize = \\d+, limit = 100, scoreMode = COMPLETE, sorts = \\[\\{.+}]]"
+                + "\\[dataPartitioning = (DOC|SHARD|SEGMENT|DYNAMIC), maxPageSize = \\d+, limit = 100, "
+                + "scoreMode = COMPLETE, sorts = \\[\\{.+}]]"
         );
     }
 
@@ -20,10 +20,15 @@ import org.elasticsearch.compute.data.BlockFactory;
 import org.elasticsearch.compute.data.ElementType;
 import org.elasticsearch.compute.data.LongBlock;
 import org.elasticsearch.compute.data.Page;
+import org.elasticsearch.compute.test.BlockTestUtils;
+import org.elasticsearch.compute.test.CannedSourceOperator;
+import org.elasticsearch.compute.test.TestBlockFactory;
 import org.elasticsearch.core.Tuple;
 import org.hamcrest.Matcher;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.LongStream;
 
 import static java.util.stream.IntStream.range;
@@ -96,4 +101,44 @@ public class HashAggregationOperatorTests extends ForkingOperatorTestCase {
             max.assertSimpleGroup(input, maxs, i, group);
         }
     }
+
+    public void testSpill() {
+        DriverContext driverContext = driverContext();
+        int size = between(1_000, 10_000);
+        List<Page> input = CannedSourceOperator.collectPages(simpleInput(driverContext.blockFactory(), size));
+        List<Page> origInput = BlockTestUtils.deepCopyOf(input, TestBlockFactory.getNonBreakingInstance());
+
+        var factory = (HashAggregationOperator.HashAggregationOperatorFactory) simpleWithMode(AggregatorMode.SINGLE);
+        // a threshold of 0 spills as soon as enough rows were received
+        HashAggregationOperator.Spill spill = new HashAggregationOperator.Spill(
+            createTempDir(),
+            0,
+            between(1, size),
+            List.of(new BlockHash.GroupSpec(0, ElementType.LONG)),
+            randomPageSize()
+        );
+        Operator operator = new HashAggregationOperator(
+            factory.aggregators(),
+            () -> BlockHash.build(factory.groups(), driverContext.blockFactory(), factory.maxPageSize(), false),
+            driverContext,
+            spill
+        );
+        List<Page> results = drive(operator, input.iterator(), driverContext);
+
+        SumLongGroupingAggregatorFunctionTests sum = new SumLongGroupingAggregatorFunctionTests();
+        MaxLongGroupingAggregatorFunctionTests max = new MaxLongGroupingAggregatorFunctionTests();
+        Set<Long> seenGroups = new HashSet<>();
+        for (Page page : results) {
+            assertThat(page.getBlockCount(), equalTo(3));
+            LongBlock groups = page.getBlock(0);
+            for (int i = 0; i < page.getPositionCount(); i++) {
+                long group = groups.getLong(i);
+                assertTrue("group [" + group + "] emitted twice", seenGroups.add(group));
+                sum.assertSimpleGroup(origInput, page.getBlock(1), i, group);
+                max.assertSimpleGroup(origInput, page.getBlock(2), i, group);
+            }
+            page.releaseBlocks();
+        }
+        assertThat(seenGroups, equalTo(Set.of(0L, 1L, 2L, 3L, 4L)));
+    }
 }
@@ -0,0 +1,187 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.compute.operator.lookup;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.collect.Iterators;
+import org.elasticsearch.compute.data.Block;
+import org.elasticsearch.compute.data.BlockFactory;
+import org.elasticsearch.compute.data.BytesRefBlock;
+import org.elasticsearch.compute.data.ElementType;
+import org.elasticsearch.compute.data.IntBlock;
+import org.elasticsearch.compute.data.LongBlock;
+import org.elasticsearch.compute.data.Page;
+import org.elasticsearch.compute.operator.Warnings;
+import org.elasticsearch.compute.test.ComputeTestCase;
+import org.elasticsearch.core.Releasables;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class HashJoinTableTests extends ComputeTestCase {
+    public void testLongs() {
+        testLongs(blockFactory());
+    }
+
+    public void testLongsCranky() {
+        testWithCrankyBlockFactory(this::testLongs);
+    }
+
+    private void testLongs(BlockFactory factory) {
+        int rows = between(0, 500);
+        List<List<Long>> tableKeys = new ArrayList<>(rows);
+        for (int r = 0; r < rows; r++) {
+            tableKeys.add(randomKeys(50));
+        }
+        int positions = between(1, 500);
+        List<List<Long>> probeKeys = new ArrayList<>(positions);
+        for (int p = 0; p < positions; p++) {
+            probeKeys.add(randomKeys(60));
+        }
+        int maxPageSize = between(1, 100);
+        Block keys = null;
+        Block values = null;
+        Block probe = null;
+        HashJoinTable table = null;
+        List<Page> pages = new ArrayList<>();
+        try {
+            keys = longBlock(factory, tableKeys);
+            values = factory.newIntArrayVector(IntStream.range(0, rows).toArray(), rows).asBlock();
+            try (HashJoinTable.Builder builder = HashJoinTable.builder(factory, ElementType.LONG, List.of(ElementType.INT))) {
+                // add the rows in two chunks to check that the builder appends them
+                int split = between(0, rows);
+                try (Block k = keys.filter(range(0, split)); Block v = values.filter(range(0, split))) {
+                    builder.add(k, v);
+                }
+                try (Block k = keys.filter(range(split, rows)); Block v = values.filter(range(split, rows))) {
+                    builder.add(k, v);
+                }
+                table = builder.build();
+            }
+            assertThat(table.rowCount(), equalTo(rows));
+
+            probe = longBlock(factory, probeKeys);
+            pages.addAll(table.probe(probe, maxPageSize, Warnings.NOOP_WARNINGS, "multi-value"));
+
+            List<List<Integer>> expected = new ArrayList<>();
+            for (int p = 0; p < positions; p++) {
+                if (probeKeys.get(p).size() != 1) {
+                    continue;
+                }
+                for (int r = 0; r < rows; r++) {
+                    if (tableKeys.get(r).equals(probeKeys.get(p))) {
+                        expected.add(List.of(p, r));
+                    }
+                }
+            }
+            assertThat(joined(pages, maxPageSize), equalTo(expected));
+        } finally {
+            Releasables.close(keys, values, probe, table);
+            Releasables.close(Releasables.wrap(() -> Iterators.map(pages.iterator(), page -> page::releaseBlocks)));
+        }
+    }
+
+    public void testBytesRefs() {
+        BlockFactory factory = blockFactory();
+        try (
+            HashJoinTable.Builder builder = HashJoinTable.builder(factory, ElementType.BYTES_REF, List.of(ElementType.BYTES_REF));
+            BytesRefBlock.Builder keys = factory.newBytesRefBlockBuilder(4);
+            BytesRefBlock.Builder values = factory.newBytesRefBlockBuilder(4)
+        ) {
+            keys.appendBytesRef(new BytesRef("a")).appendBytesRef(new BytesRef("b")).appendNull().appendBytesRef(new BytesRef("a"));
+            values.appendBytesRef(new BytesRef("a1")).appendBytesRef(new BytesRef("b1")).appendBytesRef(new BytesRef("n1"));
+            values.appendBytesRef(new BytesRef("a2"));
+            try (Block k = keys.build(); Block v = values.build()) {
+                builder.add(k, v);
+            }
+            try (
+                HashJoinTable table = builder.build();
+                BytesRefBlock.Builder probe = factory.newBytesRefBlockBuilder(3)
+            ) {
+                probe.appendBytesRef(new BytesRef("c")).appendBytesRef(new BytesRef("a")).appendNull().appendBytesRef(new BytesRef("b"));
+                List<Page> pages = new ArrayList<>();
+                try (Block probeKeys = probe.build()) {
+                    pages.addAll(table.probe(probeKeys, 100, Warnings.NOOP_WARNINGS, "multi-value"));
+                    assertThat(pages.size(), equalTo(1));
+                    Page page = pages.get(0);
+                    IntBlock joinedPositions = page.getBlock(0);
+                    BytesRefBlock joinedValues = page.getBlock(1);
+                    List<String> actual = new ArrayList<>();
+                    for (int i = 0; i < page.getPositionCount(); i++) {
+                        actual.add(joinedPositions.getInt(i) + ":" + joinedValues.getBytesRef(i, new BytesRef()).utf8ToString());
+                    }
+                    assertThat(actual, equalTo(List.of("1:a1", "1:a2", "3:b1")));
+                } finally {
+                    Releasables.close(Releasables.wrap(() -> Iterators.map(pages.iterator(), page -> page::releaseBlocks)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Random keys for a row, usually a single value but sometimes {@code null} or multivalued.
+     */
+    private static List<Long> randomKeys(int max) {
+        int count = rarely() ? between(0, 3) : 1;
+        List<Long> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long key = between(0, max - 1);
+            if (keys.contains(key) == false) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    private static Block longBlock(BlockFactory factory, List<List<Long>> values) {
+        try (LongBlock.Builder builder = factory.newLongBlockBuilder(values.size())) {
+            for (List<Long> v : values) {
+                switch (v.size()) {
+                    case 0 -> builder.appendNull();
+                    case 1 -> builder.appendLong(v.get(0));
+                    default -> {
+                        builder.beginPositionEntry();
+                        for (long l : v) {
+                            builder.appendLong(l);
+                        }
+                        builder.endPositionEntry();
+                    }
+                }
+            }
+            return builder.build();
+        }
+    }
+
+    private static int[] range(int from, int to) {
+        return IntStream.range(from, to).toArray();
+    }
+
+    /**
+     * Read {@code [position, row]} pairs from the joined pages, checking the positions never decrease.
+     */
+    private static List<List<Integer>> joined(List<Page> pages, int maxPageSize) {
+        List<List<Integer>> joined = new ArrayList<>();
+        int last = -1;
+        for (Page page : pages) {
+            assertThat(page.getPositionCount(), lessThanOrEqualTo(maxPageSize));
+            IntBlock positions = page.getBlock(0);
+            IntBlock rows = page.getBlock(1);
+            for (int i = 0; i < page.getPositionCount(); i++) {
+                int position = positions.getInt(i);
+                assertThat(last, lessThanOrEqualTo(position));
+                last = position;
+                joined.add(List.of(position, rows.getInt(i)));
+            }
+        }
+        return joined;
+    }
+}
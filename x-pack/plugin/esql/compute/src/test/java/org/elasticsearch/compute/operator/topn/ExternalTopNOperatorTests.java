@@ -0,0 +1,167 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.compute.operator.topn;
+
+import org.elasticsearch.compute.data.BlockFactory;
+import org.elasticsearch.compute.data.LongBlock;
+import org.elasticsearch.compute.data.Page;
+import org.elasticsearch.compute.operator.DriverContext;
+import org.elasticsearch.compute.operator.SourceOperator;
+import org.elasticsearch.compute.test.CannedSourceOperator;
+import org.elasticsearch.compute.test.OperatorTestCase;
+import org.elasticsearch.compute.test.SequenceLongBlockSourceOperator;
+import org.elasticsearch.test.ESTestCase;
+import org.hamcrest.Matcher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.elasticsearch.compute.data.ElementType.LONG;
+import static org.elasticsearch.compute.operator.topn.TopNEncoder.DEFAULT_UNSORTABLE;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class ExternalTopNOperatorTests extends OperatorTestCase {
+    private static final int LIMIT = 100;
+
+    private final int pageSize = randomPageSize();
+    private final long runBudget = randomLongBetween(16 * 1024, 64 * 1024);
+
+    @Override
+    protected ExternalTopNOperator.ExternalTopNOperatorFactory simple() {
+        return factory(LIMIT, true, runBudget, createTempDir());
+    }
+
+    private ExternalTopNOperator.ExternalTopNOperatorFactory factory(int limit, boolean asc, long runBudget, Path directory) {
+        return new ExternalTopNOperator.ExternalTopNOperatorFactory(
+            limit,
+            List.of(LONG),
+            List.of(DEFAULT_UNSORTABLE),
+            List.of(new TopNOperator.SortOrder(0, asc, false)),
+            pageSize,
+            runBudget,
+            directory
+        );
+    }
+
+    @Override
+    protected Matcher<String> expectedDescriptionOfSimple() {
+        return equalTo(
+            "ExternalTopNOperator[count=100, elementTypes=[LONG], encoders=[DefaultUnsortable], "
+                + "sortOrders=[SortOrder[channel=0, asc=true, nullsFirst=false]], runBudget="
+                + runBudget
+                + "]"
+        );
+    }
+
+    @Override
+    protected Matcher<String> expectedToStringOfSimple() {
+        return equalTo(
+            "ExternalTopNOperator[count=100, elementTypes=[LONG], encoders=[DefaultUnsortable], "
+                + "sortOrders=[SortOrder[channel=0, asc=true, nullsFirst=false]], runs=0]"
+        );
+    }
+
+    @Override
+    protected SourceOperator simpleInput(BlockFactory blockFactory, int size) {
+        return new SequenceLongBlockSourceOperator(
+            blockFactory,
+            LongStream.range(0, size).map(l -> ESTestCase.randomLong()),
+            between(1, size * 2)
+        );
+    }
+
+    @Override
+    protected void assertSimpleOutput(List<Page> input, List<Page> results) {
+        for (int i = 0; i < results.size() - 1; i++) {
+            assertThat(results.get(i).getPositionCount(), equalTo(pageSize));
+        }
+        assertThat(results.get(results.size() - 1).getPositionCount(), lessThanOrEqualTo(pageSize));
+        long[] topN = input.stream()
+            .flatMapToLong(
+                page -> IntStream.range(0, page.getPositionCount())
+                    .filter(p -> false == page.getBlock(0).isNull(p))
+                    .mapToLong(p -> ((LongBlock) page.getBlock(0)).getLong(p))
+            )
+            .sorted()
+            .limit(LIMIT)
+            .toArray();
+        assertThat(
+            results.stream()
+                .flatMapToLong(page -> IntStream.range(0, page.getPositionCount()).mapToLong(i -> page.<LongBlock>getBlock(0).getLong(i)))
+                .toArray(),
+            equalTo(topN)
+        );
+    }
+
+    public void testRandomRuns() throws IOException {
+        boolean asc = randomBoolean();
+        int limit = between(1, 2_000);
+        List<Long> values = randomList(0, 10_000, ESTestCase::randomLong);
+        Path directory = createTempDir();
+        // a small budget writes many runs
+        ExternalTopNOperator.ExternalTopNOperatorFactory factory = factory(limit, asc, between(1_000, 100_000), directory);
+
+        DriverContext driverContext = driverContext();
+        List<Page> input = CannedSourceOperator.collectPages(
+            new SequenceLongBlockSourceOperator(driverContext.blockFactory(), values.stream().mapToLong(Long::longValue), between(1, 1_000))
+        );
+        List<Page> results = drive(factory.get(driverContext), input.iterator(), driverContext);
+
+        List<Long> actual = new ArrayList<>();
+        for (Page page : results) {
+            LongBlock block = page.getBlock(0);
+            for (int p = 0; p < page.getPositionCount(); p++) {
+                actual.add(block.getLong(p));
+            }
+            page.releaseBlocks();
+        }
+        Comparator<Long> comparator = asc ? Comparator.naturalOrder() : Comparator.reverseOrder();
+        assertThat(actual, equalTo(values.stream().sorted(comparator).limit(limit).toList()));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat("runs must be deleted", files.count(), equalTo(0L));
+        }
+    }
+
+    public void testMergeFanInIsBounded() throws IOException {
+        int limit = between(1, 5_000);
+        int count = between(ExternalTopNOperator.MAX_MERGE_FAN_IN * 2, 5_000);
+        Path directory = createTempDir();
+        DriverContext driverContext = driverContext();
+        // a budget of a single byte writes a run per row
+        try (ExternalTopNOperator op = factory(limit, true, 1, directory).get(driverContext)) {
+            for (long v = count; v > 0; v--) {
+                op.addInput(new Page(driverContext.blockFactory().newConstantLongBlockWith(v, 1)));
+                try (Stream<Path> files = Files.list(directory)) {
+                    assertThat(files.count(), lessThanOrEqualTo((long) ExternalTopNOperator.MAX_MERGE_FAN_IN));
+                }
+            }
+            op.finish();
+            List<Long> actual = new ArrayList<>();
+            while (op.isFinished() == false) {
+                Page page = op.getOutput();
+                LongBlock block = page.getBlock(0);
+                for (int p = 0; p < page.getPositionCount(); p++) {
+                    actual.add(block.getLong(p));
+                }
+                page.releaseBlocks();
+            }
+            assertThat(actual, equalTo(LongStream.rangeClosed(1, Math.min(limit, count)).boxed().toList()));
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat("runs must be deleted", files.count(), equalTo(0L));
+        }
+    }
+}
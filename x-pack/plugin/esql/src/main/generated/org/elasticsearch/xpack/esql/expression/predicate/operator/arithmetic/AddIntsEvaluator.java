@@ -8,6 +8,7 @@ import java.lang.ArithmeticException;
 import java.lang.IllegalArgumentException;
 import java.lang.Override;
 import java.lang.String;
+import org.elasticsearch.compute.data.ArrayVectors;
 import org.elasticsearch.compute.data.Block;
 import org.elasticsearch.compute.data.IntBlock;
 import org.elasticsearch.compute.data.IntVector;
@@ -95,6 +96,14 @@ public final class AddIntsEvaluator implements EvalOperator.ExpressionEvaluator
   }
 
   public IntBlock eval(int positionCount, IntVector lhsVector, IntVector rhsVector) {
+    int[] lhsValues = ArrayVectors.values(lhsVector);
+    int[] rhsValues = ArrayVectors.values(rhsVector);
+    if (lhsValues != null && rhsValues != null) {
+      int[] bulkResult = new int[positionCount];
+      if (Add.processIntsBulk(lhsValues, rhsValues, bulkResult, positionCount)) {
+        return driverContext.blockFactory().newIntArrayVector(bulkResult, positionCount).asBlock();
+      }
+    }
     try(IntBlock.Builder result = driverContext.blockFactory().newIntBlockBuilder(positionCount)) {
       position: for (int p = 0; p < positionCount; p++) {
         try {
@@ -8,6 +8,7 @@ import java.lang.ArithmeticException;
 import java.lang.IllegalArgumentException;
 import java.lang.Override;
 import java.lang.String;
+import org.elasticsearch.compute.data.ArrayVectors;
 import org.elasticsearch.compute.data.Block;
 import org.elasticsearch.compute.data.LongBlock;
 import org.elasticsearch.compute.data.LongVector;
@@ -95,6 +96,14 @@ public final class AddLongsEvaluator implements EvalOperator.ExpressionEvaluator
   }
 
   public LongBlock eval(int positionCount, LongVector lhsVector, LongVector rhsVector) {
+    long[] lhsValues = ArrayVectors.values(lhsVector);
+    long[] rhsValues = ArrayVectors.values(rhsVector);
+    if (lhsValues != null && rhsValues != null) {
+      long[] bulkResult = new long[positionCount];
+      if (Add.processLongsBulk(lhsValues, rhsValues, bulkResult, positionCount)) {
+        return driverContext.blockFactory().newLongArrayVector(bulkResult, positionCount).asBlock();
+      }
+    }
     try(LongBlock.Builder result = driverContext.blockFactory().newLongBlockBuilder(positionCount)) {
       position: for (int p = 0; p < positionCount; p++) {
         try {
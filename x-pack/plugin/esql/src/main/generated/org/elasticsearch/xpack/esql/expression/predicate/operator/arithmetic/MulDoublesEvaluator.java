@@ -8,6 +8,7 @@ import java.lang.ArithmeticException;
 import java.lang.IllegalArgumentException;
 import java.lang.Override;
 import java.lang.String;
+import org.elasticsearch.compute.data.ArrayVectors;
 import org.elasticsearch.compute.data.Block;
 import org.elasticsearch.compute.data.DoubleBlock;
 import org.elasticsearch.compute.data.DoubleVector;
@@ -95,6 +96,14 @@ public final class MulDoublesEvaluator implements EvalOperator.ExpressionEvaluat
   }
 
   public DoubleBlock eval(int positionCount, DoubleVector lhsVector, DoubleVector rhsVector) {
+    double[] lhsValues = ArrayVectors.values(lhsVector);
+    double[] rhsValues = ArrayVectors.values(rhsVector);
+    if (lhsValues != null && rhsValues != null) {
+      double[] bulkResult = new double[positionCount];
+      if (Mul.processDoublesBulk(lhsValues, rhsValues, bulkResult, positionCount)) {
+        return driverContext.blockFactory().newDoubleArrayVector(bulkResult, positionCount).asBlock();
+      }
+    }
     try(DoubleBlock.Builder result = driverContext.blockFactory().newDoubleBlockBuilder(positionCount)) {
       position: for (int p = 0; p < positionCount; p++) {
         try {
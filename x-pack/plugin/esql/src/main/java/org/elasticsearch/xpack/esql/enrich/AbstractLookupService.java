@@ -21,6 +21,7 @@ import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.CheckedBiFunction;
 import org.elasticsearch.common.collect.Iterators;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.compute.data.Block;
@@ -80,6 +81,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.IntStream;
 
@@ -167,6 +169,13 @@ public abstract class AbstractLookupService<R extends AbstractLookupService.Requ
         return transportService.getThreadPool().getThreadContext();
     }
 
+    /**
+     * The {@link BlockFactory} of the node, safe to use from any thread.
+     */
+    BlockFactory blockFactory() {
+        return blockFactory;
+    }
+
     /**
      * Convert a request as sent to {@link #lookupAsync} into a transport request after
      * preflight checks have been performed.
@@ -184,6 +193,13 @@ public abstract class AbstractLookupService<R extends AbstractLookupService.Requ
         Warnings warnings
     );
 
+    /**
+     * The maximum size of the pages a lookup may load before it fails, {@link Long#MAX_VALUE} for no limit.
+     */
+    protected long maxResultBytes(T request) {
+        return Long.MAX_VALUE;
+    }
+
     /**
      * Build the response.
      */
@@ -328,7 +344,28 @@ public abstract class AbstractLookupService<R extends AbstractLookupService.Requ
              * because the list will never grow mega large.
              */
             List<Page> collectedPages = Collections.synchronizedList(new ArrayList<>());
-            OutputOperator outputOperator = new OutputOperator(List.of(), Function.identity(), collectedPages::add);
+            long maxResultBytes = maxResultBytes(request);
+            Consumer<Page> collectPage = collectedPages::add;
+            if (maxResultBytes != Long.MAX_VALUE) {
+                collectPage = new Consumer<>() {
+                    private long resultBytes;
+
+                    @Override
+                    public void accept(Page page) {
+                        // collect the page first so it's released when the lookup fails
+                        collectedPages.add(page);
+                        resultBytes += page.ramBytesUsedByBlocks();
+                        if (resultBytes > maxResultBytes) {
+                            throw new EsqlIllegalArgumentException(
+                                "lookup of [{}] loaded more than [{}]",
+                                request.shardId.getIndexName(),
+                                ByteSizeValue.ofBytes(maxResultBytes)
+                            );
+                        }
+                    }
+                };
+            }
+            OutputOperator outputOperator = new OutputOperator(List.of(), Function.identity(), collectPage);
             releasables.add(outputOperator);
             Driver driver = new Driver(
                 "enrich-lookup:" + request.sessionId,
@@ -0,0 +1,228 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.esql.enrich;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.support.SubscribableListener;
+import org.elasticsearch.common.collect.Iterators;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.compute.data.Block;
+import org.elasticsearch.compute.data.BlockFactory;
+import org.elasticsearch.compute.data.ElementType;
+import org.elasticsearch.compute.data.Page;
+import org.elasticsearch.compute.operator.lookup.HashJoinTable;
+import org.elasticsearch.core.Releasables;
+import org.elasticsearch.logging.LogManager;
+import org.elasticsearch.logging.Logger;
+import org.elasticsearch.tasks.CancellableTask;
+import org.elasticsearch.xpack.esql.core.expression.NamedExpression;
+import org.elasticsearch.xpack.esql.core.expression.ReferenceAttribute;
+import org.elasticsearch.xpack.esql.core.tree.Source;
+import org.elasticsearch.xpack.esql.core.type.DataType;
+import org.elasticsearch.xpack.esql.planner.PlannerUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads the Lookup index of a {@code LOOKUP JOIN} into a {@link HashJoinTable} once for all
+ * the {@link LookupFromIndexOperator}s of a plan so they can join their pages in the driver
+ * rather than sending a lookup request for each of them. Like other lookups the load prefers
+ * a local copy of the index, but any copy will do, so each node gets its own copy of the table.
+ * <p>
+ *     If the index doesn't fit in the budget, or can't be loaded into a table for any other
+ *     reason, the table is {@code null} and the operators fall back to looking up each page.
+ * </p>
+ */
+public final class HashJoinTableLoader {
+    private static final Logger logger = LogManager.getLogger(HashJoinTableLoader.class);
+
+    private final String sessionId;
+    private final CancellableTask parentTask;
+    private final LookupFromIndexService lookupService;
+    private final String lookupIndex;
+    private final DataType inputDataType;
+    private final NamedExpression matchField;
+    private final List<NamedExpression> loadFields;
+    private final ByteSizeValue budget;
+    private final Source source;
+
+    private final SubscribableListener<HashJoinTable> table = new SubscribableListener<>();
+    private int users;
+    private boolean loading;
+    private boolean released;
+
+    public HashJoinTableLoader(
+        String sessionId,
+        CancellableTask parentTask,
+        LookupFromIndexService lookupService,
+        String lookupIndex,
+        DataType inputDataType,
+        String matchField,
+        DataType matchFieldType,
+        List<NamedExpression> loadFields,
+        ByteSizeValue budget,
+        Source source
+    ) {
+        this.sessionId = sessionId;
+        this.parentTask = parentTask;
+        this.lookupService = lookupService;
+        this.lookupIndex = lookupIndex;
+        this.inputDataType = inputDataType;
+        this.matchField = new ReferenceAttribute(Source.EMPTY, matchField, matchFieldType);
+        this.loadFields = loadFields;
+        this.budget = budget;
+        this.source = source;
+    }
+
+    /**
+     * Can we join values of {@code inputType} against a field of {@code matchFieldType} with a
+     * hash table? Term queries convert their terms into the type of the field so we only use
+     * the table when they don't need to.
+     */
+    public static boolean supports(DataType inputType, DataType matchFieldType) {
+        boolean sameType = inputType == matchFieldType || (DataType.isString(inputType) && DataType.isString(matchFieldType));
+        if (sameType == false) {
+            return false;
+        }
+        return switch (PlannerUtils.toElementType(matchFieldType)) {
+            case BOOLEAN, INT, LONG, DOUBLE, BYTES_REF -> true;
+            default -> false;
+        };
+    }
+
+    public ByteSizeValue budget() {
+        return budget;
+    }
+
+    /**
+     * Register an operator that will use the table. Returns {@code false} if the table was
+     * already released because all the operators that used it are closed.
+     */
+    synchronized boolean tryAcquire() {
+        if (released) {
+            return false;
+        }
+        users++;
+        return true;
+    }
+
+    /**
+     * Called by each operator that {@link #tryAcquire acquired} the table once it's closed.
+     * The table is released when the last one closes.
+     */
+    void release() {
+        synchronized (this) {
+            if (--users > 0) {
+                return;
+            }
+            released = true;
+            if (loading == false) {
+                return;
+            }
+        }
+        table.addListener(ActionListener.wrap(t -> Releasables.close(t), e -> {}));
+    }
+
+    /**
+     * Get the table, starting to load it on the first call. Responds with {@code null}
+     * if the Lookup index can't be joined with a hash table.
+     */
+    void table(ActionListener<HashJoinTable> listener) {
+        boolean load;
+        synchronized (this) {
+            load = loading == false;
+            loading = true;
+        }
+        if (load) {
+            load();
+        }
+        table.addListener(listener);
+    }
+
+    private void load() {
+        BlockFactory blockFactory = lookupService.blockFactory();
+        List<NamedExpression> fields = new ArrayList<>(loadFields.size() + 1);
+        fields.add(matchField);
+        fields.addAll(loadFields);
+        // A single position so the lookup runs a single query that matches all documents
+        Page inputPage = new Page(blockFactory.newConstantIntBlockWith(0, 1));
+        LookupFromIndexService.Request request = new LookupFromIndexService.Request(
+            sessionId,
+            lookupIndex,
+            inputDataType,
+            matchField.name(),
+            inputPage,
+            fields,
+            budget,
+            source
+        );
+        ActionListener<List<Page>> listener = ActionListener.runAfter(new ActionListener<>() {
+            @Override
+            public void onResponse(List<Page> pages) {
+                HashJoinTable built;
+                try {
+                    built = build(blockFactory, pages);
+                } catch (Exception e) {
+                    onFailure(e);
+                    return;
+                }
+                table.onResponse(built);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                logger.debug(() -> "can't load [" + lookupIndex + "] into a hash table, looking up each page instead", e);
+                table.onResponse(null);
+            }
+        }, inputPage::releaseBlocks);
+        try {
+            lookupService.lookupAsync(request, parentTask, listener);
+        } catch (Exception e) {
+            listener.onFailure(e);
+        }
+    }
+
+    /**
+     * Build the table from pages shaped like {@code [IntBlock: positions, Block: match field, Block: field1, ...]},
+     * releasing them.
+     */
+    private HashJoinTable build(BlockFactory blockFactory, List<Page> pages) {
+        List<ElementType> valueTypes = loadFields.stream().map(f -> PlannerUtils.toElementType(f.dataType())).toList();
+        try (
+            HashJoinTable.Builder builder = HashJoinTable.builder(
+                blockFactory,
+                PlannerUtils.toElementType(matchField.dataType()),
+                valueTypes
+            )
+        ) {
+            for (Page page : pages) {
+                Block[] values = new Block[loadFields.size()];
+                for (int v = 0; v < values.length; v++) {
+                    values[v] = page.getBlock(v + 2);
+                }
+                builder.add(page.getBlock(1), values);
+                if (builder.estimatedBytes() > budget.getBytes()) {
+                    logger.debug("[{}] doesn't fit in the hash table budget [{}], looking up each page instead", lookupIndex, budget);
+                    return null;
+                }
+            }
+            return builder.build();
+        } finally {
+            Releasables.closeExpectNoException(Releasables.wrap(() -> Iterators.map(pages.iterator(), page -> () -> {
+                page.allowPassingToDifferentDriver();
+                page.releaseBlocks();
+            })));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "HashJoinTableLoader[index=" + lookupIndex + ", budget=" + budget + "]";
+    }
+}
@@ -18,7 +18,11 @@ import org.elasticsearch.compute.operator.AsyncOperator;
 import org.elasticsearch.compute.operator.DriverContext;
 import org.elasticsearch.compute.operator.IsBlockedResult;
 import org.elasticsearch.compute.operator.Operator;
+import org.elasticsearch.compute.operator.Warnings;
+import org.elasticsearch.compute.operator.lookup.EnrichQuerySourceOperator;
+import org.elasticsearch.compute.operator.lookup.HashJoinTable;
 import org.elasticsearch.compute.operator.lookup.RightChunkedLeftJoin;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.Releasables;
 import org.elasticsearch.tasks.CancellableTask;
@@ -46,8 +50,36 @@ public final class LookupFromIndexOperator extends AsyncOperator<LookupFromIndex
         String lookupIndex,
         String matchField,
         List<NamedExpression> loadFields,
-        Source source
+        Source source,
+        @Nullable HashJoinTableLoader hashJoinTable
     ) implements OperatorFactory {
+        public Factory(
+            String sessionId,
+            CancellableTask parentTask,
+            int maxOutstandingRequests,
+            int inputChannel,
+            Function<DriverContext, LookupFromIndexService> lookupService,
+            DataType inputDataType,
+            String lookupIndex,
+            String matchField,
+            List<NamedExpression> loadFields,
+            Source source
+        ) {
+            this(
+                sessionId,
+                parentTask,
+                maxOutstandingRequests,
+                inputChannel,
+                lookupService,
+                inputDataType,
+                lookupIndex,
+                matchField,
+                loadFields,
+                source,
+                null
+            );
+        }
+
         @Override
         public String describe() {
             return "LookupOperator[index="
@@ -60,6 +92,7 @@ public final class LookupFromIndexOperator extends AsyncOperator<LookupFromIndex
                 + loadFields
                 + " inputChannel="
                 + inputChannel
+                + (hashJoinTable == null ? "" : " hash_table_budget=" + hashJoinTable.budget())
                 + "]";
         }
 
@@ -76,7 +109,8 @@ public final class LookupFromIndexOperator extends AsyncOperator<LookupFromIndex
                 lookupIndex,
                 matchField,
                 loadFields,
-                source
+                source,
+                hashJoinTable != null && hashJoinTable.tryAcquire() ? hashJoinTable : null
             );
         }
     }
@@ -90,6 +124,12 @@ public final class LookupFromIndexOperator extends AsyncOperator<LookupFromIndex
     private final String matchField;
     private final List<NamedExpression> loadFields;
     private final Source source;
+    /**
+     * Loads the table to join against in the driver, or {@code null} to always send a lookup request.
+     */
+    @Nullable
+    private final HashJoinTableLoader hashJoinTable;
+    private final Warnings warnings;
     private long totalTerms = 0L;
     /**
      * Total number of pages emitted by this {@link Operator}.
@@ -111,7 +151,8 @@ public final class LookupFromIndexOperator extends AsyncOperator<LookupFromIndex
         String lookupIndex,
         String matchField,
         List<NamedExpression> loadFields,
-        Source source
+        Source source,
+        @Nullable HashJoinTableLoader hashJoinTable
     ) {
         super(driverContext, lookupService.getThreadContext(), maxOutstandingRequests);
         this.sessionId = sessionId;
@@ -123,12 +164,44 @@ public final class LookupFromIndexOperator extends AsyncOperator<LookupFromIndex
         this.matchField = matchField;
         this.loadFields = loadFields;
         this.source = source;
+        this.hashJoinTable = hashJoinTable;
+        this.warnings = Warnings.createWarnings(
+            driverContext.warningsMode(),
+            source.source().getLineNumber(),
+            source.source().getColumnNumber(),
+            source.text()
+        );
     }
 
     @Override
     protected void performAsync(Page inputPage, ActionListener<OngoingJoin> listener) {
         final Block inputBlock = inputPage.getBlock(inputChannel);
         totalTerms += inputBlock.getTotalValueCount();
+        if (hashJoinTable == null) {
+            lookup(inputPage, inputBlock, listener);
+            return;
+        }
+        // Completes immediately once the table is loaded so the join runs in the driver
+        hashJoinTable.table(listener.delegateFailureAndWrap((l, table) -> {
+            if (table == null) {
+                lookup(inputPage, inputBlock, l);
+            } else {
+                l.onResponse(probe(table, inputPage, inputBlock));
+            }
+        }));
+    }
+
+    private OngoingJoin probe(HashJoinTable table, Page inputPage, Block inputBlock) {
+        List<Page> pages = table.probe(
+            inputBlock,
+            EnrichQuerySourceOperator.DEFAULT_MAX_PAGE_SIZE,
+            warnings,
+            LookupFromIndexService.MULTI_VALUE_WARNING
+        );
+        return new OngoingJoin(new RightChunkedLeftJoin(inputPage, loadFields.size()), pages.iterator());
+    }
+
+    private void lookup(Page inputPage, Block inputBlock, ActionListener<OngoingJoin> listener) {
         LookupFromIndexService.Request request = new LookupFromIndexService.Request(
             sessionId,
             lookupIndex,
@@ -136,6 +209,7 @@ public final class LookupFromIndexOperator extends AsyncOperator<LookupFromIndex
             matchField,
             new Page(inputBlock),
             loadFields,
+            null,
             source
         );
         lookupService.lookupAsync(
@@ -193,6 +267,7 @@ public final class LookupFromIndexOperator extends AsyncOperator<LookupFromIndex
             + loadFields
             + " inputChannel="
             + inputChannel
+            + (hashJoinTable == null ? "" : " hash_table_budget=" + hashJoinTable.budget())
             + "]";
     }
 
@@ -213,7 +288,8 @@ public final class LookupFromIndexOperator extends AsyncOperator<LookupFromIndex
     protected void doClose() {
         // TODO: Maybe create a sub-task as the parent task of all the lookup tasks
         // then cancel it when this operator terminates early (e.g., have enough result).
-        Releasables.close(ongoing);
+        Releasable releaseTable = hashJoinTable == null ? null : hashJoinTable::release;
+        Releasables.close(ongoing, releaseTable);
     }
 
     @Override
@@ -12,6 +12,7 @@ import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.collect.Iterators;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.compute.data.Block;
 import org.elasticsearch.compute.data.BlockFactory;
@@ -19,11 +20,14 @@ import org.elasticsearch.compute.data.BlockStreamInput;
 import org.elasticsearch.compute.data.Page;
 import org.elasticsearch.compute.operator.Warnings;
 import org.elasticsearch.compute.operator.lookup.QueryList;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasables;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
 import org.elasticsearch.index.query.SearchExecutionContext;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.tasks.TaskId;
 import org.elasticsearch.transport.TransportService;
+import org.elasticsearch.xpack.esql.EsqlIllegalArgumentException;
 import org.elasticsearch.xpack.esql.action.EsqlQueryAction;
 import org.elasticsearch.xpack.esql.core.expression.NamedExpression;
 import org.elasticsearch.xpack.esql.core.tree.Source;
@@ -41,9 +45,14 @@ import static java.lang.System.in;
  * {@link LookupFromIndexService} performs lookup against a Lookup index for
  * a given input page. See {@link AbstractLookupService} for how it works
  * where it refers to this process as a {@code LEFT JOIN}. Which is mostly is.
+ * <p>
+ *     Requests with a {@code hashTableBudget} instead load every document of the
+ *     Lookup index so {@link HashJoinTableLoader} can build a hash table from them.
+ * </p>
  */
 public class LookupFromIndexService extends AbstractLookupService<LookupFromIndexService.Request, LookupFromIndexService.TransportRequest> {
     public static final String LOOKUP_ACTION_NAME = EsqlQueryAction.NAME + "/lookup_from_index";
+    static final String MULTI_VALUE_WARNING = "LOOKUP JOIN encountered multi-value";
 
     public LookupFromIndexService(
         ClusterService clusterService,
@@ -74,6 +83,7 @@ public class LookupFromIndexService extends AbstractLookupService<LookupFromInde
             null,
             request.extractFields,
             request.matchField,
+            request.hashTableBudget,
             request.source
         );
     }
@@ -86,12 +96,50 @@ public class LookupFromIndexService extends AbstractLookupService<LookupFromInde
         DataType inputDataType,
         Warnings warnings
     ) {
+        if (request.hashTableBudget != null) {
+            checkFitsHashTable(request, context);
+            return QueryList.matchAllQueryList(context, inputBlock);
+        }
         return termQueryList(context.getFieldType(request.matchField), context, inputBlock, inputDataType).onlySingleValues(
             warnings,
-            "LOOKUP JOIN encountered multi-value"
+            MULTI_VALUE_WARNING
         );
     }
 
+    /**
+     * Loading the whole index for a hash table stops as soon as the loaded pages don't fit in
+     * the budget, so the serving node never holds more than the budget for it.
+     */
+    @Override
+    protected long maxResultBytes(TransportRequest request) {
+        return request.hashTableBudget == null ? Long.MAX_VALUE : request.hashTableBudget.getBytes();
+    }
+
+    /**
+     * Fail loading the whole index early if it obviously doesn't fit in the hash table
+     * budget or if its match field normalizes the terms it's queried with, which a hash
+     * table can't do. This is only a rough estimate, the budget is enforced while loading
+     * by {@link #maxResultBytes}.
+     */
+    private static void checkFitsHashTable(TransportRequest request, SearchExecutionContext context) {
+        if (context.getFieldType(request.matchField) instanceof KeywordFieldMapper.KeywordFieldType keyword && keyword.hasNormalizer()) {
+            throw new EsqlIllegalArgumentException("can't build a hash table on [{}] because it has a normalizer", request.matchField);
+        }
+        long rowSize = 0;
+        for (NamedExpression field : request.extractFields) {
+            rowSize += field.dataType().estimatedSize().orElse(50);
+        }
+        long estimatedBytes = rowSize * context.searcher().getIndexReader().numDocs();
+        if (estimatedBytes > request.hashTableBudget.getBytes()) {
+            throw new EsqlIllegalArgumentException(
+                "[{}] is estimated at [{}] which doesn't fit in the hash table budget [{}]",
+                request.shardId.getIndexName(),
+                ByteSizeValue.ofBytes(estimatedBytes),
+                request.hashTableBudget
+            );
+        }
+    }
+
     @Override
     protected LookupResponse createLookupResponse(List<Page> pages, BlockFactory blockFactory) throws IOException {
         return new LookupResponse(pages, blockFactory);
@@ -104,6 +152,12 @@ public class LookupFromIndexService extends AbstractLookupService<LookupFromInde
 
     public static class Request extends AbstractLookupService.Request {
         private final String matchField;
+        /**
+         * If not {@code null} load the {@code extractFields} of every document rather than
+         * looking up the input page, failing if they won't fit in this many bytes.
+         */
+        @Nullable
+        private final ByteSizeValue hashTableBudget;
 
         Request(
             String sessionId,
@@ -112,15 +166,19 @@ public class LookupFromIndexService extends AbstractLookupService<LookupFromInde
             String matchField,
             Page inputPage,
             List<NamedExpression> extractFields,
+            @Nullable ByteSizeValue hashTableBudget,
             Source source
         ) {
             super(sessionId, index, inputDataType, inputPage, extractFields, source);
             this.matchField = matchField;
+            this.hashTableBudget = hashTableBudget;
         }
     }
 
     protected static class TransportRequest extends AbstractLookupService.TransportRequest {
         private final String matchField;
+        @Nullable
+        private final ByteSizeValue hashTableBudget;
 
         TransportRequest(
             String sessionId,
@@ -130,10 +188,12 @@ public class LookupFromIndexService extends AbstractLookupService<LookupFromInde
             Page toRelease,
             List<NamedExpression> extractFields,
             String matchField,
+            @Nullable ByteSizeValue hashTableBudget,
             Source source
         ) {
             super(sessionId, shardId, inputDataType, inputPage, toRelease, extractFields, source);
             this.matchField = matchField;
+            this.hashTableBudget = hashTableBudget;
         }
 
         static TransportRequest readFrom(StreamInput in, BlockFactory blockFactory) throws IOException {
@@ -158,6 +218,10 @@ public class LookupFromIndexService extends AbstractLookupService<LookupFromInde
                 String sourceText = in.readString();
                 source = new Source(source.source(), sourceText);
             }
+            ByteSizeValue hashTableBudget = null;
+            if (in.getTransportVersion().onOrAfter(TransportVersions.ESQL_LOOKUP_JOIN_HASH_TABLE)) {
+                hashTableBudget = in.readOptionalWriteable(ByteSizeValue::readFrom);
+            }
             TransportRequest result = new TransportRequest(
                 sessionId,
                 shardId,
@@ -166,6 +230,7 @@ public class LookupFromIndexService extends AbstractLookupService<LookupFromInde
                 inputPage,
                 extractFields,
                 matchField,
+                hashTableBudget,
                 source
             );
             result.setParentTask(parentTaskId);
@@ -188,10 +253,18 @@ public class LookupFromIndexService extends AbstractLookupService<LookupFromInde
             if (out.getTransportVersion().onOrAfter(TransportVersions.ESQL_LOOKUP_JOIN_SOURCE_TEXT)) {
                 out.writeString(source.text());
             }
+            if (out.getTransportVersion().onOrAfter(TransportVersions.ESQL_LOOKUP_JOIN_HASH_TABLE)) {
+                out.writeOptionalWriteable(hashTableBudget);
+            } else if (hashTableBudget != null) {
+                throw new IllegalArgumentException("loading a hash table isn't supported on [" + out.getTransportVersion() + "]");
+            }
         }
 
         @Override
         protected String extraDescription() {
+            if (hashTableBudget != null) {
+                return " ,match_field=" + matchField + " ,hash_table_budget=" + hashTableBudget;
+            }
             return " ,match_field=" + matchField;
         }
     }
@@ -12,6 +12,7 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.time.DateUtils;
 import org.elasticsearch.compute.ann.Evaluator;
 import org.elasticsearch.compute.ann.Fixed;
+import org.elasticsearch.simdvec.columnar.ESColumnarUtil;
 import org.elasticsearch.xpack.esql.core.expression.Expression;
 import org.elasticsearch.xpack.esql.core.tree.NodeInfo;
 import org.elasticsearch.xpack.esql.core.tree.Source;
@@ -110,26 +111,38 @@ public class Add extends DateTimeArithmeticOperation implements BinaryComparison
         return true;
     }
 
-    @Evaluator(extraName = "Ints", warnExceptions = { ArithmeticException.class })
+    @Evaluator(extraName = "Ints", warnExceptions = { ArithmeticException.class }, bulkProcess = "processIntsBulk")
     static int processInts(int lhs, int rhs) {
         return Math.addExact(lhs, rhs);
     }
 
-    @Evaluator(extraName = "Longs", warnExceptions = { ArithmeticException.class })
+    static boolean processIntsBulk(int[] lhs, int[] rhs, int[] result, int length) {
+        return ESColumnarUtil.addExact(lhs, rhs, result, length);
+    }
+
+    @Evaluator(extraName = "Longs", warnExceptions = { ArithmeticException.class }, bulkProcess = "processLongsBulk")
     static long processLongs(long lhs, long rhs) {
         return Math.addExact(lhs, rhs);
     }
 
+    static boolean processLongsBulk(long[] lhs, long[] rhs, long[] result, int length) {
+        return ESColumnarUtil.addExact(lhs, rhs, result, length);
+    }
+
     @Evaluator(extraName = "UnsignedLongs", warnExceptions = { ArithmeticException.class })
     public static long processUnsignedLongs(long lhs, long rhs) {
         return unsignedLongAddExact(lhs, rhs);
     }
 
-    @Evaluator(extraName = "Doubles", warnExceptions = { ArithmeticException.class })
+    @Evaluator(extraName = "Doubles", warnExceptions = { ArithmeticException.class }, bulkProcess = "processDoublesBulk")
     static double processDoubles(double lhs, double rhs) {
         return NumericUtils.asFiniteNumber(lhs + rhs);
     }
 
+    static boolean processDoublesBulk(double[] lhs, double[] rhs, double[] result, int length) {
+        return ESColumnarUtil.add(lhs, rhs, result, length);
+    }
+
     @Evaluator(extraName = "Datetimes", warnExceptions = { ArithmeticException.class, DateTimeException.class })
     static long processDatetimes(long datetime, @Fixed TemporalAmount temporalAmount) {
         // using a UTC conversion since `datetime` is always a UTC-Epoch timestamp, either read from ES or converted through a function
@@ -10,6 +10,7 @@ package org.elasticsearch.xpack.esql.expression.predicate.operator.arithmetic;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.compute.ann.Evaluator;
+import org.elasticsearch.simdvec.columnar.ESColumnarUtil;
 import org.elasticsearch.xpack.esql.core.expression.Expression;
 import org.elasticsearch.xpack.esql.core.tree.NodeInfo;
 import org.elasticsearch.xpack.esql.core.tree.Source;
@@ -104,9 +105,13 @@ public class Mul extends EsqlArithmeticOperation implements BinaryComparisonInve
         return unsignedLongMultiplyExact(lhs, rhs);
     }
 
-    @Evaluator(extraName = "Doubles", warnExceptions = { ArithmeticException.class })
+    @Evaluator(extraName = "Doubles", warnExceptions = { ArithmeticException.class }, bulkProcess = "processDoublesBulk")
     static double processDoubles(double lhs, double rhs) {
         return NumericUtils.asFiniteNumber(lhs * rhs);
     }
 
+    static boolean processDoublesBulk(double[] lhs, double[] rhs, double[] result, int length) {
+        return ESColumnarUtil.multiply(lhs, rhs, result, length);
+    }
+
 }
@@ -12,6 +12,7 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.time.DateUtils;
 import org.elasticsearch.compute.ann.Evaluator;
 import org.elasticsearch.compute.ann.Fixed;
+import org.elasticsearch.simdvec.columnar.ESColumnarUtil;
 import org.elasticsearch.xpack.esql.core.expression.Expression;
 import org.elasticsearch.xpack.esql.core.tree.NodeInfo;
 import org.elasticsearch.xpack.esql.core.tree.Source;
@@ -123,26 +124,38 @@ public class Sub extends DateTimeArithmeticOperation implements BinaryComparison
         return Add::new;
     }
 
-    @Evaluator(extraName = "Ints", warnExceptions = { ArithmeticException.class })
+    @Evaluator(extraName = "Ints", warnExceptions = { ArithmeticException.class }, bulkProcess = "processIntsBulk")
     static int processInts(int lhs, int rhs) {
         return Math.subtractExact(lhs, rhs);
     }
 
-    @Evaluator(extraName = "Longs", warnExceptions = { ArithmeticException.class })
+    static boolean processIntsBulk(int[] lhs, int[] rhs, int[] result, int length) {
+        return ESColumnarUtil.subtractExact(lhs, rhs, result, length);
+    }
+
+    @Evaluator(extraName = "Longs", warnExceptions = { ArithmeticException.class }, bulkProcess = "processLongsBulk")
     static long processLongs(long lhs, long rhs) {
         return Math.subtractExact(lhs, rhs);
     }
 
+    static boolean processLongsBulk(long[] lhs, long[] rhs, long[] result, int length) {
+        return ESColumnarUtil.subtractExact(lhs, rhs, result, length);
+    }
+
     @Evaluator(extraName = "UnsignedLongs", warnExceptions = { ArithmeticException.class })
     static long processUnsignedLongs(long lhs, long rhs) {
         return unsignedLongSubtractExact(lhs, rhs);
     }
 
-    @Evaluator(extraName = "Doubles", warnExceptions = { ArithmeticException.class })
+    @Evaluator(extraName = "Doubles", warnExceptions = { ArithmeticException.class }, bulkProcess = "processDoublesBulk")
     static double processDoubles(double lhs, double rhs) {
         return NumericUtils.asFiniteNumber(lhs - rhs);
     }
 
+    static boolean processDoublesBulk(double[] lhs, double[] rhs, double[] result, int length) {
+        return ESColumnarUtil.subtract(lhs, rhs, result, length);
+    }
+
     @Evaluator(extraName = "Datetimes", warnExceptions = { ArithmeticException.class, DateTimeException.class })
     static long processDatetimes(long datetime, @Fixed TemporalAmount temporalAmount) {
         // using a UTC conversion since `datetime` is always a UTC-Epoch timestamp, either read from ES or converted through a function
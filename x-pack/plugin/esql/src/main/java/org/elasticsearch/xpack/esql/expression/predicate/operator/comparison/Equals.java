@@ -10,6 +10,7 @@ import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.time.DateUtils;
 import org.elasticsearch.compute.ann.Evaluator;
+import org.elasticsearch.simdvec.columnar.ESColumnarUtil;
 import org.elasticsearch.xpack.esql.core.expression.Expression;
 import org.elasticsearch.xpack.esql.core.expression.predicate.Negatable;
 import org.elasticsearch.xpack.esql.core.tree.NodeInfo;
@@ -151,16 +152,24 @@ public class Equals extends EsqlBinaryComparison implements Negatable<EsqlBinary
         return new NotEquals(source(), left(), right(), zoneId());
     }
 
-    @Evaluator(extraName = "Ints")
+    @Evaluator(extraName = "Ints", bulkProcess = "processIntsBulk")
     static boolean processInts(int lhs, int rhs) {
         return lhs == rhs;
     }
 
-    @Evaluator(extraName = "Longs")
+    static void processIntsBulk(int[] lhs, int[] rhs, boolean[] result, int length) {
+        ESColumnarUtil.compare(lhs, rhs, result, length, ESColumnarUtil.Comparison.EQ);
+    }
+
+    @Evaluator(extraName = "Longs", bulkProcess = "processLongsBulk")
     static boolean processLongs(long lhs, long rhs) {
         return lhs == rhs;
     }
 
+    static void processLongsBulk(long[] lhs, long[] rhs, boolean[] result, int length) {
+        ESColumnarUtil.compare(lhs, rhs, result, length, ESColumnarUtil.Comparison.EQ);
+    }
+
     @Evaluator(extraName = "MillisNanos")
     static boolean processMillisNanos(long lhs, long rhs) {
         return DateUtils.compareNanosToMillis(rhs, lhs) == 0;
@@ -171,11 +180,15 @@ public class Equals extends EsqlBinaryComparison implements Negatable<EsqlBinary
         return DateUtils.compareNanosToMillis(lhs, rhs) == 0;
     }
 
-    @Evaluator(extraName = "Doubles")
+    @Evaluator(extraName = "Doubles", bulkProcess = "processDoublesBulk")
     static boolean processDoubles(double lhs, double rhs) {
         return lhs == rhs;
     }
 
+    static void processDoublesBulk(double[] lhs, double[] rhs, boolean[] result, int length) {
+        ESColumnarUtil.compare(lhs, rhs, result, length, ESColumnarUtil.Comparison.EQ);
+    }
+
     @Evaluator(extraName = "Keywords")
     static boolean processKeywords(BytesRef lhs, BytesRef rhs) {
         return lhs.equals(rhs);
@@ -10,6 +10,7 @@ import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.time.DateUtils;
 import org.elasticsearch.compute.ann.Evaluator;
+import org.elasticsearch.simdvec.columnar.ESColumnarUtil;
 import org.elasticsearch.xpack.esql.core.expression.Expression;
 import org.elasticsearch.xpack.esql.core.expression.predicate.Negatable;
 import org.elasticsearch.xpack.esql.core.tree.NodeInfo;
@@ -110,16 +111,24 @@ public class LessThan extends EsqlBinaryComparison implements Negatable<EsqlBina
         return new GreaterThan(source(), left(), right(), zoneId());
     }
 
-    @Evaluator(extraName = "Ints")
+    @Evaluator(extraName = "Ints", bulkProcess = "processIntsBulk")
     static boolean processInts(int lhs, int rhs) {
         return lhs < rhs;
     }
 
-    @Evaluator(extraName = "Longs")
+    static void processIntsBulk(int[] lhs, int[] rhs, boolean[] result, int length) {
+        ESColumnarUtil.compare(lhs, rhs, result, length, ESColumnarUtil.Comparison.LT);
+    }
+
+    @Evaluator(extraName = "Longs", bulkProcess = "processLongsBulk")
     static boolean processLongs(long lhs, long rhs) {
         return lhs < rhs;
     }
 
+    static void processLongsBulk(long[] lhs, long[] rhs, boolean[] result, int length) {
+        ESColumnarUtil.compare(lhs, rhs, result, length, ESColumnarUtil.Comparison.LT);
+    }
+
     @Evaluator(extraName = "MillisNanos")
     static boolean processMillisNanos(long lhs, long rhs) {
         // Note, parameters are reversed, so we need to invert the check.
@@ -131,11 +140,15 @@ public class LessThan extends EsqlBinaryComparison implements Negatable<EsqlBina
         return DateUtils.compareNanosToMillis(lhs, rhs) < 0;
     }
 
-    @Evaluator(extraName = "Doubles")
+    @Evaluator(extraName = "Doubles", bulkProcess = "processDoublesBulk")
     static boolean processDoubles(double lhs, double rhs) {
         return lhs < rhs;
     }
 
+    static void processDoublesBulk(double[] lhs, double[] rhs, boolean[] result, int length) {
+        ESColumnarUtil.compare(lhs, rhs, result, length, ESColumnarUtil.Comparison.LT);
+    }
+
     @Evaluator(extraName = "Keywords")  // TODO rename to "Bytes"
     static boolean processKeywords(BytesRef lhs, BytesRef rhs) {
         return lhs.compareTo(rhs) < 0;
@@ -8,6 +8,7 @@
 package org.elasticsearch.xpack.esql.planner;
 
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.compute.Describable;
 import org.elasticsearch.compute.aggregation.AggregatorMode;
@@ -43,6 +44,7 @@ import org.elasticsearch.compute.operator.exchange.ExchangeSink;
 import org.elasticsearch.compute.operator.exchange.ExchangeSinkOperator.ExchangeSinkOperatorFactory;
 import org.elasticsearch.compute.operator.exchange.ExchangeSource;
 import org.elasticsearch.compute.operator.exchange.ExchangeSourceOperator.ExchangeSourceOperatorFactory;
+import org.elasticsearch.compute.operator.topn.ExternalTopNOperator.ExternalTopNOperatorFactory;
 import org.elasticsearch.compute.operator.topn.TopNEncoder;
 import org.elasticsearch.compute.operator.topn.TopNOperator;
 import org.elasticsearch.compute.operator.topn.TopNOperator.TopNOperatorFactory;
@@ -68,6 +70,7 @@ import org.elasticsearch.xpack.esql.core.type.DataType;
 import org.elasticsearch.xpack.esql.core.util.Holder;
 import org.elasticsearch.xpack.esql.enrich.EnrichLookupOperator;
 import org.elasticsearch.xpack.esql.enrich.EnrichLookupService;
+import org.elasticsearch.xpack.esql.enrich.HashJoinTableLoader;
 import org.elasticsearch.xpack.esql.enrich.LookupFromIndexOperator;
 import org.elasticsearch.xpack.esql.enrich.LookupFromIndexService;
 import org.elasticsearch.xpack.esql.evaluator.EvalMapper;
@@ -101,6 +104,7 @@ import org.elasticsearch.xpack.esql.planner.EsPhysicalOperationProviders.ShardCo
 import org.elasticsearch.xpack.esql.plugin.QueryPragmas;
 import org.elasticsearch.xpack.esql.session.Configuration;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -138,6 +142,7 @@ public class LocalExecutionPlanner {
     private final LookupFromIndexService lookupFromIndexService;
     private final PhysicalOperationProviders physicalOperationProviders;
     private final List<ShardContext> shardContexts;
+    private final Supplier<Path> spillDirectory;
 
     public LocalExecutionPlanner(
         String sessionId,
@@ -152,7 +157,8 @@ public class LocalExecutionPlanner {
         EnrichLookupService enrichLookupService,
         LookupFromIndexService lookupFromIndexService,
         PhysicalOperationProviders physicalOperationProviders,
-        List<ShardContext> shardContexts
+        List<ShardContext> shardContexts,
+        Supplier<Path> spillDirectory
     ) {
 
         this.sessionId = sessionId;
@@ -168,6 +174,7 @@ public class LocalExecutionPlanner {
         this.physicalOperationProviders = physicalOperationProviders;
         this.configuration = configuration;
         this.shardContexts = shardContexts;
+        this.spillDirectory = spillDirectory;
     }
 
     /**
@@ -181,7 +188,8 @@ public class LocalExecutionPlanner {
             bigArrays,
             blockFactory,
             foldCtx,
-            settings
+            settings,
+            spillDirectory
         );
 
         // workaround for https://github.com/elastic/elasticsearch/issues/99782
@@ -404,6 +412,29 @@ public class LocalExecutionPlanner {
         } else {
             throw new EsqlIllegalArgumentException("limit only supported with literal values");
         }
+        long budget = context.queryPragmas().topNMemoryBudget().getBytes();
+        long breakerLimit = context.blockFactory().breaker().getLimit();
+        if (breakerLimit > 0) {
+            // leave the other half of the request breaker to the rest of the query
+            budget = Math.min(budget, breakerLimit / 2);
+        }
+        // the budget is for the node, every driver running the sort gets its share
+        budget /= Math.max(1, context.driverParallelism().get().instanceCount());
+        if ((long) rowSize * limit > budget) {
+            // the top rows are unlikely to fit in memory, sort them in runs on disk and merge them
+            return source.with(
+                new ExternalTopNOperatorFactory(
+                    limit,
+                    asList(elementTypes),
+                    asList(encoders),
+                    orders,
+                    context.pageSize(rowSize),
+                    budget,
+                    context.spillDirectory().get()
+                ),
+                source.layout
+            );
+        }
         return source.with(
             new TopNOperatorFactory(limit, asList(elementTypes), asList(encoders), orders, context.pageSize(rowSize)),
             source.layout
@@ -605,6 +636,24 @@ public class LocalExecutionPlanner {
         }
         // TODO support multiple match fields, and support more than equality predicates
         MatchConfig matchConfig = matchFields.getFirst();
+        List<NamedExpression> loadFields = join.addedFields().stream().map(f -> (NamedExpression) f).toList();
+
+        HashJoinTableLoader hashJoinTable = null;
+        ByteSizeValue hashTableBudget = context.queryPragmas().lookupJoinHashTableBudget();
+        if (hashTableBudget.getBytes() > 0 && HashJoinTableLoader.supports(matchConfig.type(), matchConfig.fieldType())) {
+            hashJoinTable = new HashJoinTableLoader(
+                sessionId,
+                parentTask,
+                lookupFromIndexService,
+                indexName,
+                matchConfig.type(),
+                matchConfig.fieldName(),
+                matchConfig.fieldType(),
+                loadFields,
+                hashTableBudget,
+                join.source()
+            );
+        }
 
         return source.with(
             new LookupFromIndexOperator.Factory(
@@ -616,17 +665,18 @@ public class LocalExecutionPlanner {
                 matchConfig.type(),
                 indexName,
                 matchConfig.fieldName(),
-                join.addedFields().stream().map(f -> (NamedExpression) f).toList(),
-                join.source()
+                loadFields,
+                join.source(),
+                hashJoinTable
             ),
             layout
         );
     }
 
-    private record MatchConfig(String fieldName, int channel, DataType type) {
+    private record MatchConfig(String fieldName, DataType fieldType, int channel, DataType type) {
         private MatchConfig(FieldAttribute match, Layout.ChannelAndType input) {
             // Note, this handles TEXT fields with KEYWORD subfields
-            this(match.exactAttribute().name(), input.channel(), input.type());
+            this(match.exactAttribute().name(), match.exactAttribute().dataType(), input.channel(), input.type());
         }
     }
 
@@ -835,7 +885,8 @@ public class LocalExecutionPlanner {
         BigArrays bigArrays,
         BlockFactory blockFactory,
         FoldContext foldCtx,
-        Settings settings
+        Settings settings,
+        Supplier<Path> spillDirectory
     ) {
         void addDriverFactory(DriverFactory driverFactory) {
             driverFactories.add(driverFactory);
@@ -78,6 +78,7 @@ public class ComputeService {
     private final SearchService searchService;
     private final BigArrays bigArrays;
     private final BlockFactory blockFactory;
+    private final SpillDirectories spillDirectories;
 
     private final TransportService transportService;
     private final DriverTaskRunner driverRunner;
@@ -99,12 +100,14 @@ public class ComputeService {
         ClusterService clusterService,
         ThreadPool threadPool,
         BigArrays bigArrays,
-        BlockFactory blockFactory
+        BlockFactory blockFactory,
+        SpillDirectories spillDirectories
     ) {
         this.searchService = searchService;
         this.transportService = transportService;
         this.bigArrays = bigArrays.withCircuitBreaking();
         this.blockFactory = blockFactory;
+        this.spillDirectories = spillDirectories;
         var esqlExecutor = threadPool.executor(ThreadPool.Names.SEARCH);
         this.driverRunner = new DriverTaskRunner(transportService, esqlExecutor);
         this.enrichLookupService = enrichLookupService;
@@ -357,6 +360,7 @@ public class ComputeService {
             );
         }
         final List<Driver> drivers;
+        final SpillDirectories.QueryDirectory spillDirectory = spillDirectories.newQueryDirectory();
         try {
             LocalExecutionPlanner planner = new LocalExecutionPlanner(
                 context.sessionId(),
@@ -371,7 +375,8 @@ public class ComputeService {
                 enrichLookupService,
                 lookupFromIndexService,
                 new EsPhysicalOperationProviders(context.foldCtx(), contexts, searchService.getIndicesService().getAnalysis()),
-                contexts
+                contexts,
+                spillDirectory
             );
 
             LOGGER.debug("Received physical plan:\n{}", plan);
@@ -390,6 +395,7 @@ public class ComputeService {
             }
             LOGGER.debug("using {} drivers", drivers.size());
         } catch (Exception e) {
+            spillDirectory.close();
             listener.onFailure(e);
             return;
         }
@@ -400,7 +406,11 @@ public class ComputeService {
                 return List.of();
             }
         });
-        listenerCollectingStatus = ActionListener.releaseAfter(listenerCollectingStatus, () -> Releasables.close(drivers));
+        listenerCollectingStatus = ActionListener.releaseAfter(
+            listenerCollectingStatus,
+            // the drivers delete their spill files, so remove the directory of the query only once they are closed
+            () -> Releasables.close(Releasables.wrap(drivers), spillDirectory)
+        );
         driverRunner.executeDrivers(
             task,
             drivers,
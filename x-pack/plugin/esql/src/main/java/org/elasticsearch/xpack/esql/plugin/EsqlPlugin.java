@@ -122,7 +122,8 @@ public class EsqlPlugin extends Plugin implements ActionPlugin {
                 ThreadPool.Names.SEARCH,
                 blockFactoryProvider.blockFactory()
             ),
-            blockFactoryProvider
+            blockFactoryProvider,
+            new SpillDirectories(services.environment().tmpDir(), services.nodeEnvironment().nodeId())
         );
     }
 
@@ -61,6 +61,15 @@ public final class QueryPragmas implements Writeable {
 
     public static final Setting<ByteSizeValue> FOLD_LIMIT = Setting.memorySizeSetting("fold_limit", "5%");
 
+    public static final Setting<ByteSizeValue> TOPN_MEMORY_BUDGET = Setting.memorySizeSetting("topn_memory_budget", "10%");
+
+    public static final Setting<Double> AGGREGATION_SPILL_THRESHOLD = Setting.doubleSetting("aggregation_spill_threshold", 0, 0, 1);
+
+    public static final Setting<ByteSizeValue> LOOKUP_JOIN_HASH_TABLE_BUDGET = Setting.memorySizeSetting(
+        "lookup_join_hash_table_budget",
+        "0"
+    );
+
     public static final QueryPragmas EMPTY = new QueryPragmas(Settings.EMPTY);
 
     private final Settings settings;
@@ -149,6 +158,35 @@ public final class QueryPragmas implements Writeable {
         return FOLD_LIMIT.get(settings);
     }
 
+    /**
+     * The memory a {@code SORT ... | LIMIT} may use on each node to keep its top rows. It's shared by all drivers
+     * running the sort on the node and capped at half of the limit of the request circuit breaker. When the estimated
+     * size of a row times the limit exceeds a driver's share, rows are sorted in runs on local temporary files of about
+     * that size which are then merged. This defaults to 10% of the memory of the node that runs the sort.
+     */
+    public ByteSizeValue topNMemoryBudget() {
+        return TOPN_MEMORY_BUDGET.get(settings);
+    }
+
+    /**
+     * The fraction of the limit of the request circuit breaker above which grouping aggregations spill their groups
+     * to local temporary files, and merge them back partition by partition once all input is consumed. Spilling is
+     * disabled with {@code 0}, which is the default.
+     */
+    public double aggregationSpillThreshold() {
+        return AGGREGATION_SPILL_THRESHOLD.get(settings);
+    }
+
+    /**
+     * The memory a {@code LOOKUP JOIN} may use to load its whole lookup index into a hash table on each node, so pages
+     * are joined in the driver rather than with a lookup request each. Larger lookup indices are looked up page by page.
+     * Hash joins are disabled with {@code 0}, which is the default, because the whole lookup index is loaded even if the
+     * join only needs a few of its rows.
+     */
+    public ByteSizeValue lookupJoinHashTableBudget() {
+        return LOOKUP_JOIN_HASH_TABLE_BUDGET.get(settings);
+    }
+
     public boolean isEmpty() {
         return settings.isEmpty();
     }
@@ -0,0 +1,93 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.esql.plugin;
+
+import org.elasticsearch.core.IOUtils;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.logging.LogManager;
+import org.elasticsearch.logging.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Supplier;
+
+/**
+ * The local directories that operators spill to when memory runs low. Every query gets its own directory below the
+ * directory of the node, which is removed with everything in it once the query is done. The directory of the node is
+ * emptied when the node starts, so the files of queries that were running when the node stopped don't pile up.
+ */
+public class SpillDirectories {
+    private static final Logger logger = LogManager.getLogger(SpillDirectories.class);
+
+    private final Path nodeDirectory;
+
+    /**
+     * @param tmpDir the temporary directory of the node, see {@link org.elasticsearch.env.Environment#tmpDir()}
+     * @param nodeId the id of the node, so nodes that share the temporary directory don't remove each other's files
+     */
+    public SpillDirectories(Path tmpDir, String nodeId) {
+        this.nodeDirectory = tmpDir.resolve("esql-spill").resolve(nodeId);
+        try {
+            IOUtils.rm(nodeDirectory);
+        } catch (IOException e) {
+            logger.warn("failed to remove leftover spill files in [{}]", nodeDirectory, e);
+        }
+    }
+
+    /**
+     * Returns a new directory for a query, which the caller must close once the query is done.
+     */
+    public QueryDirectory newQueryDirectory() {
+        return new QueryDirectory(nodeDirectory);
+    }
+
+    /**
+     * The directory of a single query. It is only created when an operator asks for it.
+     */
+    public static final class QueryDirectory implements Supplier<Path>, Releasable {
+        private final Path nodeDirectory;
+        private Path directory;
+        private boolean closed;
+
+        QueryDirectory(Path nodeDirectory) {
+            this.nodeDirectory = nodeDirectory;
+        }
+
+        @Override
+        public synchronized Path get() {
+            if (closed) {
+                throw new IllegalStateException("spill directory already closed");
+            }
+            if (directory == null) {
+                try {
+                    Files.createDirectories(nodeDirectory);
+                    directory = Files.createTempDirectory(nodeDirectory, "query-");
+                } catch (IOException e) {
+                    throw new UncheckedIOException("failed to create spill directory in [" + nodeDirectory + "]", e);
+                }
+            }
+            return directory;
+        }
+
+        @Override
+        public synchronized void close() {
+            closed = true;
+            if (directory == null) {
+                return;
+            }
+            try {
+                IOUtils.rm(directory);
+            } catch (IOException e) {
+                logger.warn("failed to remove spill directory [{}]", directory, e);
+            }
+            directory = null;
+        }
+    }
+}
@@ -649,7 +649,8 @@ public class CsvTests extends ESTestCase {
             Mockito.mock(EnrichLookupService.class),
             Mockito.mock(LookupFromIndexService.class),
             physicalOperationProviders,
-            List.of()
+            List.of(),
+            () -> createTempDir()
         );
 
         List<Page> collectedPages = Collections.synchronizedList(new ArrayList<>());
@@ -14,10 +14,12 @@ import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.tests.index.RandomIndexWriter;
 import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.action.support.replication.ClusterStateCreationUtils;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodeUtils;
 import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.collect.Iterators;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
@@ -34,8 +36,12 @@ import org.elasticsearch.compute.data.Page;
 import org.elasticsearch.compute.operator.DriverContext;
 import org.elasticsearch.compute.operator.Operator;
 import org.elasticsearch.compute.operator.SourceOperator;
+import org.elasticsearch.compute.operator.lookup.HashJoinTable;
+import org.elasticsearch.compute.test.BlockTestUtils;
+import org.elasticsearch.compute.test.CannedSourceOperator;
 import org.elasticsearch.compute.test.OperatorTestCase;
 import org.elasticsearch.compute.test.SequenceLongBlockSourceOperator;
+import org.elasticsearch.compute.test.TestBlockFactory;
 import org.elasticsearch.core.IOUtils;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.Releasables;
@@ -131,10 +137,7 @@ public class LookupFromIndexOperatorTests extends OperatorTestCase {
         DataType inputDataType = DataType.LONG;
         String lookupIndex = "idx";
         String matchField = "match";
-        List<NamedExpression> loadFields = List.of(
-            new ReferenceAttribute(Source.EMPTY, "lkwd", DataType.KEYWORD),
-            new ReferenceAttribute(Source.EMPTY, "lint", DataType.INTEGER)
-        );
+        List<NamedExpression> loadFields = loadFields();
         return new LookupFromIndexOperator.Factory(
             sessionId,
             parentTask,
@@ -149,6 +152,66 @@ public class LookupFromIndexOperatorTests extends OperatorTestCase {
         );
     }
 
+    public void testHashTable() {
+        assertHashJoin(ByteSizeValue.ofMb(10), true);
+    }
+
+    /**
+     * A budget too small for the lookup index falls back to looking up each page.
+     */
+    public void testHashTableOverBudgetLooksUpEachPage() {
+        assertHashJoin(ByteSizeValue.ofBytes(between(1, 1024)), false);
+    }
+
+    private void assertHashJoin(ByteSizeValue budget, boolean expectTable) {
+        DriverContext driverContext = driverContext();
+        CancellableTask parentTask = new CancellableTask(0, "test", "test", "test", TaskId.EMPTY_TASK_ID, Map.of());
+        HashJoinTableLoader loader = new HashJoinTableLoader(
+            "test",
+            parentTask,
+            lookupService(driverContext),
+            "idx",
+            DataType.LONG,
+            "match",
+            DataType.LONG,
+            loadFields(),
+            budget,
+            Source.EMPTY
+        );
+        Operator.OperatorFactory factory = new LookupFromIndexOperator.Factory(
+            "test",
+            parentTask,
+            1,
+            0,
+            this::lookupService,
+            DataType.LONG,
+            "idx",
+            "match",
+            loadFields(),
+            Source.EMPTY,
+            loader
+        );
+        List<Page> input = CannedSourceOperator.collectPages(simpleInput(driverContext.blockFactory(), between(1, 5_000)));
+        List<Page> origInput = BlockTestUtils.deepCopyOf(input, TestBlockFactory.getNonBreakingInstance());
+        List<Page> results = drive(factory.get(driverContext), input.iterator(), driverContext);
+        try {
+            assertSimpleOutput(origInput, results);
+            PlainActionFuture<HashJoinTable> table = new PlainActionFuture<>();
+            loader.table(table);
+            assertThat(table.actionGet() != null, equalTo(expectTable));
+        } finally {
+            Releasables.close(Releasables.wrap(() -> Iterators.map(results.iterator(), p -> p::releaseBlocks)));
+        }
+        assertThat(driverContext.breaker().getUsed(), equalTo(0L));
+    }
+
+    private static List<NamedExpression> loadFields() {
+        return List.of(
+            new ReferenceAttribute(Source.EMPTY, "lkwd", DataType.KEYWORD),
+            new ReferenceAttribute(Source.EMPTY, "lint", DataType.INTEGER)
+        );
+    }
+
     @Override
     protected Matcher<String> expectedDescriptionOfSimple() {
         return expectedToStringOfSimple();
@@ -7601,7 +7601,8 @@ public class PhysicalPlanOptimizerTests extends ESTestCase {
             null,
             null,
             new EsPhysicalOperationProviders(FoldContext.small(), List.of(), null),
-            List.of()
+            List.of(),
+            () -> createTempDir()
         );
 
         return planner.plan("test", FoldContext.small(), plan);
@@ -186,7 +186,8 @@ public class LocalExecutionPlannerTests extends MapperServiceTestCase {
             null,
             null,
             esPhysicalOperationProviders(shardContexts),
-            shardContexts
+            shardContexts,
+            () -> createTempDir()
         );
     }
 
@@ -0,0 +1,61 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.esql.plugin;
+
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+
+public class SpillDirectoriesTests extends ESTestCase {
+
+    public void testQueryDirectoryIsRemovedOnClose() throws IOException {
+        SpillDirectories directories = new SpillDirectories(createTempDir(), "node");
+        Path first;
+        Path second;
+        try (SpillDirectories.QueryDirectory query = directories.newQueryDirectory()) {
+            first = query.get();
+            assertTrue(Files.isDirectory(first));
+            assertThat(query.get(), equalTo(first));
+            Files.writeString(first.resolve("spill"), "data");
+            try (SpillDirectories.QueryDirectory other = directories.newQueryDirectory()) {
+                second = other.get();
+                assertThat(second, not(equalTo(first)));
+            }
+            assertFalse(Files.exists(second));
+            assertTrue(Files.exists(first.resolve("spill")));
+        }
+        assertFalse(Files.exists(first));
+    }
+
+    public void testQueryDirectoryIsCreatedLazily() throws IOException {
+        Path tmpDir = createTempDir();
+        SpillDirectories directories = new SpillDirectories(tmpDir, "node");
+        directories.newQueryDirectory().close();
+        assertFalse(Files.exists(tmpDir.resolve("esql-spill")));
+    }
+
+    public void testLeftoversAreRemovedOnStart() throws IOException {
+        Path tmpDir = createTempDir();
+        Path leftover;
+        Path otherNode;
+        try (SpillDirectories.QueryDirectory query = new SpillDirectories(tmpDir, "node").newQueryDirectory()) {
+            leftover = query.get().resolve("spill");
+            Files.writeString(leftover, "data");
+            otherNode = new SpillDirectories(tmpDir, "other").newQueryDirectory().get();
+            // a restarted node removes the files of the queries it was running, but not those of other nodes
+            new SpillDirectories(tmpDir, "node");
+            assertFalse(Files.exists(leftover));
+            assertTrue(Files.exists(otherNode));
+        }
+    }
+}